@@ -0,0 +1,258 @@
+package benchmark;
+
+import io.ReadFile;
+import io.Snapshot;
+import io.WriteFile;
+import library.Library;
+import library.LibraryResources;
+import library.PopularityBoard;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import resources.Book;
+import resources.CopyData;
+import resources.DVD;
+import resources.Laptop;
+import resources.Resource;
+import resources.VideoGame;
+import user.User;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h1>LibraryBenchmark.</h1>
+ * <p>JMH benchmarks of the library against a made up catalogue, so changes to loading, saving, searching,
+ * loaning and the statistics can be measured. Every benchmark runs for each catalogue size, in a fresh JVM
+ * that writes the catalogue to ./data before it starts, so run it from a directory whose data can be
+ * replaced, as gradle jmh does.</p>
+ *
+ * @author James Carter, Peter Daish, Dominik Wojtasiewicz
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g") //A million resources take around 6GB while being written and read.
+public class LibraryBenchmark {
+    private static final int POPULAR_SHOWN = 10; //Resources listed by the stats screen.
+    private static final int FREE_COPIES = 10000; //Most copies the loan benchmark loans in turn.
+
+    /**
+     * <h1>Catalogue.</h1>
+     * <p>A made up catalogue of size resources, written to the data files and loaded into the library.</p>
+     */
+    @State(Scope.Benchmark)
+    public static class Catalogue {
+        @Param({"10000", "100000", "1000000"})
+        public int size;
+
+        private List<String> usernames;
+        private List<String> freeCopies;
+        private int next; //Turn of the next loan in the loan benchmark.
+
+        /**
+         * Writes the catalogue and starts the library from it.
+         */
+        @Setup(Level.Trial)
+        public void setUp() {
+            //The library prints a lot while it works.
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            usernames = SyntheticCatalogue.write(size);
+            Library.start();
+            freeCopies = findFreeCopies(FREE_COPIES);
+        }
+    }
+
+    /**
+     * <h1>SnapshotFile.</h1>
+     * <p>The catalogue written as a binary snapshot too, for the snapshot read benchmark.</p>
+     */
+    @State(Scope.Benchmark)
+    public static class SnapshotFile {
+        /**
+         * Writes the snapshot.
+         * @param catalogue the catalogue, already loaded.
+         */
+        @Setup(Level.Trial)
+        public void setUp(Catalogue catalogue) {
+            writeSnapshot();
+        }
+    }
+
+    /**
+     * <h1>Query.</h1>
+     * <p>Text typed into the search bar.</p>
+     */
+    @State(Scope.Benchmark)
+    public static class Query {
+        @Param({"harry", "lord of the", "dr", "empire king", "zzz"})
+        public String text;
+    }
+
+    /**
+     * <h1>Days.</h1>
+     * <p>Days the stats screen counts borrows over.</p>
+     */
+    @State(Scope.Benchmark)
+    public static class Days {
+        @Param({"1", "7", "30", "" + PopularityBoard.ALL_TIME})
+        public int numDays;
+    }
+
+    /**
+     * Reads the resources data file.
+     * @param catalogue the catalogue.
+     * @return the resources read.
+     */
+    @Benchmark
+    public int readResourcesJSON(Catalogue catalogue) {
+        ArrayList<Book> books = new ArrayList<>();
+        ArrayList<DVD> dvds = new ArrayList<>();
+        ArrayList<Laptop> laptops = new ArrayList<>();
+        ArrayList<VideoGame> games = new ArrayList<>();
+        ReadFile.readResourcesJSON(books, dvds, laptops, games);
+        return books.size() + dvds.size() + laptops.size() + games.size();
+    }
+
+    /**
+     * Starts the library, reading every data file.
+     * @param catalogue the catalogue.
+     * @return the resources loaded.
+     */
+    @Benchmark
+    public int libraryStart(Catalogue catalogue) {
+        Library.start();
+        return LibraryResources.getAllResources().size();
+    }
+
+    /**
+     * Writes every data file.
+     * @param catalogue the catalogue.
+     * @return True if the files were written.
+     */
+    @Benchmark
+    public boolean fullWrite(Catalogue catalogue) {
+        return WriteFile.fullWrite(Library.getAllUsers(), Library.getAllBooks(), Library.getAllDVD(),
+                Library.getAllLaptops(), Library.getAllVideoGames(), Library.getAllLibrarians(),
+                Library.getAllEvents());
+    }
+
+    /**
+     * Writes the binary snapshot.
+     * @param catalogue the catalogue.
+     * @return True if the snapshot was written.
+     */
+    @Benchmark
+    public boolean snapshotWrite(Catalogue catalogue) {
+        return writeSnapshot();
+    }
+
+    /**
+     * Reads the binary snapshot.
+     * @param snapshot the snapshot.
+     * @return the users and resources read.
+     */
+    @Benchmark
+    public int snapshotRead(SnapshotFile snapshot) {
+        ArrayList<User> users = new ArrayList<>();
+        ArrayList<Book> books = new ArrayList<>();
+        ArrayList<DVD> dvds = new ArrayList<>();
+        ArrayList<Laptop> laptops = new ArrayList<>();
+        ArrayList<VideoGame> games = new ArrayList<>();
+        Snapshot.read(users, books, dvds, laptops, games, new ArrayList<>(), new ArrayList<>());
+        return users.size() + books.size() + dvds.size() + laptops.size() + games.size();
+    }
+
+    /**
+     * Searches books, then every resource.
+     * @param catalogue the catalogue.
+     * @param query the text searched for.
+     * @return the matches found.
+     */
+    @Benchmark
+    public int search(Catalogue catalogue, Query query) {
+        return Library.searchResources(query.text, Book.class).size()
+                + Library.searchResources(query.text, Resource.class).size();
+    }
+
+    /**
+     * Loans a free copy to a user and returns it, journaling both.
+     * @param catalogue the catalogue.
+     */
+    @Benchmark
+    public void loanAndReturn(Catalogue catalogue) {
+        int turn = catalogue.next++;
+        String username = catalogue.usernames.get(turn % catalogue.usernames.size());
+        String copyID = catalogue.freeCopies.get(turn % catalogue.freeCopies.size());
+        Library.loanResource(username, copyID);
+        Library.returnResource(username, copyID);
+    }
+
+    /**
+     * Finds every overdue copy.
+     * @param catalogue the catalogue.
+     * @return the overdue copies.
+     */
+    @Benchmark
+    public List<String> findAllOverdue(Catalogue catalogue) {
+        return Library.findAllOverdue();
+    }
+
+    /**
+     * Lists the most borrowed resources the same way as StatsScreen.updatePopularResources.
+     * @param catalogue the catalogue.
+     * @param days the days to count borrows over.
+     * @param blackhole keeps the lines listed.
+     */
+    @Benchmark
+    public void popularResources(Catalogue catalogue, Days days, Blackhole blackhole) {
+        for (String id : PopularityBoard.getMostBorrowed(POPULAR_SHOWN, days.numDays)) {
+            blackhole.consume(Library.getResource(id).getTitle() + " Times Borrowed: "
+                    + PopularityBoard.getTimesBorrowed(id, days.numDays));
+        }
+    }
+
+    /**
+     * Writes the library as a binary snapshot.
+     * @return True if the snapshot was written.
+     */
+    private static boolean writeSnapshot() {
+        return Snapshot.write(Library.getAllUsers(), Library.getAllBooks(), Library.getAllDVD(),
+                Library.getAllLaptops(), Library.getAllVideoGames(), Library.getAllLibrarians(),
+                Library.getAllEvents());
+    }
+
+    /**
+     * Finds copies nobody has borrowed, to loan in the loan benchmark.
+     * @param wanted the most copies to find.
+     * @return list of copy IDs, e.g. "BookID:1-0".
+     */
+    private static List<String> findFreeCopies(int wanted) {
+        List<String> copies = new ArrayList<>();
+        for (Resource r : LibraryResources.getAllResources()) {
+            for (CopyData copy : r.getArrayListOfCopies()) {
+                if (copy.isAvailable()) {
+                    copies.add(r.getUniqueID() + "-" + copy.getId());
+                    if (copies.size() == wanted) {
+                        return copies;
+                    }
+                }
+            }
+        }
+        return copies;
+    }
+}
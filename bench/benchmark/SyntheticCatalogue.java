@@ -0,0 +1,192 @@
+package benchmark;
+
+import event.Event;
+import io.IO;
+import io.WriteFile;
+import resources.BorrowHistoryData;
+import resources.Book;
+import resources.DVD;
+import resources.Laptop;
+import resources.VideoGame;
+import user.Librarian;
+import user.User;
+import org.json.simple.JSONObject;
+import utils.EpochDates;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * <h1>SyntheticCatalogue.</h1>
+ * <p>Writes made up data files of any size into ./data, for the benchmarks to load. Titles are drawn from
+ * a small vocabulary so searches match a realistic share of the catalogue. Every resource has two copies,
+ * some copies are out on loan and some of those were asked to be returned in the past, so are overdue.
+ * Users have borrow histories over the last two months, which feed the popularity statistics, and rated
+ * half of what they borrowed.
+ * The same size always gives the same data. This class is static.</p>
+ *
+ * @author James Carter, Peter Daish, Dominik Wojtasiewicz
+ */
+public class SyntheticCatalogue {
+    static final String[] WORDS = {"harry", "potter", "lord", "rings", "star", "wars", "the", "of", "and",
+        "night", "day", "river", "city", "dark", "light", "empire", "game", "thrones", "mystery", "island",
+        "history", "world", "war", "peace", "love", "king", "queen", "dragon", "ocean", "mountain"};
+    static final int COPIES = 2; //Copies of every resource.
+    private static final int RESOURCES_PER_USER = 100; //One user for this many resources.
+    private static final int HISTORY_PER_USER = 20; //Borrows in the history of every user.
+    private static final int HISTORY_DAYS = 60; //Histories go back this many days.
+    private static final double ON_LOAN = 0.05; //Share of copies out on loan.
+    private static final double OVERDUE = 0.2; //Share of loans asked to be returned in the past.
+    private static final double RATED = 0.5; //Share of borrows the user left a rating for.
+    private static final long SEED = 230; //Seed of the made up data.
+
+    /**
+     * Writes made up data files into ./data, replacing any already there.
+     * @param noOfResources the number of resources in the catalogue, shared between the four types.
+     * @return the usernames of the users written.
+     */
+    public static List<String> write(int noOfResources) {
+        Random random = new Random(SEED);
+        long now = EpochDates.now();
+        new File("./data").mkdirs();
+        new File(IO.getJournalFilePath()).delete();
+
+        int noOfUsers = Math.max(1, noOfResources / RESOURCES_PER_USER);
+        ArrayList<User> users = new ArrayList<>();
+        List<String> usernames = new ArrayList<>();
+        for (int i = 0; i < noOfUsers; i++) {
+            String username = "user" + i;
+            User user = new User(username, "First" + i, "Last" + i, "07000000000", "1 Street", "",
+                    "SA1 1AA", "Swansea", 0, "", username + "@example.com");
+            user.setLastLogin(new Date(now));
+            users.add(user);
+            usernames.add(username);
+        }
+
+        ArrayList<Book> books = new ArrayList<>();
+        ArrayList<DVD> dvds = new ArrayList<>();
+        ArrayList<Laptop> laptops = new ArrayList<>();
+        ArrayList<VideoGame> games = new ArrayList<>();
+        ArrayList<String> allIDs = new ArrayList<>();
+        for (int i = 1; i <= noOfResources; i++) {
+            String title = title(random);
+            String year = String.valueOf(1950 + random.nextInt(70));
+            ArrayList<String> loanDuration = new ArrayList<>(Arrays.asList("7", "14"));
+            List<List<BorrowHistoryData>> history = new ArrayList<>();
+            List<BorrowHistoryData> current = new ArrayList<>();
+            for (int c = 0; c < COPIES; c++) {
+                history.add(new ArrayList<>());
+                current.add(currentLoan(random, users, now));
+            }
+            int n = i / 4 + 1;
+            switch (i % 4) {
+                case 0:
+                    books.add(new Book("01-01-2019", year, title, "", "BookID:" + n, "Author " + random.nextInt(500),
+                            "Genre" + random.nextInt(20), "ISBN" + i, "Publisher" + random.nextInt(50),
+                            new ArrayList<>(Arrays.asList("English")), COPIES, loanDuration, history, current));
+                    allIDs.add("BookID:" + n);
+                    break;
+                case 1:
+                    dvds.add(new DVD("01-01-2019", "Director " + random.nextInt(500), "120", "English",
+                            new ArrayList<>(Arrays.asList("French")), year, title, "", "DVDID:" + n,
+                            COPIES, loanDuration, history, current));
+                    allIDs.add("DVDID:" + n);
+                    break;
+                case 2:
+                    laptops.add(new Laptop("01-01-2019", year, title, "", "LaptopID:" + n, "Maker" + random.nextInt(10),
+                            "Model" + random.nextInt(100), "Linux", COPIES, loanDuration, history, current));
+                    allIDs.add("LaptopID:" + n);
+                    break;
+                default:
+                    games.add(new VideoGame("01-01-2019", year, title, "", "VideoGameID:" + n,
+                            "Genre" + random.nextInt(20), "PEGI 12", "Publisher" + random.nextInt(50), "Yes",
+                            new ArrayList<>(Arrays.asList("English")), COPIES, loanDuration, history, current));
+                    allIDs.add("VideoGameID:" + n);
+                    break;
+            }
+        }
+
+        List<String> ratings = new ArrayList<>();
+        for (User user : users) {
+            for (int h = 0; h < HISTORY_PER_USER; h++) {
+                String resourceID = allIDs.get(random.nextInt(allIDs.size()));
+                String copyID = resourceID + "-" + random.nextInt(COPIES);
+                long borrowed = now - (long) (random.nextDouble() * HISTORY_DAYS * EpochDates.DAY);
+                String[] data = {copyID, EpochDates.format(borrowed), EpochDates.format(borrowed + EpochDates.DAY)};
+                user.getBorrowHistory().add(data);
+                if (random.nextDouble() < RATED) {
+                    ratings.add(rating(resourceID, user.getUserName(), random));
+                }
+            }
+        }
+
+        WriteFile.fullWrite(users, books, dvds, laptops, games, new ArrayList<Librarian>(), new ArrayList<Event>());
+        try {
+            Files.write(Paths.get(IO.getRatingsFilePath()), ratings);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return usernames;
+    }
+
+    /**
+     * Makes up a rating, as one line of the ratings file.
+     * @param resourceID the unique ID of the resource rated.
+     * @param username the user leaving the rating.
+     * @param random the source of random numbers.
+     * @return the rating as JSON.
+     */
+    @SuppressWarnings("unchecked")
+    private static String rating(String resourceID, String username, Random random) {
+        JSONObject rating = new JSONObject();
+        rating.put("id", resourceID);
+        rating.put("message", title(random));
+        rating.put("rating", String.valueOf(1 + random.nextInt(5)));
+        rating.put("username", username);
+        return rating.toJSONString();
+    }
+
+    /**
+     * Makes up a title of two to four words.
+     * @param random the source of random numbers.
+     * @return the title.
+     */
+    static String title(Random random) {
+        StringBuilder title = new StringBuilder();
+        int noOfWords = 2 + random.nextInt(3);
+        for (int w = 0; w < noOfWords; w++) {
+            if (w > 0) {
+                title.append(' ');
+            }
+            title.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return title.toString();
+    }
+
+    /**
+     * Makes up the current loan of a copy, which is empty for most copies.
+     * @param random the source of random numbers.
+     * @param users the users who may be borrowing the copy.
+     * @param now the current time.
+     * @return the current loan of the copy.
+     */
+    private static BorrowHistoryData currentLoan(Random random, List<User> users, long now) {
+        BorrowHistoryData loan = new BorrowHistoryData();
+        if (random.nextDouble() < ON_LOAN) {
+            loan.setUserID(users.get(random.nextInt(users.size())).getUserName());
+            loan.setTimeBorrowed(now - (long) (random.nextDouble() * HISTORY_DAYS * EpochDates.DAY));
+            if (random.nextDouble() < OVERDUE) {
+                loan.setTimeRequestedReturn(now - EpochDates.DAY - random.nextInt((int) EpochDates.DAY));
+            }
+        }
+        return loan;
+    }
+}
@@ -1,7 +1,11 @@
 import javafx.application.Application;
 import javafx.stage.Stage;
+import io.IO;
 import library.Library;
+import library.Outbox;
+import library.SmtpTransport;
 import screen.ScreenManager;
+import utils.Metrics;
 
 /**
  * <h1>Main.</h1>
@@ -9,6 +13,7 @@ import screen.ScreenManager;
  * @author James Carter, Peter Daish, Deyan Naydenov   
  */
 public class Main extends Application {
+	private static final long METRICS_DUMP_SECONDS = 60; //Seconds between writes of the metrics file.
 	
 	/**
 	 * The main method which loads the program.
@@ -26,7 +31,10 @@ public class Main extends Application {
      * The primary stage used for this program.
      */
     public void start(Stage primaryStage) {
+        Metrics.registerMBean();
+        Metrics.startDump(IO.getMetricsFilePath(), METRICS_DUMP_SECONDS);
         Library.start();
+        Outbox.start(new SmtpTransport());
 
         try {
         	ScreenManager.start(primaryStage);
@@ -1,8 +1,7 @@
 package event;
 
-import library.LibraryEvents;
-
-import java.util.ArrayList;
+import utils.IdAllocator;
+import utils.Log;
 
 /**
  * This class provides the framework for creating an event - provided by the library -  which users can attend.
@@ -10,7 +9,8 @@ import java.util.ArrayList;
  *
  */
 public class Event {
-	 
+    private static final String ID_TYPE = "EventID"; //The type of the IDs of events, given out by IdAllocator.
+
 	private String eventID;
     private String title;
     private String date;
@@ -41,7 +41,7 @@ public class Event {
         this.maxNumberOfAttending = maxNumberOfAttending;
         this.currentNumberOfAttending = 0;
         this.description = description;
-        System.out.print("New event created");
+        Log.debug("New event created " + eventID);
     }
 
     /**
@@ -63,14 +63,14 @@ public class Event {
      */
     public Event(String eventID, String title, String date, String time, int maxNumberOfAttending, int currentNumberOfAttending,
                  String description) {
-        this.eventID = eventID;
+        this.eventID = IdAllocator.observe(eventID);
         this.title = title;
         this.date = date;
         this.time = time;
         this.maxNumberOfAttending = maxNumberOfAttending;
         this.currentNumberOfAttending = currentNumberOfAttending;
         this.description = description;
-        System.out.print("New event created");
+        Log.debug("New event created " + eventID);
     }
 
     /**
@@ -192,15 +192,10 @@ public class Event {
     }
 
     /**
-     * Generates the unique id of this event.
+     * Generates the unique id of this event, higher than that of any event created or loaded so far.
      * @return A string containing the unique id of this event.
      */
     public String generateEventID(){
-        ArrayList<Event> list = LibraryEvents.getAllEvents();
-        if (list.size() == 0) {
-            return "EventID:0";
-        }
-        int eventID = Integer.valueOf(list.get(list.size()-1).getEventID().split(":")[1]) + 1;
-        return "EventID:" + String.valueOf(eventID);
+        return IdAllocator.next(ID_TYPE);
     }
 }
@@ -13,6 +13,17 @@ public abstract class IO {
 	private static final String RATINGS_FILEPATH = "./data/ratings.json";
 	private static final String RESOURCE_FILEPATH = "./data/resources.json";
 	private static final String EVENT_FILEPATH = "./data/events.json";
+	private static final String JOURNAL_FILEPATH = "./data/journal.json";
+	private static final String METRICS_FILEPATH = "./data/metrics.txt";
+	private static final String OUTBOX_FILEPATH = "./data/outbox.json";
+	private static final String TRAILERS_FILEPATH = "./data/trailers.json";
+	private static final String SNAPSHOT_FILEPATH = "./data/library.snapshot";
+
+	//True to keep the library in the binary snapshot instead of the JSON data files, set with -Dlibrary.snapshot=binary.
+	private static volatile boolean binarySnapshot = "binary".equals(System.getProperty("library.snapshot"))
+			|| "mapped".equals(System.getProperty("library.snapshot"));
+	//True to map the binary snapshot into memory and decode borrow histories only when used, set with -Dlibrary.snapshot=mapped.
+	private static volatile boolean mappedSnapshot = "mapped".equals(System.getProperty("library.snapshot"));
 
 	/**
 	 * This method returns the file path of the data file that holds the users information.
@@ -53,4 +64,81 @@ public abstract class IO {
 		return EVENT_FILEPATH;
 	}
 
+	/**
+	 * This method returns the file path of the journal of changes made since the data files were last written.
+	 * @return a String which contains the file path of the journal.
+	 */
+	public static String getJournalFilePath() {
+		return JOURNAL_FILEPATH;
+	}
+
+	/**
+	 * This method returns the file path of the file the library's metrics are written to.
+	 * @return a String which contains the file path of the metrics file.
+	 */
+	public static String getMetricsFilePath() {
+		return METRICS_FILEPATH;
+	}
+
+	/**
+	 * This method returns the file path of the emails waiting to be sent.
+	 * @return a String which contains the file path of the outbox.
+	 */
+	public static String getOutboxFilePath() {
+		return OUTBOX_FILEPATH;
+	}
+
+	/**
+	 * This method returns the file path of the trailers already found for DVDs and video games.
+	 * @return a String which contains the file path of the trailers.
+	 */
+	public static String getTrailersFilePath() {
+		return TRAILERS_FILEPATH;
+	}
+
+	/**
+	 * This method returns the file path of the binary snapshot of the whole library.
+	 * @return a String which contains the file path of the snapshot.
+	 */
+	public static String getSnapshotFilePath() {
+		return SNAPSHOT_FILEPATH;
+	}
+
+	/**
+	 * This method returns whether the library is kept in the binary snapshot rather than the JSON data files.
+	 * @return true if the binary snapshot is used.
+	 */
+	public static boolean isBinarySnapshot() {
+		return binarySnapshot;
+	}
+
+	/**
+	 * This method chooses whether the library is kept in the binary snapshot rather than the JSON data files.
+	 * It takes effect the next time the library is started or written.
+	 * @param useBinarySnapshot true to use the binary snapshot, false to use the JSON data files.
+	 */
+	public static void setBinarySnapshot(boolean useBinarySnapshot) {
+		binarySnapshot = useBinarySnapshot;
+	}
+
+	/**
+	 * This method returns whether the binary snapshot is mapped into memory when read, leaving the borrow
+	 * histories of copies in the file until they are first used.
+	 * @return true if the snapshot is mapped.
+	 */
+	public static boolean isMappedSnapshot() {
+		return mappedSnapshot;
+	}
+
+	/**
+	 * This method chooses whether the binary snapshot is mapped into memory when read. Mapping it also uses it.
+	 * It takes effect the next time the library is started. On Windows the snapshot is read in full instead.
+	 * @param useMappedSnapshot true to map the snapshot, false to read all of it.
+	 */
+	public static void setMappedSnapshot(boolean useMappedSnapshot) {
+		mappedSnapshot = useMappedSnapshot;
+		if (useMappedSnapshot) {
+			binarySnapshot = true;
+		}
+	}
 }
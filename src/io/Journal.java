@@ -0,0 +1,454 @@
+package io;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import event.Event;
+import library.Library;
+import library.LibraryEvents;
+import library.LibraryResources;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import resources.*;
+import user.Librarian;
+import user.User;
+import utils.EpochDates;
+import utils.Log;
+import utils.Metrics;
+
+/**
+ * <h1>Journal.</h1>
+ * <p>This class keeps an append only journal of every change made to the library since the data files were
+ * last written, so that replaying the journal over the data files on start brings the library back to where it
+ * was, even after a crash. Loans, returns, requests and payments are journaled as the operation and the time it
+ * was made, e.g. {"Type":"Loan","User":"ben22","Copy":"BookID:1-0","Time":1542758400000}, and replayed by
+ * making the same operation again at that time, which also fines a late return again. Anything else, such as
+ * an edit or a new user, is journaled as the new state of the user, resource or event that changed.
+ * Once the journal gets long it is compacted by writing the data files and starting an empty journal. Compacting
+ * happens on its own thread while no desk is part way through changing the library, so the data files are
+ * written from a consistent library and the desk that made the journal long does not wait for it.</p>
+ *
+ * @author Samuel Jankinson, James Carter, Etienne Badoche
+ */
+@SuppressWarnings("unchecked")
+public class Journal extends IO {
+    private static final int COMPACT_AFTER = 500; //Entries kept in the journal before the data files are rewritten.
+
+    private static int entriesSinceWrite = 0; //Entries in the journal since the data files were written.
+    private static volatile boolean replaying = false; //True while the journal is being replayed, so it is not journaled again.
+    private static boolean compactionStarted = false; //True from when compacting is started until it is done.
+
+    private static final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Journal compaction");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Records the current state of a user or librarian.
+     *
+     * @param user the user that changed.
+     */
+    public static synchronized void recordUser(User user) {
+        if (user instanceof Librarian) {
+            append("Librarian", WriteFile.writeLibrarianToObject((Librarian) user));
+        } else {
+            append("User", WriteFile.writeUserToObject(user));
+        }
+    }
+
+    /**
+     * Records the current state of a resource.
+     *
+     * @param resource the resource that changed.
+     */
+    public static synchronized void recordResource(Resource resource) {
+        if (resource instanceof Book) {
+            append("Book", WriteFile.writeBookToObject((Book) resource));
+        } else if (resource instanceof DVD) {
+            append("DVD", WriteFile.writeDVDToObject((DVD) resource));
+        } else if (resource instanceof Laptop) {
+            append("Laptop", WriteFile.writeLaptopToObject((Laptop) resource));
+        } else if (resource instanceof VideoGame) {
+            append("VideoGame", WriteFile.writeVideoGameToObject((VideoGame) resource));
+        }
+    }
+
+    /**
+     * Records the current state of an event.
+     *
+     * @param event the event that changed.
+     */
+    public static synchronized void recordEvent(Event event) {
+        append("Event", WriteFile.writeEventToObject(event));
+    }
+
+    /**
+     * Records that a copy was loaned to a user.
+     *
+     * @param username the user who borrowed the copy.
+     * @param copyID the ID of the copy, e.g. "BookID:1-0".
+     */
+    public static synchronized void recordLoan(String username, String copyID) {
+        JSONObject entry = operation("Loan", username);
+        entry.put("Copy", copyID);
+        append(entry);
+    }
+
+    /**
+     * Records that a user returned a copy.
+     *
+     * @param username the user who returned the copy.
+     * @param copyID the ID of the copy, e.g. "BookID:1-0".
+     */
+    public static synchronized void recordReturn(String username, String copyID) {
+        JSONObject entry = operation("Return", username);
+        entry.put("Copy", copyID);
+        append(entry);
+    }
+
+    /**
+     * Records that a user requested a resource.
+     *
+     * @param username the user who requested the resource.
+     * @param resourceID the ID of the resource.
+     */
+    public static synchronized void recordRequest(String username, String resourceID) {
+        JSONObject entry = operation("Request", username);
+        entry.put("Resource", resourceID);
+        append(entry);
+    }
+
+    /**
+     * Records that a user cancelled their request for a resource.
+     *
+     * @param username the user who cancelled.
+     * @param resourceID the ID of the resource.
+     */
+    public static synchronized void recordCancelRequest(String username, String resourceID) {
+        JSONObject entry = operation("CancelRequest", username);
+        entry.put("Resource", resourceID);
+        append(entry);
+    }
+
+    /**
+     * Records that money was added to a user's balance.
+     *
+     * @param username the user.
+     * @param amount the amount added.
+     */
+    public static synchronized void recordDeposit(String username, int amount) {
+        JSONObject entry = operation("Deposit", username);
+        entry.put("Amount", amount);
+        append(entry);
+    }
+
+    /**
+     * Records that a user paid off some of their balance.
+     *
+     * @param username the user who paid.
+     * @param amount the amount paid.
+     * @param librarian the username of the librarian who took the payment.
+     */
+    public static synchronized void recordPayment(String username, int amount, String librarian) {
+        JSONObject entry = operation("Payment", username);
+        entry.put("Amount", amount);
+        entry.put("Librarian", librarian);
+        append(entry);
+    }
+
+    /**
+     * Records that a resource was removed from the library.
+     *
+     * @param id the unique id of the resource.
+     */
+    public static synchronized void recordRemoveResource(String id) {
+        JSONObject record = new JSONObject();
+        record.put("ID", id);
+        append("RemoveResource", record);
+    }
+
+    /**
+     * Records that a user was removed from the library.
+     *
+     * @param username the username of the user.
+     */
+    public static synchronized void recordRemoveUser(String username) {
+        JSONObject record = new JSONObject();
+        record.put("ID", username);
+        append("RemoveUser", record);
+    }
+
+    /**
+     * Returns whether the journal is being replayed, in which case changes are not journaled again and
+     * nothing should be sent to users.
+     *
+     * @return True while the journal is being replayed.
+     */
+    public static boolean isReplaying() {
+        return replaying;
+    }
+
+    /**
+     * Applies every entry in the journal to the library. Called on start, after the data files have been read.
+     * A torn entry at the end of the journal, left by a crash while it was written, is ignored, and so is an
+     * entry that can no longer be applied.
+     *
+     * @return the number of entries replayed.
+     */
+    public static synchronized int replay() {
+        JSONParser parser = new JSONParser();
+        int replayed = 0;
+        int line = 0;
+        replaying = true;
+
+        try {
+            FileReader file = new FileReader(IO.getJournalFilePath());
+            BufferedReader reader = new BufferedReader(file);
+            String currentLine;
+            while ((currentLine = reader.readLine()) != null) {
+                line++;
+                try {
+                    apply((JSONObject) parser.parse(currentLine));
+                    replayed++;
+                } catch (ParseException | ClassCastException e) {
+                    Log.warn("Ignoring unreadable journal entry on line " + line);
+                } catch (RuntimeException e) {
+                    Log.warn("Ignoring journal entry on line " + line + " that cannot be applied: " + e);
+                }
+            }
+            reader.close();
+            file.close();
+            endTornEntry();
+        } catch (FileNotFoundException e) {
+            //No journal, nothing has changed since the data files were written.
+        } catch (IOException e) {
+            Log.error("ERROR reading file " + IO.getJournalFilePath());
+            e.printStackTrace();
+        } finally {
+            replaying = false;
+        }
+
+        entriesSinceWrite = replayed;
+        Metrics.count("io.journal.replayed", replayed);
+        return replayed;
+    }
+
+    /**
+     * Writes the whole library to the data files and empties the journal. If any data file could not be
+     * written the journal is kept, as it still holds the only record of the changes since the last write,
+     * and compacting is tried again after another COMPACT_AFTER entries.
+     *
+     * Waits until no desk is part way through changing the library, and holds every desk until done.
+     * Must not be called while holding the locks of a library operation.
+     *
+     * @return True if the data files were written and the journal emptied.
+     */
+    public static boolean compact() {
+        return Library.exclusively(Journal::compactNow);
+    }
+
+    /**
+     * Writes the whole library to the data files and empties the journal, while no desk can change the library.
+     *
+     * @return True if the data files were written and the journal emptied.
+     */
+    private static synchronized boolean compactNow() {
+        compactionStarted = false;
+        long start = System.nanoTime();
+        boolean written = WriteFile.fullWrite(Library.getAllUsers(), Library.getAllBooks(), Library.getAllDVD(),
+                Library.getAllLaptops(), Library.getAllVideoGames(), Library.getAllLibrarians(), Library.getAllEvents());
+        if (!written) {
+            Log.error("Keeping " + IO.getJournalFilePath() + " as the data files could not all be written");
+            Metrics.count("io.journal.compactFailed");
+            entriesSinceWrite = 0;
+            return false;
+        }
+
+        File journalFile = new File(IO.getJournalFilePath());
+        if (journalFile.exists() && !journalFile.delete()) {
+            Log.error("Error clearing " + IO.getJournalFilePath());
+        }
+        entriesSinceWrite = 0;
+        Metrics.time("io.journal.compact", start);
+        return true;
+    }
+
+    /**
+     * Ends a torn entry at the end of the journal with a new line, so the next entry appended starts a line of
+     * its own rather than being joined to it.
+     *
+     * @throws IOException if the journal cannot be read or written.
+     */
+    private static void endTornEntry() throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(IO.getJournalFilePath(), "rw")) {
+            if (file.length() == 0) {
+                return;
+            }
+            file.seek(file.length() - 1);
+            if (file.read() != '\n') {
+                file.write('\n');
+                file.getFD().sync();
+            }
+        }
+    }
+
+    /**
+     * Starts the entry of an operation made by a user now.
+     *
+     * @param type the type of operation, e.g. "Loan".
+     * @param username the user the operation was made for.
+     * @return the entry, to add the rest of the operation to.
+     */
+    private static JSONObject operation(String type, String username) {
+        JSONObject entry = new JSONObject();
+        entry.put("Type", type);
+        entry.put("User", username);
+        entry.put("Time", EpochDates.now());
+        return entry;
+    }
+
+    /**
+     * Appends the new state of a user, resource or event to the journal.
+     *
+     * @param type the type of record, e.g. "User".
+     * @param record the JSON record.
+     */
+    private static void append(String type, JSONObject record) {
+        if (replaying) {
+            return;
+        }
+        JSONObject entry = new JSONObject();
+        entry.put("Type", type);
+        entry.put("Record", record);
+        append(entry);
+    }
+
+    /**
+     * Appends an entry to the journal and makes sure it is on disk before returning.
+     *
+     * @param entry the entry.
+     */
+    private static void append(JSONObject entry) {
+        if (replaying) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            FileOutputStream out = new FileOutputStream(IO.getJournalFilePath(), true);
+            Writer file = new OutputStreamWriter(out);
+            file.write(entry.toJSONString() + "\n");
+            file.flush();
+            out.getFD().sync();
+            file.close();
+        } catch (IOException e) {
+            Log.error("Error writing to " + IO.getJournalFilePath());
+            Metrics.count("io.journal.failed");
+            return;
+        }
+        Metrics.time("io.journal.append", start);
+
+        entriesSinceWrite++;
+        if (entriesSinceWrite >= COMPACT_AFTER && !compactionStarted) {
+            //The caller holds the locks of its operation, so it cannot wait for every other desk to finish.
+            compactionStarted = true;
+            compactor.execute(Journal::compact);
+        }
+    }
+
+    /**
+     * Applies a single journal entry to the library. Operations are made again at the time they were first made.
+     *
+     * @param entry the journal entry.
+     */
+    private static void apply(JSONObject entry) {
+        if (entry.containsKey("Time")) {
+            EpochDates.setNow(((Number) entry.get("Time")).longValue());
+            try {
+                applyOperation(entry);
+            } finally {
+                EpochDates.setNow(null);
+            }
+            return;
+        }
+        JSONObject record = (JSONObject) entry.get("Record");
+
+        switch ((String) entry.get("Type")) {
+            case "User":
+                LibraryResources.addUser(ReadFile.readUserFromJSON(record));
+                break;
+            case "Librarian":
+                LibraryResources.addLibrarian(ReadFile.readLibrarianFromJSON(record));
+                break;
+            case "Book":
+                LibraryResources.addBook(ReadFile.readBookFromJSON(record));
+                break;
+            case "DVD":
+                LibraryResources.addDVD(ReadFile.readDvdFromJSON(record));
+                break;
+            case "Laptop":
+                LibraryResources.addLaptop(ReadFile.readLaptopFromJSON(record));
+                break;
+            case "VideoGame":
+                LibraryResources.addVideoGame(ReadFile.readVideoGameFromJSON(record));
+                break;
+            case "Event":
+                LibraryEvents.putEvent(ReadFile.readEventFromJSON(record));
+                break;
+            case "RemoveResource":
+                Library.removeResource((String) record.get("ID"));
+                break;
+            case "RemoveUser":
+                Library.removeUser((String) record.get("ID"));
+                break;
+            default:
+                Log.warn("Unknown journal entry type " + entry.get("Type"));
+                break;
+        }
+    }
+
+    /**
+     * Makes an operation from the journal again.
+     *
+     * @param entry the journal entry of the operation.
+     */
+    private static void applyOperation(JSONObject entry) {
+        String username = (String) entry.get("User");
+
+        switch ((String) entry.get("Type")) {
+            case "Loan":
+                Library.loanResource(username, (String) entry.get("Copy"));
+                break;
+            case "Return":
+                Library.returnResource(username, (String) entry.get("Copy"));
+                break;
+            case "Request":
+                Library.requestResource(username, (String) entry.get("Resource"));
+                break;
+            case "CancelRequest":
+                Library.cancelRequest(username, (String) entry.get("Resource"));
+                break;
+            case "Deposit":
+                Library.addBalance(((Number) entry.get("Amount")).intValue(), username);
+                break;
+            case "Payment":
+                Library.subtractBalance((String) entry.get("Librarian"), ((Number) entry.get("Amount")).intValue(),
+                        username);
+                break;
+            default:
+                Log.warn("Unknown journal entry type " + entry.get("Type"));
+                break;
+        }
+    }
+}
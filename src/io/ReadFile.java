@@ -19,6 +19,7 @@ import library.Library;
 import resources.*;
 import user.Librarian;
 import user.User;
+import utils.Log;
 
 @SuppressWarnings("Duplicates")
 /**
@@ -27,10 +28,6 @@ import user.User;
  * @author Samuel Jankinson, James Carter, Etienne Badoche
  */
 public class ReadFile extends IO {
-	private static FileReader file = null;
-	private static BufferedReader reader = null;
-	private static String currentLine = null;
-
 	/**
 	 * Returns users read from file.
 	 * @return userList
@@ -38,102 +35,28 @@ public class ReadFile extends IO {
 	 */
 	public static ArrayList<User> readUsers() {
 		JSONParser parser = new JSONParser();
-		JSONArray resourceArray = new JSONArray();
-		JSONArray transactionArray = new JSONArray();
-		JSONArray borrowHistoryArray = new JSONArray();
-		JSONArray requestedArray = new JSONArray();
-		JSONArray reservedArray = new JSONArray();
-        JSONArray eventsArray = new JSONArray();
 		ArrayList<User> userList = new ArrayList<>();
 		try {
-			file = new FileReader(IO.getUsersFilePath());
-			reader = new BufferedReader(file);
+			FileReader file = new FileReader(IO.getUsersFilePath());
+			BufferedReader reader = new BufferedReader(file);
+			String currentLine;
 			while ((currentLine = reader.readLine()) != null) {
 				JSONObject object = (JSONObject) parser.parse(currentLine);
-				User user = new User((String) object.get("username"), (String) object.get("firstName"),
-						(String) object.get("lastName"), (String) object.get("mobileNumber"),
-						(String) object.get("firstLineAddress"), (String) object.get("secondLineAddress"),
-						(String) object.get("postCode"), (String) object.get("townName"),
-						Double.parseDouble((String) object.get("accountBalance")), (String) object.get("imageAddress"),
-					(String) object.get("email"));
-				Date login = null;
-				//Translate the string date format to a Date object
-				try {
-					login = new SimpleDateFormat("dd/MM/yyyy").parse((String) object.get("lastLogin"));
-				} catch (java.text.ParseException e) {
-					e.printStackTrace();
-				}
-				user.setLastLogin(login);
-
-				resourceArray = (JSONArray) object.get("resourceBorrow");
-				ArrayList<String> borrowedResources = new ArrayList<String>();
-				if (resourceArray != null) {
-					for (Object resource : resourceArray) {
-						String stringResource = (String) resource;
-						borrowedResources.add(stringResource);
-					}
-					user.setResourceCurrentlyBorrowed(borrowedResources);
-				}
-
-				transactionArray = (JSONArray) object.get("transactionHistory");
-				if (transactionArray != null) {
-					for (Object transactionInformation : transactionArray) {
-						JSONObject transactionInformationArray = (JSONObject) transactionInformation;
-						String[] data = new String[3];
-						data[0] = (String) transactionInformationArray.get("System");
-						data[1] = (String) transactionInformationArray.get("Date");
-						data[2] = (String) transactionInformationArray.get("Amount");
-						user.addToTransactionHistory(data);
-					}
-				}
-
-				borrowHistoryArray = (JSONArray) object.get("borrowHistory");
-				if (borrowHistoryArray != null) {
-					for (Object borrowInformation : borrowHistoryArray) {
-						JSONObject borrowInformationArray = (JSONObject) borrowInformation;
-						String[] data = new String[2];
-						data[0] = (String) borrowInformationArray.get("ID");
-						data[1] = (String) borrowInformationArray.get("Date");
-						user.addToBorrowHistory(data);
-					}
-				}
-
-				requestedArray = (JSONArray) object.get("requested");
-				if (requestedArray != null) {
-					for (Object requestedResource : requestedArray) {
-						String requestedResourceID = (String) requestedResource;
-						user.requestResource(requestedResourceID);
-					}
-				}
-
-				reservedArray = (JSONArray) object.get("reserved");
-				if (reservedArray != null) {
-					for (Object reservedResource : requestedArray) {
-						String reservedResourceID = (String) reservedResource;
-						user.addToReserved(reservedResourceID);
-					}
-				}
-                eventsArray = (JSONArray) object.get("events");
-				if(eventsArray != null){
-				    for(Object event : eventsArray){
-				        user.addEvent((String) event);
-				        System.out.println("Event added to "+user.getUserName()+ ":" + (String) event);
-                    }
-                }
-				System.out.println(user.getUserName() + " is added");
+				User user = readUserFromJSON(object);
+				Log.debug(user.getUserName() + " is added");
 				userList.add(user);
 			}
 
 			reader.close();
 			file.close();
 		} catch (FileNotFoundException e) {
-			System.out.println("Cannot find " + IO.getUsersFilePath());
+			Log.error("Cannot find " + IO.getUsersFilePath());
 			e.printStackTrace();
 		} catch (IOException e) {
-			System.out.println("ERROR reading file " + IO.getUsersFilePath());
+			Log.error("ERROR reading file " + IO.getUsersFilePath());
 			e.printStackTrace();
 		} catch (ParseException e) {
-			System.out.println("ERROR parsing users JSON");
+			Log.error("ERROR parsing users JSON");
 			e.printStackTrace();
 		}
 		return userList;
@@ -146,113 +69,211 @@ public class ReadFile extends IO {
 	 */
 	public static ArrayList<Librarian> readLibrarians() {
 		JSONParser parser = new JSONParser();
-		JSONArray resourceArray = new JSONArray();
-		JSONArray transactionArray = new JSONArray();
-		JSONArray borrowHistoryArray = new JSONArray();
-		JSONArray requestedArray = new JSONArray();
-		JSONArray reservedArray = new JSONArray();
-		JSONArray eventsArray = new JSONArray();
 		ArrayList<Librarian> librarianList = new ArrayList<>();
 		try {
-			file = new FileReader(IO.getLibrarianFilePath());
-			reader = new BufferedReader(file);
+			FileReader file = new FileReader(IO.getLibrarianFilePath());
+			BufferedReader reader = new BufferedReader(file);
+			String currentLine;
 			while ((currentLine = reader.readLine()) != null) {
 				JSONObject object = (JSONObject) parser.parse(currentLine);
-				Librarian librarian = new Librarian((String) object.get("username"), (String) object.get("firstName"),
-						(String) object.get("lastName"),
-						(String) object.get("mobileNumber"),
-						(String) object.get("firstLineAddress"),
-						(String) object.get("secondLineAddress"),
-						(String) object.get("postCode"),
-						(String) object.get("townName"),
-						Double.parseDouble((String) object.get("accountBalance")),
-						(String) object.get("imageAddress"),
-						Integer.parseInt((String) object.get("empDay")),
-						Integer.parseInt((String) object.get("empMonth")),
-						Integer.parseInt((String) object.get("empYear")), (String) object.get("staffNumber"),
-						Integer.parseInt((String) object.get("noOfEmploys")),
-						(String) object.get("email"));
-				Date login = null;
-				//Translate the string date format to a Date object
-				try {
-					login = new SimpleDateFormat("dd/MM/yyyy").parse((String) object.get("lastLogin"));
-				} catch (java.text.ParseException e) {
-					e.printStackTrace();
-				}
-				librarian.setLastLogin(login);
-				
-				resourceArray = (JSONArray) object.get("resourceBorrow");
-				ArrayList<String> borrowedResources = new ArrayList<String>();
-				if (resourceArray != null) {
-					for (Object resource : resourceArray) {
-						String stringResource = (String) resource;
-						borrowedResources.add(stringResource);
-					}
-					librarian.setResourceCurrentlyBorrowed(borrowedResources);
-				}
-
-				transactionArray = (JSONArray) object.get("transactionHistory");
-				if (transactionArray != null) {
-					for (Object transactionInformation : transactionArray) {
-						JSONArray transactionInformationArray = (JSONArray) transactionInformation;
-						String[] data = new String[3];
-						data[0] = (String) transactionInformationArray.get(0);
-						data[1] = (String) transactionInformationArray.get(1);
-						data[2] = (String) transactionInformationArray.get(2);
-						librarian.addToTransactionHistory(data);
-					}
-				}
-
-				borrowHistoryArray = (JSONArray) object.get("borrowHistory");
-				if (borrowHistoryArray != null) {
-					for (Object borrowInformation : borrowHistoryArray) {
-						JSONArray borrowInformationArray = (JSONArray) borrowInformation;
-						String[] data = new String[2];
-						data[1] = (String) borrowInformationArray.get(0);
-						data[0] = (String) borrowInformationArray.get(1);
-						librarian.addToBorrowHistory(data);
-					}
-				}
-
-				requestedArray = (JSONArray) object.get("requested");
-				if (requestedArray != null) {
-					for (Object requestedResource : requestedArray) {
-						String requestedResourceID = (String) requestedResource;
-						librarian.requestResource(requestedResourceID);
-					}
-				}
-
-				reservedArray = (JSONArray) object.get("reserved");
-				if (reservedArray != null) {
-					for (Object reservedResource : requestedArray) {
-						String reservedResourceID = (String) reservedResource;
-						librarian.addToReserved(reservedResourceID);
-					}
-				}
-				eventsArray = (JSONArray) object.get("events");
-				if(eventsArray != null){
-					for(Object event : eventsArray){
-						librarian.addEvent((String) event);
-						System.out.println("Event added to "+librarian.getUserName()+ ":" + (String) event);
-					}
-				}
+				Librarian librarian = readLibrarianFromJSON(object);
 				librarianList.add(librarian);
 			}
 			reader.close();
 			file.close();
 		} catch (FileNotFoundException e) {
-			System.out.println("Cannot find " + IO.getLibrarianFilePath());
+			Log.error("Cannot find " + IO.getLibrarianFilePath());
 			e.printStackTrace();
 		} catch (IOException e) {
-			System.out.println("ERROR reading file " + IO.getLibrarianFilePath());
+			Log.error("ERROR reading file " + IO.getLibrarianFilePath());
 			e.printStackTrace();
 		} catch (ParseException e) {
-			System.out.println("ERROR parsing users JSON");
+			Log.error("ERROR parsing users JSON");
 			e.printStackTrace();
 		}
 		return librarianList;
 	}
 
+	/**
+	 * Converts a user record from the users file to a User.
+	 * @param object the JSON record of the user.
+	 * @return User the user read from the record.
+	 */
+	static User readUserFromJSON(JSONObject object) {
+		JSONArray resourceArray;
+		JSONArray transactionArray;
+		JSONArray borrowHistoryArray;
+		JSONArray requestedArray;
+		JSONArray reservedArray;
+		JSONArray eventsArray;
+
+		User user = new User((String) object.get("username"), (String) object.get("firstName"),
+				(String) object.get("lastName"), (String) object.get("mobileNumber"),
+				(String) object.get("firstLineAddress"), (String) object.get("secondLineAddress"),
+				(String) object.get("postCode"), (String) object.get("townName"),
+				Double.parseDouble((String) object.get("accountBalance")), (String) object.get("imageAddress"),
+				(String) object.get("email"));
+		Date login = null;
+		//Translate the string date format to a Date object
+		try {
+			login = new SimpleDateFormat("dd/MM/yyyy").parse((String) object.get("lastLogin"));
+		} catch (java.text.ParseException e) {
+			e.printStackTrace();
+		}
+		user.setLastLogin(login);
+
+		resourceArray = (JSONArray) object.get("resourceBorrow");
+		ArrayList<String> borrowedResources = new ArrayList<String>();
+		if (resourceArray != null) {
+			for (Object resource : resourceArray) {
+				String stringResource = (String) resource;
+				borrowedResources.add(stringResource);
+			}
+			user.setResourceCurrentlyBorrowed(borrowedResources);
+		}
+
+		transactionArray = (JSONArray) object.get("transactionHistory");
+		if (transactionArray != null) {
+			for (Object transactionInformation : transactionArray) {
+				JSONObject transactionInformationArray = (JSONObject) transactionInformation;
+				String[] data = new String[3];
+				data[0] = (String) transactionInformationArray.get("System");
+				data[1] = (String) transactionInformationArray.get("Date");
+				data[2] = (String) transactionInformationArray.get("Amount");
+				user.addToTransactionHistory(data);
+			}
+		}
+
+		borrowHistoryArray = (JSONArray) object.get("borrowHistory");
+		if (borrowHistoryArray != null) {
+			for (Object borrowInformation : borrowHistoryArray) {
+				JSONObject borrowInformationArray = (JSONObject) borrowInformation;
+				String[] data = new String[2];
+				data[0] = (String) borrowInformationArray.get("ID");
+				data[1] = (String) borrowInformationArray.get("Date");
+				user.addToBorrowHistory(data);
+			}
+		}
+
+		requestedArray = (JSONArray) object.get("requested");
+		if (requestedArray != null) {
+			for (Object requestedResource : requestedArray) {
+				String requestedResourceID = (String) requestedResource;
+				user.requestResource(requestedResourceID);
+			}
+		}
+
+		reservedArray = (JSONArray) object.get("reserved");
+		if (reservedArray != null) {
+			for (Object reservedResource : reservedArray) {
+				String reservedResourceID = (String) reservedResource;
+				user.getAllReserved().add(reservedResourceID);
+			}
+		}
+		eventsArray = (JSONArray) object.get("events");
+		if(eventsArray != null){
+			for(Object event : eventsArray){
+				user.addEvent((String) event);
+				Log.debug("Event added to "+user.getUserName()+ ":" + (String) event);
+			}
+		}
+		return user;
+	}
+
+	/**
+	 * Converts a librarian record from the librarians file to a Librarian.
+	 * @param object the JSON record of the librarian.
+	 * @return Librarian the librarian read from the record.
+	 */
+	static Librarian readLibrarianFromJSON(JSONObject object) {
+		JSONArray resourceArray;
+		JSONArray transactionArray;
+		JSONArray borrowHistoryArray;
+		JSONArray requestedArray;
+		JSONArray reservedArray;
+		JSONArray eventsArray;
+
+		Librarian librarian = new Librarian((String) object.get("username"), (String) object.get("firstName"),
+				(String) object.get("lastName"),
+				(String) object.get("mobileNumber"),
+				(String) object.get("firstLineAddress"),
+				(String) object.get("secondLineAddress"),
+				(String) object.get("postCode"),
+				(String) object.get("townName"),
+				Double.parseDouble((String) object.get("accountBalance")),
+				(String) object.get("imageAddress"),
+				Integer.parseInt((String) object.get("empDay")),
+				Integer.parseInt((String) object.get("empMonth")),
+				Integer.parseInt((String) object.get("empYear")), (String) object.get("staffNumber"),
+				Integer.parseInt((String) object.get("noOfEmploys")),
+				(String) object.get("email"));
+		Date login = null;
+		//Translate the string date format to a Date object
+		try {
+			login = new SimpleDateFormat("dd/MM/yyyy").parse((String) object.get("lastLogin"));
+		} catch (java.text.ParseException e) {
+			e.printStackTrace();
+		}
+		librarian.setLastLogin(login);
+		
+		resourceArray = (JSONArray) object.get("resourceBorrow");
+		ArrayList<String> borrowedResources = new ArrayList<String>();
+		if (resourceArray != null) {
+			for (Object resource : resourceArray) {
+				String stringResource = (String) resource;
+				borrowedResources.add(stringResource);
+			}
+			librarian.setResourceCurrentlyBorrowed(borrowedResources);
+		}
+
+		transactionArray = (JSONArray) object.get("transactionHistory");
+		if (transactionArray != null) {
+			for (Object transactionInformation : transactionArray) {
+				JSONArray transactionInformationArray = (JSONArray) transactionInformation;
+				String[] data = new String[3];
+				data[0] = (String) transactionInformationArray.get(0);
+				data[1] = (String) transactionInformationArray.get(1);
+				data[2] = (String) transactionInformationArray.get(2);
+				librarian.addToTransactionHistory(data);
+			}
+		}
+
+		borrowHistoryArray = (JSONArray) object.get("borrowHistory");
+		if (borrowHistoryArray != null) {
+			for (Object borrowInformation : borrowHistoryArray) {
+				JSONArray borrowInformationArray = (JSONArray) borrowInformation;
+				String[] data = new String[2];
+				data[1] = (String) borrowInformationArray.get(0);
+				data[0] = (String) borrowInformationArray.get(1);
+				librarian.addToBorrowHistory(data);
+			}
+		}
+
+		requestedArray = (JSONArray) object.get("requested");
+		if (requestedArray != null) {
+			for (Object requestedResource : requestedArray) {
+				String requestedResourceID = (String) requestedResource;
+				librarian.requestResource(requestedResourceID);
+			}
+		}
+
+		reservedArray = (JSONArray) object.get("reserved");
+		if (reservedArray != null) {
+			for (Object reservedResource : reservedArray) {
+				String reservedResourceID = (String) reservedResource;
+				librarian.getAllReserved().add(reservedResourceID);
+			}
+		}
+		eventsArray = (JSONArray) object.get("events");
+		if(eventsArray != null){
+			for(Object event : eventsArray){
+				librarian.addEvent((String) event);
+				Log.debug("Event added to "+librarian.getUserName()+ ":" + (String) event);
+			}
+		}
+		return librarian;
+	}
+
 	/**
 	 * Reads resources from Json file
 	 * @param resourceJson object
@@ -288,7 +309,7 @@ public class ReadFile extends IO {
             for (Object copyBorrowHistoryObject : bookBorrowHistoryArray) {
                 JSONArray copyBorrowHistoryArray = (JSONArray) copyBorrowHistoryObject;
                 List<BorrowHistoryData> copyBorrowHistoryData = new ArrayList<>();
-                System.out.println("Loading Copy History for: " + uniqueID + ":" + i++);
+                Log.debug("Loading Copy History for: " + uniqueID + ":" + i++);
                 for (Object copyBorrowHistory : copyBorrowHistoryArray) {
                     JSONObject borrowHistoryObject = (JSONObject) copyBorrowHistory;
                     BorrowHistoryData borrowHistoryData = new BorrowHistoryData();
@@ -325,7 +346,7 @@ public class ReadFile extends IO {
         if (queueArray != null) {
             for (Object user : queueArray) {
                 String username = (String) user;
-                resource.addUserToRequestQueue(username);
+                resource.enqueueRequest(username);
             }
         }
 
@@ -333,184 +354,133 @@ public class ReadFile extends IO {
     }
 
     /**
-     * Returns a list of books owned by this library.
-     * @return bookList
-     * The list of books currently owned by this library.
+     * Reads every resource owned by this library from the resource file in a single pass.
+     * The file is streamed, each resource is created as soon as its record has been read.
+     * @param books the list to add the books to.
+     * @param dvds the list to add the dvds to.
+     * @param laptops the list to add the laptops to.
+     * @param videoGames the list to add the video games to.
      */
-	public static ArrayList<Book> readBooksJSON(){
-	    ArrayList<Book> bookList = new ArrayList<>();
-
+    public static void readResourcesJSON(List<Book> books, List<DVD> dvds, List<Laptop> laptops,
+                                         List<VideoGame> videoGames) {
         JSONParser parser = new JSONParser();
-
-        try {
-            FileReader fileReader = new FileReader(IO.getResourceFilePath());
-            JSONObject resourcesObject = (JSONObject) parser.parse(fileReader);
-            JSONArray books;
-            books = (JSONArray) resourcesObject.get("Books");
-
-            for (Object book : books){
-                JSONObject bookJson = (JSONObject) book;
-
-                Resource resource = readResourceFromJSON(bookJson);
-
-                String author = bookJson.get("Author").toString();
-                String genre = bookJson.get("Genre").toString();
-                String isbn = bookJson.get("ISBN").toString();
-                String publisher = bookJson.get("Publisher").toString();
-
-                ArrayList<String> languages = new ArrayList<>();
-                JSONArray languageArray = (JSONArray) bookJson.get("Languages");
-                if (languageArray != null) {
-                    for (Object language : languageArray) {
-                        String stringLanguage = (String) language;
-                        languages.add(stringLanguage);
-                    }
-                }
-
-                Book b = new Book(resource, author, genre, isbn, publisher, languages);
-                bookList.add(b);
+        ResourceContentHandler handler = new ResourceContentHandler((section, record) -> {
+            switch (section) {
+                case "Books":
+                    books.add(readBookFromJSON(record));
+                    break;
+                case "DvDs":
+                    dvds.add(readDvdFromJSON(record));
+                    break;
+                case "Laptops":
+                    laptops.add(readLaptopFromJSON(record));
+                    break;
+                case "VideoGames":
+                    videoGames.add(readVideoGameFromJSON(record));
+                    break;
+                default:
+                    Log.warn("Unknown resource type in " + IO.getResourceFilePath() + ": " + section);
+                    break;
             }
+        });
 
-
+        try (BufferedReader fileReader = new BufferedReader(new FileReader(IO.getResourceFilePath()))) {
+            parser.parse(fileReader, handler);
+        } catch (FileNotFoundException e) {
+            Log.error("Cannot find " + IO.getResourceFilePath());
+            e.printStackTrace();
         } catch (ParseException | IOException e) {
             e.printStackTrace();
         }
-
-
-        return bookList;
     }
 
     /**
-     * Returns a list of DVDs owned by this library.
-     * @return dvds
-     * The list of dvds owned by this library.
+     * Converts a book record from the resource file to a Book.
+     * @param bookJson the JSON record of the book.
+     * @return Book the book read from the record.
      */
-    public static ArrayList<DVD> readDvdsJSON(){
-        ArrayList<DVD> dvdList = new ArrayList<>();
-
-        JSONParser parser = new JSONParser();
-
-        try {
-            FileReader fileReader = new FileReader(IO.getResourceFilePath());
-            JSONObject resourcesObject = (JSONObject) parser.parse(fileReader);
-            JSONArray dvds;
-            dvds = (JSONArray) resourcesObject.get("DvDs");
-
-            for (Object dvd : dvds){
-                JSONObject dvdJson = (JSONObject) dvd;
-
-                Resource resource = readResourceFromJSON(dvdJson);
-
-                String director = dvdJson.get("Director").toString();
-                String runtime = dvdJson.get("Runtime").toString();
-                String language = dvdJson.get("Language").toString();
-
-                ArrayList<String> languages = new ArrayList<>();
-                JSONArray languageArray = (JSONArray) dvdJson.get("Sub-languages");
-                if (languageArray != null) {
-                    for (Object lang : languageArray) {
-                        String stringLanguage = (String) lang;
-                        languages.add(stringLanguage);
-                    }
-                }
-
-                DVD d = new DVD(resource, director, runtime, language, languages);
-                dvdList.add(d);
+    static Book readBookFromJSON(JSONObject bookJson) {
+        Resource resource = readResourceFromJSON(bookJson);
+
+        String author = bookJson.get("Author").toString();
+        String genre = bookJson.get("Genre").toString();
+        String isbn = bookJson.get("ISBN").toString();
+        String publisher = bookJson.get("Publisher").toString();
+
+        ArrayList<String> languages = new ArrayList<>();
+        JSONArray languageArray = (JSONArray) bookJson.get("Languages");
+        if (languageArray != null) {
+            for (Object language : languageArray) {
+                String stringLanguage = (String) language;
+                languages.add(stringLanguage);
             }
-
-
-        } catch (ParseException | IOException e) {
-            e.printStackTrace();
         }
 
-
-        return dvdList;
+        return new Book(resource, author, genre, isbn, publisher, languages);
     }
 
     /**
-     * Returns a list of laptops owned by the library.
-     * @return laptops
-     * The list of laptops currently owned by the library.
+     * Converts a DVD record from the resource file to a DVD.
+     * @param dvdJson the JSON record of the DVD.
+     * @return DVD the dvd read from the record.
      */
-    public static  ArrayList<Laptop> readLaptopsJSON(){
-        ArrayList<Laptop> laptopList = new ArrayList<>();
-
-        JSONParser parser = new JSONParser();
-
-        try {
-            FileReader fileReader = new FileReader(IO.getResourceFilePath());
-            JSONObject resourcesObject = (JSONObject) parser.parse(fileReader);
-            JSONArray laptops;
-            laptops = (JSONArray) resourcesObject.get("Laptops");
-
-            for (Object laptop : laptops){
-                JSONObject laptopJson = (JSONObject) laptop;
-
-                Resource resource = readResourceFromJSON(laptopJson);
-
-                String manufacturer = laptopJson.get("Manufacturer").toString();
-                String model = laptopJson.get("Model").toString();
-                String operatingSys = laptopJson.get("OperatingSys").toString();
-
-                Laptop l = new Laptop(resource, manufacturer, model, operatingSys);
-                laptopList.add(l);
+    static DVD readDvdFromJSON(JSONObject dvdJson) {
+        Resource resource = readResourceFromJSON(dvdJson);
+
+        String director = dvdJson.get("Director").toString();
+        String runtime = dvdJson.get("Runtime").toString();
+        String language = dvdJson.get("Language").toString();
+
+        ArrayList<String> languages = new ArrayList<>();
+        JSONArray languageArray = (JSONArray) dvdJson.get("Sub-languages");
+        if (languageArray != null) {
+            for (Object lang : languageArray) {
+                String stringLanguage = (String) lang;
+                languages.add(stringLanguage);
             }
-
-
-        } catch (ParseException | IOException e) {
-            e.printStackTrace();
         }
 
-
-        return laptopList;
+        return new DVD(resource, director, runtime, language, languages);
     }
 
     /**
-     * Returns a list of DVDs owned by this library.
-     * @return dvds
-     * The list of dvds owned by this library.
+     * Converts a laptop record from the resource file to a Laptop.
+     * @param laptopJson the JSON record of the laptop.
+     * @return Laptop the laptop read from the record.
      */
-    public static ArrayList<VideoGame> readVideoGamesJSON(){
-        ArrayList<VideoGame> videoGamesList = new ArrayList<>();
+    static Laptop readLaptopFromJSON(JSONObject laptopJson) {
+        Resource resource = readResourceFromJSON(laptopJson);
 
-        JSONParser parser = new JSONParser();
+        String manufacturer = laptopJson.get("Manufacturer").toString();
+        String model = laptopJson.get("Model").toString();
+        String operatingSys = laptopJson.get("OperatingSys").toString();
 
-        try {
-            FileReader fileReader = new FileReader(IO.getResourceFilePath());
-            JSONObject resourcesObject = (JSONObject) parser.parse(fileReader);
-            JSONArray videoGames;
-            videoGames = (JSONArray) resourcesObject.get("VideoGames");
-
-            for (Object videoGame : videoGames){
-                JSONObject videoGameJson = (JSONObject) videoGame;
-
-                Resource resource = readResourceFromJSON(videoGameJson);
-
-                String publisher = videoGameJson.get("Publisher").toString();
-                String genre = videoGameJson.get("Genre").toString();
-                String multiplayerSupport = videoGameJson.get("MultiplayerSupport").toString();
-                String certificateRating = videoGameJson.get("CertificateRating").toString();
-
-                ArrayList<String> languages = new ArrayList<>();
-                JSONArray languageArray = (JSONArray) videoGameJson.get("Languages");
-                if (languageArray != null) {
-                    for (Object language : languageArray) {
-                        String stringLanguage = (String) language;
-                        languages.add(stringLanguage);
-                    }
-                }
+        return new Laptop(resource, manufacturer, model, operatingSys);
+    }
 
-                VideoGame b = new VideoGame(resource, genre, certificateRating, publisher, multiplayerSupport, languages);
-                videoGamesList.add(b);
+    /**
+     * Converts a video game record from the resource file to a VideoGame.
+     * @param videoGameJson the JSON record of the video game.
+     * @return VideoGame the video game read from the record.
+     */
+    static VideoGame readVideoGameFromJSON(JSONObject videoGameJson) {
+        Resource resource = readResourceFromJSON(videoGameJson);
+
+        String publisher = videoGameJson.get("Publisher").toString();
+        String genre = videoGameJson.get("Genre").toString();
+        String multiplayerSupport = videoGameJson.get("MultiplayerSupport").toString();
+        String certificateRating = videoGameJson.get("CertificateRating").toString();
+
+        ArrayList<String> languages = new ArrayList<>();
+        JSONArray languageArray = (JSONArray) videoGameJson.get("Languages");
+        if (languageArray != null) {
+            for (Object language : languageArray) {
+                String stringLanguage = (String) language;
+                languages.add(stringLanguage);
             }
-
-
-        } catch (ParseException | IOException e) {
-            e.printStackTrace();
         }
 
-
-        return videoGamesList;
+        return new VideoGame(resource, genre, certificateRating, publisher, multiplayerSupport, languages);
     }
 
 	/**
@@ -522,8 +492,9 @@ public class ReadFile extends IO {
 		ArrayList<String[]> ratingList = new ArrayList<>();
 		
 		try {
-			file = new FileReader(IO.getRatingsFilePath());
-			reader = new BufferedReader(file);
+			FileReader file = new FileReader(IO.getRatingsFilePath());
+			BufferedReader reader = new BufferedReader(file);
+			String currentLine;
 
 			while ((currentLine = reader.readLine()) != null) {
 				JSONObject object = (JSONObject) parser.parse(currentLine);
@@ -542,13 +513,13 @@ public class ReadFile extends IO {
 			reader.close();
 			file.close();
 		} catch (FileNotFoundException e) {
-			System.out.println("Cannot find " + IO.getRatingsFilePath());
+			Log.error("Cannot find " + IO.getRatingsFilePath());
 			e.printStackTrace();
 		} catch (IOException e) {
-			System.out.println("ERROR reading file " + IO.getRatingsFilePath());
+			Log.error("ERROR reading file " + IO.getRatingsFilePath());
 			e.printStackTrace();
 		} catch (ParseException e) {
-			System.out.println("ERROR parsing ratings JSON");
+			Log.error("ERROR parsing ratings JSON");
 			e.printStackTrace();
 		}
 		
@@ -564,34 +535,43 @@ public class ReadFile extends IO {
 		ArrayList<Event> eventsList = new ArrayList<>();
 
 		try {
-			file = new FileReader(IO.getEventFilepath());
-			reader = new BufferedReader(file);
+			FileReader file = new FileReader(IO.getEventFilepath());
+			BufferedReader reader = new BufferedReader(file);
+			String currentLine;
 
 			while((currentLine = reader.readLine()) != null) {
 				JSONObject object = (JSONObject) parser.parse(currentLine);
-				String eventID = (String) object.get("eventID");
-				String title = (String) object.get("title");
-				String date = (String) object.get("date");
-				String time = (String) object.get("time");
-				int maxNumber = Integer.valueOf((String) object.get("maxNumberOfAttending"));
-				int current = Integer.valueOf((String) object.get("currentNumberOfAttending"));
-				String description = (String) object.get("description");
-
-				eventsList.add(new Event(eventID, title, date, time, 
-						maxNumber, current, description));
+				eventsList.add(readEventFromJSON(object));
 			}
 			reader.close();
 			file.close();
 		} catch (FileNotFoundException e) { 
-			System.out.println("Cannot find " + IO.getRatingsFilePath());
+			Log.error("Cannot find " + IO.getRatingsFilePath());
 			e.printStackTrace();
 		} catch (IOException e) {
-			System.out.println("ERROR reading file " + IO.getRatingsFilePath());
+			Log.error("ERROR reading file " + IO.getRatingsFilePath());
 			e.printStackTrace();
 		} catch (ParseException e) {
-			System.out.println("ERROR parsing ratings JSON");
+			Log.error("ERROR parsing ratings JSON");
 			e.printStackTrace();
 		}
 		return eventsList;
 	}
+
+	/**
+	 * Converts an event record from the events file to an Event.
+	 * @param object the JSON record of the event.
+	 * @return Event the event read from the record.
+	 */
+	static Event readEventFromJSON(JSONObject object) {
+		String eventID = (String) object.get("eventID");
+		String title = (String) object.get("title");
+		String date = (String) object.get("date");
+		String time = (String) object.get("time");
+		int maxNumber = Integer.valueOf((String) object.get("maxNumberOfAttending"));
+		int current = Integer.valueOf((String) object.get("currentNumberOfAttending"));
+		String description = (String) object.get("description");
+
+		return new Event(eventID, title, date, time, maxNumber, current, description);
+	}
 }
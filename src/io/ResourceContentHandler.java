@@ -0,0 +1,128 @@
+package io;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.ContentHandler;
+import org.json.simple.parser.ParseException;
+
+/**
+ * <h1>ResourceContentHandler.</h1>
+ * <p>Receives the tokens of resources.json from the json-simple parser as the file is streamed.
+ * Only the resource record currently being read is held as JSON, once a record is closed it is
+ * handed to the {@link RecordListener} and dropped, so the whole document is never built in memory.</p>
+ * @author Samuel Jankinson, James Carter, Etienne Badoche
+ */
+class ResourceContentHandler implements ContentHandler {
+	//Depths of the containers in resources.json: {"Books":[{...}, ...], "DvDs":[...], ...}
+	private static final int ROOT_DEPTH = 1;
+	private static final int SECTION_DEPTH = 2;
+
+	private final RecordListener listener; //Called with every finished resource record.
+	private final Deque<Object> containers = new ArrayDeque<>(); //Open JSON objects and arrays.
+	private final Deque<String> keys = new ArrayDeque<>(); //Keys of the open object entries.
+	private String section; //The resource type section currently being read, e.g. "Books".
+
+	/**
+	 * <h1>RecordListener.</h1>
+	 * <p>Receives each resource record read from the file.</p>
+	 */
+	interface RecordListener {
+		/**
+		 * Called when a resource record has been fully read.
+		 * @param section the section of the file the record is in, e.g. "Books".
+		 * @param record the resource record.
+		 */
+		void onRecord(String section, JSONObject record);
+	}
+
+	/**
+	 * Creates a handler that passes every resource record to the listener.
+	 * @param listener the listener to receive the records.
+	 */
+	ResourceContentHandler(RecordListener listener) {
+		this.listener = listener;
+	}
+
+	@Override
+	public void startJSON() throws ParseException, IOException {
+		containers.clear();
+		keys.clear();
+		section = null;
+	}
+
+	@Override
+	public void endJSON() throws ParseException, IOException {
+	}
+
+	@Override
+	public boolean startObject() throws ParseException, IOException {
+		containers.push(new JSONObject());
+		return true;
+	}
+
+	@Override
+	public boolean endObject() throws ParseException, IOException {
+		JSONObject object = (JSONObject) containers.pop();
+		if (containers.size() == SECTION_DEPTH) {
+			listener.onRecord(section, object);
+		} else {
+			addValue(object);
+		}
+		return true;
+	}
+
+	@Override
+	public boolean startObjectEntry(String key) throws ParseException, IOException {
+		if (containers.size() == ROOT_DEPTH) {
+			section = key;
+		}
+		keys.push(key);
+		return true;
+	}
+
+	@Override
+	public boolean endObjectEntry() throws ParseException, IOException {
+		keys.pop();
+		return true;
+	}
+
+	@Override
+	public boolean startArray() throws ParseException, IOException {
+		containers.push(new JSONArray());
+		return true;
+	}
+
+	@Override
+	public boolean endArray() throws ParseException, IOException {
+		JSONArray array = (JSONArray) containers.pop();
+		//Section arrays only ever held records which have already been handed over.
+		if (containers.size() != ROOT_DEPTH) {
+			addValue(array);
+		}
+		return true;
+	}
+
+	@Override
+	public boolean primitive(Object value) throws ParseException, IOException {
+		addValue(value);
+		return true;
+	}
+
+	/**
+	 * Adds a finished value to the container it belongs in.
+	 * @param value the value to add.
+	 */
+	@SuppressWarnings("unchecked")
+	private void addValue(Object value) {
+		Object parent = containers.peek();
+		if (parent instanceof JSONObject) {
+			((JSONObject) parent).put(keys.peek(), value);
+		} else if (parent instanceof JSONArray) {
+			((JSONArray) parent).add(value);
+		}
+	}
+}
@@ -0,0 +1,1024 @@
+package io;
+
+import event.Event;
+import resources.*;
+import user.Librarian;
+import user.User;
+import utils.Log;
+import utils.Metrics;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * <h1>Snapshot.</h1>
+ * <p>This class writes the whole library to one binary file, and reads it back, as a faster and smaller
+ * alternative to the JSON data files. It is used instead of them when IO.isBinarySnapshot is set.
+ * The file starts with MAGIC and VERSION, followed by one record per user, librarian, resource and event.
+ * Each record is its type, its length and its fields. Numbers are stored as numbers, not text. Every string
+ * is stored once, in a table at the end of the file, and records refer to it by its place in the table, so
+ * usernames, dates and languages that appear thousands of times cost a byte or two each. The last 8 bytes of
+ * the file give where the table starts. Records of a type this version does not know are skipped.
+ * A snapshot holds exactly what the JSON data files hold, plus the email of each user, and can be converted
+ * to and from them with convertToJSON and convertFromJSON.
+ * When IO.isMappedSnapshot is set the file is mapped into memory rather than read, and the borrow history of
+ * each copy, most of the file, is only decoded when it is first used. Writing a new snapshot copies histories
+ * that were never used straight across. Windows cannot replace a file while it is mapped, so there the whole
+ * file is always read instead.</p>
+ *
+ * @author Samuel Jankinson, James Carter, Etienne Badoche
+ */
+public class Snapshot extends IO {
+    private static final int MAGIC = 0x54415745; //"TAWE", the start of every snapshot.
+    private static final int VERSION = 1; //Changed whenever the layout of a record changes.
+    private static final String TEMP_SUFFIX = ".tmp"; //Suffix of the snapshot while it is being written.
+    private static final String LOGIN_DATE_FORMAT = "dd/MM/yyyy"; //Same as the JSON data files.
+    //False where a mapped file cannot be replaced, so mapping the snapshot would stop it being written again.
+    private static final boolean CAN_MAP = !System.getProperty("os.name", "").toLowerCase().startsWith("windows");
+
+    //Types of record.
+    private static final int END = 0;
+    private static final int USER = 1;
+    private static final int LIBRARIAN = 2;
+    private static final int BOOK = 3;
+    private static final int DVD_RECORD = 4;
+    private static final int LAPTOP = 5;
+    private static final int VIDEO_GAME = 6;
+    private static final int EVENT = 7;
+
+    /**
+     * Checks if there is a snapshot to read.
+     * @return True if the snapshot file exists.
+     */
+    public static boolean exists() {
+        return new File(IO.getSnapshotFilePath()).exists();
+    }
+
+    /**
+     * Writes the whole library to the snapshot file. The file is written beside the old one and moved over it
+     * once complete, so a crash while writing leaves the old snapshot in place.
+     *
+     * @param users      the users of the library.
+     * @param books      the books of the library.
+     * @param dvds       the dvds of the library.
+     * @param laptops    the laptops of the library.
+     * @param videoGames the video games of the library.
+     * @param librarians the librarians of the library.
+     * @param events     the events hosted by the library.
+     * @return True if the snapshot was written and replaced, false if the old snapshot is still in place.
+     */
+    public static boolean write(List<User> users, List<Book> books, List<DVD> dvds, List<Laptop> laptops,
+                             List<VideoGame> videoGames, List<Librarian> librarians, List<Event> events) {
+        long start = System.nanoTime();
+        String temp = IO.getSnapshotFilePath() + TEMP_SUFFIX;
+        Output record = new Output();
+
+        try (FileOutputStream out = new FileOutputStream(temp);
+             DataOutputStream file = new DataOutputStream(new BufferedOutputStream(out))) {
+            file.writeInt(MAGIC);
+            file.writeInt(VERSION);
+            for (User user : users) {
+                writeUser(record, user);
+                record.writeTo(file, USER);
+            }
+            for (Librarian librarian : librarians) {
+                writeLibrarian(record, librarian);
+                record.writeTo(file, LIBRARIAN);
+            }
+            for (Book book : books) {
+                writeBook(record, book);
+                record.writeTo(file, BOOK);
+            }
+            for (DVD dvd : dvds) {
+                writeDVD(record, dvd);
+                record.writeTo(file, DVD_RECORD);
+            }
+            for (Laptop laptop : laptops) {
+                writeLaptop(record, laptop);
+                record.writeTo(file, LAPTOP);
+            }
+            for (VideoGame videoGame : videoGames) {
+                writeVideoGame(record, videoGame);
+                record.writeTo(file, VIDEO_GAME);
+            }
+            for (Event event : events) {
+                writeEvent(record, event);
+                record.writeTo(file, EVENT);
+            }
+            file.writeByte(END);
+
+            long tableStart = file.size();
+            record.writeTable(file);
+            file.writeLong(tableStart);
+            file.flush();
+            out.getFD().sync();
+        } catch (IOException e) {
+            Log.error("Error writing to " + temp);
+            return false;
+        }
+
+        try {
+            Files.move(Paths.get(temp), Paths.get(IO.getSnapshotFilePath()),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Log.error("Error writing to " + IO.getSnapshotFilePath());
+            return false;
+        }
+        Metrics.time("io.snapshot.write", start);
+        return true;
+    }
+
+    /**
+     * Reads the whole library from the snapshot file.
+     *
+     * @param users      the list to add the users to.
+     * @param books      the list to add the books to.
+     * @param dvds       the list to add the dvds to.
+     * @param laptops    the list to add the laptops to.
+     * @param videoGames the list to add the video games to.
+     * @param librarians the list to add the librarians to.
+     * @param events     the list to add the events to.
+     * @return True if the snapshot was read, false if it is missing or unreadable.
+     */
+    public static boolean read(List<User> users, List<Book> books, List<DVD> dvds, List<Laptop> laptops,
+                               List<VideoGame> videoGames, List<Librarian> librarians, List<Event> events) {
+        long start = System.nanoTime();
+        boolean mapped = IO.isMappedSnapshot();
+        Input record;
+        try (RandomAccessFile file = new RandomAccessFile(IO.getSnapshotFilePath(), "r")) {
+            if (file.length() < 16 || file.readInt() != MAGIC) {
+                Log.error(IO.getSnapshotFilePath() + " is not a library snapshot");
+                return false;
+            }
+            int version = file.readInt();
+            if (version != VERSION) {
+                Log.error(IO.getSnapshotFilePath() + " is version " + version + ", only version " + VERSION
+                        + " can be read");
+                return false;
+            }
+            file.seek(file.length() - 8);
+            long tableStart = file.readLong();
+            byte[] tableBytes = new byte[(int) (file.length() - 8 - tableStart)];
+            file.seek(tableStart);
+            file.readFully(tableBytes);
+            String[] table = readTable(new Input(ByteBuffer.wrap(tableBytes)));
+
+            if (mapped && !CAN_MAP) {
+                Log.warn(IO.getSnapshotFilePath() + " cannot be mapped on this system, reading it all instead");
+                mapped = false;
+            }
+            if (mapped && file.length() > Integer.MAX_VALUE) {
+                Log.warn(IO.getSnapshotFilePath() + " is too large to map, reading it all instead");
+                mapped = false;
+            }
+            if (mapped) {
+                //The mapping stays valid after the file is closed, until nothing refers to it.
+                record = new Input(file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, tableStart));
+                record.lazy = true;
+            } else {
+                record = new Input(ByteBuffer.allocate(256));
+                record.file = new DataInputStream(new BufferedInputStream(
+                        new FileInputStream(IO.getSnapshotFilePath())));
+            }
+            record.table = table;
+        } catch (IOException e) {
+            Log.error("ERROR reading file " + IO.getSnapshotFilePath());
+            e.printStackTrace();
+            return false;
+        }
+
+        try {
+            int type;
+            while ((type = record.next()) != END) {
+                switch (type) {
+                    case USER:
+                        users.add(readUser(record));
+                        break;
+                    case LIBRARIAN:
+                        librarians.add(readLibrarian(record));
+                        break;
+                    case BOOK:
+                        books.add(readBook(record));
+                        break;
+                    case DVD_RECORD:
+                        dvds.add(readDVD(record));
+                        break;
+                    case LAPTOP:
+                        laptops.add(readLaptop(record));
+                        break;
+                    case VIDEO_GAME:
+                        videoGames.add(readVideoGame(record));
+                        break;
+                    case EVENT:
+                        events.add(readEvent(record));
+                        break;
+                    default:
+                        Log.warn("Skipping unknown record type " + type + " in " + IO.getSnapshotFilePath());
+                        break;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            Log.error("ERROR reading file " + IO.getSnapshotFilePath());
+            e.printStackTrace();
+            return false;
+        } finally {
+            record.close();
+        }
+        Metrics.time(mapped ? "io.snapshot.map" : "io.snapshot.read", start);
+        return true;
+    }
+
+    /**
+     * Writes a snapshot holding everything in the JSON data files.
+     */
+    public static void convertFromJSON() {
+        ArrayList<Book> books = new ArrayList<>();
+        ArrayList<DVD> dvds = new ArrayList<>();
+        ArrayList<Laptop> laptops = new ArrayList<>();
+        ArrayList<VideoGame> videoGames = new ArrayList<>();
+        ReadFile.readResourcesJSON(books, dvds, laptops, videoGames);
+        write(ReadFile.readUsers(), books, dvds, laptops, videoGames, ReadFile.readLibrarians(), ReadFile.readEvents());
+    }
+
+    /**
+     * Writes JSON data files holding everything in the snapshot.
+     */
+    public static void convertToJSON() {
+        ArrayList<User> users = new ArrayList<>();
+        ArrayList<Book> books = new ArrayList<>();
+        ArrayList<DVD> dvds = new ArrayList<>();
+        ArrayList<Laptop> laptops = new ArrayList<>();
+        ArrayList<VideoGame> videoGames = new ArrayList<>();
+        ArrayList<Librarian> librarians = new ArrayList<>();
+        ArrayList<Event> events = new ArrayList<>();
+        if (read(users, books, dvds, laptops, videoGames, librarians, events)) {
+            WriteFile.overwriteUsers(users);
+            WriteFile.overwriteResources(books, dvds, laptops, videoGames);
+            WriteFile.overwriteLibrarians(librarians);
+            WriteFile.overwriteEvents(events);
+        }
+    }
+
+    /**
+     * Writes a user.
+     * @param out the record.
+     * @param user the user.
+     */
+    private static void writeUser(Output out, User user) {
+        writeDetails(out, user);
+        writeLists(out, user);
+    }
+
+    /**
+     * Writes a librarian.
+     * @param out the record.
+     * @param librarian the librarian.
+     */
+    private static void writeLibrarian(Output out, Librarian librarian) {
+        writeDetails(out, librarian);
+        out.writeInt(librarian.getEmploymentDay());
+        out.writeInt(librarian.getEmploymentMonth());
+        out.writeInt(librarian.getEmploymentYear());
+        out.writeString(librarian.getStaffNumber());
+        out.writeInt(Librarian.getNumberOfEmploys());
+        writeLists(out, librarian);
+    }
+
+    /**
+     * Writes the details given to the constructor of a user: names, address, image, email and balance.
+     * @param out the record.
+     * @param user the user.
+     */
+    private static void writeDetails(Output out, User user) {
+        out.writeString(user.getUserName());
+        out.writeString(user.getFirstName());
+        out.writeString(user.getLastName());
+        out.writeString(user.getMobileNumber());
+        out.writeString(user.getFirstLineAddress());
+        out.writeString(user.getSecondLineAddress());
+        out.writeString(user.getPostCode());
+        out.writeString(user.getTownName());
+        out.writeString(user.getProfImage());
+        out.writeString(user.getEmail());
+        out.writeDouble(user.getAccountBalanceDouble());
+    }
+
+    /**
+     * Writes the last login and lists of a user: borrowed resources, transactions, borrow history, requests,
+     * reservations and events.
+     * @param out the record.
+     * @param user the user.
+     */
+    private static void writeLists(Output out, User user) {
+        Date login = user.getLastLogin();
+        //New accounts have not logged in yet.
+        out.writeString(login == null ? null : new SimpleDateFormat(LOGIN_DATE_FORMAT).format(login));
+
+        out.writeStrings(user.getCurrentlyBorrowedResources());
+        out.writeInt(user.getTransactions().size());
+        for (String[] transaction : user.getTransactions()) {
+            out.writeString(transaction[0]);
+            out.writeString(transaction[1]);
+            out.writeString(transaction[2]);
+        }
+        out.writeInt(user.getBorrowHistory().size());
+        for (String[] borrow : user.getBorrowHistory()) {
+            out.writeString(borrow[0]);
+            out.writeString(borrow[1]);
+        }
+        out.writeStrings(user.getAllRequested());
+        out.writeStrings(user.getAllReserved());
+        out.writeStrings(user.getAllEventsAttended());
+    }
+
+    /**
+     * Reads a user.
+     * @param in the record.
+     * @return the user.
+     */
+    private static User readUser(Input in) {
+        String[] details = readDetails(in);
+        User user = new User(details[0], details[1], details[2], details[3], details[4], details[5], details[6],
+                details[7], in.readDouble(), details[8], details[9]);
+        readLists(in, user);
+        return user;
+    }
+
+    /**
+     * Reads a librarian.
+     * @param in the record.
+     * @return the librarian.
+     */
+    private static Librarian readLibrarian(Input in) {
+        String[] details = readDetails(in);
+        Librarian librarian = new Librarian(details[0], details[1], details[2], details[3], details[4],
+                details[5], details[6], details[7], in.readDouble(), details[8], in.readInt(), in.readInt(),
+                in.readInt(), in.readString(), in.readInt(), details[9]);
+        readLists(in, librarian);
+        return librarian;
+    }
+
+    /**
+     * Reads the strings written by writeDetails, leaving the balance to be read.
+     * @param in the record.
+     * @return username, first name, last name, mobile number, address lines, post code, town, image and email.
+     */
+    private static String[] readDetails(Input in) {
+        String[] details = new String[10];
+        for (int i = 0; i < details.length; i++) {
+            details[i] = in.readString();
+        }
+        return details;
+    }
+
+    /**
+     * Reads the last login and lists written by writeLists.
+     * @param in the record.
+     * @param user the user to add them to.
+     */
+    private static void readLists(Input in, User user) {
+        String login = in.readString();
+        if (login != null) {
+            try {
+                user.setLastLogin(new SimpleDateFormat(LOGIN_DATE_FORMAT).parse(login));
+            } catch (ParseException e) {
+                Log.warn("Bad last login " + login + " for " + user.getUserName());
+            }
+        }
+        user.setResourceCurrentlyBorrowed(in.readStrings());
+        int noOfTransactions = in.readInt();
+        for (int i = 0; i < noOfTransactions; i++) {
+            user.addToTransactionHistory(new String[] {in.readString(), in.readString(), in.readString()});
+        }
+        int noOfBorrows = in.readInt();
+        for (int i = 0; i < noOfBorrows; i++) {
+            user.addToBorrowHistory(new String[] {in.readString(), in.readString()});
+        }
+        user.setResourceCurrentlyRequested(in.readStrings());
+        user.setResourceCurrentlyReserved(in.readStrings());
+        user.setEventsAttanded(in.readStrings());
+    }
+
+    /**
+     * Writes the fields shared by every type of resource, including every copy and its history.
+     * @param out the record.
+     * @param resource the resource.
+     */
+    private static void writeResource(Output out, Resource resource) {
+        out.writeString(resource.getDateAdded());
+        out.writeString(resource.getUniqueID());
+        out.writeString(resource.getTitle());
+        out.writeString(resource.getYear());
+        out.writeString(resource.getThumbnailImageRef());
+        out.writeStrings(resource.getQueueOfReservations().toList());
+
+        List<CopyData> copies = resource.getArrayListOfCopies();
+        out.writeInt(copies.size());
+        for (int i = 0; i < copies.size(); i++) {
+            CopyData copy = copies.get(i);
+            out.writeString(resource.getLoanDuration(String.valueOf(i)));
+            writeBorrow(out, copy.getCurrentInfo());
+            if (copy.getBorrowHistory() instanceof MappedBorrowHistory) {
+                ((MappedBorrowHistory) copy.getBorrowHistory()).writeTo(out);
+            } else {
+                out.writeInt(copy.getBorrowHistory().size());
+                for (BorrowHistoryData borrow : copy.getBorrowHistory()) {
+                    writeBorrow(out, borrow);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes who borrowed a copy and when.
+     * @param out the record.
+     * @param borrow the borrow.
+     */
+    private static void writeBorrow(Output out, BorrowHistoryData borrow) {
+        out.writeString(borrow.getUserID());
+        out.writeLong(borrow.getTimeBorrowed());
+        out.writeLong(borrow.getTimeReturned());
+        out.writeLong(borrow.getTimeRequestedReturn());
+    }
+
+    /**
+     * Reads the fields shared by every type of resource.
+     * @param in the record.
+     * @return the resource.
+     */
+    private static Resource readResource(Input in) {
+        String dateAdded = in.readString();
+        String uniqueID = in.readString();
+        String title = in.readString();
+        String year = in.readString();
+        String thumbnailImg = in.readString();
+        List<String> queue = in.readStrings();
+
+        int noOfCopies = in.readInt();
+        List<String> loanDurs = new ArrayList<>(noOfCopies);
+        List<BorrowHistoryData> currentData = new ArrayList<>(noOfCopies);
+        List<List<BorrowHistoryData>> borrowHistory = new ArrayList<>(noOfCopies);
+        for (int i = 0; i < noOfCopies; i++) {
+            loanDurs.add(in.readString());
+            currentData.add(readBorrow(in));
+            int noOfBorrows = in.readInt();
+            if (in.lazy) {
+                borrowHistory.add(new MappedBorrowHistory(in, noOfBorrows));
+                for (int j = 0; j < noOfBorrows; j++) {
+                    skipBorrow(in);
+                }
+            } else {
+                List<BorrowHistoryData> copyBorrowHistory = new ArrayList<>(noOfBorrows);
+                for (int j = 0; j < noOfBorrows; j++) {
+                    copyBorrowHistory.add(readBorrow(in));
+                }
+                borrowHistory.add(copyBorrowHistory);
+            }
+        }
+
+        Resource resource = new Resource(year, title, thumbnailImg, uniqueID, dateAdded, noOfCopies, loanDurs,
+                borrowHistory, currentData);
+        for (String username : queue) {
+            resource.enqueueRequest(username);
+        }
+        return resource;
+    }
+
+    /**
+     * Reads who borrowed a copy and when.
+     * @param in the record.
+     * @return the borrow.
+     */
+    private static BorrowHistoryData readBorrow(Input in) {
+        BorrowHistoryData borrow = new BorrowHistoryData();
+        borrow.setUserID(in.readString());
+        borrow.setTimeBorrowed(in.readLong());
+        borrow.setTimeReturned(in.readLong());
+        borrow.setTimeRequestedReturn(in.readLong());
+        return borrow;
+    }
+
+    /**
+     * Skips over a borrow written by writeBorrow.
+     * @param in the record.
+     */
+    private static void skipBorrow(Input in) {
+        in.readInt();
+        in.readLong();
+        in.readLong();
+        in.readLong();
+    }
+
+    /**
+     * Writes a book.
+     * @param out the record.
+     * @param book the book.
+     */
+    private static void writeBook(Output out, Book book) {
+        writeResource(out, book);
+        out.writeString(book.getAuthor());
+        out.writeString(book.getGenre());
+        out.writeString(book.getIsbn());
+        out.writeString(book.getPublisher());
+        out.writeStrings(book.getLanguages());
+    }
+
+    /**
+     * Reads a book.
+     * @param in the record.
+     * @return the book.
+     */
+    private static Book readBook(Input in) {
+        return new Book(readResource(in), in.readString(), in.readString(), in.readString(), in.readString(),
+                in.readStrings());
+    }
+
+    /**
+     * Writes a DVD.
+     * @param out the record.
+     * @param dvd the DVD.
+     */
+    private static void writeDVD(Output out, DVD dvd) {
+        writeResource(out, dvd);
+        out.writeString(dvd.getDirector());
+        out.writeString(dvd.getRuntime());
+        out.writeString(dvd.getLanguage());
+        out.writeStrings(dvd.getSubLang());
+    }
+
+    /**
+     * Reads a DVD.
+     * @param in the record.
+     * @return the DVD.
+     */
+    private static DVD readDVD(Input in) {
+        return new DVD(readResource(in), in.readString(), in.readString(), in.readString(), in.readStrings());
+    }
+
+    /**
+     * Writes a laptop.
+     * @param out the record.
+     * @param laptop the laptop.
+     */
+    private static void writeLaptop(Output out, Laptop laptop) {
+        writeResource(out, laptop);
+        out.writeString(laptop.getManufacturer());
+        out.writeString(laptop.getModel());
+        out.writeString(laptop.getOperatingSys());
+    }
+
+    /**
+     * Reads a laptop.
+     * @param in the record.
+     * @return the laptop.
+     */
+    private static Laptop readLaptop(Input in) {
+        return new Laptop(readResource(in), in.readString(), in.readString(), in.readString());
+    }
+
+    /**
+     * Writes a video game.
+     * @param out the record.
+     * @param videoGame the video game.
+     */
+    private static void writeVideoGame(Output out, VideoGame videoGame) {
+        writeResource(out, videoGame);
+        out.writeString(videoGame.getGenre());
+        out.writeString(videoGame.getCertificateRating());
+        out.writeString(videoGame.getPublisher());
+        out.writeString(videoGame.getMultiplayerSupport());
+        out.writeStrings(videoGame.getLanguages());
+    }
+
+    /**
+     * Reads a video game.
+     * @param in the record.
+     * @return the video game.
+     */
+    private static VideoGame readVideoGame(Input in) {
+        return new VideoGame(readResource(in), in.readString(), in.readString(), in.readString(), in.readString(),
+                in.readStrings());
+    }
+
+    /**
+     * Writes an event.
+     * @param out the record.
+     * @param event the event.
+     */
+    private static void writeEvent(Output out, Event event) {
+        out.writeString(event.getEventID());
+        out.writeString(event.getTitle());
+        out.writeString(event.getDate());
+        out.writeString(event.getTime());
+        out.writeInt(event.getMaxNumberOfAttending());
+        out.writeInt(event.getCurrentNumberOfAttending());
+        out.writeString(event.getDescription());
+    }
+
+    /**
+     * Reads an event.
+     * @param in the record.
+     * @return the event.
+     */
+    private static Event readEvent(Input in) {
+        return new Event(in.readString(), in.readString(), in.readString(), in.readString(), in.readInt(),
+                in.readInt(), in.readString());
+    }
+
+    /**
+     * Reads the string table.
+     * @param in the bytes of the table.
+     * @return the strings, in the order records refer to them.
+     */
+    private static String[] readTable(Input in) {
+        String[] table = new String[in.readInt()];
+        for (int i = 0; i < table.length; i++) {
+            int length = in.readInt();
+            table[i] = new String(in.bytes.array(), in.position, length, StandardCharsets.UTF_8);
+            in.position += length;
+        }
+        return table;
+    }
+
+    /**
+     * <h1>Output.</h1>
+     * <p>Builds one record at a time, and the string table shared by all of them.
+     * Whole numbers are written 7 bits to a byte, so small numbers take one byte.</p>
+     */
+    private static class Output {
+        private byte[] bytes = new byte[256];
+        private int size;
+        private final HashMap<String, Integer> indexes = new HashMap<>(); //String -> its number in the table.
+        private final List<String> strings = new ArrayList<>(); //The table, in order.
+
+        /**
+         * Writes the record built so far to the file and starts the next one.
+         * @param file the snapshot file.
+         * @param type the type of record.
+         * @throws IOException if the file cannot be written.
+         */
+        private void writeTo(DataOutputStream file, int type) throws IOException {
+            file.writeByte(type);
+            writeVarInt(file, size);
+            file.write(bytes, 0, size);
+            size = 0;
+        }
+
+        /**
+         * Writes the string table to the file.
+         * @param file the snapshot file.
+         * @throws IOException if the file cannot be written.
+         */
+        private void writeTable(DataOutputStream file) throws IOException {
+            writeVarInt(file, strings.size());
+            for (String string : strings) {
+                byte[] utf8 = string.getBytes(StandardCharsets.UTF_8);
+                writeVarInt(file, utf8.length);
+                file.write(utf8);
+            }
+        }
+
+        /**
+         * Writes a string as its number in the table, 0 for null.
+         * @param string the string.
+         */
+        private void writeString(String string) {
+            if (string == null) {
+                writeInt(0);
+                return;
+            }
+            Integer index = indexes.get(string);
+            if (index == null) {
+                strings.add(string);
+                index = strings.size();
+                indexes.put(string, index);
+            }
+            writeInt(index);
+        }
+
+        /**
+         * Writes a list of strings.
+         * @param list the strings.
+         */
+        private void writeStrings(List<String> list) {
+            writeInt(list.size());
+            for (String string : list) {
+                writeString(string);
+            }
+        }
+
+        /**
+         * Writes a whole number. Negative numbers take five bytes.
+         * @param value the number.
+         */
+        private void writeInt(int value) {
+            writeLong(value & 0xFFFFFFFFL);
+        }
+
+        /**
+         * Writes a whole number. Negative numbers take ten bytes.
+         * @param value the number.
+         */
+        private void writeLong(long value) {
+            if (size + 10 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) (value & 0x7F | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        /**
+         * Writes a number exactly.
+         * @param value the number.
+         */
+        private void writeDouble(double value) {
+            long bits = Double.doubleToLongBits(value);
+            if (size + 8 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                bytes[size++] = (byte) (bits >>> shift);
+            }
+        }
+
+        /**
+         * Writes a whole number straight to the file, 7 bits to a byte.
+         * @param file the snapshot file.
+         * @param value the number, not negative.
+         * @throws IOException if the file cannot be written.
+         */
+        private static void writeVarInt(DataOutputStream file, int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                file.writeByte(value & 0x7F | 0x80);
+                value >>>= 7;
+            }
+            file.writeByte(value);
+        }
+    }
+
+    /**
+     * <h1>Input.</h1>
+     * <p>Reads the fields of one record at a time, written by Output. Records are either read from the file one
+     * by one, or all in bytes when the file is mapped. Only absolute gets are used on bytes, so many Inputs can
+     * read the same mapped file at once.</p>
+     */
+    private static class Input {
+        private ByteBuffer bytes;
+        private int position;
+        private int end; //Position after the last byte of the record.
+        private String[] table;
+        private DataInputStream file; //Where records are read from, null if every record is in bytes.
+        private boolean lazy; //True to leave borrow histories in bytes until they are used.
+        private boolean started; //True once past MAGIC and VERSION.
+
+        private Input(ByteBuffer bytes) {
+            this.bytes = bytes;
+            this.end = bytes.capacity();
+        }
+
+        /**
+         * Moves to the next record.
+         * @return the type of the record, END if there are no more.
+         * @throws IOException if the file cannot be read.
+         */
+        private int next() throws IOException {
+            if (file == null) {
+                position = started ? end : 8; //MAGIC and VERSION come first.
+                started = true;
+                end = bytes.capacity();
+                int type = bytes.get(position++) & 0xFF;
+                if (type != END) {
+                    int length = readInt();
+                    end = position + length;
+                }
+                return type;
+            }
+
+            if (!started) {
+                file.skipBytes(8); //MAGIC and VERSION.
+                started = true;
+            }
+            int type = file.readUnsignedByte();
+            if (type == END) {
+                return END;
+            }
+            int length = 0;
+            for (int shift = 0; ; shift += 7) {
+                int b = file.readUnsignedByte();
+                length |= (b & 0x7F) << shift;
+                if (b < 0x80) {
+                    break;
+                }
+            }
+            if (length > bytes.capacity()) {
+                bytes = ByteBuffer.allocate(Math.max(length, bytes.capacity() * 2));
+            }
+            file.readFully(bytes.array(), 0, length);
+            position = 0;
+            end = length;
+            return type;
+        }
+
+        /**
+         * Closes the file records are read from, if any.
+         */
+        private void close() {
+            if (file == null) {
+                return;
+            }
+            try {
+                file.close();
+            } catch (IOException e) {
+                Log.warn("Error closing " + IO.getSnapshotFilePath() + ": " + e);
+            }
+        }
+
+        /**
+         * Reads a string written by Output.writeString.
+         * @return the string, or null.
+         */
+        private String readString() {
+            int index = readInt();
+            return index == 0 ? null : table[index - 1];
+        }
+
+        /**
+         * Reads a list of strings.
+         * @return the strings.
+         */
+        private ArrayList<String> readStrings() {
+            int length = readInt();
+            ArrayList<String> list = new ArrayList<>(length);
+            for (int i = 0; i < length; i++) {
+                list.add(readString());
+            }
+            return list;
+        }
+
+        /**
+         * Reads a whole number written by Output.writeInt.
+         * @return the number.
+         */
+        private int readInt() {
+            return (int) readLong();
+        }
+
+        /**
+         * Reads a whole number written by Output.writeLong.
+         * @return the number.
+         */
+        private long readLong() {
+            long value = 0;
+            for (int shift = 0; ; shift += 7) {
+                if (position >= end) {
+                    throw new IllegalStateException("Record ends part way through a field");
+                }
+                byte b = bytes.get(position++);
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+
+        /**
+         * Reads a number written by Output.writeDouble.
+         * @return the number.
+         */
+        private double readDouble() {
+            if (position + 8 > end) {
+                throw new IllegalStateException("Record ends part way through a field");
+            }
+            double value = bytes.getDouble(position);
+            position += 8;
+            return value;
+        }
+    }
+
+    /**
+     * <h1>MappedBorrowHistory.</h1>
+     * <p>The borrow history of a copy, left in the mapped snapshot until it is first used. Its size is known
+     * without decoding it, and writing it to a new snapshot copies it across without decoding it.</p>
+     */
+    private static class MappedBorrowHistory extends AbstractList<BorrowHistoryData> {
+        private ByteBuffer bytes; //The mapped snapshot, null once decoded.
+        private String[] table;
+        private final int start; //Position of the first borrow in bytes.
+        private final int noOfBorrows;
+        private List<BorrowHistoryData> decoded; //Null until first used.
+
+        /**
+         * Keeps where a borrow history is in the mapped snapshot.
+         * @param in the record, at the first borrow.
+         * @param noOfBorrows the number of borrows.
+         */
+        private MappedBorrowHistory(Input in, int noOfBorrows) {
+            this.bytes = in.bytes;
+            this.table = in.table;
+            this.start = in.position;
+            this.noOfBorrows = noOfBorrows;
+        }
+
+        /**
+         * Decodes the borrows the first time they are used.
+         * @return the borrows.
+         */
+        private synchronized List<BorrowHistoryData> decoded() {
+            if (decoded == null) {
+                Input in = reader();
+                decoded = new ArrayList<>(noOfBorrows);
+                for (int i = 0; i < noOfBorrows; i++) {
+                    decoded.add(readBorrow(in));
+                }
+                bytes = null;
+                table = null;
+                Metrics.count("io.snapshot.historiesDecoded");
+            }
+            return decoded;
+        }
+
+        /**
+         * Writes the borrows to a new snapshot, copying them from the mapped snapshot if not yet decoded.
+         * @param out the record of the resource.
+         */
+        private synchronized void writeTo(Output out) {
+            if (decoded != null) {
+                out.writeInt(decoded.size());
+                for (BorrowHistoryData borrow : decoded) {
+                    writeBorrow(out, borrow);
+                }
+                return;
+            }
+            Input in = reader();
+            out.writeInt(noOfBorrows);
+            for (int i = 0; i < noOfBorrows; i++) {
+                out.writeString(in.readString());
+                out.writeLong(in.readLong());
+                out.writeLong(in.readLong());
+                out.writeLong(in.readLong());
+            }
+        }
+
+        /**
+         * Starts reading the borrows from the mapped snapshot.
+         * @return an Input at the first borrow.
+         */
+        private Input reader() {
+            Input in = new Input(bytes);
+            in.table = table;
+            in.position = start;
+            return in;
+        }
+
+        @Override
+        public BorrowHistoryData get(int index) {
+            return decoded().get(index);
+        }
+
+        @Override
+        public synchronized int size() {
+            return decoded == null ? noOfBorrows : decoded.size();
+        }
+
+        @Override
+        public BorrowHistoryData set(int index, BorrowHistoryData borrow) {
+            return decoded().set(index, borrow);
+        }
+
+        @Override
+        public void add(int index, BorrowHistoryData borrow) {
+            decoded().add(index, borrow);
+            modCount++;
+        }
+
+        @Override
+        public BorrowHistoryData remove(int index) {
+            modCount++;
+            return decoded().remove(index);
+        }
+    }
+}
@@ -4,17 +4,26 @@ import event.Event;
 import javafx.embed.swing.SwingFXUtils;
 import javafx.scene.image.WritableImage;
 import library.Library;
+import library.LibraryRatings;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 import resources.*;
 import user.Librarian;
 import user.User;
-import utils.Queue;
+import utils.Log;
+import utils.Metrics;
 
 import javax.imageio.ImageIO;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -32,13 +41,34 @@ import java.util.List;
 //TODO add email to write class and add email to all users.
 @SuppressWarnings("Duplicates")
 public class WriteFile extends IO {
+    private static final String TEMP_SUFFIX = ".tmp"; //Suffix of a data file while it is being rewritten.
+
     /**
      * This method saves a user object to the user json file.
      *
      * @param user a user of the library.
      */
-    @SuppressWarnings({"unchecked"})
     public static void writeUser(User user) {
+        JSONObject object = writeUserToObject(user);
+
+        try {
+            FileWriter file = new FileWriter(IO.getUsersFilePath(), true);
+            file.write(object.toJSONString() + "\n");
+            file.flush();
+            file.close();
+        } catch (IOException e) {
+            Log.error("Error writing user to " + IO.getUsersFilePath() + " " + user.getUserName());
+        }
+    }
+
+    /**
+     * Converts a user to a writeable JSON object.
+     *
+     * @param user a user of the library.
+     * @return object the JSON object of the user.
+     */
+    @SuppressWarnings({"unchecked"})
+    static JSONObject writeUserToObject(User user) {
         JSONObject object = new JSONObject();
         JSONArray resourceArray = new JSONArray();
         JSONArray transactionArray = new JSONArray();
@@ -59,7 +89,8 @@ public class WriteFile extends IO {
         object.put("accountBalance", String.valueOf(user.getAccountBalanceDouble()));
         Date date = user.getLastLogin();
         DateFormat dateFormat = new SimpleDateFormat("dd/MM/yyyy");
-        String strDate = dateFormat.format(date);
+        //New accounts have not logged in yet.
+        String strDate = date == null ? "" : dateFormat.format(date);
         object.put("lastLogin", strDate);
 
         for (String resource : user.getCurrentlyBorrowedResources()) {
@@ -88,7 +119,7 @@ public class WriteFile extends IO {
 
         ArrayList<String> requestedArray = user.getAllRequested();
         for (String requested : requestedArray) {
-            System.out.println(requested);
+            Log.debug("Writing request for " + requested);
             jsonRequestedArray.add(requested);
         }
         object.put("requested", jsonRequestedArray);
@@ -114,23 +145,35 @@ public class WriteFile extends IO {
 //        }
 //        object.put("fineHistory", fineHistoryObject);
 
+        return object;
+    }
+
+    /**
+     * This method saves a librarian object to the librarian json file. It saves everything to do with the librarian.
+     *
+     * @param librarian a librarian of the library.
+     */
+    public static void writeLibrarian(Librarian librarian) {
+        JSONObject object = writeLibrarianToObject(librarian);
+
         try {
-            FileWriter file = new FileWriter(IO.getUsersFilePath(), true);
+            FileWriter file = new FileWriter(IO.getLibrarianFilePath(), true);
             file.write(object.toJSONString() + "\n");
             file.flush();
             file.close();
         } catch (IOException e) {
-            System.out.println("Error writing user to " + IO.getUsersFilePath() + " " + user.getUserName());
+            Log.error("Error writing user to " + IO.getLibrarianFilePath() + " " + librarian.getUserName());
         }
     }
 
     /**
-     * This method saves a librarian object to the librarian json file. It saves everything to do with the librarian.
+     * Converts a librarian to a writeable JSON object.
      *
      * @param librarian a librarian of the library.
+     * @return object the JSON object of the librarian.
      */
     @SuppressWarnings("unchecked")
-    public static void writeLibrarian(Librarian librarian) {
+    static JSONObject writeLibrarianToObject(Librarian librarian) {
         JSONObject object = new JSONObject();
         JSONArray resourceArray = new JSONArray();
         JSONArray transactionArray = new JSONArray();
@@ -156,7 +199,8 @@ public class WriteFile extends IO {
         object.put("noOfEmploys", String.valueOf(librarian.getNumberOfEmploys()));
         Date date = librarian.getLastLogin();
         DateFormat dateFormat = new SimpleDateFormat("dd/MM/yyyy");
-        String strDate = dateFormat.format(date);
+        //New accounts have not logged in yet.
+        String strDate = date == null ? "" : dateFormat.format(date);
         object.put("lastLogin", strDate);
 
         for (String resource : librarian.getCurrentlyBorrowedResources()) {
@@ -185,7 +229,7 @@ public class WriteFile extends IO {
 
         ArrayList<String> requestedArray = librarian.getAllRequested();
         for (String requested : requestedArray) {
-            System.out.println(requested);
+            Log.debug("Writing request for " + requested);
             jsonRequestedArray.add(requested);
         }
         object.put("requested", jsonRequestedArray);
@@ -202,14 +246,7 @@ public class WriteFile extends IO {
         }
         object.put("events", jsonEventsAttended);
 
-        try {
-            FileWriter file = new FileWriter(IO.getLibrarianFilePath(), true);
-            file.write(object.toJSONString() + "\n");
-            file.flush();
-            file.close();
-        } catch (IOException e) {
-            System.out.println("Error writing user to " + IO.getLibrarianFilePath() + " " + librarian.getUserName());
-        }
+        return object;
     }
 
     /**
@@ -218,8 +255,22 @@ public class WriteFile extends IO {
      * @param dvds a list of all currently owned dvds
      * @param laptops a list of all currently owned laptops.
      * @param games a list of all currently owned videogames.
+     * @return True if the file was replaced, false if it could not be written and the old file is still in place.
+     */
+    public static boolean writeResources(List<Book> books, List<DVD> dvds, List<Laptop> laptops, List<VideoGame> games){
+        return writeResourcesTemp(books, dvds, laptops, games) && replaceWithTemp(IO.getResourceFilePath());
+    }
+
+    /**
+     * Writes all currently owned resources to the temporary copy of the resource json file.
+     * @param books a list of all currently owned books.
+     * @param dvds a list of all currently owned dvds
+     * @param laptops a list of all currently owned laptops.
+     * @param games a list of all currently owned videogames.
+     * @return True if the temporary copy was written.
      */
-    public static void writeResources(List<Book> books, List<DVD> dvds, List<Laptop> laptops, List<VideoGame> games){
+    private static boolean writeResourcesTemp(List<Book> books, List<DVD> dvds, List<Laptop> laptops,
+                                              List<VideoGame> games) {
         // Create the JSONObject Holding All Resources
         JSONObject resourcesObject = new JSONObject();
 
@@ -257,16 +308,24 @@ public class WriteFile extends IO {
         resourcesObject.put("Laptops", laptopArray);
         resourcesObject.put("VideoGames", gameArray);
 
+        boolean written;
         try {
-            FileWriter file = new FileWriter(IO.getResourceFilePath());
+            FileOutputStream out = new FileOutputStream(IO.getResourceFilePath() + TEMP_SUFFIX);
+            Writer file = new BufferedWriter(new OutputStreamWriter(out));
             file.write(resourcesObject.toJSONString());
             file.flush();
+            out.getFD().sync();
             file.close();
+            written = true;
         } catch (IOException e) {
-            System.out.println("Error writing to " + IO.getResourceFilePath());
+            Log.error("Error writing to " + IO.getResourceFilePath());
+            written = false;
         }
 
-        System.out.println(resourcesObject.toJSONString());
+        if (Log.isEnabled(Log.DEBUG)) {
+            Log.debug(resourcesObject.toJSONString());
+        }
+        return written;
     }
 
     /**
@@ -274,7 +333,7 @@ public class WriteFile extends IO {
      * @param resource the resource to be converted.
      * @return resourceObject the converted, writeable resource.
      */
-    private static JSONObject writeResourceToObject(Resource resource){
+    static JSONObject writeResourceToObject(Resource resource){
         JSONObject resourceObject = new JSONObject();
 
         // Resource Properties
@@ -285,12 +344,8 @@ public class WriteFile extends IO {
         resourceObject.put("CopyAmount", String.valueOf(resource.getNoOfCopies()));
         resourceObject.put("ThumbnailImage", resource.getThumbnailImageRef());
 
-        Queue<User> reservedQueue = resource.getQueueOfReservations();
         JSONArray reservedArray = new JSONArray();
-        while (!reservedQueue.isEmpty()) {
-            reservedArray.add(reservedQueue.peek());
-            reservedQueue.dequeue();
-        }
+        reservedArray.addAll(resource.getQueueOfReservations().toList());
         resourceObject.put("ReservedQueue", reservedArray);
 
         JSONArray loanDurations = new JSONArray();
@@ -340,7 +395,7 @@ public class WriteFile extends IO {
      * @param book the resource to be converted.
      * @return bookObject the JSON object of the converted Resource
      */
-    private static JSONObject writeBookToObject(Book book){
+    static JSONObject writeBookToObject(Book book){
         JSONObject bookObject = writeResourceToObject(book);
 
         bookObject.put("Author", book.getAuthor());
@@ -361,7 +416,7 @@ public class WriteFile extends IO {
      * @param dvd the resource to be converted.
      * @return dvdObject the JSON object of the converted Resource
      */
-    private static JSONObject writeDVDToObject(DVD dvd){
+    static JSONObject writeDVDToObject(DVD dvd){
         JSONObject dvdObject = writeResourceToObject(dvd);
 
         dvdObject.put("Director", dvd.getDirector());
@@ -383,7 +438,7 @@ public class WriteFile extends IO {
      * @param laptop the resource to be converted.
      * @return laptopObject the JSON object of the converted Resource
      */
-    private static JSONObject writeLaptopToObject(Laptop laptop){
+    static JSONObject writeLaptopToObject(Laptop laptop){
         JSONObject laptopObject = writeResourceToObject(laptop);
 
         laptopObject.put("Manufacturer", laptop.getManufacturer());
@@ -398,7 +453,7 @@ public class WriteFile extends IO {
      * @param videoGame the resource to be converted.
      * @return videoGameObject the converted resource.
      */
-    private static JSONObject writeVideoGameToObject(VideoGame videoGame){
+    static JSONObject writeVideoGameToObject(VideoGame videoGame){
         JSONObject videoGameObject = writeResourceToObject(videoGame);
 
         videoGameObject.put("Publisher", videoGame.getPublisher());
@@ -419,16 +474,32 @@ public class WriteFile extends IO {
      * This method overwrites the user json file with all of the users passed into the method.
      *
      * @param users an ArrayList of users from the library.
+     * @return True if the file was replaced, false if it could not be written and the old file is still in place.
      */
-    public static void overwriteUsers(ArrayList<User> users) {
-        File usersFile = new File(IO.getUsersFilePath());
-
-        if (usersFile.exists()) {
-            usersFile.delete();
-        }
+    public static boolean overwriteUsers(ArrayList<User> users) {
+        return writeUsersTemp(users) && replaceWithTemp(IO.getUsersFilePath());
+    }
 
-        for (User user : users) {
-            writeUser(user);
+    /**
+     * Writes all of the users to the temporary copy of the user json file.
+     *
+     * @param users an ArrayList of users from the library.
+     * @return True if the temporary copy was written.
+     */
+    private static boolean writeUsersTemp(ArrayList<User> users) {
+        try {
+            FileOutputStream out = new FileOutputStream(IO.getUsersFilePath() + TEMP_SUFFIX);
+            Writer file = new BufferedWriter(new OutputStreamWriter(out));
+            for (User user : users) {
+                file.write(writeUserToObject(user).toJSONString() + "\n");
+            }
+            file.flush();
+            out.getFD().sync();
+            file.close();
+            return true;
+        } catch (IOException e) {
+            Log.error("Error writing users to " + IO.getUsersFilePath());
+            return false;
         }
     }
 
@@ -436,16 +507,32 @@ public class WriteFile extends IO {
      * This method overwrites the librarian json file with all of the librarians passed into the method.
      *
      * @param librarians an ArrayList of librarians from the library.
+     * @return True if the file was replaced, false if it could not be written and the old file is still in place.
      */
-    public static void overwriteLibrarians(ArrayList<Librarian> librarians) {
-        File librarianFile = new File(IO.getLibrarianFilePath());
-
-        if (librarianFile.exists()) {
-            librarianFile.delete();
-        }
+    public static boolean overwriteLibrarians(ArrayList<Librarian> librarians) {
+        return writeLibrariansTemp(librarians) && replaceWithTemp(IO.getLibrarianFilePath());
+    }
 
-        for (Librarian librarian : librarians) {
-            writeLibrarian(librarian);
+    /**
+     * Writes all of the librarians to the temporary copy of the librarian json file.
+     *
+     * @param librarians an ArrayList of librarians from the library.
+     * @return True if the temporary copy was written.
+     */
+    private static boolean writeLibrariansTemp(ArrayList<Librarian> librarians) {
+        try {
+            FileOutputStream out = new FileOutputStream(IO.getLibrarianFilePath() + TEMP_SUFFIX);
+            Writer file = new BufferedWriter(new OutputStreamWriter(out));
+            for (Librarian librarian : librarians) {
+                file.write(writeLibrarianToObject(librarian).toJSONString() + "\n");
+            }
+            file.flush();
+            out.getFD().sync();
+            file.close();
+            return true;
+        } catch (IOException e) {
+            Log.error("Error writing librarians to " + IO.getLibrarianFilePath());
+            return false;
         }
     }
 
@@ -456,21 +543,15 @@ public class WriteFile extends IO {
      * @param dvds    an ArrayList of dvds from the library.
      * @param laptops an ArrayList of laptops from the library.
      * @param videoGames an ArrayList of videogames from the library.
+     * @return True if the file was replaced, false if it could not be written and the old file is still in place.
      */
-    public static void overwriteResources(ArrayList<Book> books, ArrayList<DVD> dvds, ArrayList<Laptop> laptops, ArrayList<VideoGame> videoGames) {
-        File[] resourceFiles = {new File(IO.getResourceFilePath())};
-
-        for (File resourceFile : resourceFiles) {
-            if (resourceFile.exists()) {
-                resourceFile.delete();
-            }
-        }
-
-        writeResources(books, dvds, laptops, videoGames);
+    public static boolean overwriteResources(ArrayList<Book> books, ArrayList<DVD> dvds, ArrayList<Laptop> laptops, ArrayList<VideoGame> videoGames) {
+        return writeResources(books, dvds, laptops, videoGames);
     }
 
     /**
-     * This method is used to overwrite all of data in the json files that the program is using.
+     * This method is used to overwrite all of data in the json files that the program is using, or the binary
+     * snapshot if IO.isBinarySnapshot is set.
      *
      * @param users      an ArrayList of users from the library.
      * @param books      an ArrayList of the books from the library.
@@ -479,39 +560,84 @@ public class WriteFile extends IO {
      * @param videoGames an ArrayList of videogames from the library.
      * @param librarians an ArrayList of librarians from the library.
      * @param events     an ArrayList of events hosted by the library. 
+     * @return True if every file was written and replaced, false if any could not be, in which case the journal
+     * must be kept.
      */
-    public static void fullWrite(ArrayList<User> users, ArrayList<Book> books, ArrayList<DVD> dvds,
+    public static boolean fullWrite(ArrayList<User> users, ArrayList<Book> books, ArrayList<DVD> dvds,
                                  ArrayList<Laptop> laptops,ArrayList<VideoGame> videoGames, ArrayList<Librarian> librarians, ArrayList<Event> events) {
-
-        overwriteUsers(users);
-        overwriteResources(books, dvds, laptops, videoGames);
-        overwriteLibrarians(librarians);
-        overwriteEvents(events);
+        long start = System.nanoTime();
+        boolean written;
+        if (IO.isBinarySnapshot()) {
+            written = Snapshot.write(users, books, dvds, laptops, videoGames, librarians, events);
+        } else {
+            //Every file is written before any is replaced, so if one cannot be written the old files are all
+            //kept, and the journal still replays over files that match each other.
+            written = writeUsersTemp(users) && writeResourcesTemp(books, dvds, laptops, videoGames)
+                    && writeLibrariansTemp(librarians) && writeEventsTemp(events);
+            if (written) {
+                written = replaceWithTemp(IO.getUsersFilePath());
+                written &= replaceWithTemp(IO.getResourceFilePath());
+                written &= replaceWithTemp(IO.getLibrarianFilePath());
+                written &= replaceWithTemp(IO.getEventFilepath());
+            }
+        }
+        Metrics.time("io.fullWrite", start);
+        return written;
     }
 
     /**
      * This method backs up all of the current json files and creates new ones with the new data from the library
-     * (does a full write).
+     * (does a full write). The journal is cleared as everything in it is now in the new files.
+     * The files are copied to the backup rather than moved, so if the full write fails the old files and the
+     * journal are both still in place.
      */
     public static void backupCurrent() {
         SimpleDateFormat dateFormat = new SimpleDateFormat("dd-MM-yyyy-HH-mm-ss");
         String newFilePath = dateFormat.format(new Date());
         new File("./data/backup/" + newFilePath).mkdirs();
-        File currentFile = null;
 
-        currentFile = new File(IO.getUsersFilePath());
-        currentFile.renameTo(new File("./data/backup/" + newFilePath + "/users.json"));
+        backUp(IO.getUsersFilePath(), "./data/backup/" + newFilePath + "/users.json");
+        backUp(IO.getLibrarianFilePath(), "./data/backup/" + newFilePath + "/librarians.json");
+        backUp(IO.getResourceFilePath(), "./data/backup/" + newFilePath + "/resources.json");
+        backUp(IO.getEventFilepath(), "./data/backup/" + newFilePath + "/events.json");
+        backUp(IO.getSnapshotFilePath(), "./data/backup/" + newFilePath + "/library.snapshot");
 
-        currentFile = new File(IO.getLibrarianFilePath());
-        currentFile.renameTo(new File("./data/backup/" + newFilePath + "/librarians.json"));
-
-        currentFile = new File(IO.getResourceFilePath());
-        currentFile.renameTo(new File("./data/backup/" + newFilePath + "/resources.json"));
+        Journal.compact();
+    }
 
-        currentFile = new File(IO.getEventFilepath());
-        currentFile.renameTo(new File("./data/backup/" + newFilePath + "/events.json"));
+    /**
+     * Copies a data file to the backup, if it exists.
+     *
+     * @param filePath   the file path of the data file.
+     * @param backupPath the file path of the backup.
+     */
+    private static void backUp(String filePath, String backupPath) {
+        if (!new File(filePath).exists()) {
+            return;
+        }
+        try {
+            Files.copy(Paths.get(filePath), Paths.get(backupPath), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Log.error("Error backing up " + filePath + " to " + backupPath);
+        }
+    }
 
-        fullWrite(Library.getAllUsers(), Library.getAllBooks(), Library.getAllDVD(), Library.getAllLaptops(), Library.getAllVideoGames(), Library.getAllLibrarians(), Library.getAllEvents());
+    /**
+     * Moves the temporary copy of a data file over the data file in one step, so that a crash
+     * part way through writing never leaves a half written data file behind.
+     *
+     * @param filePath the file path of the data file.
+     * @return True if the data file was replaced, false if the old file is still in place.
+     */
+    private static boolean replaceWithTemp(String filePath) {
+        try {
+            Files.move(Paths.get(filePath + TEMP_SUFFIX), Paths.get(filePath),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            Log.error("Error replacing " + filePath);
+            return false;
+        }
     }
 
     /**
@@ -536,51 +662,57 @@ public class WriteFile extends IO {
      * @param rating the number rating of resources i.e. 5/5 etc
      */
     public static void writeRatingToFile(String id, String message, String rating) {
+    	String username = Library.getCurrentLoggedInUser().getUserName();
     	JSONObject object = new JSONObject();
     	object.put("id", id);
     	object.put("message", message);
     	object.put("rating", rating);
-    	object.put("username", Library.getCurrentLoggedInUser().getUserName());
+    	object.put("username", username);
     	
     	try {
             FileWriter file = new FileWriter(IO.getRatingsFilePath(), true);
             file.write(object.toJSONString() + "\n");
             file.flush();
             file.close();
+            LibraryRatings.addRating(new String[] {id, message, rating, username});
         } catch (IOException e) {
-            System.out.println("Error writing ratings to " + IO.getRatingsFilePath());
+            Log.error("Error writing ratings to " + IO.getRatingsFilePath());
         }
     }
 
     /**
      * Overwrites all currently stored events.
      * @param events the list of events to overwrite the original file with.
+     * @return True if the file was replaced, false if it could not be written and the old file is still in place.
      */
-    public static void overwriteEvents(ArrayList<Event> events) {
-
-        File eventFile = new File(IO.getEventFilepath());
-        JSONObject object;
-        FileWriter file;
+    public static boolean overwriteEvents(ArrayList<Event> events) {
+        return writeEventsTemp(events) && replaceWithTemp(IO.getEventFilepath());
+    }
 
-        if (eventFile.exists()) {
-            if(eventFile.delete()) {
-                System.out.println("File deleted");
-            } else {  
-                System.out.println("File not deleted");
-            }
-        }
+    /**
+     * Writes all of the events to the temporary copy of the event json file.
+     * @param events the list of events to write.
+     * @return True if the temporary copy was written.
+     */
+    private static boolean writeEventsTemp(ArrayList<Event> events) {
 
+        JSONObject object;
+        Writer file;
 
         try {
-            file = new FileWriter(IO.getEventFilepath(), true);
+            FileOutputStream out = new FileOutputStream(IO.getEventFilepath() + TEMP_SUFFIX);
+            file = new BufferedWriter(new OutputStreamWriter(out));
             for (Event event : events) {
                 object = writeEventToObject(event);
                 file.write(object.toJSONString() + "\n");
-                file.flush();
             }
+            file.flush();
+            out.getFD().sync();
             file.close();
+            return true;
         } catch (IOException e) {
-            System.out.println("Error writing user to " + IO.getUsersFilePath());
+            Log.error("Error writing events to " + IO.getEventFilepath());
+            return false;
         }
     }
 
@@ -0,0 +1,57 @@
+package library;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <h1>Circulation.</h1>
+ * <p>Counts the copies on loan and the users waiting for a copy across the whole catalogue. Each resource
+ * adds its own counts when it joins the catalogue, changes them as copies are loaned and returned and users
+ * join and leave its request queue, and takes them off again when it leaves, so the counts can be read
+ * without going through every resource. This class is static.</p>
+ *
+ * @author James Carter, Dominik Wojtasiewicz, Peter Daish
+ */
+public class Circulation {
+    private static final LongAdder activeLoans = new LongAdder(); //Copies of catalogued resources on loan.
+    private static final LongAdder waitingUsers = new LongAdder(); //Users in the request queues of catalogued resources.
+
+    /**
+     * Changes the number of copies on loan.
+     * @param change the number of copies loaned, negative for copies returned.
+     */
+    public static void changeLoans(long change) {
+        activeLoans.add(change);
+    }
+
+    /**
+     * Changes the number of users waiting for a copy.
+     * @param change the number of users who joined a request queue, negative for users who left one.
+     */
+    public static void changeRequests(long change) {
+        waitingUsers.add(change);
+    }
+
+    /**
+     * Returns the number of copies on loan.
+     * @return the number of copies.
+     */
+    public static long getActiveLoans() {
+        return activeLoans.sum();
+    }
+
+    /**
+     * Returns the number of users waiting in every request queue together.
+     * @return the number of users, counted once for each resource they wait for.
+     */
+    public static long getRequestQueueLength() {
+        return waitingUsers.sum();
+    }
+
+    /**
+     * Empties the counts, before the library reads its data files.
+     */
+    static void clear() {
+        activeLoans.reset();
+        waitingUsers.reset();
+    }
+}
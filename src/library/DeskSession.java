@@ -0,0 +1,56 @@
+package library;
+
+import user.Librarian;
+import user.User;
+
+/**
+ * <h1>DeskSession.</h1>
+ * <p>The state of one issue desk or kiosk: the user logged in there and the last search made.
+ * Each desk has its own session, so several can use the library at the same time.</p>
+ *
+ * @author Dominik R Wojtasiewicz, Peter Daish, James Carter.
+ */
+public class DeskSession {
+	private final User user; //The user logged in to this session, null if nobody is.
+	private volatile String searchText = ""; //The text last entered into the search bar.
+
+	/**
+	 * Creates a session for a user.
+	 * @param user the logged in user, or null for a session nobody is logged in to.
+	 */
+	public DeskSession(User user) {
+		this.user = user;
+	}
+
+	/**
+	 * Gets the user logged in to this session.
+	 * @return User object, null if nobody is logged in.
+	 */
+	public User getUser() {
+		return user;
+	}
+
+	/**
+	 * Checks if the user logged in to this session is a librarian.
+	 * @return True if the user is a Librarian.
+	 */
+	public boolean isLibrarian() {
+		return user instanceof Librarian;
+	}
+
+	/**
+	 * Gets the text last entered into the search bar in this session.
+	 * @return the search text.
+	 */
+	public String getSearchText() {
+		return searchText;
+	}
+
+	/**
+	 * Sets the text entered into the search bar in this session.
+	 * @param searchText the search text.
+	 */
+	public void setSearchText(String searchText) {
+		this.searchText = searchText;
+	}
+}
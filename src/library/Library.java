@@ -1,14 +1,24 @@
 package library;
-import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 import event.Event;
+import io.IO;
+import io.Journal;
+import io.Snapshot;
 import resources.*;
 import user.Librarian;
 import user.User;
+import utils.EpochDates;
+import utils.Log;
+import utils.Metrics;
 @SuppressWarnings("Duplicates")
 
 /**
@@ -18,38 +28,95 @@ import user.User;
  * @since 18/11/2018
  */
 public class Library {
-	private static User currentUser; //Stores the currently logged-in user.
-	private static String searchScreenText = "";
 	private static final int MAX_RESOURCES = 5;
+	private static final int LOADER_THREADS = 5; //One per data file read on start.
+	private static final int LOCK_STRIPES = 64; //Locks shared between resources and users, see StripedLocks.
+
+	//The session of the desk or kiosk being served on each thread. Starts with nobody logged in.
+	private static final ThreadLocal<DeskSession> currentSession = ThreadLocal.withInitial(() -> new DeskSession(null));
+	//Locks held by operations that change resources and users, so desks can work on the library at the same time.
+	private static final StripedLocks locks = new StripedLocks(LOCK_STRIPES);
 
 	/**
 	 * This methods starts the library. Library is static so we can only
 	 * have one at a time.
+	 * The data files are read at the same time, or the binary snapshot instead when IO.isBinarySnapshot is set
+	 * and one has been written, then users are linked to the resources they borrowed and reserved once
+	 * everything has been read, and the journal of changes since is replayed.
+	 * Must be called before any desk or kiosk uses the library.
 	 */
 	public static void start() {
-		LibraryResources.start();
-		LibraryEvents.start();
+		long start = System.nanoTime();
+		ExecutorService loader = Executors.newFixedThreadPool(LOADER_THREADS);
+		List<Future<?>> loading = new ArrayList<>();
+		loading.add(loader.submit(LibraryRatings::start));
+		if (!IO.isBinarySnapshot() || !Snapshot.exists() || !LibraryResources.loadSnapshot()) {
+			//No snapshot yet, read the data files. The snapshot is written the next time the library is written.
+			loading.add(loader.submit(LibraryResources::loadResources));
+			loading.add(loader.submit(LibraryResources::loadUsers));
+			loading.add(loader.submit(LibraryResources::loadLibrarians));
+			loading.add(loader.submit(LibraryEvents::start));
+		}
+		loader.shutdown();
+
+		for (Future<?> file : loading) {
+			try {
+				file.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				Log.error("Library start interrupted while loading");
+			} catch (ExecutionException e) {
+				Log.error("ERROR loading library data");
+				e.getCause().printStackTrace();
+			}
+		}
+
+		LibraryResources.linkUsers();
+		//Replayed loans count themselves on the popularity board, so the journal is replayed after linking.
+		Journal.replay();
+		registerGauges();
+		Metrics.time("library.start", start);
+	}
+
+	/**
+	 * Adds the gauges of the library's size and state to the metrics.
+	 * They are only read when the metrics are, so cost nothing in between.
+	 */
+	private static void registerGauges() {
+		Metrics.gauge("library.resources", LibraryResources::countResources);
+		Metrics.gauge("library.users", LibraryResources::countUsers);
+		Metrics.gauge("library.overdueCopies", () -> OverdueTracker.findOverdue(System.currentTimeMillis()).size());
+		Metrics.gauge("library.activeLoans", Circulation::getActiveLoans);
+		Metrics.gauge("library.requestQueueLength", Circulation::getRequestQueueLength);
 	}
 
 	/**
-	 * Sets the user to logged in.
+	 * Sets the user to logged in on the calling thread's desk.
 	 * @param username
 	 * The username of the user who logged in.
+	 * @return the new session of the user.
 	 */
-	public static void onLogin(String username) {
+	public static DeskSession onLogin(String username) {
 		Library.setLoggedInUser(Library.getUser(username));
+		return getCurrentSession();
 	}
 	
 	/**
-	 * Adds a fine to logged in user.
+	 * Adds a fine to logged in user. Not journaled itself, as replaying the return that caused it fines the
+	 * user again.
 	 * @param username
 	 * The logged in user's username.
 	 * @param fineAmount
 	 * The fine to add to his account.
 	 */
 	private static void addFine(String username, int fineAmount) {
-		Library.getUser(username).addAccountBalance(fineAmount);
-		Library.getUser(username).addTransaction("Library", fineAmount);
+		int[] held = locks.lock(username);
+		try {
+			Library.getUser(username).addAccountBalance(fineAmount);
+			Library.getUser(username).addTransaction("Library", fineAmount);
+		} finally {
+			locks.unlock(held);
+		}
 	}
 	
 	/**
@@ -76,8 +143,10 @@ public class Library {
 						   		List<List<BorrowHistoryData>> borrowHistory,
 						   		List<BorrowHistoryData> currentBorrowData) {
 		
-		LibraryResources.addBook(new Book(dateAdded, year, title, thumbnailImg, uniqueID, author, genre, isbn, publisher,
-				lang, noOfCopies, loanDuration, borrowHistory, currentBorrowData));
+		Book book = new Book(dateAdded, year, title, thumbnailImg, uniqueID, author, genre, isbn, publisher,
+				lang, noOfCopies, loanDuration, borrowHistory, currentBorrowData);
+		LibraryResources.addBook(book);
+		Journal.recordResource(book);
 		
 	}
 
@@ -104,8 +173,10 @@ public class Library {
 						 		List<List<BorrowHistoryData>> borrowHistory,
 						 		List<BorrowHistoryData> currentBorrowData) {
 		
-	    LibraryResources.addDVD(new DVD(dateAdded, director, runtime, language, subLang, year, title, thumbnailImg, uniqueID,
-				noOfCopies, loanDuration, borrowHistory, currentBorrowData));
+	    DVD dvd = new DVD(dateAdded, director, runtime, language, subLang, year, title, thumbnailImg, uniqueID,
+				noOfCopies, loanDuration, borrowHistory, currentBorrowData);
+	    LibraryResources.addDVD(dvd);
+	    Journal.recordResource(dvd);
 	    
 	}
 
@@ -130,8 +201,10 @@ public class Library {
 							  		List<List<BorrowHistoryData>> borrowHistory,
 							  		List<BorrowHistoryData> currentBorrowData) {
 		
-	    LibraryResources.addLaptop(new Laptop(dateAdded, year, title, thumbnailImageRef, uniqueID, manufacturer, model, operatingSys,
-				noOfCopies, loanDuration, borrowHistory, currentBorrowData));
+	    Laptop laptop = new Laptop(dateAdded, year, title, thumbnailImageRef, uniqueID, manufacturer, model, operatingSys,
+				noOfCopies, loanDuration, borrowHistory, currentBorrowData);
+	    LibraryResources.addLaptop(laptop);
+	    Journal.recordResource(laptop);
 	}
 	
 	/**
@@ -157,9 +230,11 @@ public class Library {
 							  		ArrayList<String> loanDuration, List<List<BorrowHistoryData>> borrowHistory,
 							  		List<BorrowHistoryData> currentBorrowData) {
 		
-	    LibraryResources.addVideoGame(new VideoGame(dateAdded, year, title, thumbnailImageRef, uniqueID, genre, certificateRating, 
+	    VideoGame videoGame = new VideoGame(dateAdded, year, title, thumbnailImageRef, uniqueID, genre, certificateRating,
 	    		publisher, multiplayerSupport, lang,
-	    		noOfCopies, loanDuration, borrowHistory, currentBorrowData));
+	    		noOfCopies, loanDuration, borrowHistory, currentBorrowData);
+	    LibraryResources.addVideoGame(videoGame);
+	    Journal.recordResource(videoGame);
 	}
 
 	/**
@@ -179,8 +254,10 @@ public class Library {
 									String firstLineAddress, String secondLineAddress, String postCode,
 									String townName, int accountBalance, String profImage, String email) {
 		
-		LibraryResources.addUser(new User(userName, firstName, lastName, mobileNumber, firstLineAddress,
-                secondLineAddress, postCode, townName, accountBalance, profImage, email));
+		User user = new User(userName, firstName, lastName, mobileNumber, firstLineAddress,
+                secondLineAddress, postCode, townName, accountBalance, profImage, email);
+		LibraryResources.addUser(user);
+		Journal.recordUser(user);
 	}
 
 	/**
@@ -206,9 +283,11 @@ public class Library {
 										String townName, int accountBalance, String profImage, int empDay,
 										int empMonth, int empYear, String staffNumber, int noOfEmploys, String email) {
 		
-		LibraryResources.addUser(new Librarian(userName, firstName, lastName, mobileNumber, firstLineAddress,
+		Librarian librarian = new Librarian(userName, firstName, lastName, mobileNumber, firstLineAddress,
                 secondLineAddress, postCode, townName, accountBalance, profImage, empDay, empMonth, empYear, staffNumber,
-                noOfEmploys, email));
+                noOfEmploys, email);
+		LibraryResources.addLibrarian(librarian);
+		Journal.recordUser(librarian);
 	}
 
 	/**
@@ -248,22 +327,55 @@ public class Library {
 	 * @param username the username to modify.
 	 */
 	public static void addBalance(int amount, String username) {
-		getUser(username).addAccountBalance(amount);
+		int[] held = locks.lock(username);
+		try {
+			getUser(username).addAccountBalance(amount);
+			Journal.recordDeposit(username, amount);
+		} finally {
+			locks.unlock(held);
+		}
 	}
 
 	/**
-	 * Removes balance from account.
+	 * Removes balance from account, as the user logged in on the calling thread's desk.
 	 * @param amount amount to be removed.
 	 * @param username username of the user.
 	 */
 	public static void subtractBalance (int amount, String username) {
+		subtractBalance(getCurrentSession(), amount, username);
+	}
+
+	/**
+	 * Removes balance from account.
+	 * @param session the session of the librarian taking the payment.
+	 * @param amount amount to be removed.
+	 * @param username username of the user.
+	 */
+	public static void subtractBalance(DeskSession session, int amount, String username) {
+		subtractBalance(session.getUser().getUserName(), amount, username);
+	}
+
+	/**
+	 * Removes balance from account.
+	 * @param librarian the username of the librarian taking the payment.
+	 * @param amount amount to be removed.
+	 * @param username username of the user.
+	 */
+	public static void subtractBalance(String librarian, int amount, String username) {
 		if (amount <= 0) {
 			throw new IllegalArgumentException("Cannot subtract negative or null amount");
-		} else if (amount > getUser(username).getAccountBalanceDouble()) {
-			throw new IllegalArgumentException("Amount superior to account balance");
 		}
-		getUser(username).subtractAccountBalance(amount);
-		getUser(username).addTransaction(currentUser.getUserName(), -amount);
+		int[] held = locks.lock(username);
+		try {
+			if (amount > getUser(username).getAccountBalanceDouble()) {
+				throw new IllegalArgumentException("Amount superior to account balance");
+			}
+			getUser(username).subtractAccountBalance(amount);
+			getUser(username).addTransaction(librarian, -amount);
+			Journal.recordPayment(username, amount, librarian);
+		} finally {
+			locks.unlock(held);
+		}
 	}
 
 	/**
@@ -271,8 +383,7 @@ public class Library {
 	 * @return String.
 	 */
 	public static String getCurrentDateTime() {
-		SimpleDateFormat dataFormat = new SimpleDateFormat("dd-MM-yyyy HH:mm:ss");
-		return dataFormat.format(new Date());
+		return EpochDates.format(EpochDates.now());
 	}
 
 	public static String getCurrentDate() {
@@ -286,28 +397,82 @@ public class Library {
 	 * The text entered into the search bar.
 	 */
 	public static void setSearchStringText(String s) {
-		searchScreenText = s;
+		getCurrentSession().setSearchText(s);
 	}
 
 	/**
-	 * Returns the text from the search bar.
-	 * @return searchScreenText
+	 * Returns the text from the search bar of the calling thread's desk.
+	 * @return searchText
 	 * The text entered into the search bar.
 	 */
 	public static String getSearchScreenText() {
-		return searchScreenText;
+		return getCurrentSession().getSearchText();
+	}
+
+	/**
+	 * Runs a task while no desk is part way through changing a resource or user, e.g. to write out a
+	 * consistent copy of the whole library. Desks wait until the task is done.
+	 * Must not be called while holding the locks of a library operation.
+	 * @param task the task to run.
+	 * @param <T> the type of result of the task.
+	 * @return the result of the task.
+	 */
+	public static <T> T exclusively(Supplier<T> task) {
+		locks.lockAll();
+		try {
+			return task.get();
+		} finally {
+			locks.unlockAll();
+		}
+	}
+
+	/**
+	 * Locks a user and a resource, and the user at the front of the resource's reservation queue, who
+	 * returning or requesting a copy may hand it to. The front of the queue only changes under the
+	 * resource's lock, so it is read under it, and the locks are taken again if it was not yet held.
+	 * @param username the user.
+	 * @param resourceID the ID of the resource, without the copy.
+	 * @return the stripes held, to be passed to locks.unlock.
+	 */
+	private static int[] lockWithQueueFront(String username, String resourceID) {
+		String front = null;
+		while (true) {
+			int[] held = locks.lock(username, resourceID, front);
+			Resource r = getResource(resourceID);
+			String currentFront = r == null ? null : r.getQueueOfReservations().peek();
+			if (currentFront == null || currentFront.equals(front)) {
+				return held;
+			}
+			locks.unlock(held);
+			front = currentFront;
+		}
 	}
 
 	/**
 	 * Loans resource to the user.
 	 * @param username Username of the person borrowing a resource.
 	 * @param resourceID The id of the resource.
+	 * @throws IllegalStateException if the copy was loaned, or reserved for someone else, by another desk.
 	 */
 	public static void loanResource(String username, String resourceID) {
-		getUser(username).loanResource(resourceID);
+		long start = System.nanoTime();
 		String[] resInfo = resourceID.split("-");
-		Resource r = Library.getResource(resInfo[0]);
-		r.loanResource(resInfo[1], username);
+		int[] held = locks.lock(username, resInfo[0]);
+		try {
+			Resource r = Library.getResource(resInfo[0]);
+			CopyData copy = r.getCopyInfo(Integer.valueOf(resInfo[1]));
+			if (!copy.isAvailable() && !(copy.isReserved() && copy.getReservedUser().equals(username)
+					&& !copy.getCurrentInfo().isBorrowed())) {
+				Metrics.count("library.loanResource.refused");
+				throw new IllegalStateException("Copy " + resourceID + " is not available to " + username);
+			}
+			getUser(username).loanResource(resourceID);
+			r.loanResource(resInfo[1], username);
+			Journal.recordLoan(username, resourceID);
+		} finally {
+			locks.unlock(held);
+			Metrics.time("library.loanResource", start);
+		}
 	}
 
 	/**
@@ -316,10 +481,21 @@ public class Library {
 	 * @param resourceID ID of the resource.
 	 */
 	public static void returnResource(String username, String resourceID) {
-		if (chekcCopyOverdue(resourceID)) {
-			Library.addFine(username, Library.calculateFine(resourceID));
+		long start = System.nanoTime();
+		String[] resInfo = resourceID.split("-");
+		int[] held = lockWithQueueFront(username, resInfo[0]);
+		try {
+			if (chekcCopyOverdue(resourceID)) {
+				Metrics.count("library.returnResource.overdue");
+				Library.addFine(username, Library.calculateFine(resourceID));
+			}
+			//The returned copy may be reserved for the next user in the queue, replaying the return does so again.
+			getUser(username).returnResource(resourceID);
+			Journal.recordReturn(username, resourceID);
+		} finally {
+			locks.unlock(held);
+			Metrics.time("library.returnResource", start);
 		}
-		getUser(username).returnResource(resourceID);
 	}
 
 	/**
@@ -327,7 +503,15 @@ public class Library {
 	 * @param id Unique ID of the resource.
 	 */
 	public static void removeResource(String id) {
-        LibraryResources.removeResource(id);
+		long start = System.nanoTime();
+		int[] held = locks.lock(id);
+		try {
+			LibraryResources.removeResource(id);
+			Journal.recordRemoveResource(id);
+		} finally {
+			locks.unlock(held);
+			Metrics.time("library.removeResource", start);
+		}
     }
 
 	/**
@@ -335,7 +519,15 @@ public class Library {
 	 * @param username String
 	 */
 	public static void removeUser(String username) {
-	    LibraryResources.removeUser(username);
+		long start = System.nanoTime();
+		int[] held = locks.lock(username);
+		try {
+			LibraryResources.removeUser(username);
+			Journal.recordRemoveUser(username);
+		} finally {
+			locks.unlock(held);
+			Metrics.time("library.removeUser", start);
+		}
 	}
 
 	/**
@@ -347,6 +539,20 @@ public class Library {
 		return LibraryResources.checkIfValidUsername(username);
 	}
 
+	/**
+	 * Searches the title and details of every resource of a type.
+	 * @param query the text typed into the search bar.
+	 * @param type the type of resource to search, e.g. Book.class.
+	 * @param <T> the type of resource.
+	 * @return list of matching resources, best match first. All resources of the type if the query is empty.
+	 */
+	public static <T extends Resource> List<T> searchResources(String query, Class<T> type) {
+		long start = System.nanoTime();
+		List<T> results = SearchIndex.search(query, type);
+		Metrics.time("library.searchResources", start);
+		return results;
+	}
+
 	/**
 	 * Returns all books in the library.
 	 * @return ArrayList of all books.
@@ -397,19 +603,31 @@ public class Library {
 	}
 
 	/**
-	 * Sets the current logged in user.
-	 * @param user the user object.
+	 * Sets the user logged in on the calling thread's desk, starting a new session there.
+	 * @param user the user object, null to log out.
 	 */
 	public static void setLoggedInUser(User user) {
-		currentUser = user;
+		if (user == null) {
+			currentSession.remove();
+		} else {
+			currentSession.set(new DeskSession(user));
+		}
+	}
+
+	/**
+	 * Gets the session of the desk being served on the calling thread.
+	 * @return DeskSession object, with no user if nobody is logged in.
+	 */
+	public static DeskSession getCurrentSession() {
+		return currentSession.get();
 	}
 
 	/**
-	 * Gets the currently logged in user.
+	 * Gets the user logged in on the calling thread's desk.
 	 * @return User object.
 	 */
 	public static User getCurrentLoggedInUser() {
-		return currentUser;
+		return getCurrentSession().getUser();
 	}
 
 	/**
@@ -417,7 +635,7 @@ public class Library {
 	 * @return True if current user is a Librarian
 	 */
 	public static boolean currentUserIsLibrarian() {
-		return currentUser instanceof Librarian;
+		return getCurrentSession().isLibrarian();
 	}
 
 	/**
@@ -427,10 +645,16 @@ public class Library {
 	 * @param secondLine Second line of address.
 	 */
 	public static void changeAddress(String username, String firstLine, String secondLine) {
-	    User u = getUser(username);
-	    u.setFirstLineAddress(firstLine);
-	    u.setSecondLineAddress(secondLine);
-    }
+		int[] held = locks.lock(username);
+		try {
+			User u = getUser(username);
+			u.setFirstLineAddress(firstLine);
+			u.setSecondLineAddress(secondLine);
+			Journal.recordUser(u);
+		} finally {
+			locks.unlock(held);
+		}
+	}
 
 	/**
 	 * Changes the post code of the user.
@@ -438,8 +662,14 @@ public class Library {
 	 * @param postCode The new postcode
 	 */
 	public static void changePoctCode(String username, String postCode) {
-	    getUser(username).setPostCode(postCode);
-    }
+		int[] held = locks.lock(username);
+		try {
+			getUser(username).setPostCode(postCode);
+			Journal.recordUser(getUser(username));
+		} finally {
+			locks.unlock(held);
+		}
+	}
 
 	/**
 	 * Changes the Town name of the user.
@@ -447,8 +677,14 @@ public class Library {
 	 * @param townName The new town name.
 	 */
 	public static void changeTownName(String username, String townName) {
-	    getUser(username).setTownName(townName);
-    }
+		int[] held = locks.lock(username);
+		try {
+			getUser(username).setTownName(townName);
+			Journal.recordUser(getUser(username));
+		} finally {
+			locks.unlock(held);
+		}
+	}
 
 	/**
 	 * Changes the phone number of the user.
@@ -456,8 +692,14 @@ public class Library {
 	 * @param phoneNumber The new phone number.
 	 */
 	public static void changePhoneNumber(String username, String phoneNumber) {
-	    getUser(username).setMobileNumber(phoneNumber);
-    }
+		int[] held = locks.lock(username);
+		try {
+			getUser(username).setMobileNumber(phoneNumber);
+			Journal.recordUser(getUser(username));
+		} finally {
+			locks.unlock(held);
+		}
+	}
 
 	/**
 	 * Changes the last name of the user.
@@ -465,8 +707,14 @@ public class Library {
 	 * @param lastname The new last name.
 	 */
 	public static void changeLastName(String username, String lastname) {
-	    getUser(username).setLastName(lastname);
-    }
+		int[] held = locks.lock(username);
+		try {
+			getUser(username).setLastName(lastname);
+			Journal.recordUser(getUser(username));
+		} finally {
+			locks.unlock(held);
+		}
+	}
 
 	/**
 	 * Changes the profile img of the user.
@@ -474,27 +722,86 @@ public class Library {
 	 * @param path the new path of the profile image.
 	 */
 	public static void changeImage(String username, String path ) {
-	    getUser(username).setProfImage(path);
-    }
+		int[] held = locks.lock(username);
+		try {
+			getUser(username).setProfImage(path);
+			Journal.recordUser(getUser(username));
+		} finally {
+			locks.unlock(held);
+		}
+	}
 
 	/**
-	 * Allows users to request a book that is not available.
+	 * Allows the user logged in on the calling thread's desk to request a book that is not available.
 	 * @param id of resource to be requested
 	 */
 	public static void requestResource(String id) {
-		currentUser.requestResource(id); // Add it to the user
-		Resource requestedResource = getResource(id); // Get the resource
-		requestedResource.addUserToRequestQueue(currentUser.getUserName());
-
-		boolean isAvailable = false;
-		for (CopyData copy : requestedResource.getArrayListOfCopies()){
-			if (copy.isAvailable()){
-				isAvailable = true;
+		requestResource(getCurrentSession(), id);
+	}
+
+	/**
+	 * Allows users to request a book that is not available.
+	 * @param session the session of the user requesting the resource.
+	 * @param id of resource to be requested
+	 */
+	public static void requestResource(DeskSession session, String id) {
+		requestResource(session.getUser().getUserName(), id);
+	}
+
+	/**
+	 * Allows users to request a book that is not available.
+	 * @param username the user requesting the resource.
+	 * @param id of resource to be requested
+	 * @throws IllegalStateException if too many users are already waiting for the resource.
+	 */
+	public static void requestResource(String username, String id) {
+		long start = System.nanoTime();
+		User user = getUser(username);
+		int[] held = lockWithQueueFront(user.getUserName(), id.split("-")[0]);
+		try {
+			Resource requestedResource = getResource(id); // Get the resource
+			if (requestedResource.isRequestQueueFull()) {
+				Metrics.count("library.requestResource.refused");
+				throw new IllegalStateException("Too many users are waiting for " + id);
+			}
+			user.requestResource(id); // Add it to the user
+			requestedResource.addUserToRequestQueue(user.getUserName());
+
+			boolean isAvailable = false;
+			for (CopyData copy : requestedResource.getArrayListOfCopies()){
+				if (copy.isAvailable()){
+					isAvailable = true;
+				}
 			}
+
+			if (!isAvailable) {
+				requestedResource.requestReturn(requestedResource.getCopyWithEarlestReturn());
+			}
+			Journal.recordRequest(username, id);
+		} finally {
+			locks.unlock(held);
+			Metrics.time("library.requestResource", start);
 		}
+	}
 
-		if (!isAvailable) {
-			requestedResource.requestReturn(requestedResource.getCopyWithEarlestReturn());
+	/**
+	 * Cancels a user's request for a resource, taking them out of its queue.
+	 * @param username the user who no longer wants the resource.
+	 * @param id of resource that was requested.
+	 * @return True if the user was waiting for the resource.
+	 */
+	public static boolean cancelRequest(String username, String id) {
+		long start = System.nanoTime();
+		int[] held = locks.lock(username, id);
+		try {
+			Resource requestedResource = getResource(id);
+			boolean wasWaiting = requestedResource.cancelRequest(username);
+			getUser(username).cancelRequest(id);
+			Journal.recordCancelRequest(username, id);
+			return wasWaiting;
+		} finally {
+			locks.unlock(held);
+			Metrics.time("library.cancelRequest", start);
 		}
 	}
 
@@ -503,7 +810,7 @@ public class Library {
 	 * @return ArrayList of all requested resources by this user.
 	 */
 	public static ArrayList<String> getAllrequestedResource() {
-		return currentUser.getAllRequested();
+		return getCurrentLoggedInUser().getAllRequested();
 	}
 
 	/**
@@ -511,7 +818,7 @@ public class Library {
 	 * @return ArrayList of all reserved resources by this user.
 	 */
 	public static ArrayList<String> getAllReservedResources() {
-		return currentUser.getAllReserved();
+		return getCurrentLoggedInUser().getAllReserved();
 	}
 
 	/**
@@ -532,7 +839,7 @@ public class Library {
 		ArrayList<String> overDue = new ArrayList<>();
 		ArrayList<String> list = Library.getUser(username).getCurrentlyBorrowedResources();
 		for (String s : list) {
-		    System.out.println(Integer.valueOf(s.split("-")[1]));
+			Log.debug("Checking " + s + " of " + username + " is overdue");
 			if (Library.getResource(s).checkIfOverdue(Integer.valueOf(s.split("-")[1]))) {
 				overDue.add(s);
 			}
@@ -546,49 +853,37 @@ public class Library {
 	 * @return int amount fine.
 	 */
 	public static int calculateFine(String copyID) {
-		SimpleDateFormat sdf = new SimpleDateFormat("dd-MM-yyyy HH:mm:ss");
-		Date currentDate = new Date();
-		Date dateToBeReturned = new Date();
-
+		long currentDate = EpochDates.now();
 		double fineAmount;
 
-		try {
-			currentDate = sdf.parse(Library.getCurrentDateTime());
-		} catch (ParseException e) {
-			System.out.println("Library403 calculate fine parse 1 ");
-		}
-
-		BorrowHistoryData r = Library.getResource(copyID.split("-")[0]).getCopyInfo(
-				Integer.valueOf(copyID.split("-")[1])).getCurrentInfo();
+		String[] ids = copyID.split("-");
+		Resource resource = Library.getResource(ids[0]);
+		BorrowHistoryData r = resource.getCopyInfo(Integer.valueOf(ids[1])).getCurrentInfo();
 
-		try {
-			dateToBeReturned = sdf.parse(r.getDateRequestedReturn());
-		} catch (ParseException e) {
-			System.out.println("Library411 calculate fine parse 2 ");
+		long dateToBeReturned = r.getTimeRequestedReturn();
+		if (dateToBeReturned == EpochDates.NO_DATE) {
+			dateToBeReturned = currentDate;
 		}
-		long noOfDays = (currentDate.getTime() - dateToBeReturned.getTime()) / (1000 * 60 * 60 * 24);
+		long noOfDays = (currentDate - dateToBeReturned) / EpochDates.DAY;
 		if (noOfDays == 0) {
 			noOfDays = 1;
 		}
-		fineAmount = noOfDays * Library.getResource(copyID.split("-")[0]).getFineAmount();
-		if (fineAmount > Library.getResource(copyID.split("-")[0]).getMaxFine()) {
-			fineAmount = Library.getResource(copyID.split("-")[0]).getMaxFine();
+		fineAmount = noOfDays * resource.getFineAmount();
+		if (fineAmount > resource.getMaxFine()) {
+			fineAmount = resource.getMaxFine();
 		}
 		return (int) Math.round(fineAmount);
 	}
 
 	/**
-	 * Find's all overdue resources.
+	 * Find's all overdue resources, from the overdue tracker rather than by checking every loan.
 	 * @return ArrayList. of all overdue resources of a library.
 	 */
 	public static ArrayList<String> findAllOverdue() {
-		ArrayList<User> users = Library.getAllUsers();
-		ArrayList<String> allOverDue = new ArrayList<>();
-
-		for(User u : users) {
-			allOverDue.addAll(checkForOverDue(u.getUserName()));
-		}
-		return allOverDue;
+		long start = System.nanoTime();
+		ArrayList<String> overdue = OverdueTracker.findOverdue(System.currentTimeMillis());
+		Metrics.time("library.findAllOverdue", start);
+		return overdue;
 	}
 
 	/**
@@ -604,14 +899,20 @@ public class Library {
 	 */
 	public static void editBook(String id, String title, String year, String author, String publisher, String genre,
 									String isbn, ArrayList<String> languages) {
-		
-		LibraryResources.getBook(id).setTitle(title);
-		LibraryResources.getBook(id).setYear(year);
-		LibraryResources.getBook(id).setAuthor(author);
-		LibraryResources.getBook(id).setPublisher(publisher);
-		LibraryResources.getBook(id).setGenre(genre);
-		LibraryResources.getBook(id).setIsbn(isbn);
-		LibraryResources.getBook(id).setLanguages(languages);
+		int[] held = locks.lock(id);
+		try {
+			LibraryResources.getBook(id).setTitle(title);
+			LibraryResources.getBook(id).setYear(year);
+			LibraryResources.getBook(id).setAuthor(author);
+			LibraryResources.getBook(id).setPublisher(publisher);
+			LibraryResources.getBook(id).setGenre(genre);
+			LibraryResources.getBook(id).setIsbn(isbn);
+			LibraryResources.getBook(id).setLanguages(languages);
+			SearchIndex.index(LibraryResources.getBook(id));
+			Journal.recordResource(LibraryResources.getBook(id));
+		} finally {
+			locks.unlock(held);
+		}
 	}
 
 	/**
@@ -626,13 +927,19 @@ public class Library {
 	 */
 	public static void editDVD(String id, String title, String year, String director, String runtime,
 									String language, ArrayList<String> subs) {
-		
-		LibraryResources.getDVD(id).setTitle(title);
-		LibraryResources.getDVD(id).setYear(year);
-		LibraryResources.getDVD(id).setDirector(director);
-		LibraryResources.getDVD(id).setRuntime(runtime);
-		LibraryResources.getDVD(id).setLanguage(language);
-		LibraryResources.getDVD(id).setSubLang(subs);
+		int[] held = locks.lock(id);
+		try {
+			LibraryResources.getDVD(id).setTitle(title);
+			LibraryResources.getDVD(id).setYear(year);
+			LibraryResources.getDVD(id).setDirector(director);
+			LibraryResources.getDVD(id).setRuntime(runtime);
+			LibraryResources.getDVD(id).setLanguage(language);
+			LibraryResources.getDVD(id).setSubLang(subs);
+			SearchIndex.index(LibraryResources.getDVD(id));
+			Journal.recordResource(LibraryResources.getDVD(id));
+		} finally {
+			locks.unlock(held);
+		}
 	}
 	
 	/**
@@ -648,14 +955,20 @@ public class Library {
 	 */
 	public static void editVideoGame(String id, String title, String year, String publisher, String genre,
 									String multiplayerSupport, String certificateRating, ArrayList<String> lang) {
-		
-		LibraryResources.getVideoGame(id).setTitle(title);
-		LibraryResources.getVideoGame(id).setYear(year);
-		LibraryResources.getVideoGame(id).setPublisher(publisher);
-		LibraryResources.getVideoGame(id).setGenre(genre);
-		LibraryResources.getVideoGame(id).setCertificateRating(certificateRating);
-		LibraryResources.getVideoGame(id).setMultiplayerSupport(multiplayerSupport);
-		LibraryResources.getVideoGame(id).setLanguages(lang);
+		int[] held = locks.lock(id);
+		try {
+			LibraryResources.getVideoGame(id).setTitle(title);
+			LibraryResources.getVideoGame(id).setYear(year);
+			LibraryResources.getVideoGame(id).setPublisher(publisher);
+			LibraryResources.getVideoGame(id).setGenre(genre);
+			LibraryResources.getVideoGame(id).setCertificateRating(certificateRating);
+			LibraryResources.getVideoGame(id).setMultiplayerSupport(multiplayerSupport);
+			LibraryResources.getVideoGame(id).setLanguages(lang);
+			SearchIndex.index(LibraryResources.getVideoGame(id));
+			Journal.recordResource(LibraryResources.getVideoGame(id));
+		} finally {
+			locks.unlock(held);
+		}
 	}
 
 	/**
@@ -668,11 +981,18 @@ public class Library {
 	 * @param os the updated Laptop operating system
 	 */
 	public static void editLaptop(String id, String title, String year, String manufacturer, String model, String os) {
-		LibraryResources.getLaptop(id).setTitle(title);
-		LibraryResources.getLaptop(id).setYear(year);
-		LibraryResources.getLaptop(id).setManufacturer(manufacturer);
-		LibraryResources.getLaptop(id).setModel(model);
-		LibraryResources.getLaptop(id).setOperatingSys(os);
+		int[] held = locks.lock(id);
+		try {
+			LibraryResources.getLaptop(id).setTitle(title);
+			LibraryResources.getLaptop(id).setYear(year);
+			LibraryResources.getLaptop(id).setManufacturer(manufacturer);
+			LibraryResources.getLaptop(id).setModel(model);
+			LibraryResources.getLaptop(id).setOperatingSys(os);
+			SearchIndex.index(LibraryResources.getLaptop(id));
+			Journal.recordResource(LibraryResources.getLaptop(id));
+		} finally {
+			locks.unlock(held);
+		}
 	}
 
 	/**
@@ -692,7 +1012,9 @@ public class Library {
 	 * @param description a String description
 	 */
 	public static void addNewEvent(String title, String date, String time, int maxNumberOfAttending, String description){
-		LibraryEvents.addEvent(new Event(title,date,time,maxNumberOfAttending,description));
+		Event event = new Event(title,date,time,maxNumberOfAttending,description);
+		LibraryEvents.addEvent(event);
+		Journal.recordEvent(event);
 	}
 
 	/**
@@ -712,6 +1034,7 @@ public class Library {
 		LibraryEvents.getEvent(title).setMaxNumberOfAttending(maxNumberOfAttending);
 		LibraryEvents.getEvent(title).setCurrentNumberOfAttending(currentNumberOfAttending);
 		LibraryEvents.getEvent(title).setDescription(description);
+		Journal.recordEvent(LibraryEvents.getEvent(title));
 
 
 	}
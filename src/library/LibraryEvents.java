@@ -2,38 +2,67 @@ package library;
 
 import event.Event;
 import io.ReadFile;
+import utils.Metrics;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * This class handles the storage and maintenance of an event by the library.
+ * Events are read far more often than they are added, so they are kept in a copy on write list
+ * which desks can read without locking.
  * @author Dominik R Wojtasiewicz, Deyan Naydenov, Peter Daish.
  *
  */
 public class LibraryEvents {
 
-    private static ArrayList<Event> listOfEvents = new ArrayList<>();
+    private static volatile List<Event> listOfEvents = new CopyOnWriteArrayList<>();
 
     /**
      * Populates the listOfEvents with all currently stored events.
      */
     public static void start(){
-        listOfEvents = ReadFile.readEvents();
+        long start = System.nanoTime();
+        load(ReadFile.readEvents());
+        Metrics.time("io.loadEvents", start);
+    }
+
+    /**
+     * Replaces the listOfEvents with events already read, e.g. from the snapshot.
+     * @param events the events held by the library.
+     */
+    static void load(List<Event> events){
+        listOfEvents = new CopyOnWriteArrayList<>(events);
     }
 
     /**
      * Adds an event to the listOfEvents.
      * @param event the event to be added to listOfEvents.
      */
-    public static void addEvent(Event event){
+    public static synchronized void addEvent(Event event){
+        listOfEvents.add(event);
+    }
+
+    /**
+     * Adds an event to the listOfEvents, replacing the event with the same id if there is one.
+     * @param event the event to be put in listOfEvents.
+     */
+    public static synchronized void putEvent(Event event){
+        for (int i = 0; i < listOfEvents.size(); i++) {
+            if (listOfEvents.get(i).getEventID().equals(event.getEventID())) {
+                listOfEvents.set(i, event);
+                return;
+            }
+        }
         listOfEvents.add(event);
     }
 
     /**
      * Returns a list of all the events held by the library.
-     * @return listOfEvents the list of events being held by the library.
+     * @return a copy of the list of events being held by the library.
      */
     public static ArrayList<Event> getAllEvents(){
-        return listOfEvents;
+        return new ArrayList<>(listOfEvents);
     }
 
     /**
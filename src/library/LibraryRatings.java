@@ -0,0 +1,122 @@
+package library;
+
+import io.ReadFile;
+import utils.Log;
+import utils.Metrics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * This class holds the ratings left on resources, read from file once when the library starts.
+ * Ratings are kept by resource ID along with a running count, total and number of ratings of each star,
+ * so the average and spread of a resource's ratings are found without going through every rating.
+ * A rating is the String[] given by ReadFile.readRatings: id, message, rating, username.
+ * @author Dominik R Wojtasiewicz, Deyan Naydenov, Peter Daish.
+ *
+ */
+public class LibraryRatings {
+    public static final int MAX_STARS = 5;
+
+    private static final HashMap<String, ResourceRatings> ratingsOf = new HashMap<>(); // Resource ID -> ratings.
+
+    /**
+     * The ratings of one resource.
+     */
+    private static class ResourceRatings {
+        private final List<String[]> ratings = new ArrayList<>();
+        private final HashSet<String> raters = new HashSet<>(); // Usernames of the users who left a rating.
+        private final int[] noOfStars = new int[MAX_STARS + 1]; // Number of ratings of s stars at s.
+        private int count; // Ratings with a readable number of stars.
+        private long total; // Stars of those ratings added up.
+    }
+
+    /**
+     * Reads every rating from file, replacing any already held.
+     */
+    public static void start() {
+        long start = System.nanoTime();
+        ArrayList<String[]> ratings = ReadFile.readRatings();
+        synchronized (LibraryRatings.class) {
+            ratingsOf.clear();
+            for (String[] rating : ratings) {
+                addRating(rating);
+            }
+        }
+        Metrics.time("io.loadRatings", start);
+    }
+
+    /**
+     * Adds a rating, once it has been written to file.
+     * @param rating the rating: id, message, rating, username.
+     */
+    public static synchronized void addRating(String[] rating) {
+        ResourceRatings resource = ratingsOf.computeIfAbsent(rating[0], id -> new ResourceRatings());
+        resource.ratings.add(rating);
+        resource.raters.add(rating[3]);
+        try {
+            int stars = Integer.parseInt(rating[2]);
+            if (stars < 1 || stars > MAX_STARS) {
+                throw new NumberFormatException("out of range");
+            }
+            resource.noOfStars[stars]++;
+            resource.count++;
+            resource.total += stars;
+        } catch (NumberFormatException e) {
+            Log.warn("Cannot read rating " + rating[2] + " of " + rating[0]);
+        }
+    }
+
+    /**
+     * Returns the ratings of a resource.
+     * @param id the unique ID of the resource.
+     * @return a copy of the list of ratings, oldest first.
+     */
+    public static synchronized ArrayList<String[]> getRatings(String id) {
+        ResourceRatings resource = ratingsOf.get(id);
+        return resource == null ? new ArrayList<>() : new ArrayList<>(resource.ratings);
+    }
+
+    /**
+     * Returns how many ratings a resource has.
+     * @param id the unique ID of the resource.
+     * @return the number of ratings with a number of stars.
+     */
+    public static synchronized int getNoOfRatings(String id) {
+        ResourceRatings resource = ratingsOf.get(id);
+        return resource == null ? 0 : resource.count;
+    }
+
+    /**
+     * Returns the average number of stars a resource was given.
+     * @param id the unique ID of the resource.
+     * @return the average, or 0 if the resource has no ratings.
+     */
+    public static synchronized double getAverageRating(String id) {
+        ResourceRatings resource = ratingsOf.get(id);
+        return resource == null || resource.count == 0 ? 0 : (double) resource.total / resource.count;
+    }
+
+    /**
+     * Returns how many ratings of each number of stars a resource has.
+     * @param id the unique ID of the resource.
+     * @return array holding the number of ratings of s stars at s, from 1 to MAX_STARS.
+     */
+    public static synchronized int[] getNoOfStars(String id) {
+        ResourceRatings resource = ratingsOf.get(id);
+        return resource == null ? new int[MAX_STARS + 1] : resource.noOfStars.clone();
+    }
+
+    /**
+     * Checks whether a user has already left a rating on a resource.
+     * @param id the unique ID of the resource.
+     * @param username the username of the user.
+     * @return true if the user has rated the resource.
+     */
+    public static synchronized boolean hasRated(String id, String username) {
+        ResourceRatings resource = ratingsOf.get(id);
+        return resource != null && resource.raters.contains(username);
+    }
+}
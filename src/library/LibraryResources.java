@@ -1,38 +1,187 @@
 package library;
 
+import event.Event;
 import io.ReadFile;
+import io.Snapshot;
 import resources.*;
 import user.Librarian;
 import user.User;
+import utils.Metrics;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * <h1>LibraryResources.</h1>
- * <p>This class implements the LibraryResources database. This class is static.</p>
+ * <p>This class implements the LibraryResources database. This class is static.
+ * The indexes are guarded by a read/write lock, so any number of desks can look things up at once
+ * while additions and removals wait for each other.</p>
  *
  * @author Dominik Wojtasiewicz, Peter Daish, James Carter
  * @since 18/11/2018
  */
 public class LibraryResources {
-    private static ArrayList<Book> listOfBooks = new ArrayList<>(); //List of books
-    private static ArrayList<Laptop> listOfLaptops = new ArrayList<>(); //List of laptops
-    private static ArrayList<DVD> listOfDVD = new ArrayList<>(); //List of dvd's
-    private static ArrayList<VideoGame> listOfVideoGames = new ArrayList<>(); //List of books
-    private static ArrayList<User> listOfUsers = new ArrayList<>(); //List of users
-    private static ArrayList<Librarian> listOfLibrarians = new ArrayList<>(); // List of librarians
+    //Each index is keyed by unique ID (or username) and keeps insertion order for listing.
+    private static LinkedHashMap<String, Book> listOfBooks = new LinkedHashMap<>(); //List of books
+    private static LinkedHashMap<String, Laptop> listOfLaptops = new LinkedHashMap<>(); //List of laptops
+    private static LinkedHashMap<String, DVD> listOfDVD = new LinkedHashMap<>(); //List of dvd's
+    private static LinkedHashMap<String, VideoGame> listOfVideoGames = new LinkedHashMap<>(); //List of video games
+    private static LinkedHashMap<String, User> listOfUsers = new LinkedHashMap<>(); //List of users
+    private static LinkedHashMap<String, Librarian> listOfLibrarians = new LinkedHashMap<>(); // List of librarians
+
+    private static final ReentrantReadWriteLock indexLock = new ReentrantReadWriteLock(); //Guards the indexes above.
+    private static final Lock readLock = indexLock.readLock();
+    private static final Lock writeLock = indexLock.writeLock();
+
+    /**
+     * Reads all dvd, books, laptops and video games from file.
+     * Does not touch users, so it can run alongside loadUsers and loadLibrarians.
+     */
+    static void loadResources() {
+        long start = System.nanoTime();
+        ArrayList<Book> books = new ArrayList<>();
+        ArrayList<DVD> dvds = new ArrayList<>();
+        ArrayList<Laptop> laptops = new ArrayList<>();
+        ArrayList<VideoGame> videoGames = new ArrayList<>();
+        ReadFile.readResourcesJSON(books, dvds, laptops, videoGames);
+        setResources(books, dvds, laptops, videoGames);
+        Metrics.time("io.loadResources", start);
+    }
+
+    /**
+     * Reads all users, librarians, resources and events from the binary snapshot at once.
+     * Links to resources are made later by linkUsers.
+     * @return True if the snapshot was read, false if the data files must be read instead.
+     */
+    static boolean loadSnapshot() {
+        long start = System.nanoTime();
+        ArrayList<User> users = new ArrayList<>();
+        ArrayList<Book> books = new ArrayList<>();
+        ArrayList<DVD> dvds = new ArrayList<>();
+        ArrayList<Laptop> laptops = new ArrayList<>();
+        ArrayList<VideoGame> videoGames = new ArrayList<>();
+        ArrayList<Librarian> librarians = new ArrayList<>();
+        ArrayList<Event> events = new ArrayList<>();
+        if (!Snapshot.read(users, books, dvds, laptops, videoGames, librarians, events)) {
+            return false;
+        }
+
+        setResources(books, dvds, laptops, videoGames);
+        LinkedHashMap<String, User> userIndex = indexUsers(users);
+        LinkedHashMap<String, Librarian> librarianIndex = indexUsers(librarians);
+        writeLock.lock();
+        try {
+            listOfUsers = userIndex;
+            listOfLibrarians = librarianIndex;
+        } finally {
+            writeLock.unlock();
+        }
+        LibraryEvents.load(events);
+        Metrics.time("io.loadSnapshot", start);
+        return true;
+    }
+
+    /**
+     * Replaces every resource, and indexes them for searching.
+     * @param books the books of the library.
+     * @param dvds the dvds of the library.
+     * @param laptops the laptops of the library.
+     * @param videoGames the video games of the library.
+     */
+    private static void setResources(List<Book> books, List<DVD> dvds, List<Laptop> laptops,
+                                     List<VideoGame> videoGames) {
+        writeLock.lock();
+        try {
+            listOfDVD = indexResources(dvds);
+            listOfBooks = indexResources(books);
+            listOfLaptops = indexResources(laptops);
+            listOfVideoGames = indexResources(videoGames);
+        } finally {
+            writeLock.unlock();
+        }
+
+        SearchIndex.clear();
+        PopularityBoard.clear();
+        Circulation.clear();
+        OverdueTracker.clear();
+        for (Resource r : getAllResources()) {
+            SearchIndex.index(r);
+            r.joinCatalogue();
+        }
+    }
+
+    /**
+     * Reads all users from file. Links to resources are made later by linkUsers.
+     */
+    static void loadUsers() {
+        long start = System.nanoTime();
+        LinkedHashMap<String, User> users = indexUsers(ReadFile.readUsers());
+        writeLock.lock();
+        try {
+            listOfUsers = users;
+        } finally {
+            writeLock.unlock();
+        }
+        Metrics.time("io.loadUsers", start);
+    }
+
+    /**
+     * Reads all librarians from file. Links to resources are made later by linkUsers.
+     */
+    static void loadLibrarians() {
+        long start = System.nanoTime();
+        LinkedHashMap<String, Librarian> librarians = indexUsers(ReadFile.readLibrarians());
+        writeLock.lock();
+        try {
+            listOfLibrarians = librarians;
+        } finally {
+            writeLock.unlock();
+        }
+        Metrics.time("io.loadLibrarians", start);
+    }
+
+    /**
+     * Links the borrow history and reservations of every user and librarian to the resources.
+     * Must only be called once resources, users and librarians have all been loaded.
+     */
+    static void linkUsers() {
+        for (User u : getAllUsers()) {
+            u.linkToResources();
+        }
+        for (Librarian l : getAllLibrarians()) {
+            l.linkToResources();
+        }
+    }
 
     /**
-     * On start create all users, dvd, books, laptops and video games.
+     * Builds an index of resources keyed by their unique ID, keeping the order they were read in.
+     * @param resources the resources to index.
+     * @param <T> the type of resource.
+     * @return LinkedHashMap of unique ID to resource.
      */
-    public static void start() {
-        listOfDVD = ReadFile.readDvdsJSON();
-        listOfBooks = ReadFile.readBooksJSON();
-        listOfLaptops = ReadFile.readLaptopsJSON();
-        listOfUsers = ReadFile.readUsers();
-        listOfLibrarians = ReadFile.readLibrarians();
-        listOfVideoGames = ReadFile.readVideoGamesJSON();
+    private static <T extends Resource> LinkedHashMap<String, T> indexResources(List<T> resources) {
+        LinkedHashMap<String, T> index = new LinkedHashMap<>();
+        for (T r : resources) {
+            index.put(r.getUniqueID(), r);
+        }
+        return index;
+    }
+
+    /**
+     * Builds an index of users keyed by their username, keeping the order they were read in.
+     * @param users the users to index.
+     * @param <T> the type of user.
+     * @return LinkedHashMap of username to user.
+     */
+    private static <T extends User> LinkedHashMap<String, T> indexUsers(List<T> users) {
+        LinkedHashMap<String, T> index = new LinkedHashMap<>();
+        for (T u : users) {
+            index.put(u.getUserName(), u);
+        }
+        return index;
     }
 
     /**
@@ -40,7 +189,18 @@ public class LibraryResources {
      * @param book Book object.
      */
     public static void addBook(Book book) {
-        listOfBooks.add(book);
+        writeLock.lock();
+        try {
+            Book replaced = listOfBooks.put(book.getUniqueID(), book);
+            //The one replaced leaves first, as it shares the IDs of its copies with the new one.
+            if (replaced != null && replaced != book) {
+                replaced.leaveCatalogue();
+            }
+            book.joinCatalogue();
+        } finally {
+            writeLock.unlock();
+        }
+        SearchIndex.index(book);
     }
 
     /**
@@ -48,7 +208,18 @@ public class LibraryResources {
      * @param laptop Laptop object.
      */
     public static void addLaptop(Laptop laptop) {
-        listOfLaptops.add(laptop);
+        writeLock.lock();
+        try {
+            Laptop replaced = listOfLaptops.put(laptop.getUniqueID(), laptop);
+            //The one replaced leaves first, as it shares the IDs of its copies with the new one.
+            if (replaced != null && replaced != laptop) {
+                replaced.leaveCatalogue();
+            }
+            laptop.joinCatalogue();
+        } finally {
+            writeLock.unlock();
+        }
+        SearchIndex.index(laptop);
     }
     
     /**
@@ -56,7 +227,18 @@ public class LibraryResources {
      * @param videoGame VideoGame object.
      */
     public static void addVideoGame(VideoGame videoGame) {
-        listOfVideoGames.add(videoGame);
+        writeLock.lock();
+        try {
+            VideoGame replaced = listOfVideoGames.put(videoGame.getUniqueID(), videoGame);
+            //The one replaced leaves first, as it shares the IDs of its copies with the new one.
+            if (replaced != null && replaced != videoGame) {
+                replaced.leaveCatalogue();
+            }
+            videoGame.joinCatalogue();
+        } finally {
+            writeLock.unlock();
+        }
+        SearchIndex.index(videoGame);
     }
 
     /**
@@ -64,7 +246,18 @@ public class LibraryResources {
      * @param dvd DVD object.
      */
     public static void addDVD(DVD dvd) {
-        listOfDVD.add(dvd);
+        writeLock.lock();
+        try {
+            DVD replaced = listOfDVD.put(dvd.getUniqueID(), dvd);
+            //The one replaced leaves first, as it shares the IDs of its copies with the new one.
+            if (replaced != null && replaced != dvd) {
+                replaced.leaveCatalogue();
+            }
+            dvd.joinCatalogue();
+        } finally {
+            writeLock.unlock();
+        }
+        SearchIndex.index(dvd);
     }
 
     /**
@@ -72,7 +265,25 @@ public class LibraryResources {
      * @param user a User object.
      */
     public static void addUser(User user) {
-        listOfUsers.add(user);
+        writeLock.lock();
+        try {
+            listOfUsers.put(user.getUserName(), user);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Adds a librarian to the libraryResources.
+     * @param librarian a Librarian object.
+     */
+    public static void addLibrarian(Librarian librarian) {
+        writeLock.lock();
+        try {
+            listOfLibrarians.put(librarian.getUserName(), librarian);
+        } finally {
+            writeLock.unlock();
+        }
     }
 
     /**
@@ -81,18 +292,16 @@ public class LibraryResources {
      * @return a User object.
      */
     protected static User getUser(String username) {
-        for (User u : listOfUsers) {
-            if (u.getUserName().equals(username)) {
+        readLock.lock();
+        try {
+            User u = listOfUsers.get(username);
+            if (u != null) {
                 return u;
             }
+            return listOfLibrarians.get(username);
+        } finally {
+            readLock.unlock();
         }
-
-        for (Librarian r : listOfLibrarians) {
-            if (r.getUserName().equals(username)) {
-                return r;
-            }
-        }
-        return null;
     }
 
     /**
@@ -101,25 +310,12 @@ public class LibraryResources {
      * @return Boolean True if exists, False.
      */
     protected static boolean checkIfValidUsername(String username) {
-        if (listOfUsers.isEmpty()) {
-            return false;
+        readLock.lock();
+        try {
+            return listOfUsers.containsKey(username) || listOfLibrarians.containsKey(username);
+        } finally {
+            readLock.unlock();
         }
-        for (User u : listOfUsers) {
-            if (u.getUserName().equals(username)) {
-                return true;
-            }
-        }
-
-        if (listOfLibrarians.isEmpty()) {
-            return false;
-        }
-
-        for (Librarian r : listOfLibrarians) {
-            if (r.getUserName().equals(username)) {
-                return true;
-            }
-        }
-        return false;
     }
 
     /**
@@ -128,12 +324,12 @@ public class LibraryResources {
      * @return Book object. Returns null if no such book.
      */
     protected static Book getBook(String id) {
-        for (Book b : listOfBooks) {
-            if (b.getUniqueID().equals(id)) {
-                return b;
-            }
+        readLock.lock();
+        try {
+            return listOfBooks.get(id);
+        } finally {
+            readLock.unlock();
         }
-        return null;
     }
     
     /**
@@ -142,12 +338,12 @@ public class LibraryResources {
      * @return VideoGame object. Returns null if no such video game.
      */
     protected static VideoGame getVideoGame(String id) {
-        for (VideoGame v : listOfVideoGames) {
-            if (v.getUniqueID().equals(id)) {
-                return v;
-            }
+        readLock.lock();
+        try {
+            return listOfVideoGames.get(id);
+        } finally {
+            readLock.unlock();
         }
-        return null;
     }
 
     /**
@@ -156,12 +352,12 @@ public class LibraryResources {
      * @return DVD object. Null if no such object.
      */
     protected static DVD getDVD(String id) {
-        for (DVD d : listOfDVD) {
-            if (d.getUniqueID().equals(id)) {
-                return d;
-            }
+        readLock.lock();
+        try {
+            return listOfDVD.get(id);
+        } finally {
+            readLock.unlock();
         }
-        return null;
     }
 
     /**
@@ -170,12 +366,12 @@ public class LibraryResources {
      * @return Laptop object. Null if no such object.
      */
     protected static Laptop getLaptop(String id) {
-        for (Laptop l : listOfLaptops) {
-            if (l.getUniqueID().equals(id)) {
-                return l;
-            }
+        readLock.lock();
+        try {
+            return listOfLaptops.get(id);
+        } finally {
+            readLock.unlock();
         }
-        return null;
     }
 
     /**
@@ -183,7 +379,12 @@ public class LibraryResources {
      * @return ArrayList of users.
      */
     protected static ArrayList<User> getAllUsers() {
-        return listOfUsers;
+        readLock.lock();
+        try {
+            return new ArrayList<>(listOfUsers.values());
+        } finally {
+            readLock.unlock();
+        }
     }
 
     /**
@@ -191,7 +392,12 @@ public class LibraryResources {
      * @return ArrayList of librarians.
      */
     protected static ArrayList<Librarian> getAllLibrarians() {
-        return listOfLibrarians;
+        readLock.lock();
+        try {
+            return new ArrayList<>(listOfLibrarians.values());
+        } finally {
+            readLock.unlock();
+        }
     }
 
     /**
@@ -199,7 +405,12 @@ public class LibraryResources {
      * @return ArrayList of books.
      */
     protected static ArrayList<Book> getListOfBooks() {
-        return listOfBooks;
+        readLock.lock();
+        try {
+            return new ArrayList<>(listOfBooks.values());
+        } finally {
+            readLock.unlock();
+        }
     }
     
     /**
@@ -207,7 +418,12 @@ public class LibraryResources {
      * @return ArrayList of video games.
      */
     protected static ArrayList<VideoGame> getListOfVideoGames() {
-        return listOfVideoGames;
+        readLock.lock();
+        try {
+            return new ArrayList<>(listOfVideoGames.values());
+        } finally {
+            readLock.unlock();
+        }
     }
 
     /**
@@ -215,7 +431,12 @@ public class LibraryResources {
      * @return ArrayList of DVDs.
      */
     protected static ArrayList<DVD> getListOfDVD() {
-        return listOfDVD;
+        readLock.lock();
+        try {
+            return new ArrayList<>(listOfDVD.values());
+        } finally {
+            readLock.unlock();
+        }
     }
 
     /**
@@ -223,7 +444,38 @@ public class LibraryResources {
      * @return ArrayList of Laptops.
      */
     protected static ArrayList<Laptop> getListOfLaptops() {
-        return listOfLaptops;
+        readLock.lock();
+        try {
+            return new ArrayList<>(listOfLaptops.values());
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Counts the resources in the library, without copying them into a list.
+     * @return the number of resources.
+     */
+    public static long countResources() {
+        readLock.lock();
+        try {
+            return listOfBooks.size() + listOfDVD.size() + listOfLaptops.size() + listOfVideoGames.size();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Counts the users and librarians of the library.
+     * @return the number of users.
+     */
+    public static long countUsers() {
+        readLock.lock();
+        try {
+            return listOfUsers.size() + listOfLibrarians.size();
+        } finally {
+            readLock.unlock();
+        }
     }
 
     /**
@@ -231,58 +483,56 @@ public class LibraryResources {
      * @return List of all Resources
      */
     public static List<Resource> getAllResources(){
-        List<Resource> resources = new ArrayList<>();
+        readLock.lock();
+        try {
+            List<Resource> resources = new ArrayList<>(listOfBooks.size() + listOfDVD.size()
+                    + listOfLaptops.size() + listOfVideoGames.size());
 
-        resources.addAll(listOfBooks);
-        resources.addAll(listOfDVD);
-        resources.addAll(listOfLaptops);
-        resources.addAll(listOfVideoGames);
+            resources.addAll(listOfBooks.values());
+            resources.addAll(listOfDVD.values());
+            resources.addAll(listOfLaptops.values());
+            resources.addAll(listOfVideoGames.values());
 
-        return resources;
+            return resources;
+        } finally {
+            readLock.unlock();
+        }
     }
+
     /**
      * Removes a resource from LibraryResources.
      * @param id of the resource to be removed.
      */
     protected static void removeResource(String id) {
+        Resource removed = Library.getResource(id);
+        PopularityBoard.remove(id);
+
         String dataType = id.substring(0, 1);
-        switch (dataType.toLowerCase()) {
-            case "b":
-                for (int index = 0; index < listOfBooks.size(); index++) {
-                    if (listOfBooks.get(index).getUniqueID().equals(id)) {
-                        listOfBooks.remove(index);
-                        index = listOfBooks.size();
-                    }
-                }
-                break;
-            case "l":
-                for (int index = 0; index < listOfLaptops.size(); index++) {
-                    if (listOfLaptops.get(index).getUniqueID().equals(id)) {
-                        listOfLaptops.remove(index);
-                        index = listOfLaptops.size();
-                    }
-                }
-                break;
-            case "v":
-                for (int index = 0; index < listOfVideoGames.size(); index++) {
-                    if (listOfVideoGames.get(index).getUniqueID().equals(id)) {
-                        listOfVideoGames.remove(index);
-                        index = listOfVideoGames.size();
-                    }
-                }
-                break;
-            case "d":
-                for (int index = 0; index < listOfDVD.size(); index++) {
-                    if (listOfDVD.get(index).getUniqueID().equals(id)) {
-                        listOfDVD.remove(index);
-                        index = listOfDVD.size();
-                    }
-                }
-                break;
-            default:
-                break;
+        writeLock.lock();
+        try {
+            switch (dataType.toLowerCase()) {
+                case "b":
+                    listOfBooks.remove(id);
+                    break;
+                case "l":
+                    listOfLaptops.remove(id);
+                    break;
+                case "v":
+                    listOfVideoGames.remove(id);
+                    break;
+                case "d":
+                    listOfDVD.remove(id);
+                    break;
+                default:
+                    break;
+            }
+        } finally {
+            writeLock.unlock();
         }
-
+        if (removed != null) {
+            removed.leaveCatalogue();
+        }
+        SearchIndex.remove(id);
     }
 
     /**
@@ -290,11 +540,11 @@ public class LibraryResources {
      * @param username of the user to be removed.
      */
     protected static void removeUser(String username) {
-        for (int index = 0; index < listOfUsers.size(); index++) {
-            if (listOfUsers.get(index).getUserName().equals(username)) {
-                listOfUsers.remove(index);
-                index = listOfUsers.size();
-            }
+        writeLock.lock();
+        try {
+            listOfUsers.remove(username);
+        } finally {
+            writeLock.unlock();
         }
     }
 }
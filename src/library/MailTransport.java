@@ -0,0 +1,33 @@
+package library;
+
+import javax.mail.MessagingException;
+
+/**
+ * <h1>MailTransport.</h1>
+ * <p>Sends emails for the Outbox. The Outbox opens the transport, sends a batch of emails over it and
+ * closes it again, so one connection is shared by every email in the batch. SmtpTransport sends through
+ * an SMTP server; other transports can be given to Outbox.start, e.g. to send to a test server.</p>
+ *
+ * @author James Carter, Dominik Wojtasiewicz, Peter Daish
+ */
+public interface MailTransport {
+    /**
+     * Opens a connection to send emails over.
+     * @throws MessagingException if the connection cannot be made.
+     */
+    void open() throws MessagingException;
+
+    /**
+     * Sends one email over the open connection.
+     * @param address the address to send to.
+     * @param subject the subject of the email.
+     * @param text the body of the email.
+     * @throws MessagingException if the email could not be sent.
+     */
+    void send(String address, String subject, String text) throws MessagingException;
+
+    /**
+     * Closes the connection, if it is open.
+     */
+    void close();
+}
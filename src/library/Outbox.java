@@ -0,0 +1,350 @@
+package library;
+
+import io.IO;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import utils.EpochDates;
+import utils.Log;
+import utils.Metrics;
+
+import javax.mail.MessagingException;
+import javax.mail.internet.AddressException;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <h1>Outbox.</h1>
+ * <p>Sends the library's emails in the background, so nothing waits for the mail server. An email is written
+ * to the outbox file as soon as it is sent to the outbox, so emails not yet sent survive the library closing
+ * and are sent when it next starts. A background thread sends the emails due in batches of up to BATCH_SIZE,
+ * over one connection per batch. An email that fails is tried again later, waiting twice as long after each
+ * failure, and given up on after MAX_ATTEMPTS. An email may be sent twice if the library stops between
+ * sending it and writing the outbox file again.
+ * Emails are only sent once start has been called. This class is static.</p>
+ *
+ * @author James Carter, Dominik Wojtasiewicz, Peter Daish
+ */
+@SuppressWarnings("unchecked")
+public class Outbox {
+    private static final int BATCH_SIZE = 20; //Most emails sent over one connection.
+    private static final int MAX_ATTEMPTS = 8; //Attempts made to send an email before giving up on it.
+    private static final long FIRST_RETRY = 30 * 1000; //Milliseconds waited after the first failure.
+    private static final long LONGEST_RETRY = 60 * 60 * 1000; //Most milliseconds waited between attempts.
+
+    private static final List<Notification> waiting = new ArrayList<>(); //Emails not yet sent, oldest first.
+    private static MailTransport transport; //Sends the emails, null until started.
+    private static Thread sender;
+
+    /**
+     * <h1>Notification.</h1>
+     * <p>An email waiting to be sent.</p>
+     */
+    private static class Notification {
+        private final String address;
+        private final String subject;
+        private final String text;
+        private int attempts; //Failed attempts to send so far.
+        private long nextAttempt; //Time to next try sending, in milliseconds since the epoch.
+
+        private Notification(String address, String subject, String text) {
+            this.address = address;
+            this.subject = subject;
+            this.text = text;
+        }
+    }
+
+    /**
+     * Starts sending emails, beginning with any left in the outbox file. Does nothing if already started.
+     * @param mailTransport sends the emails.
+     */
+    public static synchronized void start(MailTransport mailTransport) {
+        if (sender != null) {
+            return;
+        }
+        transport = mailTransport;
+        waiting.clear();
+        if (readOutbox(waiting) > 0) {
+            //Leaves out the unreadable lines, so emails sent from now on do not follow a torn one.
+            writeOutbox();
+        }
+        sender = new Thread(Outbox::sendWaiting, "Outbox");
+        sender.setDaemon(true);
+        sender.start();
+        Metrics.gauge("email.waiting", Outbox::getNoWaiting);
+    }
+
+    /**
+     * Stops sending emails, once the batch being sent has been sent, so start can be called again. Emails still
+     * waiting stay in the outbox file. Does nothing if not started.
+     * @throws InterruptedException if interrupted while waiting for the sender thread to stop.
+     */
+    static void stop() throws InterruptedException {
+        Thread stopping;
+        synchronized (Outbox.class) {
+            stopping = sender;
+            sender = null;
+        }
+        if (stopping != null) {
+            stopping.interrupt();
+            stopping.join();
+        }
+    }
+
+    /**
+     * Puts an email in the outbox, to be sent in the background.
+     * @param address the address to send to.
+     * @param subject the subject of the email.
+     * @param text the body of the email.
+     */
+    public static synchronized void send(String address, String subject, String text) {
+        Notification notification = new Notification(address, subject, text);
+        waiting.add(notification);
+        try (FileOutputStream out = new FileOutputStream(IO.getOutboxFilePath(), true)) {
+            Writer file = new OutputStreamWriter(out);
+            file.write(toJSON(notification).toJSONString() + "\n");
+            file.flush();
+            out.getFD().sync();
+        } catch (IOException e) {
+            Log.error("Error writing to " + IO.getOutboxFilePath() + ", the email to " + address
+                    + " will be lost if the library closes before it is sent");
+        }
+        Metrics.count("email.queued");
+        Outbox.class.notifyAll();
+    }
+
+    /**
+     * Returns how many emails are waiting to be sent.
+     * @return the number of emails in the outbox.
+     */
+    public static synchronized int getNoWaiting() {
+        return waiting.size();
+    }
+
+    /**
+     * Sends batches of emails as they become due. Run by the sender thread. A batch the mail transport throws
+     * an unexpected exception on is put off like any other failure, so the sender thread keeps running
+     * until stop interrupts it.
+     */
+    private static void sendWaiting() {
+        while (!Thread.currentThread().isInterrupted()) {
+            List<Notification> batch;
+            try {
+                batch = takeBatch();
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                sendBatch(batch);
+            } catch (RuntimeException e) {
+                Log.error("Error sending emails: " + e);
+                e.printStackTrace();
+                for (Notification notification : batch) {
+                    failedIfWaiting(notification, e);
+                }
+                writeOutbox();
+            }
+        }
+    }
+
+    /**
+     * Waits until there are emails due to be sent.
+     * @return the oldest emails due, at most BATCH_SIZE of them.
+     * @throws InterruptedException if the sender thread is interrupted while waiting.
+     */
+    private static synchronized List<Notification> takeBatch() throws InterruptedException {
+        while (true) {
+            long now = EpochDates.now();
+            long nextDue = Long.MAX_VALUE;
+            List<Notification> batch = new ArrayList<>();
+            for (Notification notification : waiting) {
+                if (notification.nextAttempt > now) {
+                    nextDue = Math.min(nextDue, notification.nextAttempt);
+                } else if (batch.size() < BATCH_SIZE) {
+                    batch.add(notification);
+                }
+            }
+            if (!batch.isEmpty()) {
+                return batch;
+            }
+            Outbox.class.wait(nextDue == Long.MAX_VALUE ? 0 : nextDue - now);
+        }
+    }
+
+    /**
+     * Sends a batch of emails over one connection, then writes the emails still waiting to the outbox file.
+     * @param batch the emails to send.
+     */
+    private static void sendBatch(List<Notification> batch) {
+        long start = System.nanoTime();
+        try {
+            transport.open();
+            for (Notification notification : batch) {
+                try {
+                    transport.send(notification.address, notification.subject, notification.text);
+                    sent(notification);
+                } catch (AddressException e) {
+                    //Sending again will not fix the address.
+                    Log.error("Cannot send email to " + notification.address + ": " + e);
+                    dropped(notification);
+                } catch (MessagingException e) {
+                    failed(notification, e);
+                }
+            }
+        } catch (MessagingException e) {
+            Log.warn("Cannot connect to the mail server: " + e);
+            for (Notification notification : batch) {
+                failed(notification, e);
+            }
+        } finally {
+            transport.close();
+        }
+        writeOutbox();
+        Metrics.time("email.sendBatch", start);
+    }
+
+    /**
+     * Takes an email that has been sent out of the outbox.
+     * @param notification the email sent.
+     */
+    private static synchronized void sent(Notification notification) {
+        waiting.remove(notification);
+        Metrics.count("email.sent");
+        Log.info("Email sent to " + notification.address);
+    }
+
+    /**
+     * Takes an email that cannot be sent out of the outbox.
+     * @param notification the email given up on.
+     */
+    private static synchronized void dropped(Notification notification) {
+        waiting.remove(notification);
+        Metrics.count("email.dropped");
+    }
+
+    /**
+     * Puts off an email that failed to send until later, or gives up on it after MAX_ATTEMPTS.
+     * @param notification the email that failed.
+     * @param e why it failed.
+     */
+    private static synchronized void failed(Notification notification, Exception e) {
+        notification.attempts++;
+        if (notification.attempts >= MAX_ATTEMPTS) {
+            Log.error("Giving up on email to " + notification.address + " after " + MAX_ATTEMPTS
+                    + " attempts: " + e);
+            dropped(notification);
+            return;
+        }
+        long wait = Math.min(LONGEST_RETRY, FIRST_RETRY << (notification.attempts - 1));
+        notification.nextAttempt = EpochDates.now() + wait;
+        Metrics.count("email.retried");
+        Log.warn("Email to " + notification.address + " failed, trying again in " + wait / 1000 + "s: " + e);
+    }
+
+    /**
+     * Puts off an email that failed to send, unless it was already sent or given up on.
+     * @param notification the email that failed.
+     * @param e why it failed.
+     */
+    private static synchronized void failedIfWaiting(Notification notification, Exception e) {
+        if (waiting.contains(notification)) {
+            failed(notification, e);
+        }
+    }
+
+    /**
+     * Replaces the outbox file with the emails still waiting.
+     */
+    private static synchronized void writeOutbox() {
+        String temp = IO.getOutboxFilePath() + ".tmp";
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            Writer file = new BufferedWriter(new OutputStreamWriter(out));
+            for (Notification notification : waiting) {
+                file.write(toJSON(notification).toJSONString() + "\n");
+            }
+            file.flush();
+            out.getFD().sync();
+        } catch (IOException e) {
+            Log.error("Error writing to " + temp);
+            return;
+        }
+        try {
+            Files.move(Paths.get(temp), Paths.get(IO.getOutboxFilePath()),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Log.error("Error writing to " + IO.getOutboxFilePath());
+        }
+    }
+
+    /**
+     * Reads the emails left in the outbox file. A line that cannot be read, such as one torn by a crash while
+     * it was written, is skipped and the rest are still read.
+     * @param read the list to add the emails to, oldest first. Nothing is added if there is no outbox file.
+     * @return the number of lines skipped.
+     */
+    private static int readOutbox(List<Notification> read) {
+        JSONParser parser = new JSONParser();
+        int skipped = 0;
+        int lineNo = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(IO.getOutboxFilePath()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                try {
+                    read.add(fromJSON((JSONObject) parser.parse(line)));
+                } catch (ParseException | RuntimeException e) {
+                    Log.warn("Skipping unreadable email on line " + lineNo + " of " + IO.getOutboxFilePath());
+                    skipped++;
+                }
+            }
+        } catch (FileNotFoundException e) {
+            //Nothing was left to send.
+        } catch (IOException e) {
+            Log.error("ERROR reading " + IO.getOutboxFilePath() + ", some emails may not be sent");
+            e.printStackTrace();
+        }
+        return skipped;
+    }
+
+    /**
+     * Writes an email as a line of the outbox file.
+     * @param notification the email.
+     * @return the email as JSON.
+     */
+    private static JSONObject toJSON(Notification notification) {
+        JSONObject object = new JSONObject();
+        object.put("address", notification.address);
+        object.put("subject", notification.subject);
+        object.put("text", notification.text);
+        object.put("attempts", notification.attempts);
+        object.put("nextAttempt", notification.nextAttempt);
+        return object;
+    }
+
+    /**
+     * Reads an email from a line of the outbox file.
+     * @param object the email as JSON.
+     * @return the email.
+     */
+    private static Notification fromJSON(JSONObject object) {
+        Notification notification = new Notification((String) object.get("address"),
+                (String) object.get("subject"), (String) object.get("text"));
+        notification.attempts = ((Number) object.get("attempts")).intValue();
+        notification.nextAttempt = ((Number) object.get("nextAttempt")).longValue();
+        return notification;
+    }
+}
@@ -0,0 +1,120 @@
+package library;
+
+import utils.EpochDates;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.PriorityQueue;
+
+/**
+ * <h1>OverdueTracker.</h1>
+ * <p>Keeps track of every copy that has been asked to be returned, ordered by the date it is due back.
+ * Copies not yet due wait in a priority queue with the earliest due date at the front. When the overdue
+ * copies are listed, only copies that have become due since the last time are taken off the queue, so
+ * listing costs as much as the number of overdue copies rather than every loan of every user.
+ * This class is static.</p>
+ *
+ * @author Dominik R Wojtasiewicz, Peter Daish, James Carter.
+ */
+public class OverdueTracker {
+	//Copies not yet overdue, earliest due first. May hold entries of copies since returned or asked again,
+	//those are skipped when they reach the front.
+	private static final PriorityQueue<Entry> upcoming = new PriorityQueue<>(Comparator.comparingLong(e -> e.due));
+	//Full copy ID -> the current entry of every copy asked to be returned.
+	private static final HashMap<String, Entry> tracked = new HashMap<>();
+	//Full copy ID -> entry of every copy found to be overdue, in the order they became overdue.
+	private static final LinkedHashMap<String, Entry> overdue = new LinkedHashMap<>();
+
+	/**
+	 * <h1>Entry.</h1>
+	 * <p>A copy and the time it is due back.</p>
+	 */
+	private static class Entry {
+		private final String copyID; //Full copy ID, e.g. "BookID:1-0".
+		private final long due; //Time the copy is due back, in milliseconds since the epoch.
+
+		/**
+		 * Creates an entry.
+		 * @param copyID the full copy ID.
+		 * @param due the time the copy is due back.
+		 */
+		private Entry(String copyID, long due) {
+			this.copyID = copyID;
+			this.due = due;
+		}
+	}
+
+	/**
+	 * Updates the time a copy is due back. Called whenever a copy joins the catalogue, is asked to be returned or
+	 * is returned.
+	 * @param copyID the full copy ID, e.g. "BookID:1-0".
+	 * @param due the time the copy must be returned by, EpochDates.NO_DATE if it has not been asked for.
+	 */
+	public static void update(String copyID, long due) {
+		if (due == EpochDates.NO_DATE) {
+			untrack(copyID);
+		} else {
+			track(copyID, due);
+		}
+	}
+
+	/**
+	 * Starts tracking a copy, or changes the date it is due back.
+	 * @param copyID the full copy ID.
+	 * @param due the time the copy is due back, in milliseconds since the epoch.
+	 */
+	public static synchronized void track(String copyID, long due) {
+		Entry entry = new Entry(copyID, due);
+		tracked.put(copyID, entry);
+		overdue.remove(copyID);
+		upcoming.add(entry);
+	}
+
+	/**
+	 * Stops tracking a copy, once it has been returned.
+	 * @param copyID the full copy ID.
+	 */
+	public static synchronized void untrack(String copyID) {
+		if (tracked.remove(copyID) != null) {
+			overdue.remove(copyID);
+		}
+	}
+
+	/**
+	 * Stops tracking every copy, before the library reads its data files.
+	 */
+	static synchronized void clear() {
+		upcoming.clear();
+		tracked.clear();
+		overdue.clear();
+	}
+
+	/**
+	 * Checks if a copy is overdue.
+	 * @param copyID the full copy ID.
+	 * @param now the current time in milliseconds since the epoch.
+	 * @return True if the copy was asked to be returned before now and has not been.
+	 */
+	public static synchronized boolean isOverdue(String copyID, long now) {
+		Entry entry = tracked.get(copyID);
+		return entry != null && now > entry.due;
+	}
+
+	/**
+	 * Lists every overdue copy.
+	 * @param now the current time in milliseconds since the epoch.
+	 * @return list of full copy IDs, roughly in the order they became overdue.
+	 */
+	public static synchronized ArrayList<String> findOverdue(long now) {
+		while (!upcoming.isEmpty() && upcoming.peek().due < now) {
+			Entry entry = upcoming.poll();
+			//Entries replaced by a later request, or of copies returned, are dropped here.
+			if (tracked.get(entry.copyID) == entry) {
+				overdue.put(entry.copyID, entry);
+			}
+		}
+		return new ArrayList<>(overdue.keySet());
+	}
+}
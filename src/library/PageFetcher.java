@@ -0,0 +1,28 @@
+package library;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+import java.io.IOException;
+
+/**
+ * <h1>PageFetcher.</h1>
+ * <p>Fetches a web page for the TrailerResolver. JSOUP fetches pages over the internet; another fetcher can be
+ * given to TrailerResolver.configure, e.g. one serving pages from a test server on this machine.</p>
+ *
+ * @author Etienne Badoche, James Carter
+ */
+public interface PageFetcher {
+    /**
+     * Fetches pages with Jsoup.
+     */
+    PageFetcher JSOUP = url -> Jsoup.connect(url).get();
+
+    /**
+     * Fetches and parses a web page.
+     * @param url the address of the page.
+     * @return the parsed page.
+     * @throws IOException if the page cannot be fetched.
+     */
+    Document fetch(String url) throws IOException;
+}
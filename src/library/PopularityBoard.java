@@ -0,0 +1,228 @@
+package library;
+
+import utils.EpochDates;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * <h1>PopularityBoard.</h1>
+ * <p>Ranks resources by how many times they have been borrowed in the last day, week, month and of all time.
+ * The rankings are kept sorted as each borrow is recorded, so the most popular resources can be listed
+ * without counting the borrows of every resource. Borrows are also kept per day for the last month, so
+ * when the day changes the borrows of the day that has dropped out of each period are taken off again.
+ * This class is static.</p>
+ *
+ * @author James Carter, Dominik Wojtasiewicz, Peter Daish
+ */
+public class PopularityBoard {
+    public static final int ALL_TIME = 0; //Number of days standing for every borrow ever made.
+    private static final int[] PERIODS = {1, 7, 30}; //Number of days in the day, week and month rankings.
+    private static final int DAYS_KEPT = 31; //Days of borrows kept one by one, one more than the longest period.
+    private static final long NO_DAY = Long.MIN_VALUE; //Latest day before anything is borrowed.
+
+    private static final Ranking allTime = new Ranking();
+    private static final Ranking[] rankings = {new Ranking(), new Ranking(), new Ranking()}; //One per period.
+    //Unique ID -> times borrowed on day d, at d % DAYS_KEPT.
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final HashMap<String, Integer>[] borrowsOnDay = new HashMap[DAYS_KEPT];
+    private static long latestDay = NO_DAY; //Day the rankings are up to, as given by EpochDates.toDay.
+
+    static {
+        for (int i = 0; i < DAYS_KEPT; i++) {
+            borrowsOnDay[i] = new HashMap<>();
+        }
+    }
+
+    /**
+     * <h1>Ranking.</h1>
+     * <p>The times each resource was borrowed in one period, kept both by ID and in order.</p>
+     */
+    private static class Ranking {
+        private final HashMap<String, Integer> timesBorrowed = new HashMap<>();
+        //Most borrowed first, ties by ID so every resource has its own place.
+        private final TreeSet<Map.Entry<String, Integer>> ranked = new TreeSet<>((a, b) -> {
+            int byTimes = Integer.compare(b.getValue(), a.getValue());
+            return byTimes != 0 ? byTimes : a.getKey().compareTo(b.getKey());
+        });
+
+        /**
+         * Changes the times a resource was borrowed.
+         * @param id the unique ID of the resource.
+         * @param change the number of borrows to add, negative to take away.
+         */
+        private void add(String id, int change) {
+            Integer old = timesBorrowed.get(id);
+            int times = (old == null ? 0 : old) + change;
+            if (old != null) {
+                ranked.remove(new AbstractMap.SimpleImmutableEntry<>(id, old));
+            }
+            if (times > 0) {
+                timesBorrowed.put(id, times);
+                ranked.add(new AbstractMap.SimpleImmutableEntry<>(id, times));
+            } else {
+                timesBorrowed.remove(id);
+            }
+        }
+
+        /**
+         * Takes a resource out of the ranking.
+         * @param id the unique ID of the resource.
+         */
+        private void remove(String id) {
+            Integer old = timesBorrowed.remove(id);
+            if (old != null) {
+                ranked.remove(new AbstractMap.SimpleImmutableEntry<>(id, old));
+            }
+        }
+
+        /**
+         * Empties the ranking.
+         */
+        private void clear() {
+            timesBorrowed.clear();
+            ranked.clear();
+        }
+    }
+
+    /**
+     * Records a borrow of a resource. Called when a resource is loaned, and for every borrow in the
+     * users' histories when the library starts.
+     * @param id the unique ID of the resource.
+     * @param time the time of the borrow in milliseconds since the epoch.
+     */
+    public static synchronized void recordBorrow(String id, long time) {
+        allTime.add(id, 1);
+        long day = EpochDates.toDay(time);
+        if (day > latestDay) {
+            moveTo(day);
+        } else if (day <= latestDay - DAYS_KEPT) {
+            return;
+        }
+
+        borrowsOnDay[slotOf(day)].merge(id, 1, Integer::sum);
+        for (int p = 0; p < PERIODS.length; p++) {
+            if (day > latestDay - PERIODS[p]) {
+                rankings[p].add(id, 1);
+            }
+        }
+    }
+
+    /**
+     * Lists the most borrowed resources of a period, leaving out resources not borrowed in it.
+     * @param noOfResources the most resources to list.
+     * @param numDays 1, 7 or 30 for the last day, week or month, ALL_TIME for every borrow.
+     * @return list of unique IDs, most borrowed first.
+     */
+    public static synchronized List<String> getMostBorrowed(int noOfResources, int numDays) {
+        List<String> top = new ArrayList<>();
+        Iterator<Map.Entry<String, Integer>> ranked = rankingOf(numDays).ranked.iterator();
+        while (top.size() < noOfResources && ranked.hasNext()) {
+            top.add(ranked.next().getKey());
+        }
+        return top;
+    }
+
+    /**
+     * Returns how many times a resource was borrowed in a period.
+     * @param id the unique ID of the resource.
+     * @param numDays 1, 7 or 30 for the last day, week or month, ALL_TIME for every borrow.
+     * @return the number of borrows.
+     */
+    public static synchronized int getTimesBorrowed(String id, int numDays) {
+        return rankingOf(numDays).timesBorrowed.getOrDefault(id, 0);
+    }
+
+    /**
+     * Takes a resource off the board, once it has been removed from the library.
+     * @param id the unique ID of the resource.
+     */
+    public static synchronized void remove(String id) {
+        allTime.remove(id);
+        for (Ranking ranking : rankings) {
+            ranking.remove(id);
+        }
+        for (HashMap<String, Integer> day : borrowsOnDay) {
+            day.remove(id);
+        }
+    }
+
+    /**
+     * Empties the board, before the library reads its data files.
+     */
+    static synchronized void clear() {
+        allTime.clear();
+        for (Ranking ranking : rankings) {
+            ranking.clear();
+        }
+        for (HashMap<String, Integer> day : borrowsOnDay) {
+            day.clear();
+        }
+        latestDay = NO_DAY;
+    }
+
+    /**
+     * Finds the ranking of a period, bringing it up to today first.
+     * @param numDays 1, 7 or 30, or ALL_TIME.
+     * @return the ranking.
+     */
+    private static Ranking rankingOf(int numDays) {
+        if (numDays == ALL_TIME) {
+            return allTime;
+        }
+        long today = EpochDates.toDay(EpochDates.now());
+        if (today > latestDay) {
+            moveTo(today);
+        }
+        for (int p = 0; p < PERIODS.length; p++) {
+            if (PERIODS[p] == numDays) {
+                return rankings[p];
+            }
+        }
+        throw new IllegalArgumentException("No ranking of the last " + numDays + " days");
+    }
+
+    /**
+     * Moves the board on to a later day. For each day passed, the borrows of the day dropping out of
+     * each period are taken off its ranking.
+     * @param day the new latest day.
+     */
+    private static void moveTo(long day) {
+        if (latestDay == NO_DAY || day - latestDay >= DAYS_KEPT) {
+            //Every borrow kept day by day is now older than the longest period.
+            for (Ranking ranking : rankings) {
+                ranking.clear();
+            }
+            for (HashMap<String, Integer> borrows : borrowsOnDay) {
+                borrows.clear();
+            }
+            latestDay = day;
+            return;
+        }
+
+        while (latestDay < day) {
+            latestDay++;
+            for (int p = 0; p < PERIODS.length; p++) {
+                for (Map.Entry<String, Integer> borrows : borrowsOnDay[slotOf(latestDay - PERIODS[p])].entrySet()) {
+                    rankings[p].add(borrows.getKey(), -borrows.getValue());
+                }
+            }
+            //The slot of the new day last held the day before the longest period, which no ranking counts.
+            borrowsOnDay[slotOf(latestDay)].clear();
+        }
+    }
+
+    /**
+     * Finds the slot of a day in borrowsOnDay.
+     * @param day the day, as given by EpochDates.toDay.
+     * @return index into borrowsOnDay.
+     */
+    private static int slotOf(long day) {
+        return (int) Math.floorMod(day, (long) DAYS_KEPT);
+    }
+}
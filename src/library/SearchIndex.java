@@ -0,0 +1,277 @@
+package library;
+
+import resources.Resource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * <h1>SearchIndex.</h1>
+ * <p>An inverted index of the words in the title and details of every resource, used by the search screen.
+ * Words are kept in sorted order so every word starting with what has been typed so far can be found
+ * without looking at any resource. The index is kept up to date as resources are added, edited and removed.
+ * This class is static.</p>
+ *
+ * @author Dominik Wojtasiewicz, Peter Daish, James Carter
+ */
+public class SearchIndex {
+    private static final int TITLE_WEIGHT = 3; //How much more a word in the title counts than a word in the details.
+    private static final int DETAIL_WEIGHT = 1;
+    private static final int EXACT_MATCH_BONUS = 1; //Added when a search word is the whole word, not just its start.
+
+    //Word -> unique ID -> weight of the word in that resource.
+    private static final TreeMap<String, Map<String, Integer>> postings = new TreeMap<>();
+    //Unique ID -> word -> weight, the words indexed for that resource, so they can be checked and taken out again.
+    private static final HashMap<String, Map<String, Integer>> wordsOf = new HashMap<>();
+    //Unique ID -> resource, in the order they were added so empty searches list the whole catalogue.
+    private static final LinkedHashMap<String, Resource> indexed = new LinkedHashMap<>();
+
+    private static final ReentrantReadWriteLock indexLock = new ReentrantReadWriteLock(); //Guards the maps above.
+    private static final Lock readLock = indexLock.readLock();
+    private static final Lock writeLock = indexLock.writeLock();
+
+    /**
+     * Adds a resource to the index, or updates it if it was already indexed.
+     * @param resource the resource to index.
+     */
+    public static void index(Resource resource) {
+        Map<String, Integer> words = new HashMap<>();
+        addWords(words, resource.getTitle(), TITLE_WEIGHT);
+        for (String field : resource.getSearchFields()) {
+            addWords(words, field, DETAIL_WEIGHT);
+        }
+
+        writeLock.lock();
+        try {
+            removeWords(resource.getUniqueID());
+            for (Map.Entry<String, Integer> word : words.entrySet()) {
+                postings.computeIfAbsent(word.getKey(), k -> new HashMap<>())
+                        .put(resource.getUniqueID(), word.getValue());
+            }
+            wordsOf.put(resource.getUniqueID(), words);
+            indexed.put(resource.getUniqueID(), resource);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Takes a resource out of the index.
+     * @param id the unique ID of the resource.
+     */
+    public static void remove(String id) {
+        writeLock.lock();
+        try {
+            removeWords(id);
+            indexed.remove(id);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Empties the index.
+     */
+    static void clear() {
+        writeLock.lock();
+        try {
+            postings.clear();
+            wordsOf.clear();
+            indexed.clear();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Finds the resources of a type matching a search. Every word of the search must be the start of a word
+     * in the resource's title or details. Results are ranked by how well they match, title matches and
+     * whole word matches first. An empty search returns every resource of the type.
+     * @param query the text typed into the search bar.
+     * @param type the type of resource to find.
+     * @param <T> the type of resource.
+     * @return list of matching resources, best match first.
+     */
+    public static <T extends Resource> List<T> search(String query, Class<T> type) {
+        List<String> queryWords = tokenise(query);
+
+        readLock.lock();
+        try {
+            if (queryWords.isEmpty()) {
+                List<T> all = new ArrayList<>();
+                for (Resource r : indexed.values()) {
+                    if (type.isInstance(r)) {
+                        all.add(type.cast(r));
+                    }
+                }
+                return all;
+            }
+
+            //Start from the search word matching the fewest resources, then only check those resources
+            //for the other words, so common words like "the" never have all their matches scored.
+            String rarest = null;
+            int fewest = Integer.MAX_VALUE;
+            for (String queryWord : queryWords) {
+                int matches = countPrefix(queryWord);
+                if (matches == 0) {
+                    return new ArrayList<>();
+                }
+                if (matches < fewest) {
+                    fewest = matches;
+                    rarest = queryWord;
+                }
+            }
+
+            Map<String, Integer> scores = scorePrefix(rarest);
+            for (String queryWord : queryWords) {
+                if (queryWord.equals(rarest)) {
+                    continue;
+                }
+                Iterator<Map.Entry<String, Integer>> candidates = scores.entrySet().iterator();
+                while (candidates.hasNext()) {
+                    Map.Entry<String, Integer> candidate = candidates.next();
+                    int score = scoreWordIn(candidate.getKey(), queryWord);
+                    if (score == 0) {
+                        candidates.remove();
+                    } else {
+                        candidate.setValue(candidate.getValue() + score);
+                    }
+                }
+            }
+
+            List<Map.Entry<String, Integer>> ranked = new ArrayList<>(scores.entrySet());
+            ranked.sort((a, b) -> {
+                int byScore = Integer.compare(b.getValue(), a.getValue());
+                return byScore != 0 ? byScore : a.getKey().compareTo(b.getKey());
+            });
+
+            List<T> results = new ArrayList<>();
+            for (Map.Entry<String, Integer> match : ranked) {
+                Resource r = indexed.get(match.getKey());
+                if (type.isInstance(r)) {
+                    results.add(type.cast(r));
+                }
+            }
+            return results;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Counts the postings of every word starting with the given word. Must be called holding the read lock.
+     * @param queryWord a word of the search.
+     * @return the number of postings, at least the number of resources matching.
+     */
+    private static int countPrefix(String queryWord) {
+        int count = 0;
+        for (Map<String, Integer> posting : prefixRange(queryWord).values()) {
+            count += posting.size();
+        }
+        return count;
+    }
+
+    /**
+     * Scores how well one resource matches a word of the search. Must be called holding the read lock.
+     * @param id the unique ID of the resource.
+     * @param queryWord a word of the search.
+     * @return the best score of a word of the resource starting with queryWord, 0 if there is none.
+     */
+    private static int scoreWordIn(String id, String queryWord) {
+        int best = 0;
+        for (Map.Entry<String, Integer> word : wordsOf.get(id).entrySet()) {
+            if (word.getKey().startsWith(queryWord)) {
+                int bonus = word.getKey().equals(queryWord) ? EXACT_MATCH_BONUS : 0;
+                best = Math.max(best, word.getValue() + bonus);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Gets the postings of every word starting with the given word. Must be called holding the read lock.
+     * @param queryWord a word of the search.
+     * @return map of word to postings, a view of the index.
+     */
+    private static Map<String, Map<String, Integer>> prefixRange(String queryWord) {
+        //Every word starting with queryWord sorts between queryWord and queryWord followed by the highest char.
+        return postings.subMap(queryWord, true, queryWord + Character.MAX_VALUE, false);
+    }
+
+    /**
+     * Scores every resource with a word starting with the given word. Must be called holding the read lock.
+     * @param queryWord a word of the search.
+     * @return map of unique ID to the best score of a matching word in that resource.
+     */
+    private static Map<String, Integer> scorePrefix(String queryWord) {
+        Map<String, Integer> scores = new HashMap<>();
+        for (Map.Entry<String, Map<String, Integer>> word : prefixRange(queryWord).entrySet()) {
+            int bonus = word.getKey().equals(queryWord) ? EXACT_MATCH_BONUS : 0;
+            for (Map.Entry<String, Integer> posting : word.getValue().entrySet()) {
+                scores.merge(posting.getKey(), posting.getValue() + bonus, Math::max);
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * Takes the words of a resource out of the postings. Must be called holding the write lock.
+     * @param id the unique ID of the resource.
+     */
+    private static void removeWords(String id) {
+        Map<String, Integer> words = wordsOf.remove(id);
+        if (words == null) {
+            return;
+        }
+        for (String word : words.keySet()) {
+            Map<String, Integer> posting = postings.get(word);
+            posting.remove(id);
+            if (posting.isEmpty()) {
+                postings.remove(word);
+            }
+        }
+    }
+
+    /**
+     * Adds the words of a piece of text to a map, keeping the highest weight of each word.
+     * @param words the map of word to weight.
+     * @param text the text to split into words, may be null.
+     * @param weight the weight of words in this text.
+     */
+    private static void addWords(Map<String, Integer> words, String text, int weight) {
+        for (String word : tokenise(text)) {
+            words.merge(word, weight, Math::max);
+        }
+    }
+
+    /**
+     * Splits text into lower case words made of letters and digits.
+     * @param text the text to split, may be null.
+     * @return list of words, in the order they appear.
+     */
+    static List<String> tokenise(String text) {
+        if (text == null) {
+            return Collections.emptyList();
+        }
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean inWord = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (inWord && start < 0) {
+                start = i;
+            } else if (!inWord && start >= 0) {
+                words.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+        return words;
+    }
+}
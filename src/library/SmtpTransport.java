@@ -0,0 +1,90 @@
+package library;
+
+import com.sun.mail.smtp.SMTPMessage;
+import utils.Log;
+
+import javax.mail.Authenticator;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.PasswordAuthentication;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.InternetAddress;
+import java.util.Properties;
+
+/**
+ * <h1>SmtpTransport.</h1>
+ * <p>Sends emails through an SMTP server, from the library's account. By default this is the library's
+ * Gmail account over SSL. Another server can be given, which is sent to without SSL or logging in,
+ * e.g. an SMTP server on this machine for testing.</p>
+ *
+ * @author James Carter, Dominik Wojtasiewicz, Peter Daish
+ */
+public class SmtpTransport implements MailTransport {
+    private static final String FROM_ADDRESS = "tawelibrary@gmail.com";
+    private static final String FROM_PASSWORD = "polik123!";
+
+    private final Session session;
+    private Transport transport; // The open connection, null if closed.
+
+    /**
+     * Creates a transport sending through the library's Gmail account.
+     */
+    public SmtpTransport() {
+        Properties props = new Properties();
+        props.put("mail.smtp.host", "smtp.gmail.com");
+        props.put("mail.smtp.socketFactory.port", "465");
+        props.put("mail.smtp.socketFactory.class", "javax.net.ssl.SSLSocketFactory");
+        props.put("mail.smtp.auth", "true");
+        props.put("mail.smtp.port", "805");
+
+        session = Session.getInstance(props, new Authenticator() {
+            @Override
+            protected PasswordAuthentication getPasswordAuthentication() {
+                return new PasswordAuthentication(FROM_ADDRESS, FROM_PASSWORD);
+            }
+        });
+    }
+
+    /**
+     * Creates a transport sending through the given server, without SSL or logging in.
+     * @param host the host name of the SMTP server.
+     * @param port the port of the SMTP server.
+     */
+    public SmtpTransport(String host, int port) {
+        Properties props = new Properties();
+        props.put("mail.smtp.host", host);
+        props.put("mail.smtp.port", String.valueOf(port));
+        session = Session.getInstance(props, null);
+    }
+
+    @Override
+    public void open() throws MessagingException {
+        transport = session.getTransport("smtp");
+        transport.connect();
+    }
+
+    @Override
+    public void send(String address, String subject, String text) throws MessagingException {
+        SMTPMessage message = new SMTPMessage(session);
+        message.setFrom(new InternetAddress(FROM_ADDRESS));
+        message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(address));
+        message.setSubject(subject);
+        message.setText(text);
+        message.setNotifyOptions(SMTPMessage.NOTIFY_SUCCESS);
+        transport.sendMessage(message, message.getAllRecipients());
+    }
+
+    @Override
+    public void close() {
+        if (transport == null) {
+            return;
+        }
+        try {
+            transport.close();
+        } catch (MessagingException e) {
+            Log.warn("Error closing the connection to the mail server: " + e);
+        }
+        transport = null;
+    }
+}
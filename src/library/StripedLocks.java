@@ -0,0 +1,97 @@
+package library;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * <h1>StripedLocks.</h1>
+ * <p>A fixed set of locks shared out between resource IDs and usernames by hash. Operations that
+ * change a resource or a user hold the locks for everything they touch, so two desks working on
+ * different resources and users never wait for each other. Locks are always taken in stripe
+ * order, so operations that need several of them cannot deadlock. Holding any stripes also holds a
+ * shared lock over all of them, which lockAll takes exclusively, to wait until no operation is part way
+ * through and stop any from starting.</p>
+ *
+ * @author Dominik R Wojtasiewicz, Peter Daish, James Carter.
+ */
+class StripedLocks {
+    private final ReentrantLock[] stripes; //The locks keys are shared out between.
+    private final ReentrantReadWriteLock all = new ReentrantReadWriteLock(); //Shared by lock, exclusive to lockAll.
+
+    /**
+     * Creates a set of locks.
+     * @param noOfStripes the number of locks to share keys between.
+     */
+    StripedLocks(int noOfStripes) {
+        stripes = new ReentrantLock[noOfStripes];
+        for (int i = 0; i < noOfStripes; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Locks the stripes of all the given keys, waiting until they are free.
+     * Null keys are skipped.
+     * @param keys resource IDs or usernames to lock.
+     * @return the stripes held, to be passed to unlock.
+     */
+    int[] lock(String... keys) {
+        all.readLock().lock();
+        int[] held = new int[keys.length];
+        int noHeld = 0;
+        for (String key : keys) {
+            if (key != null) {
+                held[noHeld++] = stripeOf(key);
+            }
+        }
+        //Sorting gives every caller the same lock order, and lets repeats be skipped.
+        Arrays.sort(held, 0, noHeld);
+
+        int distinct = 0;
+        for (int i = 0; i < noHeld; i++) {
+            if (distinct == 0 || held[distinct - 1] != held[i]) {
+                held[distinct++] = held[i];
+                stripes[held[i]].lock();
+            }
+        }
+        return Arrays.copyOf(held, distinct);
+    }
+
+    /**
+     * Unlocks stripes taken by lock.
+     * @param held the stripes returned by lock.
+     */
+    void unlock(int[] held) {
+        for (int i = held.length - 1; i >= 0; i--) {
+            stripes[held[i]].unlock();
+        }
+        all.readLock().unlock();
+    }
+
+    /**
+     * Waits until no stripes are held by other threads, and stops any being taken until unlockAll.
+     * Must not be called by a thread already holding stripes, as it would wait for itself.
+     */
+    void lockAll() {
+        all.writeLock().lock();
+    }
+
+    /**
+     * Lets stripes be taken again after lockAll.
+     */
+    void unlockAll() {
+        all.writeLock().unlock();
+    }
+
+    /**
+     * Finds the stripe a key belongs to.
+     * @param key a resource ID or username.
+     * @return the index of the stripe.
+     */
+    private int stripeOf(String key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return (hash & 0x7fffffff) % stripes.length;
+    }
+}
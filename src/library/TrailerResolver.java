@@ -0,0 +1,287 @@
+package library;
+
+import io.IO;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import utils.EpochDates;
+import utils.Log;
+import utils.Metrics;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.URLEncoder;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * <h1>TrailerResolver.</h1>
+ * <p>Finds the Youtube video of the trailer of a DVD or video game, by searching Youtube for its title and year
+ * and taking the first video found. Searching happens on a background thread, so the screen never waits for
+ * the web. Videos found are kept in the trailers file for TTL_DAYS, and titles Youtube has no video for are
+ * kept for MISS_TTL_DAYS, so opening the same trailer again does not search again, even after the library
+ * restarts. A search that fails, e.g. because there is no internet, is not kept, so it is tried again next
+ * time. The trailers file is rewritten without expired and replaced lines when it is first read. Asking for a
+ * trailer that is already being searched for waits for that search rather than starting another.
+ * This class is static.</p>
+ *
+ * @author Etienne Badoche, James Carter
+ */
+@SuppressWarnings("unchecked")
+public class TrailerResolver {
+    private static final String YOUTUBE_SEARCH_URL = "https://www.youtube.com/results?search_query=";
+    private static final int TTL_DAYS = 30; //Days a video found is used for before searching again.
+    private static final int MISS_TTL_DAYS = 1; //Days a search that found no video is used for.
+    private static final int SEARCH_THREADS = 2;
+
+    private static final ExecutorService searcher = Executors.newFixedThreadPool(SEARCH_THREADS, r -> {
+        Thread thread = new Thread(r, "Trailer search");
+        thread.setDaemon(true);
+        return thread;
+    });
+    //Title and year -> search for its trailer still going on.
+    private static final ConcurrentHashMap<String, CompletableFuture<String>> searching = new ConcurrentHashMap<>();
+    //Title and year -> video found, or no video, null until the file is read.
+    private static Map<String, Trailer> found;
+    private static String searchUrl = YOUTUBE_SEARCH_URL;
+    private static PageFetcher fetcher = PageFetcher.JSOUP;
+
+    /**
+     * <h1>Trailer.</h1>
+     * <p>The video found for a title and year.</p>
+     */
+    private static class Trailer {
+        private final String videoID; //Null if the search found no video.
+        private final long timeFound; //Milliseconds since the epoch.
+
+        private Trailer(String videoID, long timeFound) {
+            this.videoID = videoID;
+            this.timeFound = timeFound;
+        }
+    }
+
+    /**
+     * Changes where trailers are searched for. By default Youtube is searched over the internet.
+     * @param newSearchUrl the address of the search results page, which the search words are added to.
+     * @param newFetcher fetches the search results page.
+     */
+    public static synchronized void configure(String newSearchUrl, PageFetcher newFetcher) {
+        searchUrl = newSearchUrl;
+        fetcher = newFetcher;
+    }
+
+    /**
+     * Finds the Youtube video of a trailer in the background.
+     * @param title the title of the DVD or video game.
+     * @param year the year of the DVD or video game.
+     * @return completes with the Youtube video ID, or null if there is no trailer, or completes exceptionally
+     * with an UncheckedIOException if Youtube could not be searched.
+     */
+    public static CompletableFuture<String> resolve(String title, String year) {
+        String key = (title + " " + year).trim().toLowerCase().replaceAll("\\s+", " ");
+        Trailer trailer = getFound(key);
+        if (trailer != null) {
+            Metrics.count("trailer.cacheHit");
+            return CompletableFuture.completedFuture(trailer.videoID);
+        }
+
+        CompletableFuture<String> started = new CompletableFuture<>();
+        CompletableFuture<String> search = searching.putIfAbsent(key, started);
+        if (search != null) {
+            return search; //Already being searched for.
+        }
+
+        CompletableFuture.supplyAsync(() -> search(title, year), searcher).whenComplete((id, e) -> {
+            if (e == null) {
+                putFound(key, id);
+            }
+            searching.remove(key, started);
+            if (e != null) {
+                started.completeExceptionally(e);
+            } else {
+                started.complete(id);
+            }
+        });
+        return started;
+    }
+
+    /**
+     * Searches for a trailer and takes the first video found.
+     * @param title the title of the DVD or video game.
+     * @param year the year of the DVD or video game.
+     * @return the Youtube video ID, or null if no trailer could be found.
+     * @throws UncheckedIOException if the search results cannot be fetched.
+     */
+    private static String search(String title, String year) {
+        long start = System.nanoTime();
+        String queryUrl;
+        PageFetcher pageFetcher;
+        synchronized (TrailerResolver.class) {
+            queryUrl = searchUrl;
+            pageFetcher = fetcher;
+        }
+
+        try {
+            queryUrl += URLEncoder.encode(title + " " + year + " trailer", "UTF-8");
+            //Search through HTML to get first video link
+            Document doc = pageFetcher.fetch(queryUrl);
+            Element videoSection = doc.getElementsByClass("yt-lockup-thumbnail").first();
+            Element anchor = videoSection == null ? null : videoSection.getElementsByTag("a").first();
+            if (anchor == null) {
+                Log.warn("No trailer found for " + title + " " + year);
+                return null;
+            }
+            return anchor.attr("href").replace("/watch?v=", "");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        } catch (IOException e) {
+            Log.warn("Cannot search for the trailer of " + title + " " + year + ": " + e);
+            throw new UncheckedIOException(e);
+        } finally {
+            Metrics.time("trailer.search", start);
+        }
+    }
+
+    /**
+     * Looks up a search already made, reading the trailers file the first time.
+     * @param key the title and year.
+     * @return the search, or null if there was none recent enough to use.
+     */
+    private static synchronized Trailer getFound(String key) {
+        readFound();
+        Trailer trailer = found.get(key);
+        return trailer == null || isExpired(trailer) ? null : trailer;
+    }
+
+    /**
+     * Keeps the result of a search, adding it to the trailers file.
+     * @param key the title and year.
+     * @param videoID the Youtube video ID, or null if the search found no video.
+     */
+    private static synchronized void putFound(String key, String videoID) {
+        readFound();
+        Trailer trailer = new Trailer(videoID, EpochDates.now());
+        found.put(key, trailer);
+
+        try (Writer file = new OutputStreamWriter(new FileOutputStream(IO.getTrailersFilePath(), true))) {
+            file.write(toJSON(key, trailer).toJSONString() + "\n");
+        } catch (IOException e) {
+            Log.error("Error writing to " + IO.getTrailersFilePath());
+        }
+    }
+
+    /**
+     * Reads the trailers file the first time it is needed, and rewrites it if some of its lines are no longer
+     * used, so it does not keep growing.
+     */
+    private static void readFound() {
+        if (found != null) {
+            return;
+        }
+        found = new HashMap<>();
+        if (readTrailers(found) > found.size()) {
+            writeTrailers();
+        }
+    }
+
+    /**
+     * Reads the searches made before. Later lines replace earlier lines for the same title and year. A line
+     * that cannot be read is skipped.
+     * @param read map to add each title and year to, with the result of its search, leaving out those too
+     * old to use.
+     * @return the number of lines in the file.
+     */
+    private static int readTrailers(Map<String, Trailer> read) {
+        JSONParser parser = new JSONParser();
+        int lines = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(IO.getTrailersFilePath()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                lines++;
+                try {
+                    JSONObject object = (JSONObject) parser.parse(line);
+                    Trailer trailer = new Trailer((String) object.get("videoID"),
+                            ((Number) object.get("timeFound")).longValue());
+                    if (isExpired(trailer)) {
+                        read.remove((String) object.get("key"));
+                    } else {
+                        read.put((String) object.get("key"), trailer);
+                    }
+                } catch (ParseException | RuntimeException e) {
+                    Log.warn("Skipping unreadable line " + lines + " of " + IO.getTrailersFilePath());
+                }
+            }
+        } catch (FileNotFoundException e) {
+            //No trailers searched for yet.
+        } catch (IOException e) {
+            Log.error("ERROR reading " + IO.getTrailersFilePath());
+            e.printStackTrace();
+        }
+        return lines;
+    }
+
+    /**
+     * Replaces the trailers file with one line for each search kept.
+     */
+    private static void writeTrailers() {
+        String temp = IO.getTrailersFilePath() + ".tmp";
+        try (Writer file = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(temp)))) {
+            for (Map.Entry<String, Trailer> entry : found.entrySet()) {
+                file.write(toJSON(entry.getKey(), entry.getValue()).toJSONString() + "\n");
+            }
+        } catch (IOException e) {
+            Log.error("Error writing to " + temp);
+            return;
+        }
+        try {
+            Files.move(Paths.get(temp), Paths.get(IO.getTrailersFilePath()),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Log.error("Error writing to " + IO.getTrailersFilePath());
+        }
+    }
+
+    /**
+     * Writes a search as a line of the trailers file.
+     * @param key the title and year.
+     * @param trailer the result of the search.
+     * @return the search as JSON.
+     */
+    private static JSONObject toJSON(String key, Trailer trailer) {
+        JSONObject object = new JSONObject();
+        object.put("key", key);
+        object.put("videoID", trailer.videoID);
+        object.put("timeFound", trailer.timeFound);
+        return object;
+    }
+
+    /**
+     * Checks if a search was made too long ago to be used.
+     * @param trailer the result of the search.
+     * @return True if it found a video more than TTL_DAYS ago, or no video more than MISS_TTL_DAYS ago.
+     */
+    private static boolean isExpired(Trailer trailer) {
+        int ttlDays = trailer.videoID == null ? MISS_TTL_DAYS : TTL_DAYS;
+        return EpochDates.now() - trailer.timeFound > ttlDays * EpochDates.DAY;
+    }
+}
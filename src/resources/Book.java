@@ -1,4 +1,7 @@
 package resources;
+
+import utils.IdAllocator;
+
 import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.List;
@@ -13,9 +16,8 @@ public class Book extends Resource {
 	private final double FINE = 2.00; //The fine amount of a book when overdue.
 	private final double MAX_FINE = 25.00; //The maximum fine value of any book.
 	
-	private static String highestBookID = "BookID:0"; //This is used to calculate a unique BookID.
+	private static final String ID_TYPE = "BookID"; //The type of the IDs of books, given out by IdAllocator.
 	
-	private int highestCopyID = 0; // this is used to calculate a unique CopyID.
 	private String author; //Author of Book
 	private String publisher; //Publisher of Book
 	private String genre; //Genre of book (Optional)
@@ -101,31 +103,12 @@ public class Book extends Resource {
     }
 	
 	/**
-	 * Generates a uniqueID for a book.
-	 * @param id The stated ID of the book being created.
-	 * @return highestBookID the book ID of the latest created book
+	 * Gives a new book a unique ID, or notes the ID of a book loaded from a file so it is not given out again.
+	 * @param id The ID of the book, or null if it is new.
+	 * @return The ID of the book.
 	 */
 	private static String generateBookID(String id) {
-		//split book ID into two strings if ID == null.
-		//convert anything after ": " into Int
-		//append 1
-		// convert back to String
-		//assign uniqueID
-		//If id != null.
-		//we are loading a book from a file thus set highestBookID to id.
-		
-		if (id == null) {
-		String[] segmentsOfString = highestBookID.split(":");
-		String typeSegment = segmentsOfString[0];
-		String numberSegmentOfString = segmentsOfString[1];
-		int numberOfID = Integer.parseInt(numberSegmentOfString);
-		numberOfID++;
-		highestBookID = typeSegment + ":" + Integer.toString(numberOfID);
-		return highestBookID;
-		} else {
-			highestBookID = id;
-			return highestBookID;
-		}
+		return id == null ? IdAllocator.next(ID_TYPE) : IdAllocator.observe(id);
 	}
 	/* This method returns the Book's attributes as a string (FOR TESTING PURPOSES ONLY)
 		public String toString() {
@@ -150,7 +133,7 @@ public class Book extends Resource {
 	 * The highest current value of any Book's ID.
 	 */
 	public void setHighestBookID(String hBookID) {
-		this.highestBookID = hBookID;
+		IdAllocator.setHighest(hBookID);
 	}
 	
 	/**
@@ -159,25 +142,7 @@ public class Book extends Resource {
 	 * The highest current id of any book.
 	 */
 	public String getHighestBookID() {
-		return this.highestBookID;
-	}
-	
-	/**
-	 * Sets a value to calculate a new copy's id from.
-	 * @param hCopyID 
-	 * The latest ID of any copy.
-	 */
-	public void setHighestCopyID(int hCopyID) {
-		this.highestCopyID = hCopyID;
-	}
-	
-	/**
-	 * Returns the newest copy's ID
-	 * @return highestCopyID 
-	 * The newest copy's ID.
-	 */
-	public int getHighestCopyID() {
-		return this.highestCopyID;
+		return IdAllocator.format(ID_TYPE, IdAllocator.getHighest(ID_TYPE));
 	}
 	
 	/**
@@ -298,17 +263,6 @@ public class Book extends Resource {
 		}
 	}
 
-	/** 
-	 * Generates a copy ID based off of previous copyID.
-	 * @return hCpyID the current highest ID of a copy
-	 */
-	private String generateCopyID() {
-		//
-		this.highestCopyID++;
-		String hCpyID = Integer.toString(this.highestCopyID);
-		return hCpyID;
-	}
-	
 	/**
 	 * Converts Book to single string
 	 * @return a String representation of this book.
@@ -317,6 +271,23 @@ public class Book extends Resource {
 	public String toSingleString() {
 		return super.toSingleString() + this.author + this.publisher + this.genre + this.isbn;
 	}
+
+	/**
+	 * Returns the details of this book that it can be searched by, other than the title.
+	 * @return list of the searchable details.
+	 */
+	@Override
+	public List<String> getSearchFields() {
+		List<String> fields = super.getSearchFields();
+		fields.add(this.author);
+		fields.add(this.publisher);
+		fields.add(this.genre);
+		fields.add(this.isbn);
+		if (this.languages != null) {
+			fields.addAll(this.languages);
+		}
+		return fields;
+	}
 	/**
 	 * Returns the daily fine rate of this resource.
 	 * @return FINE
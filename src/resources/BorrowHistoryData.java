@@ -1,26 +1,30 @@
 package resources;
 
+import utils.EpochDates;
+
 /**
  * <h1>BorrowHistoryData.</h1>
- * <p>This class models the borrow history for a copy.</p>
+ * <p>This class models the borrow history for a copy.
+ * Dates are held as milliseconds since the epoch, EpochDates.NO_DATE if not set. The text getters and
+ * setters convert to and from the "dd-MM-yyyy HH:mm:ss" format of the data files and screens.</p>
  * @author James Carter, Dominik Wojtasiewicz, Etienne Badoche 
  */
 public class BorrowHistoryData {
 	
 	private String userID;
-	private String dateBorrowed;
-	private String dateReturned;
-	private String dateRequestedReturn;
+	private long timeBorrowed;
+	private long timeReturned;
+	private long timeRequestedReturn;
 	
 	/**
 	 * Constructor for BorrowHistoryData, 
-	 * initialises everything to an empty String.
+	 * initialises the user to an empty String and the dates to not set.
 	 */
 	public BorrowHistoryData() {
 		userID = "";
-		dateBorrowed = "";
-		dateReturned = "";
-		dateRequestedReturn = "";
+		timeBorrowed = EpochDates.NO_DATE;
+		timeReturned = EpochDates.NO_DATE;
+		timeRequestedReturn = EpochDates.NO_DATE;
 	}
 
 	/**
@@ -47,7 +51,7 @@ public class BorrowHistoryData {
 	 * The date this copy was borrowed
 	 */
 	public String getDateBorrowed() {
-		return dateBorrowed;
+		return EpochDates.format(timeBorrowed);
 	}
 
 	/**
@@ -56,7 +60,7 @@ public class BorrowHistoryData {
 	 * The date this copy was borrowed
 	 */
 	public void setDateBorrowed(final String dateBorrowed) {
-		this.dateBorrowed = dateBorrowed;
+		this.timeBorrowed = EpochDates.parse(dateBorrowed);
 	}
 
 	/**
@@ -65,7 +69,7 @@ public class BorrowHistoryData {
 	 * The date this copy was returned
 	 */
 	public String getDateReturned() {
-		return dateReturned;
+		return EpochDates.format(timeReturned);
 	}
 
 	/**
@@ -74,7 +78,7 @@ public class BorrowHistoryData {
 	 * The date this copy was returned
 	 */
 	public void setDateReturned(final String dateReturned) {
-		this.dateReturned = dateReturned;
+		this.timeReturned = EpochDates.parse(dateReturned);
 	}
 
 	/**
@@ -83,7 +87,7 @@ public class BorrowHistoryData {
 	 * The date this copy was requested to be returned
 	 */
 	public String getDateRequestedReturn() {
-		return this.dateRequestedReturn;
+		return EpochDates.format(this.timeRequestedReturn);
 	}
 
 	/**
@@ -92,7 +96,69 @@ public class BorrowHistoryData {
 	 * The date this copy is requested to be returned
 	 */
 	public void setDateRequestedReturn(final String dateRequestedReturn) {
-		this.dateRequestedReturn = dateRequestedReturn;
+		this.timeRequestedReturn = EpochDates.parse(dateRequestedReturn);
+	}
+
+	/**
+	 * Returns the time this copy was borrowed.
+	 * @return timeBorrowed
+	 * Milliseconds since the epoch, EpochDates.NO_DATE if not borrowed.
+	 */
+	public long getTimeBorrowed() {
+		return timeBorrowed;
+	}
+
+	/**
+	 * Sets the time this copy was borrowed.
+	 * @param timeBorrowed
+	 * Milliseconds since the epoch.
+	 */
+	public void setTimeBorrowed(final long timeBorrowed) {
+		this.timeBorrowed = timeBorrowed;
+	}
+
+	/**
+	 * Returns the time this copy was returned.
+	 * @return timeReturned
+	 * Milliseconds since the epoch, EpochDates.NO_DATE if not returned.
+	 */
+	public long getTimeReturned() {
+		return timeReturned;
+	}
+
+	/**
+	 * Sets the time this copy was returned.
+	 * @param timeReturned
+	 * Milliseconds since the epoch.
+	 */
+	public void setTimeReturned(final long timeReturned) {
+		this.timeReturned = timeReturned;
+	}
+
+	/**
+	 * Returns the time this copy was requested to be returned by.
+	 * @return timeRequestedReturn
+	 * Milliseconds since the epoch, EpochDates.NO_DATE if no return was requested.
+	 */
+	public long getTimeRequestedReturn() {
+		return timeRequestedReturn;
+	}
+
+	/**
+	 * Sets the time this copy needs to be returned by.
+	 * @param timeRequestedReturn
+	 * Milliseconds since the epoch.
+	 */
+	public void setTimeRequestedReturn(final long timeRequestedReturn) {
+		this.timeRequestedReturn = timeRequestedReturn;
+	}
+
+	/**
+	 * Returns whether this copy is out on loan.
+	 * @return True if the copy has been borrowed and not returned.
+	 */
+	public boolean isBorrowed() {
+		return timeBorrowed != EpochDates.NO_DATE;
 	}
 
 	/**
@@ -101,9 +167,9 @@ public class BorrowHistoryData {
 	 */
 	public void clearInfo() {
 		this.userID = "";
-		this.dateBorrowed = "";
-		this.dateReturned = "";
-		this.dateRequestedReturn = "";
+		this.timeBorrowed = EpochDates.NO_DATE;
+		this.timeReturned = EpochDates.NO_DATE;
+		this.timeRequestedReturn = EpochDates.NO_DATE;
 	}
 	
 	@Override
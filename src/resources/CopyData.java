@@ -1,13 +1,11 @@
 package resources;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
-import java.util.Date;
 import java.util.List;
 
 import library.Email;
 import library.Library;
+import utils.EpochDates;
+import utils.Log;
 
 /**
  * <h1>CopyData.</h1>
@@ -122,7 +120,7 @@ public class CopyData {
 	 * @return True if the copy is available, False otherwise.
 	 */
 	public boolean isAvailable() {
-		if (currentInfo.getDateBorrowed().equals("") && !isReserved()) {
+		if (!currentInfo.isBorrowed() && !isReserved()) {
 			return true;
 		}
 
@@ -159,27 +157,26 @@ public class CopyData {
 	 */
 	public void loanCopy(String username) {
 		this.currentInfo.setUserID(username);
-		this.currentInfo.setDateBorrowed(Library.getCurrentDateTime());
+		this.currentInfo.setTimeBorrowed(EpochDates.now());
 	}
 	
 	/**
 	 * Sets a date this copy needs to be returned by.
 	 */
 	public void requestReturn(String title) {
-		SimpleDateFormat dateFormat = new SimpleDateFormat("dd-MM-yyyy HH:mm:ss");
-		String date = dateFormat.format(getEstimatedReturnData().getTime());
-		Email.returnNotification(title, Library.getUser(currentInfo.getUserID()).getFirstName(), Library.getUser(currentInfo.getUserID()).getEmail());
-		this.currentInfo.setDateRequestedReturn(date);
+		long date = getEstimatedReturnTime();
+		Email.returnNotification(Library.getUser(currentInfo.getUserID()).getEmail(), title, EpochDates.format(date));
+		this.currentInfo.setTimeRequestedReturn(date);
 	}
 	
 	/**
 	 * Allows for this copy to be returned.
 	 */
 	public void returnCopy() {
-		currentInfo.setDateReturned(Library.getCurrentDateTime());
+		currentInfo.setTimeReturned(EpochDates.now());
 		this.borrowHistory.add(currentInfo);
 		currentInfo = new BorrowHistoryData();
-		System.out.println("Copy has been returned");
+		Log.debug("Copy " + id + " has been returned");
 	}
 	
 	/**
@@ -192,33 +189,22 @@ public class CopyData {
 	}
 	
 	/**
-	 * Sets a return date for this copy.
-	 * @return cal
-	 * The calendar holding the return by date for this copy once reserved by a user.
+	 * Works out when this copy should be returned by, once reserved by a user.
+	 * This is the end of the loan duration counted from the day it was borrowed,
+	 * or a day from now if the loan duration has already passed.
+	 * @return the return by time in milliseconds since the epoch.
 	 */
-	public Calendar getEstimatedReturnData() {
-		String date = currentInfo.getDateBorrowed().split(" ")[0];
-		SimpleDateFormat dateFormat = new SimpleDateFormat("dd-MM-yyyy" ); //Not Required
-		Date selectedDate = null;
-		Calendar cal = Calendar.getInstance();
-
-		System.out.println("Date: " + date);
-
-		try {
-			selectedDate=dateFormat.parse(date);// replace it with selected date
-
-			cal.setTime(selectedDate);
-			cal.add(Calendar.DATE,Integer.valueOf(loanDuration));
+	public long getEstimatedReturnTime() {
+		long now = EpochDates.now();
+		if (!currentInfo.isBorrowed()) {
+			return now;
+		}
 
-			//does a thing
-			if (cal.getTime().before(new Date())) {
-				cal.setTime(new Date());
-				cal.add(Calendar.DATE, 1);
-			}
-		} catch (ParseException e) {
-			System.out.println("date in wrong format");
+		long borrowDay = EpochDates.toDay(currentInfo.getTimeBorrowed());
+		long returnBy = EpochDates.startOfDay(borrowDay + Integer.valueOf(loanDuration));
+		if (returnBy < now) {
+			returnBy = EpochDates.plusDays(now, 1);
 		}
-		
-		return cal;
+		return returnBy;
 	}
 }
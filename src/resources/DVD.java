@@ -1,4 +1,7 @@
 package resources;
+
+import utils.IdAllocator;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -13,9 +16,8 @@ public class DVD extends Resource {
 	private final double FINE = 2.00; //The daily fine rate of this DVD.
 	private final double MAX_FINE = 25.00; // The maximum fine this DVD can reach.
 	
-	private static String highestDVDID = "DVDID:0"; // used to calculate a unique DVD ID.
+	private static final String ID_TYPE = "DVDID"; //The type of the IDs of DVDs, given out by IdAllocator.
 
-	private int highestCopyID = 0; // this is used to calculate a unique CopyID.
 	private String director; //The director of this DVD
 	private String runtime; //The runtime of this DVD.
 	private String language; //The languages this DVD is available in.
@@ -72,35 +74,12 @@ public class DVD extends Resource {
     }
 	
 	/**
-	 * Generates a unique DVD ID if not already set.
-	 * @param id
-	 * The id of the DVD.
-	 * @return highestDVDID
-	 * The id of the latest created book.
+	 * Gives a new DVD a unique ID, or notes the ID of a DVD loaded from a file so it is not given out again.
+	 * @param id The ID of the DVD, or null if it is new.
+	 * @return The ID of the DVD.
 	 */
 	private static String generateDVDID(String id) {
-		//split DVD ID into two strings if ID == null.
-		//convert anything after ": " into DVD
-		//append 1
-		// convert back to String
-		//assign uniqueID
-		//
-		//If id != null.
-		//we are loading a book from a file thus set highestDVDID to id.
-		if (id == null) {
-		String[] segmentsOfString = highestDVDID.split(":");
-		String typeSegment = segmentsOfString[0];
-		String numberSegmentOfString = segmentsOfString[1];
-		
-		int numberOfID = Integer.parseInt(numberSegmentOfString);
-		numberOfID++;
-		
-		highestDVDID = typeSegment + ":" + Integer.toString(numberOfID);
-		return highestDVDID;
-		} else {
-			highestDVDID = id;
-			return highestDVDID;
-		}
+		return id == null ? IdAllocator.next(ID_TYPE) : IdAllocator.observe(id);
 	}
 	
 	/**
@@ -109,25 +88,7 @@ public class DVD extends Resource {
 	 * The highest current value of any DVD ID.
 	 */
 	public void setHighestDVDID(String hDVDID) {
-		this.highestDVDID = hDVDID;
-	}
-	
-	/**
-	 * Returns the newest copy's ID
-	 * @return highestCopyID 
-	 * The newest copy's ID.
-	 */
-	public int getHighestCopyID() {
-		return this.highestCopyID;
-	}
-	
-	/**
-	 * Sets the highest copy id to the latest ID of any DVD
-	 * @param hCopyID
-	 * The highest current copyID.
-	 */
-	public void setHighestCopyID(int hCopyID) {
-		this.highestCopyID = hCopyID;
+		IdAllocator.setHighest(hDVDID);
 	}
 	
 	/**
@@ -136,7 +97,7 @@ public class DVD extends Resource {
 	 * The highest current id of any book.
 	 */
 	public String getHighestDVDID() {
-		return this.highestDVDID;
+		return IdAllocator.format(ID_TYPE, IdAllocator.getHighest(ID_TYPE));
 	}
 	
 	/**
@@ -147,6 +108,22 @@ public class DVD extends Resource {
 	public String toSingleString() {
 		return super.toSingleString() + this.director + this.runtime + this.language;
 	}
+
+	/**
+	 * Returns the details of this DVD that it can be searched by, other than the title.
+	 * @return list of the searchable details.
+	 */
+	@Override
+	public List<String> getSearchFields() {
+		List<String> fields = super.getSearchFields();
+		fields.add(this.director);
+		fields.add(this.runtime);
+		fields.add(this.language);
+		if (this.subLang != null) {
+			fields.addAll(this.subLang);
+		}
+		return fields;
+	}
 	
 	/**
 	 * Finds the director of the DVD
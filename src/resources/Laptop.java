@@ -1,4 +1,7 @@
 package resources;
+
+import utils.IdAllocator;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -13,9 +16,8 @@ public class Laptop extends Resource {
 	private final double FINE = 10.00; //The daily fine for this laptop when overdue.
 	private final double MAX_FINE = 100.00; //The maximum fine reachable with this laptop.
 	
-	private static String highestLaptopID = "LaptopID:0"; // used to calculate a unique laptop ID.
+	private static final String ID_TYPE = "LaptopID"; //The type of the IDs of laptops, given out by IdAllocator.
 	
-	private int highestCopyID = 0; // This is used to calculate a unique CopyID.
 	private String manufacturer; //The manufacturer of this laptop.
 	private String model; //The model of this laptop.
 	private String operatingSys; //The operating system of this laptop.
@@ -77,33 +79,12 @@ public class Laptop extends Resource {
     }
 	
 	/**
-	 * Generates a unique id for this laptop if none present.
-	 * @param id
-	 * The id of this laptop if present.
-	 * @return highestLaptopID
-	 * The largest id of any laptop.
+	 * Gives a new laptop a unique ID, or notes the ID of a laptop loaded from a file so it is not given out again.
+	 * @param id The ID of the laptop, or null if it is new.
+	 * @return The ID of the laptop.
 	 */
 	private static String generateLaptopID(String id) {
-		//split laptop ID into two strings if ID == null.
-		//convert anything after ": " into Int
-		//append 1
-		// convert back to String
-		//assign uniqueID
-		//If id != null.
-		//we are loading a book from a file thus set highestLaptopID to id.
-		
-		if (id == null) {
-			String[] segmentsOfString = highestLaptopID.split(":");
-			String typeSegment = segmentsOfString[0];
-			String numberSegmentOfString = segmentsOfString[1];
-			int numberOfID = Integer.parseInt(numberSegmentOfString);
-			numberOfID++;
-			highestLaptopID = typeSegment + ":" + Integer.toString(numberOfID);
-			return highestLaptopID;
-		} else {
-			highestLaptopID = id;
-			return highestLaptopID;
-		}
+		return id == null ? IdAllocator.next(ID_TYPE) : IdAllocator.observe(id);
 	}
 	
 	/**
@@ -112,25 +93,7 @@ public class Laptop extends Resource {
 	 * The highest current value of any laptop's ID.
 	 */
 	public void setHighestLaptopID(String hLaptopID) {
-		this.highestLaptopID = hLaptopID;
-	}
-	
-	/**
-	 * Returns the newest copy's ID
-	 * @return highestCopyID 
-	 * The newest copy's ID.
-	 */
-	public int getHighestCopyID() {
-		return this.highestCopyID;
-	}
-	
-	/**
-	 * Sets highestcopyID based on the largest current copyID
-	 * @param hCopyID
-	 * The largest current copy ID of any copy of this laptop.
-	 */
-	public void setHighestCopyID(int hCopyID) {
-		this.highestCopyID = hCopyID;
+		IdAllocator.setHighest(hLaptopID);
 	}
 	
 	/**
@@ -139,7 +102,7 @@ public class Laptop extends Resource {
 	 * The highest current id of any book.
 	 */
 	public String getHighestLaptopID() {
-		return this.highestLaptopID;
+		return IdAllocator.format(ID_TYPE, IdAllocator.getHighest(ID_TYPE));
 	}
 	
 	/**
@@ -151,6 +114,19 @@ public class Laptop extends Resource {
 		return super.toSingleString() + this.manufacturer + this.model + this.operatingSys;
 	}
 
+	/**
+	 * Returns the details of this laptop that it can be searched by, other than the title.
+	 * @return list of the searchable details.
+	 */
+	@Override
+	public List<String> getSearchFields() {
+		List<String> fields = super.getSearchFields();
+		fields.add(this.manufacturer);
+		fields.add(this.model);
+		fields.add(this.operatingSys);
+		return fields;
+	}
+
 	/**
 	 * Finds the manufacturer of the laptop
 	 * @return manufacturer 
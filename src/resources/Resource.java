@@ -1,15 +1,16 @@
 package resources;
 
+import library.Circulation;
 import library.Email;
 import library.Library;
+import library.OverdueTracker;
+import library.PopularityBoard;
 import user.User;
-import utils.Queue;
+import utils.EpochDates;
+import utils.Log;
+import utils.ReservationQueue;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Calendar;
-import java.util.Date;
 import java.util.List;
 
 /**
@@ -21,12 +22,14 @@ import java.util.List;
  * @since 07/12/2018
  */
 public class Resource {
+    private static final int MAX_RESERVATIONS = 256; //The most users that can be waiting for a resource at once.
+
     protected String year; //The year this resource was published/released.
     protected String title; //The title of this resource
     protected String thumbnailImageRef; //The filepath of this resource's avatar.
     protected String uniqueID; //The unique id of this resource.
     protected final String dateAdded; // Date resources was added, final because the date is set once.
-    protected Queue<String> queueOfReservations; //The queue of current reservations for this resource.
+    protected ReservationQueue<String> queueOfReservations; //The queue of current reservations for this resource.
     protected List<CopyData> copiesList; //The list of copies owned by this library for this resource.
     protected ResourceStatData resourceStatData; // The amount of times this resource has been borrowed.
     private double FINE; //The daily fine for an overdue resource. CONSTANT
@@ -35,6 +38,7 @@ public class Resource {
     private List<List<BorrowHistoryData>> copyBorrowHistory; // All of the borrow history for this resource
     private List<BorrowHistoryData> currentBorrowData; // The current borrow data for this resource
     private List<String> loanDurations; // All of the loan durations for this resource
+    private volatile boolean catalogued; // True while in the library's catalogue, so its loans and requests count.
 
     /**
      * The constructor for a Resource
@@ -59,7 +63,7 @@ public class Resource {
         this.thumbnailImageRef = thumbnailImageRef;
         this.uniqueID = uniqueID;
         this.dateAdded = dateAdded;
-        this.queueOfReservations = new Queue<String>();
+        this.queueOfReservations = new ReservationQueue<>(MAX_RESERVATIONS);
         this.copiesList = new ArrayList<>();
         this.resourceStatData = new ResourceStatData();
         this.copyBorrowHistory = copyBorrowHistory;
@@ -81,6 +85,9 @@ public class Resource {
         this(r.getYear(), r.getTitle(), r.getThumbnailImageRef(),
                 r.getUniqueID(), r.getDateAdded(), r.getNoOfCopies(), r.getLoanDurations(),
                 r.getAllBorrowHistory(), r.getCurrentBorrowData());
+        for (String username : r.getQueueOfReservations()) {
+            enqueueRequest(username);
+        }
     }
 
     /* #############################################################
@@ -200,7 +207,7 @@ public class Resource {
      * @return queueOfReservations
      * The queue of users who have reserved a copy of this resource.
      */
-    public Queue getQueueOfReservations() {
+    public ReservationQueue<String> getQueueOfReservations() {
         return this.queueOfReservations;
     }
 
@@ -270,7 +277,7 @@ public class Resource {
      * @param loanDuration The length of the loan for this copy
      */
     public void addCopy(String loanDuration) {
-        copiesList.add(new CopyData(String.valueOf(copiesList.size() - 1),
+        copiesList.add(new CopyData(String.valueOf(copiesList.size()),
                 new ArrayList<BorrowHistoryData>(), null, loanDuration));
     }
 
@@ -289,21 +296,72 @@ public class Resource {
      * @param userForQueue The user who requested a copy.
      */
     public void addUserToRequestQueue(String userForQueue) {
-        this.queueOfReservations.enqueue(userForQueue);
+        if (!this.queueOfReservations.offer(userForQueue)) {
+            throw new IllegalStateException("Too many users are waiting for " + uniqueID);
+        }
+        countRequests(1);
         User userAtFrontOfQueue = Library.getUser(this.queueOfReservations.peek());
         if (userAtFrontOfQueue != null)
             checkReservations();
     }
 
+    /**
+     * Adds a User to the back of the copy request queue without trying to reserve a copy for them.
+     * Used when loading from file, before the users of the library have been read.
+     *
+     * @param userForQueue The user who requested a copy.
+     */
+    public void enqueueRequest(String userForQueue) {
+        if (this.queueOfReservations.offer(userForQueue)) {
+            countRequests(1);
+        } else {
+            Log.warn("Reservation queue of " + uniqueID + " is full, dropped " + userForQueue);
+        }
+    }
+
+    /**
+     * Removes a user who cancelled their request from the copy request queue.
+     *
+     * @param userForQueue The user who cancelled.
+     * @return True if the user was waiting for this resource.
+     */
+    public boolean cancelRequest(String userForQueue) {
+        if (this.queueOfReservations.remove(userForQueue)) {
+            countRequests(-1);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Finds how many users are ahead of a user in the copy request queue.
+     *
+     * @param userForQueue The user to look for.
+     * @return The position of the user, 0 being next in line, or -1 if they are not waiting.
+     */
+    public int getQueuePosition(String userForQueue) {
+        return this.queueOfReservations.positionOf(userForQueue);
+    }
+
+    /**
+     * Checks if the copy request queue can take another user.
+     *
+     * @return True if no more users can wait for this resource.
+     */
+    public boolean isRequestQueueFull() {
+        return this.queueOfReservations.isFull();
+    }
+
     /**
      * Check if user has reserved a copy
      */
     public void checkReservations() {
-        User userAtFrontOfQueue = Library.getUser(this.queueOfReservations.peek());
-        if (checkIfAvailable()) {
+        String nextInQueue = this.queueOfReservations.peek();
+        User userAtFrontOfQueue = Library.getUser(nextInQueue);
+        if (userAtFrontOfQueue != null && checkIfAvailable()) {
             for (CopyData copy : copiesList) {
                 if (copy.isAvailable()) {
-                    copy.reserveCopy(queueOfReservations.peek());
+                    copy.reserveCopy(nextInQueue);
                     userAtFrontOfQueue.moveToReserved(getUniqueID());
                     return;
                 }
@@ -318,9 +376,11 @@ public class Resource {
      * The user who first requested a copy
      */
     public User removeUserFromRequestQueue() {
-        User userAtFrontOfQueue = Library.getUser(this.queueOfReservations.peek());
-        this.queueOfReservations.dequeue();
-        return userAtFrontOfQueue;
+        String first = this.queueOfReservations.poll();
+        if (first != null) {
+            countRequests(-1);
+        }
+        return Library.getUser(first);
     }
 
     /**
@@ -351,6 +411,17 @@ public class Resource {
         return year + title;
     }
 
+    /**
+     * Returns the details of this Resource that it can be searched by, other than the title.
+     *
+     * @return list of the searchable details, may contain nulls.
+     */
+    public List<String> getSearchFields() {
+        List<String> fields = new ArrayList<>();
+        fields.add(year);
+        return fields;
+    }
+
     /**
      * Returns the loan duration of a resource.
      *
@@ -362,16 +433,36 @@ public class Resource {
     }
 
     /**
-     * Sets a user to loan a copy of a resource.
+     * Sets a user to loan a copy of a resource. If the copy was reserved for the user, they have collected
+     * it, so they leave the request queue and the next user in it moves to the front.
      *
      * @param copyID   The copy id of the copy to be loaned.
      * @param username The username of the user who is loaning the copy.
      */
     public void loanResource(String copyID, String username) {
-        copiesList.get((Integer.valueOf(copyID))).loanCopy(username);
+        CopyData copy = copiesList.get((Integer.valueOf(copyID)));
+        if (copy.isReserved() && copy.getReservedUser().equals(username)) {
+            copy.reserveCopy("");
+            if (queueOfReservations.remove(username)) {
+                countRequests(-1);
+            }
+        }
+        boolean wasBorrowed = copy.getCurrentInfo().isBorrowed();
+        copy.loanCopy(username);
+        if (!wasBorrowed) {
+            countLoans(1);
+        }
+        recordBorrow(EpochDates.now());
+    }
 
-        SimpleDateFormat dateFormatDMY = new SimpleDateFormat("dd-MM-yyyy");
-        resourceStatData.addBorrowDate(dateFormatDMY.format(new Date()));
+    /**
+     * Counts a borrow of this resource in its stats and on the popularity board.
+     *
+     * @param time The time of the borrow in milliseconds since the epoch.
+     */
+    public void recordBorrow(long time) {
+        resourceStatData.addBorrow();
+        PopularityBoard.recordBorrow(uniqueID, time);
     }
 
     /**
@@ -380,7 +471,9 @@ public class Resource {
      * @param copyId The copy id of the resource to be returned.
      */
     public void requestReturn(Integer copyId) {
-        copiesList.get(copyId).requestReturn(this.title);
+        CopyData copy = copiesList.get(copyId);
+        copy.requestReturn(this.title);
+        OverdueTracker.update(uniqueID + "-" + copy.getId(), copy.getCurrentInfo().getTimeRequestedReturn());
     }
 
     /**
@@ -389,12 +482,16 @@ public class Resource {
      * @param copyId The id of the copy of the resource.
      */
     public void returnResource(Integer copyId) {
+        if (copiesList.get(copyId).getCurrentInfo().isBorrowed()) {
+            countLoans(-1);
+        }
         copiesList.get(copyId).returnCopy();
+        OverdueTracker.untrack(uniqueID + "-" + copiesList.get(copyId).getId());
 
-        if (!queueOfReservations.isEmpty()) {
-            copiesList.get(copyId).reserveCopy(queueOfReservations.peek());
-            User userAtFrontOfQueue = Library.getUser(this.queueOfReservations.peek());
-            userAtFrontOfQueue.moveToReserved(getUniqueID());
+        String nextInQueue = queueOfReservations.peek();
+        if (nextInQueue != null) {
+            copiesList.get(copyId).reserveCopy(nextInQueue);
+            Library.getUser(nextInQueue).moveToReserved(getUniqueID());
         }
     }
 
@@ -419,20 +516,7 @@ public class Resource {
      * @return True if copy is overdue, False otherwise.
      */
     public Boolean checkIfOverdue(Integer copyID) {
-        BorrowHistoryData data = this.copiesList.get(copyID).getCurrentInfo();
-        SimpleDateFormat dataFormat = new SimpleDateFormat("dd-MM-yyyy HH:mm:ss");
-        if (data.getDateRequestedReturn().equals("")) {
-            return false;
-        } else {
-            try {
-                Date date1 = dataFormat.parse(data.getDateRequestedReturn());
-                Date date2 = dataFormat.parse(Library.getCurrentDateTime());
-                return date2.after(date1);
-            } catch (ParseException e) {
-                System.out.println("Error Resource checkIfOverdue ParseException");
-            }
-            return false;
-        }
+        return OverdueTracker.isOverdue(uniqueID + "-" + copiesList.get(copyID).getId(), EpochDates.now());
     }
 
     /**
@@ -472,15 +556,15 @@ public class Resource {
      */
     public Integer getCopyWithEarlestReturn() {
 
-        Calendar currentlyEarliestDate = copiesList.get(0).getEstimatedReturnData();
+        long currentlyEarliestDate = copiesList.get(0).getEstimatedReturnTime();
         CopyData currentEarlyCopy = copiesList.get(0);
         // Loop over every resource
         for (CopyData copy : copiesList) {
-            Calendar returnDate = copy.getEstimatedReturnData();
+            long returnDate = copy.getEstimatedReturnTime();
 
             // If the estimated return date is earlier than the current earliest
             // change the current to this copy.
-            if (returnDate.before(currentlyEarliestDate)) {
+            if (returnDate < currentlyEarliestDate) {
                 currentlyEarliestDate = returnDate;
                 currentEarlyCopy = copy;
             }
@@ -503,4 +587,71 @@ public class Resource {
     public List<String> getLoanDurations(){
         return this.loanDurations;
     }
+
+    /**
+     * Adds this resource's loans and requests to the counts of the catalogue, and its copies asked to be
+     * returned to the OverdueTracker, once it has joined the catalogue. From then on they are counted as they
+     * change, until leaveCatalogue.
+     */
+    public synchronized void joinCatalogue() {
+        if (catalogued) {
+            return;
+        }
+        catalogued = true;
+        Circulation.changeLoans(countCopiesOnLoan());
+        Circulation.changeRequests(queueOfReservations.size());
+        for (CopyData copy : copiesList) {
+            OverdueTracker.update(uniqueID + "-" + copy.getId(), copy.getCurrentInfo().getTimeRequestedReturn());
+        }
+    }
+
+    /**
+     * Takes this resource's loans and requests off the counts of the catalogue, and its copies out of the
+     * OverdueTracker, once it has been removed.
+     */
+    public synchronized void leaveCatalogue() {
+        if (!catalogued) {
+            return;
+        }
+        catalogued = false;
+        Circulation.changeLoans(-countCopiesOnLoan());
+        Circulation.changeRequests(-queueOfReservations.size());
+        for (CopyData copy : copiesList) {
+            OverdueTracker.untrack(uniqueID + "-" + copy.getId());
+        }
+    }
+
+    /**
+     * Counts the copies of this resource on loan.
+     * @return the number of copies.
+     */
+    private int countCopiesOnLoan() {
+        int onLoan = 0;
+        for (CopyData copy : copiesList) {
+            if (copy.getCurrentInfo().isBorrowed()) {
+                onLoan++;
+            }
+        }
+        return onLoan;
+    }
+
+    /**
+     * Changes the number of copies on loan in the catalogue, if this resource is in it.
+     * @param change the number of copies loaned, negative for copies returned.
+     */
+    private void countLoans(long change) {
+        if (catalogued) {
+            Circulation.changeLoans(change);
+        }
+    }
+
+    /**
+     * Changes the number of users waiting in the catalogue, if this resource is in it.
+     * @param change the number of users who joined the request queue, negative for users who left it.
+     */
+    private void countRequests(long change) {
+        if (catalogued) {
+            Circulation.changeRequests(change);
+        }
+    }
 }
\ No newline at end of file
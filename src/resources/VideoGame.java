@@ -1,5 +1,7 @@
 package resources;
 
+import utils.IdAllocator;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -17,9 +19,8 @@ public class VideoGame extends Resource {
 	private final double FINE = 2.00; // The fine amount of a video game when overdue.
 	private final double MAX_FINE = 25.00; // The maximum fine value of any video game.
 
-	private static String highestGameID = "VideoGameID:0"; // This is used to calculate a unique GameID.
+	private static final String ID_TYPE = "VideoGameID"; // The type of the IDs of video games, given out by IdAllocator.
 
-	private int highestCopyID = 0; // this is used to calculate a unique CopyID.
 	private String publisher; // Publisher of game
 	private String genre; // Genre of game 
 	private String certificateRating;// certificate rating of game
@@ -100,32 +101,13 @@ public class VideoGame extends Resource {
     }
 
 	/**
-	 * Generates a uniqueID for a game.
+	 * Gives a new game a unique ID, or notes the ID of a game loaded from a file so it is not given out again.
 	 * 
-	 * @param id The stated ID of the game being created.
-	 * @return highestGameID the game ID of the latest created game
+	 * @param id The ID of the game, or null if it is new.
+	 * @return The ID of the game.
 	 */
 	private static String generateGameID(String id) {
-		// split Game ID into two strings if ID == null.
-		// convert anything after ": " into Int
-		// append 1
-		// convert back to String
-		// assign uniqueID
-		// If id != null.
-		// we are loading a Game from a file thus set highestGameID to id.
-
-		if (id == null) {
-			String[] segmentsOfString = highestGameID.split(":");
-			String typeSegment = segmentsOfString[0];
-			String numberSegmentOfString = segmentsOfString[1];
-			int numberOfID = Integer.parseInt(numberSegmentOfString);
-			numberOfID++;
-			highestGameID = typeSegment + ":" + Integer.toString(numberOfID);
-			return highestGameID;
-		} else {
-			highestGameID = id;
-			return highestGameID;
-		}
+		return id == null ? IdAllocator.next(ID_TYPE) : IdAllocator.observe(id);
 	}
 
 	/*
@@ -140,7 +122,7 @@ public class VideoGame extends Resource {
 	 * @param hGameID The highest current value of any Game's ID.
 	 */
 	public void setHighestBookID(String hGameID) {
-		this.highestGameID = hGameID;
+		IdAllocator.setHighest(hGameID);
 	}
 
 	/**
@@ -149,25 +131,7 @@ public class VideoGame extends Resource {
 	 * @return highestGameID The highest current id of any game.
 	 */
 	public String getHighestBookID() {
-		return this.highestGameID;
-	}
-
-	/**
-	 * Sets a value to calculate a new copy's id from.
-	 * 
-	 * @param hCopyID The latest ID of any copy.
-	 */
-	public void setHighestCopyID(int hCopyID) {
-		this.highestCopyID = hCopyID;
-	}
-
-	/**
-	 * Returns the newest copy's ID
-	 * 
-	 * @return highestCopyID The newest copy's ID.
-	 */
-	public int getHighestCopyID() {
-		return this.highestCopyID;
+		return IdAllocator.format(ID_TYPE, IdAllocator.getHighest(ID_TYPE));
 	}
 
 	/**
@@ -255,18 +219,6 @@ public class VideoGame extends Resource {
 	  }
 			 
 
-	/**
-	 * Generates a copy ID based off of previous copyID.
-	 * 
-	 * @return hCpyID the current highest ID of a copy
-	 */
-	private String generateCopyID() {
-		//
-		this.highestCopyID++;
-		String hCpyID = Integer.toString(this.highestCopyID);
-		return hCpyID;
-	}
-
 	/**
 	 * Converts Game to single string
 	 * 
@@ -277,6 +229,24 @@ public class VideoGame extends Resource {
 		return super.toSingleString() + this.publisher + this.genre + this.certificateRating + this.multiplayerSupport;
 	}
 
+	/**
+	 * Returns the details of this game that it can be searched by, other than the title.
+	 * 
+	 * @return list of the searchable details.
+	 */
+	@Override
+	public List<String> getSearchFields() {
+		List<String> fields = super.getSearchFields();
+		fields.add(this.publisher);
+		fields.add(this.genre);
+		fields.add(this.certificateRating);
+		fields.add(this.multiplayerSupport);
+		if (this.languages != null) {
+			fields.addAll(this.languages);
+		}
+		return fields;
+	}
+
 	/**
 	 * Returns the daily fine rate of this resource.
 	 * 
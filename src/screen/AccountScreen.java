@@ -24,6 +24,7 @@ import javafx.scene.text.Text;
 import javafx.stage.FileChooser;
 import library.Library;
 import resources.Resource;
+import utils.Log;
 
 /**
  * <h1>AccountScreen.</h1>
@@ -102,18 +103,11 @@ public class AccountScreen extends Screen implements Initializable {
      * The resources used to localise the root object.
      */
 	public void initialize(URL location, ResourceBundle resources) {
-		BufferedImage img = null;
-        try {
-            img = ImageIO.read(new File(Library.getCurrentLoggedInUser().getProfImage()));
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-
         if (Library.currentUserIsLibrarian()) {
             issueDeskBtn.setVisible(true);
         }
 
-        userIcon.setImage(SwingFXUtils.toFXImage(img, null));
+        ImageCache.show(userIcon, Library.getCurrentLoggedInUser().getProfImage());
         usernameText.setText(Library.getCurrentLoggedInUser().getUserName());
         
         //Set all of the user details.
@@ -178,13 +172,7 @@ public class AccountScreen extends Screen implements Initializable {
      * This method sets the profile image ImageView to the profile image of the currently logged in user.
      */
 	private void setProfileImage() {
-		BufferedImage profileImage = null;
-        try {
-            profileImage = ImageIO.read(new File(Library.getCurrentLoggedInUser().getProfImage()));
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        profileImageField.setImage(SwingFXUtils.toFXImage(profileImage, null));
+		ImageCache.show(profileImageField, Library.getCurrentLoggedInUser().getProfImage());
 	}
 
 	/**
@@ -305,7 +293,7 @@ public class AccountScreen extends Screen implements Initializable {
 	        Library.getCurrentLoggedInUser().setProfImage(selectedFile.toString());
 		} catch (NullPointerException ex) {
 			changeImageFail();
-	        System.out.println("No image file selected");
+	        Log.debug("No image file selected");
 	    }
 	}
 }
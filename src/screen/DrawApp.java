@@ -2,7 +2,8 @@ package screen;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Random;
-import java.util.Stack;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
 import io.WriteFile;
 import javafx.geometry.Pos;
 import javafx.scene.SnapshotParameters;
@@ -15,8 +16,7 @@ import javafx.scene.control.MenuItem;
 import javafx.scene.control.RadioButton;
 import javafx.scene.control.Spinner;
 import javafx.scene.control.ToggleGroup;
-import javafx.scene.image.PixelReader;
-import javafx.scene.image.PixelWriter;
+import javafx.scene.image.PixelFormat;
 import javafx.scene.image.WritableImage;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.Background;
@@ -30,7 +30,10 @@ import javafx.scene.shape.Rectangle;
 import javafx.scene.shape.TriangleMesh;
 import javafx.stage.FileChooser;
 import library.Library;
-import utils.Queue;
+import utils.FloodFill;
+import utils.ImageFilters;
+import utils.Metrics;
+import utils.UndoHistory;
 
 /**
  * <h1>DrawApp.</h1>
@@ -47,6 +50,7 @@ public class DrawApp extends Screen {
 	private static final MenuButton TOOLS_BTN = new MenuButton("Tools");
 	private static final MenuItem SAVE_ITEM = new MenuItem("Save");
 	private static final MenuItem SAVE_AS_ITEM = new MenuItem("Save As");
+	private static final MenuItem SAVE_AVATAR_ITEM = new MenuItem("Save as Profile Image");
 	private static final MenuItem LOAD_ITEM = new MenuItem("Load");
 	private static final MenuItem EXIT_ITEM = new MenuItem("Exit");
 	private static final MenuItem UNDO_ITEM = new MenuItem("Undo");
@@ -55,6 +59,9 @@ public class DrawApp extends Screen {
 	private static final MenuItem ZOOM_OUT_ITEM = new MenuItem("Zoom Out");
 	private static final MenuItem INVERT_ITEM = new MenuItem("Invert Colours");
 	private static final MenuItem GRAYSCALE_ITEM = new MenuItem("Convert to Grayscale");
+	private static final MenuItem BLUR_ITEM = new MenuItem("Blur");
+	private static final MenuItem BRIGHTEN_ITEM = new MenuItem("Brighten");
+	private static final MenuItem DARKEN_ITEM = new MenuItem("Darken");
 	// Toolbar \\
 	private static final ToggleGroup TOOLS = new ToggleGroup();
 	private static final RadioButton PAINT_BRUSH_ITEM = new RadioButton("Paint Brush");
@@ -64,9 +71,16 @@ public class DrawApp extends Screen {
 	private static final ComboBox<String> SHAPE_SELECTOR = new ComboBox<>();
 	private static final ColorPicker C_PICKER = new ColorPicker();
 	private static final Spinner<Integer> BRUSH_SIZE = new Spinner<Integer>(0, 64, 4);
+	private static final Spinner<Integer> FILL_TOLERANCE = new Spinner<Integer>(0, 255, 0);
 	// Canvas \\
 	private static final Canvas CANVAS = new Canvas(256, 256);
 	private static final GraphicsContext GC = CANVAS.getGraphicsContext2D();
+	private static final long MAX_UNDO_BYTES = 8 * 1024 * 1024; // Most memory used by the undo history.
+	// Filters \\
+	private static final int BLUR_RADIUS = 2;
+	private static final double BRIGHTEN_FACTOR = 1.2;
+	private static final double DARKEN_FACTOR = 0.8;
+	private static final int AVATAR_SIZE = 150; // Width and height profile images are shown at.
 	// Shapes \\
 	private static final Line LINE = new Line();
 	private static final Rectangle RECTANGLE = new Rectangle();
@@ -79,8 +93,11 @@ public class DrawApp extends Screen {
 	private static final VBox CONTENT = new VBox(0);
 	// States \\
 	private WritableImage prevState = null;
-	private Stack<WritableImage> previousStates;
-	private Stack<WritableImage> futureStates;
+	private final UndoHistory history = new UndoHistory(MAX_UNDO_BYTES);
+	private final LongSupplier undoBytes = history::getBytes; // The undo.bytes gauge, kept to remove it again.
+	// Pixels \\
+	private final FloodFill bucket = new FloodFill();
+	private int[] pixels = new int[0]; // The ARGB pixels of the canvas, row by row, while a tool works on them.
 
 	@Override
 	/**
@@ -88,8 +105,6 @@ public class DrawApp extends Screen {
 	 */
 	public void start() {
 		components = new ArrayList<>();
-		previousStates = new Stack<>();
-		futureStates = new Stack<>();
 
 		SetupControlHeader();
 		SetupToolbar();
@@ -97,12 +112,26 @@ public class DrawApp extends Screen {
 
 		GC.setFill(Color.WHITE);
 		GC.fillRect(0, 0, CANVAS.getWidth(), CANVAS.getHeight());
+		history.reset(readPixels(CANVAS), (int) CANVAS.getWidth(), (int) CANVAS.getHeight());
+		Metrics.gauge("undo.bytes", undoBytes);
 
 		CANVAS.setOnMousePressed(mouse -> CanvasMousePressed(mouse));
 		CANVAS.setOnMouseDragged(mouse -> CanvasMouseDragged(mouse));
 		CANVAS.setOnMouseReleased(mouse -> CanvasMouseReleased(mouse));
 	}
 
+	@Override
+	/**
+	 * Removes the undo.bytes gauge and frees the undo history once DrawApp is closed.
+	 */
+	public void stop() {
+		Metrics.removeGauge("undo.bytes", undoBytes);
+		CANVAS.setOnMousePressed(null);
+		CANVAS.setOnMouseDragged(null);
+		CANVAS.setOnMouseReleased(null);
+		history.close();
+	}
+
 	// Canavs Mouse Events \\
 	/**
 	 * The event called when the mouse is pressed on the canvas.
@@ -110,7 +139,6 @@ public class DrawApp extends Screen {
 	 * Information relating to the cursor on screen.
 	 */
 	private void CanvasMousePressed(MouseEvent mouse) {
-		addPreviousState(CANVAS);
 		GC.setLineWidth((double) BRUSH_SIZE.getValueFactory().getValue());
 		GC.setStroke(C_PICKER.getValue());
 		GC.setFill(C_PICKER.getValue());
@@ -119,7 +147,7 @@ public class DrawApp extends Screen {
 			GC.lineTo(mouse.getX(), mouse.getY());
 			prevState = convertToImage(CANVAS);
 		} else if (PAINT_BUCKET_BTN.isSelected()) {
-			GC.drawImage(paintBucket(C_PICKER.getValue(), (int) mouse.getX(), (int) mouse.getY(), CANVAS), 0, 0);
+			paintBucket(C_PICKER.getValue(), (int) mouse.getX(), (int) mouse.getY(), CANVAS);
 			prevState = convertToImage(CANVAS);
 		} else if (LINE_TOOL_BTN.isSelected()) {
 			LINE.setStartX(mouse.getX());
@@ -214,6 +242,7 @@ public class DrawApp extends Screen {
 					break;
 			}
 		}
+		recordState(CANVAS);
 	}
 
 	// Component Setup \\
@@ -221,28 +250,26 @@ public class DrawApp extends Screen {
 	 * Initialisation of JavaFX components on the ControlHeader
 	 */
 	private void SetupControlHeader() {
-		FILE_BTN.getItems().addAll(SAVE_ITEM, LOAD_ITEM, EXIT_ITEM);
+		FILE_BTN.getItems().addAll(SAVE_ITEM, SAVE_AVATAR_ITEM, LOAD_ITEM, EXIT_ITEM);
 		EDIT_BTN.getItems().addAll(UNDO_ITEM, REDO_ITEM);
 		VIEW_BTN.getItems().addAll(ZOOM_IN_ITEM, ZOOM_OUT_ITEM);
-		TOOLS_BTN.getItems().addAll(INVERT_ITEM, GRAYSCALE_ITEM);
+		TOOLS_BTN.getItems().addAll(INVERT_ITEM, GRAYSCALE_ITEM, BLUR_ITEM, BRIGHTEN_ITEM, DARKEN_ITEM);
 
 		// File Functions \\
 		SAVE_ITEM.setOnAction(e -> {
-			FileChooser fileChooser = new FileChooser();
-			FileChooser.ExtensionFilter extFilter = new FileChooser.ExtensionFilter("PNG files (*.png)", "*.png");
-			fileChooser.getExtensionFilters().add(extFilter);
-			String currentUserName = Library.getCurrentLoggedInUser().getUserName();
-			String directoryPath = ("./data/images/" + currentUserName);
-			File initDir = new File(directoryPath);
-			fileChooser.setInitialDirectory(initDir);
-
-			File file = fileChooser.showSaveDialog(ScreenManager.getStage());
-
+			File file = chooseSaveFile();
 			if (file != null) {
 				saveImage(CANVAS, file);
 			}
 		});
 
+		SAVE_AVATAR_ITEM.setOnAction(e -> {
+			File file = chooseSaveFile();
+			if (file != null) {
+				saveAvatar(CANVAS, file);
+			}
+		});
+
 
 		EXIT_ITEM.setOnAction(e -> {
 			ScreenManager.previousScreen();
@@ -261,11 +288,26 @@ public class DrawApp extends Screen {
 
 		// Tools Functions \\
 		INVERT_ITEM.setOnAction(e -> {
-			GC.drawImage(InvertImage(CANVAS), 0, 0);
+			applyFilter(CANVAS, px -> ImageFilters.invert(px, (int) CANVAS.getWidth(), (int) CANVAS.getHeight()));
 		});
 
 		GRAYSCALE_ITEM.setOnAction(e -> {
-			GC.drawImage(GrayscaleImage(CANVAS), 0, 0);
+			applyFilter(CANVAS, px -> ImageFilters.grayscale(px, (int) CANVAS.getWidth(), (int) CANVAS.getHeight()));
+		});
+
+		BLUR_ITEM.setOnAction(e -> {
+			applyFilter(CANVAS, px -> ImageFilters.blur(px, (int) CANVAS.getWidth(), (int) CANVAS.getHeight(),
+					BLUR_RADIUS));
+		});
+
+		BRIGHTEN_ITEM.setOnAction(e -> {
+			applyFilter(CANVAS, px -> ImageFilters.brightness(px, (int) CANVAS.getWidth(), (int) CANVAS.getHeight(),
+					BRIGHTEN_FACTOR));
+		});
+
+		DARKEN_ITEM.setOnAction(e -> {
+			applyFilter(CANVAS, px -> ImageFilters.brightness(px, (int) CANVAS.getWidth(), (int) CANVAS.getHeight(),
+					DARKEN_FACTOR));
 		});
 	}
 
@@ -296,7 +338,7 @@ public class DrawApp extends Screen {
 
 		HEADER.setPrefWidth(1280);
 		HEADER.getChildren().addAll(PAINT_BRUSH_ITEM, PAINT_BUCKET_BTN, LINE_TOOL_BTN, SHAPE_TOOL_BTN,
-				SHAPE_SELECTOR, C_PICKER, BRUSH_SIZE);
+				SHAPE_SELECTOR, C_PICKER, BRUSH_SIZE, FILL_TOLERANCE);
 		HEADER.setBackground(new Background(new BackgroundFill(Color.LIGHTBLUE, null, null)));
 
 		DRAW_WINDOW.getChildren().add(CANVAS);
@@ -324,26 +366,12 @@ public class DrawApp extends Screen {
 	}
 
 	/**
-	 * Adds the current state of the canvas to the stack of states.
+	 * Adds the changes made to the canvas since the last state to the undo history.
 	 * @param c
 	 * The current state of the canvas.
 	 */
-	private void addPreviousState(Canvas c) {
-		if (!previousStates.isEmpty()) {
-			if (convertToImage(c).equals(previousStates.peek())) {
-				return;
-			}
-		}
-		previousStates.push(convertToImage(c));
-	}
-
-	/**
-	 * Adds the current state of the canvas to the stack of states.
-	 * @param c
-	 * The current state of canvas.
-	 */
-	private void addFutureState(Canvas c) {
-		futureStates.push(convertToImage(c));
+	private void recordState(Canvas c) {
+		history.record(readPixels(c), (int) c.getWidth(), (int) c.getHeight());
 	}
 
 	/**
@@ -352,11 +380,11 @@ public class DrawApp extends Screen {
 	 * The current state of the canvas.
 	 */
 	private void undo(Canvas c) {
+		int[] px = readPixels(c);
 		// Check if there are any actions to undo
-		if (!previousStates.isEmpty()) {
-			addFutureState(c);
+		if (history.undo(px)) {
+			writePixels(c, px);
 			prevState = convertToImage(c);
-			c.getGraphicsContext2D().drawImage(previousStates.pop(), 0, 0);
 		}
 	}
 
@@ -366,15 +394,16 @@ public class DrawApp extends Screen {
 	 * The current state of the canvas.
 	 */
 	private void redo(Canvas c) {
-		if (!futureStates.isEmpty()) {
-			addPreviousState(c);
+		int[] px = readPixels(c);
+		if (history.redo(px)) {
+			writePixels(c, px);
 			prevState = convertToImage(c);
-			c.getGraphicsContext2D().drawImage(futureStates.pop(), 0, 0);
 		}
 	}
 
 	/**
-	 * Initialises the canvas to be filled with a specific colour.
+	 * Fills the area of the canvas around the cursor that is the colour under the cursor, or close to it by
+	 * up to the fill tolerance.
 	 * @param c
 	 * The selected Colour to fill the canvas with.
 	 * @param startX
@@ -383,106 +412,74 @@ public class DrawApp extends Screen {
 	 * The y initial coordinate of the cursor on canvas.
 	 * @param canvas
 	 * The current canvas
-	 * @return wi
-	 * The writable image of the current canvas.
 	 */
-	private WritableImage paintBucket(Color c, int startX, int startY, Canvas canvas) {
-		WritableImage wi = convertToImage(canvas);
-		Color startC = wi.getPixelReader().getColor(startX, startY);
-
-		wi = floodFill(startX, startY, startC, c, wi);
+	private void paintBucket(Color c, int startX, int startY, Canvas canvas) {
+		int[] px = readPixels(canvas);
+		int width = (int) canvas.getWidth();
+		int height = (int) canvas.getHeight();
 
-		return wi;
+		if (bucket.fill(px, width, height, startX, startY, toArgb(c), FILL_TOLERANCE.getValue()) > 0) {
+			writePixels(canvas, px);
+		}
 	}
 
 	/**
-	 * Draws the fill on to the canvas.
-	 * @param x
-	 * The x coordinate of the mouse on the canvas.
-	 * @param y
-	 * The y coordinate of the mouse on the canvas.
-	 * @param startC
-	 * The starting colour of the pixel at coordinates x, y on canvas.
-	 * @param newC
-	 * The colour to fill the canvas with.
-	 * @param img
-	 * The current writable image form of the canvas.
-	 * @return img
-	 * The filled writable image of the canvas
+	 * Reads every pixel of the canvas at once.
+	 * @param c
+	 * The current canvas.
+	 * @return pixels
+	 * The ARGB pixels of the canvas, row by row. The same array is reused by the next read.
 	 */
-	private WritableImage floodFill(int x, int y, Color startC, Color newC, WritableImage img) {
-		// Get the Pixel Reader and Writer from the canvas so we can read and write to
-		// the image directly
-		PixelReader pr = img.getPixelReader();
-		PixelWriter pw = img.getPixelWriter();
-
-		// if the pixel point you chose is the same colour that you want already.
-		if (startC == newC) {
-			return img;
-		}
-		if (!pr.getColor(x, y).equals(startC)) {
-			return img;
+	private int[] readPixels(Canvas c) {
+		int width = (int) c.getWidth();
+		int height = (int) c.getHeight();
+		if (pixels.length != width * height) {
+			pixels = new int[width * height];
 		}
+		convertToImage(c).getPixelReader().getPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(),
+				pixels, 0, width);
+		return pixels;
+	}
 
-		Queue<int[]> queue = new Queue<int[]>();
-		pw.setColor(x, y, newC); // Set the colour of the current node
-		int[] node = new int[2];
-		node[0] = x;
-		node[1] = y;
-		queue.enqueue(node); // Add the node to the queue
-
-		// Until we run out of nodes
-		while (!queue.isEmpty()) {
-			// Take the node at the front of the queue
-			int[] n = queue.peek();
-			queue.dequeue();
-
-			// Check West
-			if (n[0] - 1 > 0) {
-				// Set the colour of the node and add it to the queue
-				if (pr.getColor(n[0] - 1, n[1]).equals(startC)) {
-					pw.setColor(n[0] - 1, n[1], newC);
-					int[] newNode = new int[2];
-					newNode[0] = n[0] - 1;
-					newNode[1] = n[1];
-					queue.enqueue(newNode);
-				}
-			}
-			// Check East
-			if (n[0] + 1 < img.getWidth()) {
-				// Set the colour of the node and add it to the queue
-				if (pr.getColor(n[0] + 1, n[1]).equals(startC)) {
-					pw.setColor(n[0] + 1, n[1], newC);
-					int[] newNode = new int[2];
-					newNode[0] = n[0] + 1;
-					newNode[1] = n[1];
-					queue.enqueue(newNode);
-				}
-			}
-			// Check North
-			if (n[1] - 1 > 0) {
-				// Set the colour of the node and add it to the queue
-				if (pr.getColor(n[0], n[1] - 1).equals(startC)) {
-					pw.setColor(n[0], n[1] - 1, newC);
-					int[] newNode = new int[2];
-					newNode[0] = n[0];
-					newNode[1] = n[1] - 1;
-					queue.enqueue(newNode);
-				}
-			}
-			// Check South
-			if (n[1] + 1 < img.getHeight()) {
-				// Set the colour of the node and add it to the queue
-				if (pr.getColor(n[0], n[1] + 1).equals(startC)) {
-					pw.setColor(n[0], n[1] + 1, newC);
-					int[] newNode = new int[2];
-					newNode[0] = n[0];
-					newNode[1] = n[1] + 1;
-					queue.enqueue(newNode);
-				}
-			}
-		}
-		return img;
+	/**
+	 * Writes every pixel of the canvas at once.
+	 * @param c
+	 * The current canvas.
+	 * @param px
+	 * The ARGB pixels to write, row by row.
+	 */
+	private void writePixels(Canvas c, int[] px) {
+		int width = (int) c.getWidth();
+		c.getGraphicsContext2D().getPixelWriter().setPixels(0, 0, width, (int) c.getHeight(),
+				PixelFormat.getIntArgbInstance(), px, 0, width);
+	}
+
+	/**
+	 * Converts a colour to an ARGB int.
+	 * @param c
+	 * The colour.
+	 * @return The colour as alpha, red, green and blue bytes, highest first.
+	 */
+	private static int toArgb(Color c) {
+		return (int) Math.round(c.getOpacity() * 255) << 24 | (int) Math.round(c.getRed() * 255) << 16
+				| (int) Math.round(c.getGreen() * 255) << 8 | (int) Math.round(c.getBlue() * 255);
+	}
+
+	/**
+	 * Asks the user where to save an image, starting in their images folder.
+	 * @return file
+	 * The file chosen, or null if the user cancelled.
+	 */
+	private File chooseSaveFile() {
+		FileChooser fileChooser = new FileChooser();
+		FileChooser.ExtensionFilter extFilter = new FileChooser.ExtensionFilter("PNG files (*.png)", "*.png");
+		fileChooser.getExtensionFilters().add(extFilter);
+		String currentUserName = Library.getCurrentLoggedInUser().getUserName();
+		String directoryPath = ("./data/images/" + currentUserName);
+		File initDir = new File(directoryPath);
+		fileChooser.setInitialDirectory(initDir);
+
+		return fileChooser.showSaveDialog(ScreenManager.getStage());
 	}
 
 	/**
@@ -495,51 +492,38 @@ public class DrawApp extends Screen {
 	private void saveImage(Canvas c, File file) {
 		WritableImage img = convertToImage(c);
 		WriteFile.saveImageToUser(img, file);
+		ImageCache.forget(file.getPath());
 	}
 
 	/**
-	 * Inverts the colour of all the pixels on the current canvas
+	 * Saves image of current canvas to file on disk, shrunk to the size profile images are shown at.
 	 * @param c
 	 * The current canvas.
-	 * @return tmpImg
-	 * The inverted image of the canvas.
+	 * @param file
+	 * The file to save the image of the current canvas to
 	 */
-	private WritableImage InvertImage(Canvas c) {
-		// Get the canvas and convert it to a Writable image so you can read and write
-		// directly to the pixels
-		WritableImage tmpImg = convertToImage(c);
-		PixelReader pr = tmpImg.getPixelReader();
-		PixelWriter pw = tmpImg.getPixelWriter();
-
-		// Loop over every pixel and invert its colour
-		for (int x = 0; x < c.getWidth(); x++) {
-			for (int y = 0; y < c.getHeight(); y++) {
-				pw.setColor(x, y, pr.getColor(x, y).invert());
-			}
-		}
-		return tmpImg;
+	private void saveAvatar(Canvas c, File file) {
+		int[] avatar = ImageFilters.resize(readPixels(c), (int) c.getWidth(), (int) c.getHeight(),
+				AVATAR_SIZE, AVATAR_SIZE);
+		WritableImage img = new WritableImage(AVATAR_SIZE, AVATAR_SIZE);
+		img.getPixelWriter().setPixels(0, 0, AVATAR_SIZE, AVATAR_SIZE, PixelFormat.getIntArgbInstance(),
+				avatar, 0, AVATAR_SIZE);
+		WriteFile.saveImageToUser(img, file);
+		ImageCache.forget(file.getPath());
 	}
 
 	/**
-	 * Converts the colour of all the pixels on the current canvas to grayscale.
+	 * Applies a filter to every pixel of the canvas, reading and writing the canvas once.
 	 * @param c
-	 * The current state of the canvas.
-	 * @return tmpImg
-	 * The grayscale image of the canvas.
+	 * The current canvas.
+	 * @param filter
+	 * Changes the ARGB pixels of the canvas in place.
 	 */
-	private WritableImage GrayscaleImage(Canvas c) {
-		// Get the canvas and convert it to a Writable image so you can read and write
-		// directly to the pixels
-		WritableImage tmpImg = convertToImage(c);
-		PixelReader pr = tmpImg.getPixelReader();
-		PixelWriter pw = tmpImg.getPixelWriter();
-
-		// Loop over every pixel and convert its colour to grayscale
-		for (int x = 0; x < c.getWidth(); x++) {
-			for (int y = 0; y < c.getHeight(); y++) {
-				pw.setColor(x, y, pr.getColor(x, y).grayscale());
-			}
-		}
-		return tmpImg;
+	private void applyFilter(Canvas c, Consumer<int[]> filter) {
+		int[] px = readPixels(c);
+		filter.accept(px);
+		writePixels(c, px);
+		prevState = convertToImage(c);
+		history.record(px, (int) c.getWidth(), (int) c.getHeight());
 	}
 }
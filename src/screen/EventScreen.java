@@ -1,8 +1,5 @@
 package screen;
 
-
-import java.awt.image.BufferedImage;
-import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.text.ParseException;
@@ -12,10 +9,7 @@ import java.util.Date;
 import java.util.List;
 import java.util.ResourceBundle;
 
-import javax.imageio.ImageIO;
-
 import event.Event;
-import javafx.embed.swing.SwingFXUtils;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -120,13 +114,6 @@ public class EventScreen extends Screen implements Initializable {
 	 * Initialises the scene (populates tables etc).
 	 */
 	public void initialize(URL arg0, ResourceBundle arg1) {
-		BufferedImage img = null;
-		try {
-			img = ImageIO.read(new File(Library.getCurrentLoggedInUser().getProfImage()));
-		} catch (IOException e) {
-			System.out.println("IOException"+e.getStackTrace());
-		}
-
 		User loggedInUser = Library.getCurrentLoggedInUser();
 		try {
 			updateEventTableData();
@@ -151,7 +138,7 @@ public class EventScreen extends Screen implements Initializable {
 		if (Library.currentUserIsLibrarian()) {
 			issueDeskBtn.setVisible(true);
 		}
-		userIcon.setImage(SwingFXUtils.toFXImage(img, null));
+		ImageCache.show(userIcon, loggedInUser.getProfImage());
 		usernameText.setText(loggedInUser.getUserName());
 		
 		eventTable.setOnMouseClicked((MouseEvent event) -> {
@@ -164,8 +151,6 @@ public class EventScreen extends Screen implements Initializable {
 				
 				//if there are less people than the maximum attending, you can attend.
 				if (currentEvent.getCurrentNumberOfAttending() < currentEvent.getMaxNumberOfAttending()) {
-					System.out.println(eventID);
-					
 					//add user to event...
 					loggedInUser.addNewEvent(eventID);
 					//update table
@@ -243,7 +228,6 @@ public class EventScreen extends Screen implements Initializable {
 		eventTable1.getItems().clear();
 
 		ArrayList<String> userEvents = Library.getCurrentLoggedInUser().getAllEventsAttended();
-		System.out.println("Current user is: " + Library.getCurrentLoggedInUser().getUserName());
 
 		SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy");
 
@@ -257,7 +241,6 @@ public class EventScreen extends Screen implements Initializable {
 				String id = event.getEventID();
 				String title = event.getTitle();
 				String date = event.getDate();
-				System.out.println(id + " " + title + " " + date);
 				EventAttendedTableData eatd = new EventAttendedTableData(id, title, date);
 				eventTable1.getItems().add(eatd);
 			}
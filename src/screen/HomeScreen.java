@@ -1,7 +1,5 @@
 package screen;
 
-import java.awt.image.BufferedImage;
-import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.text.ParseException;
@@ -12,9 +10,6 @@ import java.util.Date;
 import java.util.List;
 import java.util.ResourceBundle;
 
-import javax.imageio.ImageIO;
-
-import javafx.embed.swing.SwingFXUtils;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -100,13 +95,6 @@ public class HomeScreen extends Screen implements Initializable {
 	 * @param arg1 The resource used to localise the root object.
 	 */
 	public void initialize(URL arg0, ResourceBundle arg1) {
-		BufferedImage img = null;
-		try {
-			img = ImageIO.read(new File(Library.getCurrentLoggedInUser().getProfImage()));
-		} catch (IOException e) {
-
-		}
-
 		rIDCol.setCellValueFactory(new PropertyValueFactory<BorrowTableData, String>("resourceID"));
 		rTitleCol.setCellValueFactory(new PropertyValueFactory<BorrowTableData, String>("resourceTitle"));
 		borrowDateCol.setCellValueFactory(new PropertyValueFactory<BorrowTableData, String>("borrowDate"));
@@ -119,17 +107,12 @@ public class HomeScreen extends Screen implements Initializable {
 
 		User loggedInUser = Library.getCurrentLoggedInUser();
 
-		userIcon.setImage(SwingFXUtils.toFXImage(img, null));
+		ImageCache.show(userIcon, loggedInUser.getProfImage());
 		usernameText.setText(loggedInUser.getUserName());
 		fineText.setText("£" + String.format("%.2f", loggedInUser.getAccountBalanceDouble()));
 		setCurrentlyBorrowed();
 		setRecentlyAdded();
 		updateBorrowTable(loggedInUser);
-
-		System.out.println(loggedInUser.getUserName());
-		System.out.println(loggedInUser.getResourcesBorrowStats()[0].size());
-		System.out.println(loggedInUser.getResourcesBorrowStats()[1].size());
-		System.out.println(loggedInUser.getResourcesBorrowStats()[2].size());
 	}
 
 	/**
@@ -206,7 +189,7 @@ public class HomeScreen extends Screen implements Initializable {
 				borrowDate = c.getCurrentInfo().getDateBorrowed();
 				returnDate = c.getCurrentInfo().getDateRequestedReturn();
 
-				if (Library.findAllOverdue().contains(r.getUniqueID() + "-" + c.getId())) {
+				if (Library.chekcCopyOverdue(r.getUniqueID() + "-" + c.getId())) {
 					overdue = "Yes";
 				}
 			}
@@ -0,0 +1,146 @@
+package screen;
+
+import javafx.beans.InvalidationListener;
+import javafx.beans.Observable;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import utils.Log;
+import utils.Metrics;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <h1>ImageCache.</h1>
+ * <p>Keeps the most recently shown images, read from disk and scaled to the size they are shown at, so showing
+ * the same thumbnail or profile image again never reads or decodes the file. Images not yet in the cache are
+ * read on a background thread while a plain placeholder is shown, so the screen never waits for the disk.
+ * Only the MAX_IMAGES most recently used images are kept.
+ * All methods are to be called on the JavaFX thread. This class is static.</p>
+ *
+ * @author James Carter, Etienne Badoche, Deyan Naydenov
+ */
+public class ImageCache {
+    private static final int MAX_IMAGES = 300; //Most images kept at once.
+    private static final String SHOWING = "ImageCache.showing"; //ImageView property of the image it should show.
+    private static final Color PLACEHOLDER_COLOUR = Color.LIGHTGREY;
+
+    //Path and size -> image, least recently used first.
+    private static final LinkedHashMap<String, Image> images = new LinkedHashMap<String, Image>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Image> eldest) {
+            return size() > MAX_IMAGES;
+        }
+    };
+    private static Image placeholder;
+
+    /**
+     * Shows an image in an ImageView, scaled to the fit width and height of the view. If the image is not in
+     * the cache a placeholder is shown until it has been read.
+     * @param view the ImageView to show the image in.
+     * @param path the path of the image file.
+     */
+    public static void show(ImageView view, String path) {
+        Image image = get(path, view.getFitWidth(), view.getFitHeight());
+        view.getProperties().put(SHOWING, image);
+        if (isLoaded(image)) {
+            view.setImage(image.isError() ? getPlaceholder() : image);
+            return;
+        }
+
+        view.setImage(getPlaceholder());
+        InvalidationListener whenLoaded = new InvalidationListener() {
+            @Override
+            public void invalidated(Observable observable) {
+                if (!isLoaded(image)) {
+                    return;
+                }
+                image.progressProperty().removeListener(this);
+                image.errorProperty().removeListener(this);
+                //The view may have been given another image since.
+                if (view.getProperties().get(SHOWING) == image && !image.isError()) {
+                    view.setImage(image);
+                }
+            }
+        };
+        image.progressProperty().addListener(whenLoaded);
+        image.errorProperty().addListener(whenLoaded);
+    }
+
+    /**
+     * Gets an image scaled to fit a size, starting to read it in the background if it is not in the cache.
+     * @param path the path of the image file.
+     * @param width the width to fit the image in, 0 for its own width.
+     * @param height the height to fit the image in, 0 for its own height.
+     * @return the image, which may still be loading.
+     */
+    public static Image get(String path, double width, double height) {
+        String key = keyOf(path) + "@" + width + "x" + height;
+        Image image = images.get(key);
+        if (image != null) {
+            Metrics.count("imageCache.hit");
+            return image;
+        }
+
+        Metrics.count("imageCache.miss");
+        image = new Image(new File(path).toURI().toString(), width, height, true, true, true);
+        Image loading = image;
+        image.errorProperty().addListener((observable, wasError, isError) -> {
+            if (isError) {
+                Log.warn("Could not load image " + path + ": " + loading.getException());
+            }
+        });
+        images.put(key, image);
+        return image;
+    }
+
+    /**
+     * Drops every size of an image from the cache, so it is read again next time. Called when an image file
+     * is written over.
+     * @param path the path of the image file.
+     */
+    public static void forget(String path) {
+        String prefix = keyOf(path) + "@";
+        Iterator<String> keys = images.keySet().iterator();
+        while (keys.hasNext()) {
+            if (keys.next().startsWith(prefix)) {
+                keys.remove();
+            }
+        }
+    }
+
+    /**
+     * Checks if an image has finished loading, whether or not it could be read.
+     * @param image the image.
+     * @return True if the image is loaded or failed to load.
+     */
+    private static boolean isLoaded(Image image) {
+        return image.isError() || image.getProgress() >= 1;
+    }
+
+    /**
+     * Gets the image shown while an image loads, or in place of one that cannot be read.
+     * @return a single grey pixel, which the ImageView stretches to its size.
+     */
+    private static Image getPlaceholder() {
+        if (placeholder == null) {
+            WritableImage pixel = new WritableImage(1, 1);
+            pixel.getPixelWriter().setColor(0, 0, PLACEHOLDER_COLOUR);
+            placeholder = pixel;
+        }
+        return placeholder;
+    }
+
+    /**
+     * Makes the same key for every way of writing the path of a file.
+     * @param path the path of the image file.
+     * @return the absolute path of the file.
+     */
+    private static String keyOf(String path) {
+        return new File(path).toPath().toAbsolutePath().normalize().toString();
+    }
+}
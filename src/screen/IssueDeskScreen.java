@@ -30,6 +30,7 @@ import library.Library;
 import library.LibraryEvents;
 import resources.CopyData;
 import resources.Resource;
+import utils.Log;
 
 /**
  * <h1>IssueDeskScreen.</h1>
@@ -297,17 +298,11 @@ public class IssueDeskScreen extends Screen implements Initializable {
      * @param arg1 The resources used to localize the root object, or null if the root object was not localized.
      */
     public void initialize(URL arg0, ResourceBundle arg1) {
-        BufferedImage img = null;
-        try {
-            img = ImageIO.read(new File(Library.getCurrentLoggedInUser().getProfImage()));
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
         if (Library.currentUserIsLibrarian()) {
             issueDeskBtn.setVisible(true);
         }
 
-        userIcon.setImage(SwingFXUtils.toFXImage(img, null));
+        ImageCache.show(userIcon, Library.getCurrentLoggedInUser().getProfImage());
         usernameText.setText(Library.getCurrentLoggedInUser().getUserName());
 
         //Add overdue copies to respective resource lists
@@ -404,6 +399,7 @@ public class IssueDeskScreen extends Screen implements Initializable {
         loanUserError.setVisible(false);
         loanCopyError.setVisible(false);
         loanSuccess.setVisible(false);
+        unavailableCopyMsg.setVisible(false);
         outstandingFineMsg.setVisible(false);
         overdueCopyMsg.setVisible(false);
         toManyResourcesError.setVisible(false);
@@ -423,12 +419,22 @@ public class IssueDeskScreen extends Screen implements Initializable {
                             CopyData copy = r.getArrayListOfCopies().get(Integer.parseInt(id.split("-")[1]));
                             if (Library.getUser(user).canBorrow(id)){
                                 if (copy.isAvailable()) {
-                                    Library.loanResource(user, id);
-                                    loanSuccess.setVisible(true);
-                                } else if (copy.isReserved()) {
-                                    if (copy.getReservedUser().equals(user)) {
+                                    try {
                                         Library.loanResource(user, id);
                                         loanSuccess.setVisible(true);
+                                    } catch (IllegalStateException e) {
+                                        //Another desk loaned or reserved the copy first.
+                                        unavailableCopyMsg.setVisible(true);
+                                    }
+                                } else if (copy.isReserved()) {
+                                    if (copy.getReservedUser().equals(user)) {
+                                        try {
+                                            Library.loanResource(user, id);
+                                            loanSuccess.setVisible(true);
+                                        } catch (IllegalStateException e) {
+                                            //Another desk loaned the copy first.
+                                            loanUserError.setVisible(true);
+                                        }
                                     } else {
                                     loanUserError.setVisible(true);
                                 }
@@ -566,7 +572,7 @@ public class IssueDeskScreen extends Screen implements Initializable {
             userAvatarName.setText(selectedFile.getName());
             setImage(userAvatar, selectedFile);
         } catch (NullPointerException ex) {
-            System.out.println("No book image file selected");
+            Log.debug("No avatar image file selected");
         }
     }
     
@@ -975,7 +981,7 @@ public class IssueDeskScreen extends Screen implements Initializable {
             bookImgName.setText(selectedFile.getName());
             setImage(bookImg, selectedFile);
         } catch (NullPointerException ex) {
-            System.out.println("No book image file selected");
+            Log.debug("No book image file selected");
         }
     }
 
@@ -989,7 +995,7 @@ public class IssueDeskScreen extends Screen implements Initializable {
              dvdImgName.setText(selectedFile.getName());
              setImage(dvdImg, selectedFile);
          } catch (NullPointerException ex) {
-             System.out.println("No dvd image file selected");
+             Log.debug("No dvd image file selected");
          }
     }
     
@@ -1003,7 +1009,7 @@ public class IssueDeskScreen extends Screen implements Initializable {
              videoGameImgName.setText(selectedFile.getName());
              setImage(videoGameImg, selectedFile);
          } catch (NullPointerException ex) {
-             System.out.println("No video game image file selected");
+             Log.debug("No video game image file selected");
          }
     }
 
@@ -1017,7 +1023,7 @@ public class IssueDeskScreen extends Screen implements Initializable {
             laptopImgName.setText(selectedFile.getName());
             setImage(laptopImg, selectedFile);
         } catch (NullPointerException ex) {
-            System.out.println("No laptop image file selected");
+            Log.debug("No laptop image file selected");
         }
     }
 
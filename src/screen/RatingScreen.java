@@ -1,17 +1,11 @@
 package screen;
 
-import java.awt.image.BufferedImage;
-import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.ResourceBundle;
 
-import javax.imageio.ImageIO;
-
-import io.ReadFile;
 import io.WriteFile;
-import javafx.embed.swing.SwingFXUtils;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
@@ -27,6 +21,7 @@ import javafx.scene.layout.Pane;
 import javafx.scene.layout.VBox;
 import javafx.scene.text.Text;
 import library.Library;
+import library.LibraryRatings;
 import resources.Resource;
 
 /**
@@ -39,7 +34,6 @@ import resources.Resource;
 public class RatingScreen extends Screen implements Initializable {
 	private static String rTitle;
 	private static String rId;
-	private static ArrayList<String[]> rRatings = new ArrayList<>();
 	@FXML
 	private Label resourceTitle;
 	@FXML
@@ -77,8 +71,6 @@ public class RatingScreen extends Screen implements Initializable {
 	 */
 	@Override
 	public void initialize(URL arg0, ResourceBundle arg1) {
-		//Read in the ratings
-		rRatings = ReadFile.readRatings();
 		leaveRating.setDisable(true);
 		
 		//If user has borrowed the resource let them leave a rating.
@@ -90,33 +82,21 @@ public class RatingScreen extends Screen implements Initializable {
 			}
 		}
 		
-		for(String[] temp : rRatings) {
-			String resourceID = temp[0];
-			if(resourceID.contains(rId)) {
-				if(temp[3].equals(Library.getCurrentLoggedInUser().getUserName())) {
-					leaveRating.setDisable(true);
-				}
-			}
+		if(LibraryRatings.hasRated(rId, Library.getCurrentLoggedInUser().getUserName())) {
+			leaveRating.setDisable(true);
 		}
 		
 		if(leaveRating.isDisabled()) {
 			messageBox.setText("Need to borrow resource to leave review / Already left a review.");
 		}
 		
-		BufferedImage img = null;
-		try {
-			img = ImageIO.read(new File(Library.getCurrentLoggedInUser().getProfImage()));
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
-		
 		if (Library.currentUserIsLibrarian()) {
 			
 		} else {
 			
 		}
 
-		userIcon.setImage(SwingFXUtils.toFXImage(img, null));
+		ImageCache.show(userIcon, Library.getCurrentLoggedInUser().getProfImage());
 		usernameText.setText(Library.getCurrentLoggedInUser().getUserName());
 		searchBar.setText(Library.getSearchScreenText());
 		resourceTitle.setText(rTitle);
@@ -135,10 +115,8 @@ public class RatingScreen extends Screen implements Initializable {
 		
 		calculateAverageRating();
 		
-		for(String[] rating : rRatings) {
-			if(rating[0].equals(rId)) {
-				ratingsVBox.getChildren().add(createResourceContainer(rating));
-			}
+		for(String[] rating : LibraryRatings.getRatings(rId)) {
+			ratingsVBox.getChildren().add(createResourceContainer(rating));
 		}
 	}
 
@@ -193,31 +171,13 @@ public class RatingScreen extends Screen implements Initializable {
 	}
 
 	/**
-	 * Calculates average rating
+	 * Shows the average rating of the resource, to one decimal place.
 	 */
 	private void calculateAverageRating() {
-		int counter = 0;
-		int ratings = 0;
-		try {
-			for(String[] temp : rRatings) {
-				if(temp[0].equals(rId)) {
-					counter++;
-					ratings += Integer.parseInt(temp[2]);
-				}
-			}
-			
-			if(counter == 0) { //incase no ratings.
-				ratings = 0;
-				averageRating.setText("N/A");
-			} else {
-				ratings = ratings / counter;
-				averageRating.setText(Integer.toString(ratings));
-			}
-			
-			
-		} catch (NullPointerException e) {
-			e.getCause();
-			System.out.println("no ratings loaded");
+		if(LibraryRatings.getNoOfRatings(rId) == 0) { //incase no ratings.
+			averageRating.setText("N/A");
+		} else {
+			averageRating.setText(String.format("%.1f", LibraryRatings.getAverageRating(rId)));
 		}
 	}
 
@@ -47,6 +47,12 @@ public abstract class Screen {
 	
     public abstract void start();
 
+    /**
+     * Frees anything the Screen holds once it is taken off the stack for good. Does nothing unless overridden.
+     */
+    public void stop() {
+    }
+
     /**
      * Changes the screen from the current to the specified one.
      * @param screen
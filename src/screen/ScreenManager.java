@@ -5,6 +5,8 @@ import javafx.scene.Scene;
 import javafx.scene.layout.StackPane;
 import javafx.stage.Stage;
 import library.Library;
+import utils.Log;
+import utils.Metrics;
 
 import java.util.Calendar;
 import java.util.Date;
@@ -69,10 +71,10 @@ public class ScreenManager {
      */
     public static void previousScreen() {
         if (loadedScreens.size() > 1) {
-            loadedScreens.pop();
+            loadedScreens.pop().stop();
             setupScreen();
         } else {
-            System.out.println("You are already on the last screen, you cannot go back any further");
+            Log.debug("You are already on the last screen, you cannot go back any further");
         }
     }
 
@@ -90,6 +92,9 @@ public class ScreenManager {
      * Sets the Screen and its core components.
      */
     private static void setupScreen() {
+        long start = System.nanoTime();
+        String name = getCurrentScreen().getClass().getSimpleName();
+        Metrics.count("screen.transitions");
         getCurrentScreen().start();
 
         if (getCurrentScreen().getComponents() != null) {
@@ -100,6 +105,7 @@ public class ScreenManager {
 
         stage.setScene(scene);
         stage.show();
+        Metrics.time("screen." + name, start);
     }
 
     /**
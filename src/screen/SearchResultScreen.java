@@ -1,7 +1,7 @@
 package screen;
 
+import javafx.application.Platform;
 import javafx.collections.ObservableMap;
-import javafx.embed.swing.SwingFXUtils;
 import javafx.event.Event;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -10,20 +10,14 @@ import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.image.ImageView;
-import javafx.scene.image.WritableImage;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Pane;
 import javafx.scene.layout.VBox;
 import javafx.scene.text.Text;
 import library.Library;
+import library.LibraryRatings;
 import resources.*;
 
-import javax.imageio.ImageIO;
-
-import io.ReadFile;
-
-import java.awt.image.BufferedImage;
-import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.util.ArrayList;
@@ -40,13 +34,14 @@ import java.util.ResourceBundle;
  * @version 1.0
  */
 public class SearchResultScreen extends Screen implements Initializable {
+    private static final int PAGE_SIZE = 50; // Results added to the list each time the end is scrolled to.
 	@FXML
 	private VBox ratingViewBox;
-	private static ArrayList<String[]> rRatings = new ArrayList<>();
     @FXML
     private ComboBox<String> resourceTypeCB;
     @FXML
-    private VBox resourcesVBox;
+    private ListView<Resource> resourcesList;
+    private List<? extends Resource> searchResults = new ArrayList<>(); // Every result, shown a page at a time.
     @FXML
     private ImageView resourceThumbnailImage;
     @FXML
@@ -130,13 +125,6 @@ public class SearchResultScreen extends Screen implements Initializable {
      * The resource used to localise the root object.
      */
     public void initialize(URL arg0, ResourceBundle arg1) {
-        BufferedImage img = null;
-        try {
-            img = ImageIO.read(new File(Library.getCurrentLoggedInUser().getProfImage()));
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-
         if (Library.currentUserIsLibrarian()) {
             copyHistoryList.setVisible(true);
         } else {
@@ -146,8 +134,14 @@ public class SearchResultScreen extends Screen implements Initializable {
         resourceTypeCB.getItems().setAll("Book", "DVD", "Laptop","Video Game");
         resourceTypeCB.setValue("Book");
 
-        userIcon.setImage(SwingFXUtils.toFXImage(img, null));
+        ImageCache.show(userIcon, Library.getCurrentLoggedInUser().getProfImage());
         usernameText.setText(Library.getCurrentLoggedInUser().getUserName());
+        resourcesList.setCellFactory(list -> new ResourceCell());
+        resourcesList.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, newValue) -> {
+            if (newValue != null) {
+                updateResourceDetails(newValue);
+            }
+        });
         updateSearchResults();
 
         searchBar.textProperty().addListener((observable, oldValue, newValue) -> {
@@ -162,9 +156,6 @@ public class SearchResultScreen extends Screen implements Initializable {
         if (Library.currentUserIsLibrarian()) {
             issueDeskBtn.setVisible(true);
         }
-        
-        rRatings = ReadFile.readRatings();
-
     }
 
     /**
@@ -186,7 +177,12 @@ public class SearchResultScreen extends Screen implements Initializable {
      * Sets the current user to request a copy of the resource highlighted.
      */
     public void requestResource() {
-        Library.requestResource(uIDTf.getText());
+        try {
+            Library.requestResource(uIDTf.getText());
+        } catch (IllegalStateException e) {
+            new Alert(Alert.AlertType.INFORMATION, "Too many users are already waiting for "
+                    + titleTf.getText() + ", please try again later.").showAndWait();
+        }
     }
 
     @FXML
@@ -196,7 +192,6 @@ public class SearchResultScreen extends Screen implements Initializable {
     public void viewRatings() {
     	RatingScreen.setResource(uIDTf.getText(), titleTf.getText());
         ScreenManager.changeScreen(new RatingScreen());
-        System.out.println(uIDTf.getText());
     }
 
     /**
@@ -223,50 +218,52 @@ public class SearchResultScreen extends Screen implements Initializable {
      * Updates the search results when queried.
      */
     private void updateSearchResults() {
-        // Empty the current search results & ratings
-        resourcesVBox.getChildren().clear();
-
         // Check the search bar
         String searchString = searchBar.getText();
         String resourceType = resourceTypeCB.getValue();
-        List resources = null;
+        Class<? extends Resource> type = Resource.class;
 
         switch (resourceType) {
             case "Book":
-                resources = Library.getAllBooks();
+                type = Book.class;
                 trailerButton.setVisible(false);
                 break;
             case "DVD":
-                resources = Library.getAllDVD();
+                type = DVD.class;
                 trailerButton.setVisible(true);
                 break;
             case "Laptop":
-                resources = Library.getAllLaptops();
+                type = Laptop.class;
                 trailerButton.setVisible(false);
                 break;
             case "Video Game":
-            	resources = Library.getAllVideoGames();
+            	type = VideoGame.class;
             	trailerButton.setVisible(true);
             default:
                 break;
         }
 
-        for (Object r : resources) {
-            Resource rs = (Resource) r;
-            if (rs.toSingleString().toLowerCase().contains(searchString.toLowerCase())) {
-                resourcesVBox.getChildren().add(createResourceContainer(rs));
-            }
-        }
+        // Results come ranked from the search index, best match first. Only the first page is put in the list,
+        // the list adds the next page when it is scrolled to the end
+        searchResults = Library.searchResources(searchString, type);
+        resourcesList.getItems().setAll(searchResults.subList(0, Math.min(PAGE_SIZE, searchResults.size())));
+        resourcesList.scrollTo(0);
 
-        // Fetch JavaFX Vbox container to get Resource id of first resource in the list
-        HBox firstResource = (HBox) resourcesVBox.getChildren().get(0);
-        VBox resourceDetails = (VBox) firstResource.getChildren().get(1);
-        Text textId = (Text) resourceDetails.getChildren().get(1);
-        String id = textId.getText();
-        id = id.replace("Unique ID: ", "");
         // Set resource details to first resource in the list
-        Resource r = Library.getResource(id);
-        updateResourceDetails(r);
+        if (!searchResults.isEmpty()) {
+            updateResourceDetails(searchResults.get(0));
+        }
+    }
+
+    /**
+     * Adds the next page of search results to the list, if there are any left.
+     */
+    private void addNextPage() {
+        int shown = resourcesList.getItems().size();
+        if (shown < searchResults.size()) {
+            resourcesList.getItems().addAll(searchResults.subList(shown,
+                    Math.min(shown + PAGE_SIZE, searchResults.size())));
+        }
     }
 
     @FXML
@@ -325,28 +322,54 @@ public class SearchResultScreen extends Screen implements Initializable {
     }
 
     /**
-     * Creates the JavaFX container for a resource.
-     *
-     * @param r The resource to be contained.
-     * @return container
-     * The container for the resource on screen.
+     * <h1>ResourceCell.</h1>
+     * <p>One row of the search results. The list only makes enough cells to fill what can be seen, and gives
+     * them new resources as it is scrolled, so the number of results never changes how many rows exist.</p>
      */
-    private HBox createResourceContainer(Resource r) {
-        ImageView imgV = createImageViewForResource(r);
-
-        Text title = new Text("Title:" + r.getTitle());
-        Text uniqueID = new Text("Unique ID: " + r.getUniqueID());
-        Text year = new Text("Year: " + r.getYear());
-        VBox details = new VBox(title, uniqueID, year);
+    private class ResourceCell extends ListCell<Resource> {
+        private final ImageView imgV = createImageView();
+        private final Text title = new Text();
+        private final Text uniqueID = new Text();
+        private final Text year = new Text();
+        private final HBox container = new HBox(imgV, new VBox(title, uniqueID, year));
+
+        /**
+         * Creates an empty row, which shows the details of its resource when the mouse is over it.
+         */
+        private ResourceCell() {
+            setOnMouseEntered(mouse -> {
+                if (!isEmpty()) {
+                    updateResourceDetails(getItem());
+                }
+            });
+        }
 
-        HBox container = new HBox(imgV, details);
-        container.setOnMouseEntered(mouse -> {
-            updateResourceDetails(r);
-        });
+        @Override
+        /**
+         * Shows a resource in this row.
+         * @param r The resource to show.
+         * @param empty True if this row has no resource.
+         */
+        protected void updateItem(Resource r, boolean empty) {
+            super.updateItem(r, empty);
+            if (empty || r == null) {
+                setGraphic(null);
+                return;
+            }
 
-        title.setWrappingWidth(container.getWidth() - imgV.getFitWidth());
-        uniqueID.setWrappingWidth(container.getWidth() - imgV.getFitWidth());
-        return container;
+            title.setText("Title:" + r.getTitle());
+            uniqueID.setText("Unique ID: " + r.getUniqueID());
+            year.setText("Year: " + r.getYear());
+            title.setWrappingWidth(getListView().getPrefWidth() - imgV.getFitWidth());
+            uniqueID.setWrappingWidth(getListView().getPrefWidth() - imgV.getFitWidth());
+            ImageCache.show(imgV, r.getThumbnailImageRef());
+            setGraphic(container);
+
+            if (getIndex() == getListView().getItems().size() - 1) {
+                // Changing the items while the list lays out its cells is not allowed, so wait until it is done
+                Platform.runLater(SearchResultScreen.this::addNextPage);
+            }
+        }
     }
 
     /**
@@ -356,7 +379,7 @@ public class SearchResultScreen extends Screen implements Initializable {
      */
     private void updateResourceDetails(Resource r) {
         selectedResource = r;
-        resourceThumbnailImage.setImage(getResourceImage(r));
+        ImageCache.show(resourceThumbnailImage, r.getThumbnailImageRef());
         titleTf.setText(r.getTitle());
         uIDTf.setText(r.getUniqueID());
         yearTf.setText(r.getYear());
@@ -487,46 +510,25 @@ public class SearchResultScreen extends Screen implements Initializable {
         }
         //Update ratings when new resource selected.
         ratingViewBox.getChildren().clear();
-        for(String[] rating : rRatings) {
-			if(rating[0].equals(uIDTf.getText())) {
-				ratingViewBox.getChildren().add(createRatingContainer(rating));
-			}
-		}
+        for(String[] rating : LibraryRatings.getRatings(uIDTf.getText())) {
+            ratingViewBox.getChildren().add(createRatingContainer(rating));
+        }
     }
 
     /**
-     * Creates a JavaFX Image view for the resource based off of its referenced filepath.
+     * Creates a JavaFX Image view sized for a resource's thumbnail in the search results.
      *
-     * @param r The resource to create an image view of.
      * @return imgV
-     * The created image view of the avatar of a resource.
+     * The created image view.
      */
-    private ImageView createImageViewForResource(Resource r) {
-        System.out.println(r.getThumbnailImageRef());
+    private static ImageView createImageView() {
         ImageView imgV = new ImageView();
         imgV.setFitWidth(101);
         imgV.setFitHeight(150);
 
-        imgV.setImage(getResourceImage(r));
-
         return imgV;
     }
 
-    /**
-     * Creates a Writable Image of the avatar read in from filepath on disk.
-     *
-     * @param r The resource to create an image of.
-     * @return The writable image of the resources avatar.
-     */
-    private WritableImage getResourceImage(Resource r) {
-        try {
-            return SwingFXUtils.toFXImage(ImageIO.read(new File(r.getThumbnailImageRef())), null);
-        } catch (IOException e) {
-            System.out.println("Could not load Image for Resource: " + r.getUniqueID());
-        }
-        return null;
-    }
-
     /**
      * Event handler to watch a DVD/Video Game trailer.
      */
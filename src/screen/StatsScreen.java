@@ -1,6 +1,5 @@
 package screen;
 
-import javafx.embed.swing.SwingFXUtils;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
@@ -11,20 +10,14 @@ import javafx.scene.control.ListView;
 import javafx.scene.control.Tab;
 import javafx.scene.layout.Pane;
 import library.Library;
-import library.LibraryResources;
+import library.PopularityBoard;
 import resources.Resource;
 import user.User;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
-import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.util.*;
 
-import static java.util.stream.Collectors.*;
-import static java.util.Map.Entry.*;
-
 /**
  * <h1>StatsScreen</h1>
  * <p>This is the controller class for the Stats Screen fxml</p>
@@ -44,6 +37,8 @@ public class StatsScreen extends Screen implements Initializable {
     public ComboBox<String> timeCB;
     public ListView popularLV;
 
+    private static final int POPULAR_SHOWN = 10; // Number of resources listed as popular
+
     /**
      * Initialises the scene.
      * @param location
@@ -54,13 +49,6 @@ public class StatsScreen extends Screen implements Initializable {
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         // Generic Screen Loading
-        BufferedImage img = null;
-        try {
-            img = ImageIO.read(new File(Library.getCurrentLoggedInUser().getProfImage())); // Load the Profile image
-        } catch (IOException e) {
-
-        }
-
         // If the user is a librarian, show the issue desk button
         if (Library.currentUserIsLibrarian()) {
             issueDeskBtn.setVisible(true);
@@ -68,8 +56,7 @@ public class StatsScreen extends Screen implements Initializable {
 
         // Setup the logged in user
         User loggedInUser = Library.getCurrentLoggedInUser();
-        assert img != null;
-        userIcon.setImage(SwingFXUtils.toFXImage(img, null));
+        ImageCache.show(userIcon, loggedInUser.getProfImage());
         usernameText.setText(loggedInUser.getUserName());
 
         // Popular Resources
@@ -80,9 +67,9 @@ public class StatsScreen extends Screen implements Initializable {
         XYChart.Series<String, Number> series = new XYChart.Series<>();
 
         User currentUser = Library.getCurrentLoggedInUser();
-        XYChart.Data dayData = new XYChart.Data<String, Number>("Past Day", currentUser.getResourcesBorrowStats()[0].size());
-        XYChart.Data weekData = new XYChart.Data<String, Number>("Past Week", currentUser.getResourcesBorrowStats()[1].size());
-        XYChart.Data monthData = new XYChart.Data<String, Number>("Past Month", currentUser.getResourcesBorrowStats()[2].size());
+        XYChart.Data dayData = new XYChart.Data<String, Number>("Past Day", currentUser.getBorrowsWithin(1));
+        XYChart.Data weekData = new XYChart.Data<String, Number>("Past Week", currentUser.getBorrowsWithin(7));
+        XYChart.Data monthData = new XYChart.Data<String, Number>("Past Month", currentUser.getBorrowsWithin(30));
 
         List<Resource> resourcesList = new ArrayList<>();
         resourcesList.addAll(Library.getAllBooks());
@@ -160,56 +147,27 @@ public class StatsScreen extends Screen implements Initializable {
      * @param actionEvent Event from the action
      */
     public void updatePopularResources(ActionEvent actionEvent) {
-
-        List<String> mostPopularResource;
-        HashMap<String, Integer> resourcesTimesBorrowed = new HashMap<>();
-        Map<String, Integer> sortedMap;
+        int numDays = PopularityBoard.ALL_TIME;
         popularLV.getItems().clear();
 
         switch (timeCB.getValue()){
             case ("Day"):
-                resourcesTimesBorrowed = new HashMap<>();
-                for (Resource r : LibraryResources.getAllResources()){
-                    resourcesTimesBorrowed.put(r.getUniqueID(), r.getResourceStatData().getTimeBorrowedWithin(1));
-                }
-
+                numDays = 1;
                 break;
             case ("Week"):
-                resourcesTimesBorrowed = new HashMap<>();
-                for (Resource r : LibraryResources.getAllResources()){
-                    resourcesTimesBorrowed.put(r.getUniqueID(), r.getResourceStatData().getTimeBorrowedWithin(7));
-                }
+                numDays = 7;
                 break;
             case ("Month"):
-                resourcesTimesBorrowed = new HashMap<>();
-                for (Resource r : LibraryResources.getAllResources()) {
-                    resourcesTimesBorrowed.put(r.getUniqueID(), r.getResourceStatData().getTimeBorrowedWithin(30));
-                }
+                numDays = 30;
                 break;
             case ("All Time"):
-                resourcesTimesBorrowed = new HashMap<>();
-                for (Resource r : LibraryResources.getAllResources()){
-                    resourcesTimesBorrowed.put(r.getUniqueID(), r.getResourceStatData().getTotalTimesBorrowed());
-                }
-
+                numDays = PopularityBoard.ALL_TIME;
                 break;
         }
 
-        mostPopularResource = new ArrayList<>();
-        sortedMap = resourcesTimesBorrowed.entrySet().stream().sorted(Collections.reverseOrder(Map.Entry.comparingByValue())).collect(toMap(e -> e.getKey(), e -> e.getValue(), (e1, e2) -> e2,
-                LinkedHashMap::new));
-
-        for (String id : sortedMap.keySet()){
-            mostPopularResource.add(id);
+        for (String id : PopularityBoard.getMostBorrowed(POPULAR_SHOWN, numDays)){
+            popularLV.getItems().add(Library.getResource(id).getTitle() + " Times Borrowed: "
+                    + PopularityBoard.getTimesBorrowed(id, numDays));
         }
-
-        System.out.println(mostPopularResource);
-
-        for (int i = 0; i < (mostPopularResource.size() < 10 ? mostPopularResource.size() : 10); i++){
-            if (sortedMap.get(mostPopularResource.get(i)) <= 0) continue;
-            System.out.println("Name: " + (Library.getResource(mostPopularResource.get(i)).getTitle()) + " Times Borrowed: " + (sortedMap.get(mostPopularResource.get(i))));
-            popularLV.getItems().add((Library.getResource(mostPopularResource.get(i)).getTitle()) + " Times Borrowed: " + (sortedMap.get(mostPopularResource.get(i))));
-        }
-
     }
 }
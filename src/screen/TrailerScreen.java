@@ -1,21 +1,20 @@
 package screen;
 
+import javafx.application.Platform;
 import javafx.event.EventHandler;
 import javafx.scene.Scene;
+import javafx.scene.control.Alert;
 import javafx.scene.web.WebView;
 import javafx.stage.Stage;
 import javafx.stage.WindowEvent;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
+import library.TrailerResolver;
 import resources.Resource;
-
-import java.io.IOException;
+import utils.Log;
 
 /**
  * <h1>TrailerScreen</h1>
  * <p>This class uses a DVD/Video Game title and year to return an embedded Youtube video of the corresponding
- * DVD/Video Game trailer.</p>
+ * DVD/Video Game trailer. The video is found by the TrailerResolver, so the screen does not wait for it.</p>
  *
  * @author Etienne Badoche
  * @version 1.0
@@ -53,44 +52,28 @@ public class TrailerScreen extends Screen {
     }
 
     /**
-     * Use the resource title and year to generate a Youtube query URL.
+     * Finds the trailer of a resource in the background, and opens it once found. The user is told if there
+     * is no trailer, or if it cannot be searched for.
      * @param resource The DVD or Video Game resource.
      */
     public void getTrailer(Resource resource) {
-        //Set initial query URL
-        String queryUrl = "https://www.youtube.com/results?search_query=";
-        //Add title and year to query URL
-        String title = resource.getTitle();
-        String year = resource.getYear();
-        String query = title + year;
-        //Replace spaces with '+'
-        query.replace(" ", "+");
-        queryUrl += query + "+trailer";
-
-        //Set first result video url
-        getHTML(queryUrl);
-        //Open video once url is set
-        start();
-    }
-
-    /**
-     * Use Jsoup library to search through Youtube results page HTML and retrieve the first video link
-     * @param queryUrl the Youtube query URL.
-     */
-    private void getHTML(String queryUrl) {
-        try {
-            //Search through HTML to get first video link
-            Document doc = Jsoup.connect(queryUrl).get();
-            Element videoSection = doc.getElementsByClass("yt-lockup-thumbnail").first();
-            Element anchor = videoSection.getElementsByTag("a").first();
-            String link = anchor.attr("href");
-
+        TrailerResolver.resolve(resource.getTitle(), resource.getYear()).whenCompleteAsync((videoID, e) -> {
+            if (e != null) {
+                Log.error("Cannot find the trailer of " + resource.getUniqueID() + ": " + e);
+                new Alert(Alert.AlertType.INFORMATION, "The trailer of " + resource.getTitle()
+                        + " cannot be found right now, please try again later.").showAndWait();
+                return;
+            }
+            if (videoID == null) {
+                Log.warn("No trailer to show for " + resource.getUniqueID());
+                new Alert(Alert.AlertType.INFORMATION, "There is no trailer for " + resource.getTitle() + ".")
+                        .showAndWait();
+                return;
+            }
             //Add video link to Youtube embed URL
-            link = link.replace("/watch?v=", "");
-            url += link;
-        } catch (IOException e) {
-            //connect(url).get() throws IOException
-            System.out.println("Invalid search query url");
-        }
+            url += videoID;
+            //Open video once url is set
+            start();
+        }, Platform::runLater);
     }
 }
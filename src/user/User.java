@@ -3,11 +3,11 @@ package user;
 import library.Library;
 import library.LibraryEvents;
 import resources.Resource;
+import utils.EpochDates;
+import utils.Log;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Calendar;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 
@@ -36,7 +36,8 @@ public class User {
     protected double accountBalance; //current account balance
     protected String profImage; //profile image address
     protected Date lastLogin; //Date last log in.
-    protected ArrayList<String>[] resourcesBorrowStats = new ArrayList[3]; // [0] - Day, [1] - Week, [2] - Month. Value = Resource ID, NOT COPY ID
+    protected long[] borrowTimes; // Times of every borrow in borrowHistory, oldest first. Null until first needed.
+    protected int noOfBorrowTimes; // Number of times used in borrowTimes.
     protected int[] resourceTypeStats = new int[4]; // [0] - Book, [1] - DVD, [2] - Laptop, [3] - Video Game
     protected ArrayList<Integer> fineHistory = new ArrayList<>(); // History on Fines this user has had
     protected ArrayList<String> eventsAttended = new ArrayList<>(); // A list of events the user has attended.
@@ -69,10 +70,6 @@ public class User {
         setAccountBalance(accountBalance);
         setProfImage(profImage);
         this.email = email;
-
-        resourcesBorrowStats[0] = new ArrayList<>();
-        resourcesBorrowStats[1] = new ArrayList<>();
-        resourcesBorrowStats[2] = new ArrayList<>();
     }
 
 	/**
@@ -354,6 +351,7 @@ public class User {
         data[0] = resourceID;
         data[2] = "Currently Out ";
         borrowHistory.add(data);
+        addBorrowTime(EpochDates.now());
     }
 
     /**
@@ -438,6 +436,15 @@ public class User {
         this.resourceCurrentlyRequested.add(ID);
     }
 
+    /**
+     * Removes a resource the user no longer wants from their requests.
+     *
+     * @param ID ID of the resource.
+     */
+    public void cancelRequest(String ID) {
+        this.resourceCurrentlyRequested.remove(ID);
+    }
+
     /**
      * Get's all of users requested resources.
      *
@@ -464,17 +471,77 @@ public class User {
      * @return The current date
      */
     private String getCurrentDate() {
-        SimpleDateFormat dataFormat = new SimpleDateFormat("dd-MM-yyyy HH:mm:ss");
-        return dataFormat.format(new Date());
+        return EpochDates.format(EpochDates.now());
+    }
+
+    /**
+     * Gets how many resources this user has borrowed within the given days.
+     * Worked out when asked, so it is always up to date.
+     *
+     * @param numDays How many days to check for, e.g. 1, 7 or 30
+     * @return The number of borrows within the last numDays days
+     */
+    public synchronized int getBorrowsWithin(int numDays) {
+        if (borrowTimes == null) {
+            readBorrowTimes();
+        }
+        long now = EpochDates.now();
+        long from = EpochDates.plusDays(now, -numDays);
+        return firstBorrowAfter(now - 1) - firstBorrowAfter(from);
+    }
+
+    /**
+     * Adds the time of a new borrow, if the borrow times have been read.
+     *
+     * @param time Time of the borrow in milliseconds since the epoch
+     */
+    private synchronized void addBorrowTime(long time) {
+        if (borrowTimes == null) {
+            return;
+        }
+        if (noOfBorrowTimes == borrowTimes.length) {
+            borrowTimes = Arrays.copyOf(borrowTimes, Math.max(8, noOfBorrowTimes * 2));
+        }
+        //Borrows are added as they happen, so the new time is almost always the latest.
+        int i = noOfBorrowTimes;
+        while (i > 0 && borrowTimes[i - 1] > time) {
+            borrowTimes[i] = borrowTimes[i - 1];
+            i--;
+        }
+        borrowTimes[i] = time;
+        noOfBorrowTimes++;
+    }
+
+    /**
+     * Reads the times of every borrow in the borrow history, oldest first.
+     */
+    private void readBorrowTimes() {
+        borrowTimes = new long[Math.max(8, borrowHistory.size())];
+        noOfBorrowTimes = 0;
+        for (String[] data : borrowHistory) {
+            borrowTimes[noOfBorrowTimes++] = EpochDates.parse(data[1]);
+        }
+        Arrays.sort(borrowTimes, 0, noOfBorrowTimes);
     }
 
     /**
-     * Gets the borrow stats object for the user
+     * Finds the first borrow after a time.
      *
-     * @return The Resource Borrow Stats Object
+     * @param time Time in milliseconds since the epoch
+     * @return Index of the first borrow time greater than time, noOfBorrowTimes if there is none
      */
-    public ArrayList<String>[] getResourcesBorrowStats() {
-        return resourcesBorrowStats;
+    private int firstBorrowAfter(long time) {
+        int low = 0;
+        int high = noOfBorrowTimes;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (borrowTimes[mid] > time) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
     }
 
     /**
@@ -529,8 +596,9 @@ public class User {
      *
      * @param data Information about the user's borrow history
      */
-    public void addToBorrowHistory(String[] data) {
+    public synchronized void addToBorrowHistory(String[] data) {
         borrowHistory.add(data);
+        borrowTimes = null; // Read again with this borrow when next needed.
 
         switch (data[0].split(":")[0]) {
             case "BookID":
@@ -546,75 +614,30 @@ public class User {
                 resourceTypeStats[3]++;
                 break;
             default:
-                System.err.println("Resource Type Not Valid in Borrow History");
+                Log.warn("Resource type of " + data[0] + " not valid in borrow history of " + userName);
                 break;
         }
-
-        Date borrowDate = new Date();
-        SimpleDateFormat dateFormatDMY = new SimpleDateFormat("dd-MM-yyyy");
-        SimpleDateFormat dateFormat = new SimpleDateFormat("dd-MM-yyyy HH:mm:ss");
-
-        if (Library.getResource(data[0].split("-")[0]) != null) {
-            System.out.println(data[0]);
-            Resource r = Library.getResource(data[0].split("-")[0]);
-
-            try {
-                borrowDate = dateFormat.parse(data[1]);
-            } catch (ParseException e) {
-                e.printStackTrace();
-            }
-
-            r.getResourceStatData().addBorrowDate(dateFormatDMY.format(borrowDate));
-        }
-
-        borrowDate = new Date();
-        try {
-            borrowDate = dateFormat.parse(data[1]);
-        } catch (ParseException e) {
-            e.printStackTrace();
-        }
-
-        if (isWithinDate(new Date(), 1, borrowDate)) {
-            resourcesBorrowStats[0].add(data[1]);
-        }
-
-        if (isWithinDate(new Date(), 7, borrowDate)) {
-            resourcesBorrowStats[1].add(data[1]);
-        }
-
-        if (isWithinDate(new Date(), 30, borrowDate)) {
-            resourcesBorrowStats[2].add(data[1]);
-        }
-
     }
 
     /**
-     * Check if a date is within a given date and number of days
-     * @param startDate The start Date
-     * @param numDays How many days to check between
-     * @param date The Date being checked
-     * @return If the date is between startDate + numDays
+     * Links the borrow history and reservations read from file to the library's resources.
+     * Called once all resources and users have been loaded. Resources read their request queue from file
+     * themselves, so a reservation only joins the queue if it is missing from it, e.g. in older data files.
      */
-    private boolean isWithinDate(Date startDate, int numDays, Date date) {
-        Calendar c = Calendar.getInstance();
-        c.setTime(startDate);
-        c.add(Calendar.DATE, -numDays);
-        Date endDate = c.getTime();
-
-        SimpleDateFormat dateFormat = new SimpleDateFormat("dd-MM-yyyy HH:mm:ss");
-        String endDateS = dateFormat.format(endDate);
-        try {
-            endDate = dateFormat.parse(endDateS);
-        } catch (ParseException e) {
-            e.printStackTrace();
+    public void linkToResources() {
+        for (String[] data : borrowHistory) {
+            Resource r = Library.getResource(data[0].split("-")[0]);
+            if (r != null) {
+                r.recordBorrow(EpochDates.parse(data[1]));
+            }
         }
 
-        System.out.println(date.toString() + " - " + startDate.toString() 
-        + " - " + endDate.toString());
-
-        System.out.println(date.before(startDate) && date.after(endDate));
-
-        return (date.before(startDate) && date.after(endDate));
+        for (String id : resourceCurrentlyReserved) {
+            Resource r = Library.getResource(id);
+            if (r != null && r.getQueuePosition(this.getUserName()) < 0) {
+                r.enqueueRequest(this.getUserName());
+            }
+        }
     }
 
     /**
@@ -678,7 +701,7 @@ public class User {
      */
     public int noOfResourcesBorrowed() {
         int noOfResources = 0;
-        System.out.println(this.getUserName() + " 554 User " + this.resourceCurrentlyBorrowed.size());
+        Log.debug(this.getUserName() + " is borrowing " + this.resourceCurrentlyBorrowed.size() + " resources");
         for (String s : this.resourceCurrentlyBorrowed) {
             String sub = s.substring(0, 1).toLowerCase();
             if (sub.equals("l")) {
@@ -707,7 +730,7 @@ public class User {
     		this.eventsAttended.add(eventID);
     		LibraryEvents.getEvent(eventID).RSVP();
     	} else {
-    		System.out.println("Already attending");
+    		Log.info(this.getUserName() + " is already attending " + eventID);
     	}
         
     }
@@ -743,9 +766,9 @@ public class User {
     	if (checkAttended(eventID)) {
     		this.eventsAttended.remove(eventID);
     		LibraryEvents.getEvent(eventID).cancelRSVP();
-    		System.out.println("Cancelled RSVP");
+    		Log.info(this.getUserName() + " cancelled RSVP to " + eventID);
     	} else {
-    		System.out.println("Not attending.");
+    		Log.info(this.getUserName() + " is not attending " + eventID);
     	}
     }
     
@@ -0,0 +1,105 @@
+package utils;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * <h1>EpochDates.</h1>
+ * <p>Dates are held by the library as milliseconds since the epoch, so they can be compared and added to
+ * without any parsing. This class converts them to and from the "dd-MM-yyyy HH:mm:ss" text used in the
+ * data files and on screen. The formatter is shared, as java.time formatters are safe to use from
+ * several threads. Dates are in the system time zone, as they always have been.</p>
+ * @author James Carter, Dominik Wojtasiewicz, Etienne Badoche
+ */
+public class EpochDates {
+    public static final long NO_DATE = 0L; // Stands for a date that has not been set, e.g. a copy not yet returned.
+    public static final long DAY = 24L * 60 * 60 * 1000; // One day in milliseconds.
+
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss");
+
+    //The time now() gives on each thread that has fixed it, e.g. while replaying the journal.
+    private static final ThreadLocal<Long> fixedNow = new ThreadLocal<>();
+
+    /**
+     * Returns the current time, or the time fixed by setNow on the calling thread.
+     * @return the current time in milliseconds since the epoch.
+     */
+    public static long now() {
+        Long fixed = fixedNow.get();
+        return fixed != null ? fixed : System.currentTimeMillis();
+    }
+
+    /**
+     * Fixes the time now() gives on the calling thread, so a change can be made again at the time it was
+     * first made, e.g. when replaying the journal.
+     * @param time the time in milliseconds since the epoch, or null to use the clock again.
+     */
+    public static void setNow(Long time) {
+        if (time == null) {
+            fixedNow.remove();
+        } else {
+            fixedNow.set(time);
+        }
+    }
+
+    /**
+     * Reads a date in the "dd-MM-yyyy HH:mm:ss" format.
+     * @param text the date as text, may be empty.
+     * @return the date in milliseconds since the epoch, NO_DATE if the text is empty or not a date.
+     */
+    public static long parse(String text) {
+        if (text == null || text.trim().isEmpty()) {
+            return NO_DATE;
+        }
+        try {
+            return LocalDateTime.parse(text.trim(), DATE_TIME).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            Log.warn("Cannot read date " + text);
+            return NO_DATE;
+        }
+    }
+
+    /**
+     * Writes a date in the "dd-MM-yyyy HH:mm:ss" format.
+     * @param time the date in milliseconds since the epoch.
+     * @return the date as text, empty for NO_DATE.
+     */
+    public static String format(long time) {
+        if (time == NO_DATE) {
+            return "";
+        }
+        return DATE_TIME.format(Instant.ofEpochMilli(time).atZone(ZoneId.systemDefault()));
+    }
+
+    /**
+     * Finds the day a time falls on.
+     * @param time the time in milliseconds since the epoch.
+     * @return the number of the day, counting from 01-01-1970 in the system time zone.
+     */
+    public static long toDay(long time) {
+        return Instant.ofEpochMilli(time).atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+    }
+
+    /**
+     * Finds the time a day starts.
+     * @param day the number of the day, as returned by toDay.
+     * @return midnight at the start of the day in milliseconds since the epoch.
+     */
+    public static long startOfDay(long day) {
+        return LocalDate.ofEpochDay(day).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Adds whole days to a time, keeping the time of day across clock changes.
+     * @param time the time in milliseconds since the epoch.
+     * @param days the number of days to add, may be negative.
+     * @return the new time in milliseconds since the epoch.
+     */
+    public static long plusDays(long time, long days) {
+        return Instant.ofEpochMilli(time).atZone(ZoneId.systemDefault()).plusDays(days).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,142 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * <h1>FloodFill.</h1>
+ * <p>Fills the area around a pixel that is the same colour as it, as the paint bucket does. Pixels are
+ * ARGB ints in one array, row by row. The fill works a row at a time: it fills the whole run of matching
+ * pixels either side of a point, then looks at the rows above and below that run for more runs to fill.
+ * Only one point per run is remembered, rather than one per pixel.
+ * A FloodFill keeps its working arrays between fills, so filling the same canvas again makes no garbage.</p>
+ * @author James Carter, Etienne Badoche, Sam Jankinson
+ */
+public class FloodFill {
+    private static final int INITIAL_POINTS = 256;
+
+    private int[] points = new int[INITIAL_POINTS]; // Points still to fill from, as y * width + x.
+    private int noOfPoints;
+    private boolean[] filled = new boolean[0]; // True for each pixel already filled.
+
+    /**
+     * Fills the area around a pixel with a colour.
+     * @param pixels the ARGB pixels of the image, row by row, changed in place.
+     * @param width the width of the image.
+     * @param height the height of the image.
+     * @param x the x coordinate of the pixel to fill from.
+     * @param y the y coordinate of the pixel to fill from.
+     * @param newColour the ARGB colour to fill with.
+     * @param tolerance how far each of the alpha, red, green and blue of a pixel may be from the pixel filled
+     *                  from and still be filled, from 0 for exactly the same colour up to 255.
+     * @return the number of pixels filled.
+     */
+    public int fill(int[] pixels, int width, int height, int x, int y, int newColour, int tolerance) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return 0;
+        }
+        int startColour = pixels[y * width + x];
+        if (startColour == newColour && tolerance == 0) {
+            return 0;
+        }
+
+        int size = width * height;
+        if (filled.length < size) {
+            filled = new boolean[size];
+        } else {
+            Arrays.fill(filled, 0, size, false);
+        }
+
+        int noFilled = 0;
+        noOfPoints = 0;
+        push(y * width + x);
+        while (noOfPoints > 0) {
+            int point = points[--noOfPoints];
+            int row = point / width * width;
+            if (filled[point]) {
+                continue;
+            }
+
+            // Find the run of matching pixels either side of the point
+            int left = point;
+            while (left > row && matches(pixels, left - 1, startColour, tolerance)) {
+                left--;
+            }
+            int right = point;
+            while (right < row + width - 1 && matches(pixels, right + 1, startColour, tolerance)) {
+                right++;
+            }
+
+            for (int i = left; i <= right; i++) {
+                pixels[i] = newColour;
+                filled[i] = true;
+            }
+            noFilled += right - left + 1;
+
+            if (row > 0) {
+                pushRuns(pixels, left - width, right - width, startColour, tolerance);
+            }
+            if (row + width < size) {
+                pushRuns(pixels, left + width, right + width, startColour, tolerance);
+            }
+        }
+        return noFilled;
+    }
+
+    /**
+     * Remembers one point in each run of matching pixels between two pixels of a row.
+     * @param pixels the pixels of the image.
+     * @param from the first pixel to look at.
+     * @param to the last pixel to look at.
+     * @param startColour the colour of the pixel filled from.
+     * @param tolerance how far a colour may be from startColour.
+     */
+    private void pushRuns(int[] pixels, int from, int to, int startColour, int tolerance) {
+        boolean inRun = false;
+        for (int i = from; i <= to; i++) {
+            if (matches(pixels, i, startColour, tolerance)) {
+                if (!inRun) {
+                    push(i);
+                    inRun = true;
+                }
+            } else {
+                inRun = false;
+            }
+        }
+    }
+
+    /**
+     * Checks if a pixel is still to be filled.
+     * @param pixels the pixels of the image.
+     * @param i the index of the pixel.
+     * @param startColour the colour of the pixel filled from.
+     * @param tolerance how far a colour may be from startColour.
+     * @return True if the pixel is not yet filled and is close enough to startColour.
+     */
+    private boolean matches(int[] pixels, int i, int startColour, int tolerance) {
+        if (filled[i]) {
+            return false;
+        }
+        int colour = pixels[i];
+        if (colour == startColour) {
+            return true;
+        }
+        for (int shift = 0; shift < 32; shift += 8) {
+            int difference = ((colour >>> shift) & 0xFF) - ((startColour >>> shift) & 0xFF);
+            if (difference > tolerance || -difference > tolerance) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds a point to fill from.
+     * @param point the point, as y * width + x.
+     */
+    private void push(int point) {
+        if (noOfPoints == points.length) {
+            points = Arrays.copyOf(points, points.length * 2);
+        }
+        points[noOfPoints++] = point;
+    }
+}
@@ -0,0 +1,98 @@
+package utils;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <h1>IdAllocator.</h1>
+ * <p>Gives out the IDs of new resources and events, such as "BookID:12". Each type of ID has its own counter
+ * of the highest number used so far, which is safe to use from several threads at once, so two new items can
+ * never get the same ID. IDs read from the data files are passed to observe, which raises the counter to
+ * them, so new IDs carry on from the highest ID in the files whatever order they were read in.
+ * Bulk imports can reserve a block of numbers in one go rather than one at a time.
+ * This class is static.</p>
+ * @author James Carter, Peter Daish, Deyan Naydenov
+ */
+public class IdAllocator {
+    private static final char SEPARATOR = ':'; //Between the type and the number of an ID.
+
+    //Type of ID -> the highest number used so far.
+    private static final ConcurrentHashMap<String, AtomicLong> highest = new ConcurrentHashMap<>();
+
+    /**
+     * Gives out a new ID.
+     * @param type the type of ID, e.g. "BookID".
+     * @return the ID, one higher than any given out or observed so far for the type.
+     */
+    public static String next(String type) {
+        return format(type, counter(type).incrementAndGet());
+    }
+
+    /**
+     * Reserves a block of numbers, e.g. for a bulk import. The IDs are format(type, first) up to
+     * format(type, first + count - 1), and will not be given out again.
+     * @param type the type of ID, e.g. "BookID".
+     * @param count how many numbers to reserve.
+     * @return the first number reserved.
+     */
+    public static long reserve(String type, int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Cannot reserve " + count + " IDs");
+        }
+        return counter(type).getAndAdd(count) + 1;
+    }
+
+    /**
+     * Notes an ID already in use, e.g. one read from the data files, so it is never given out again.
+     * @param id the ID, e.g. "BookID:12".
+     * @return the ID, unchanged.
+     */
+    public static String observe(String id) {
+        int separator = id.lastIndexOf(SEPARATOR);
+        try {
+            long number = Long.parseLong(id.substring(separator + 1));
+            counter(id.substring(0, Math.max(separator, 0))).accumulateAndGet(number, Math::max);
+        } catch (NumberFormatException e) {
+            Log.warn("ID " + id + " does not end in a number, so it cannot clash with new IDs");
+        }
+        return id;
+    }
+
+    /**
+     * Returns the highest number used so far.
+     * @param type the type of ID, e.g. "BookID".
+     * @return the highest number given out, reserved or observed, 0 if none.
+     */
+    public static long getHighest(String type) {
+        return counter(type).get();
+    }
+
+    /**
+     * Sets the highest number used so far, which new IDs carry on from.
+     * @param id the ID to carry on from, e.g. "BookID:12".
+     */
+    public static void setHighest(String id) {
+        int separator = id.lastIndexOf(SEPARATOR);
+        counter(id.substring(0, Math.max(separator, 0))).set(Long.parseLong(id.substring(separator + 1)));
+    }
+
+    /**
+     * Makes the ID for a number.
+     * @param type the type of ID, e.g. "BookID".
+     * @param number the number.
+     * @return the ID, e.g. "BookID:12".
+     */
+    public static String format(String type, long number) {
+        return type + SEPARATOR + number;
+    }
+
+    /**
+     * Finds the counter of a type, starting it at 0 the first time.
+     * @param type the type of ID.
+     * @return the highest number used so far.
+     */
+    private static AtomicLong counter(String type) {
+        AtomicLong counter = highest.get(type);
+        return counter != null ? counter : highest.computeIfAbsent(type, t -> new AtomicLong());
+    }
+}
@@ -0,0 +1,225 @@
+package utils;
+
+import java.util.stream.IntStream;
+
+/**
+ * <h1>ImageFilters.</h1>
+ * <p>Filters for images held as ARGB ints in one array, row by row, as read from a canvas in one go.
+ * Each filter changes the pixels in place, working on bands of rows in parallel for large images.
+ * No objects are made per pixel. Filters leave the alpha of each pixel as it was.
+ * This class is static.</p>
+ * @author James Carter, Etienne Badoche, Sam Jankinson
+ */
+public class ImageFilters {
+    private static final int PARALLEL_PIXELS = 128 * 128; //Images smaller than this are filtered on one thread.
+    private static final int BANDS_PER_THREAD = 4;
+
+    /**
+     * <h1>RowFilter.</h1>
+     * <p>Filters a band of rows of an image.</p>
+     */
+    private interface RowFilter {
+        /**
+         * Filters some rows.
+         * @param fromRow the first row to filter.
+         * @param toRow the row after the last row to filter.
+         */
+        void filter(int fromRow, int toRow);
+    }
+
+    /**
+     * Inverts the colour of every pixel.
+     * @param pixels the ARGB pixels of the image, row by row, changed in place.
+     * @param width the width of the image.
+     * @param height the height of the image.
+     */
+    public static void invert(int[] pixels, int width, int height) {
+        inBands(width, height, (fromRow, toRow) -> {
+            for (int i = fromRow * width; i < toRow * width; i++) {
+                pixels[i] ^= 0x00FFFFFF;
+            }
+        });
+    }
+
+    /**
+     * Converts every pixel to grey, weighting red, green and blue as JavaFX's Color.grayscale does.
+     * @param pixels the ARGB pixels of the image, row by row, changed in place.
+     * @param width the width of the image.
+     * @param height the height of the image.
+     */
+    public static void grayscale(int[] pixels, int width, int height) {
+        inBands(width, height, (fromRow, toRow) -> {
+            for (int i = fromRow * width; i < toRow * width; i++) {
+                int pixel = pixels[i];
+                int grey = (21 * (pixel >> 16 & 0xFF) + 71 * (pixel >> 8 & 0xFF) + 7 * (pixel & 0xFF) + 50) / 100;
+                pixels[i] = pixel & 0xFF000000 | grey << 16 | grey << 8 | grey;
+            }
+        });
+    }
+
+    /**
+     * Makes every pixel brighter or darker.
+     * @param pixels the ARGB pixels of the image, row by row, changed in place.
+     * @param width the width of the image.
+     * @param height the height of the image.
+     * @param factor what to multiply the red, green and blue of each pixel by, e.g. 1.2 for 20% brighter.
+     */
+    public static void brightness(int[] pixels, int width, int height, double factor) {
+        int scale = (int) Math.round(factor * 256); //Fixed point, 256 is 1.
+        inBands(width, height, (fromRow, toRow) -> {
+            for (int i = fromRow * width; i < toRow * width; i++) {
+                int pixel = pixels[i];
+                int red = Math.min(255, (pixel >> 16 & 0xFF) * scale >> 8);
+                int green = Math.min(255, (pixel >> 8 & 0xFF) * scale >> 8);
+                int blue = Math.min(255, (pixel & 0xFF) * scale >> 8);
+                pixels[i] = pixel & 0xFF000000 | red << 16 | green << 8 | blue;
+            }
+        });
+    }
+
+    /**
+     * Blurs the image, setting each pixel to the average of the square of pixels around it. The blur is done
+     * across then down, keeping a running sum, so the radius does not change how long it takes.
+     * Pixels past the edge of the image count as the nearest edge pixel.
+     * @param pixels the ARGB pixels of the image, row by row, changed in place.
+     * @param width the width of the image.
+     * @param height the height of the image.
+     * @param radius how many pixels either side of each pixel are averaged.
+     */
+    public static void blur(int[] pixels, int width, int height, int radius) {
+        if (radius <= 0) {
+            return;
+        }
+        int[] across = new int[width * height];
+        int size = 2 * radius + 1;
+
+        inBands(width, height, (fromRow, toRow) -> {
+            for (int y = fromRow; y < toRow; y++) {
+                int row = y * width;
+                int red = 0;
+                int green = 0;
+                int blue = 0;
+                for (int x = -radius; x <= radius; x++) {
+                    int pixel = pixels[row + clamp(x, width)];
+                    red += pixel >> 16 & 0xFF;
+                    green += pixel >> 8 & 0xFF;
+                    blue += pixel & 0xFF;
+                }
+                for (int x = 0; x < width; x++) {
+                    across[row + x] = pixels[row + x] & 0xFF000000
+                            | red / size << 16 | green / size << 8 | blue / size;
+                    int leaving = pixels[row + clamp(x - radius, width)];
+                    int entering = pixels[row + clamp(x + radius + 1, width)];
+                    red += (entering >> 16 & 0xFF) - (leaving >> 16 & 0xFF);
+                    green += (entering >> 8 & 0xFF) - (leaving >> 8 & 0xFF);
+                    blue += (entering & 0xFF) - (leaving & 0xFF);
+                }
+            }
+        });
+
+        inBands(width, height, (fromRow, toRow) -> {
+            //Running sums of each column, for the square around the row being blurred.
+            int[] reds = new int[width];
+            int[] greens = new int[width];
+            int[] blues = new int[width];
+            for (int y = fromRow - radius; y <= fromRow + radius; y++) {
+                addRow(across, clamp(y, height) * width, width, reds, greens, blues, 1);
+            }
+            for (int y = fromRow; y < toRow; y++) {
+                int row = y * width;
+                for (int x = 0; x < width; x++) {
+                    pixels[row + x] = across[row + x] & 0xFF000000
+                            | reds[x] / size << 16 | greens[x] / size << 8 | blues[x] / size;
+                }
+                addRow(across, clamp(y - radius, height) * width, width, reds, greens, blues, -1);
+                addRow(across, clamp(y + radius + 1, height) * width, width, reds, greens, blues, 1);
+            }
+        });
+    }
+
+    /**
+     * Resizes an image, e.g. to the size a profile image is shown at. Each new pixel is the average of the
+     * pixels it covers in the old image, so shrinking keeps thin lines rather than skipping them.
+     * @param pixels the ARGB pixels of the image, row by row.
+     * @param width the width of the image.
+     * @param height the height of the image.
+     * @param newWidth the width to resize to.
+     * @param newHeight the height to resize to.
+     * @return the ARGB pixels of the resized image, row by row.
+     */
+    public static int[] resize(int[] pixels, int width, int height, int newWidth, int newHeight) {
+        int[] resized = new int[newWidth * newHeight];
+        inBands(newWidth, newHeight, (fromRow, toRow) -> {
+            for (int y = fromRow; y < toRow; y++) {
+                int top = y * height / newHeight;
+                int bottom = Math.max(top + 1, (y + 1) * height / newHeight);
+                for (int x = 0; x < newWidth; x++) {
+                    int left = x * width / newWidth;
+                    int right = Math.max(left + 1, (x + 1) * width / newWidth);
+                    long alpha = 0;
+                    long red = 0;
+                    long green = 0;
+                    long blue = 0;
+                    for (int oldY = top; oldY < bottom; oldY++) {
+                        for (int i = oldY * width + left; i < oldY * width + right; i++) {
+                            int pixel = pixels[i];
+                            alpha += pixel >>> 24;
+                            red += pixel >> 16 & 0xFF;
+                            green += pixel >> 8 & 0xFF;
+                            blue += pixel & 0xFF;
+                        }
+                    }
+                    int count = (bottom - top) * (right - left);
+                    resized[y * newWidth + x] = (int) (alpha / count) << 24 | (int) (red / count) << 16
+                            | (int) (green / count) << 8 | (int) (blue / count);
+                }
+            }
+        });
+        return resized;
+    }
+
+    /**
+     * Adds or takes away the red, green and blue of a row of pixels to running sums for each column.
+     * @param pixels the pixels of the image.
+     * @param row the index of the first pixel of the row.
+     * @param width the width of the image.
+     * @param reds the sum of the red of each column.
+     * @param greens the sum of the green of each column.
+     * @param blues the sum of the blue of each column.
+     * @param sign 1 to add the row, -1 to take it away.
+     */
+    private static void addRow(int[] pixels, int row, int width, int[] reds, int[] greens, int[] blues, int sign) {
+        for (int x = 0; x < width; x++) {
+            int pixel = pixels[row + x];
+            reds[x] += sign * (pixel >> 16 & 0xFF);
+            greens[x] += sign * (pixel >> 8 & 0xFF);
+            blues[x] += sign * (pixel & 0xFF);
+        }
+    }
+
+    /**
+     * Moves a coordinate past the edge of the image to the nearest edge.
+     * @param i the coordinate.
+     * @param length the width or height of the image.
+     * @return the coordinate, from 0 to length - 1.
+     */
+    private static int clamp(int i, int length) {
+        return i < 0 ? 0 : i >= length ? length - 1 : i;
+    }
+
+    /**
+     * Filters an image in bands of rows, in parallel if the image is large enough to be worth it.
+     * @param width the width of the image.
+     * @param height the height of the image.
+     * @param filter filters a band of rows.
+     */
+    private static void inBands(int width, int height, RowFilter filter) {
+        if ((long) width * height < PARALLEL_PIXELS) {
+            filter.filter(0, height);
+            return;
+        }
+        int bands = Math.min(height, Runtime.getRuntime().availableProcessors() * BANDS_PER_THREAD);
+        IntStream.range(0, bands).parallel()
+                .forEach(band -> filter.filter(height * band / bands, height * (band + 1) / bands));
+    }
+}
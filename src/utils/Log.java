@@ -0,0 +1,134 @@
+package utils;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * <h1>Log.</h1>
+ * <p>Prints messages about what the library is doing, from most to least detailed: DEBUG, INFO, WARN and
+ * ERROR. Only messages at or above the level set are kept, so detailed messages cost next to nothing when
+ * they are not wanted. The level is read from the library.log system property, INFO if not set, and OFF
+ * stops all messages. Messages are printed by a background thread, so the thread logging never waits for
+ * the console. Anything left is printed when the program exits.
+ * This class is static.</p>
+ * @author James Carter, Dominik Wojtasiewicz, Peter Daish
+ */
+public class Log {
+    public static final int DEBUG = 0;
+    public static final int INFO = 1;
+    public static final int WARN = 2;
+    public static final int ERROR = 3;
+    public static final int OFF = 4;
+    private static final String[] LEVEL_NAMES = {"DEBUG", "INFO", "WARN", "ERROR", "OFF"};
+
+    private static volatile int level = levelOf(System.getProperty("library.log", "INFO"));
+    private static final BlockingQueue<String> waiting = new LinkedBlockingQueue<>(); // Messages not yet printed.
+    private static final Thread printer = new Thread(Log::printWaiting, "Log");
+
+    static {
+        printer.setDaemon(true);
+        printer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(Log::flush, "Log flush"));
+    }
+
+    /**
+     * Logs a detailed message, useful when tracking down a problem.
+     * @param message the message.
+     */
+    public static void debug(String message) {
+        log(DEBUG, message);
+    }
+
+    /**
+     * Logs a message about normal operation.
+     * @param message the message.
+     */
+    public static void info(String message) {
+        log(INFO, message);
+    }
+
+    /**
+     * Logs a message about something unexpected the library can carry on from.
+     * @param message the message.
+     */
+    public static void warn(String message) {
+        log(WARN, message);
+    }
+
+    /**
+     * Logs a message about something that has failed.
+     * @param message the message.
+     */
+    public static void error(String message) {
+        log(ERROR, message);
+    }
+
+    /**
+     * Checks if messages of a level are being kept, so a costly message need not be built if not.
+     * @param messageLevel DEBUG, INFO, WARN or ERROR.
+     * @return True if messages of the level are printed.
+     */
+    public static boolean isEnabled(int messageLevel) {
+        return messageLevel >= level;
+    }
+
+    /**
+     * Sets the least detailed level of message printed.
+     * @param newLevel DEBUG, INFO, WARN, ERROR or OFF.
+     */
+    public static void setLevel(int newLevel) {
+        level = newLevel;
+    }
+
+    /**
+     * Prints every message logged so far, waiting until they have been printed.
+     */
+    public static synchronized void flush() {
+        String message;
+        while ((message = waiting.poll()) != null) {
+            System.out.println(message);
+        }
+        System.out.flush();
+    }
+
+    /**
+     * Queues a message to be printed if its level is being kept.
+     * @param messageLevel the level of the message.
+     * @param message the message.
+     */
+    private static void log(int messageLevel, String message) {
+        if (isEnabled(messageLevel)) {
+            waiting.add("[" + LEVEL_NAMES[messageLevel] + "] " + message);
+        }
+    }
+
+    /**
+     * Prints messages as they are logged. Run by the printer thread.
+     */
+    private static void printWaiting() {
+        while (true) {
+            try {
+                String message = waiting.take();
+                synchronized (Log.class) {
+                    System.out.println(message);
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reads a level from its name.
+     * @param name DEBUG, INFO, WARN, ERROR or OFF, in any case.
+     * @return the level, INFO if the name is not known.
+     */
+    private static int levelOf(String name) {
+        for (int i = 0; i < LEVEL_NAMES.length; i++) {
+            if (LEVEL_NAMES[i].equalsIgnoreCase(name.trim())) {
+                return i;
+            }
+        }
+        return INFO;
+    }
+}
@@ -0,0 +1,346 @@
+package utils;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * <h1>Metrics.</h1>
+ * <p>Counts and times what the library does, so slow or failing operations can be found without reading
+ * through printed messages. There are three kinds of metric, each known by a name such as
+ * "library.loanResource":
+ * counters, which count events;
+ * timers, which record how long an operation took, as a count, mean, maximum and rough percentiles;
+ * gauges, which read a current value such as the size of the catalogue when asked.
+ * Metrics can be read through JMX once registerMBean has been called, e.g. with jconsole, and written to
+ * a file every so often by startDump. Recording a metric only adds to counters, so it is cheap enough
+ * for every operation. This class is static.</p>
+ * @author James Carter, Dominik Wojtasiewicz, Peter Daish
+ */
+public class Metrics {
+    private static final String MBEAN_NAME = "library:type=Metrics";
+    private static final String[] TIMER_STATS = {"count", "meanMs", "p50Ms", "p99Ms", "maxMs"}; //Read of each timer.
+
+    private static final ConcurrentHashMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Timer> timers = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+    private static ScheduledExecutorService dumper; // Writes the metrics to file, once started.
+
+    /**
+     * <h1>Timer.</h1>
+     * <p>Times of one operation. Times are counted in buckets by their highest bit, bucket b holding times
+     * from 2^(b-1) up to 2^b nanoseconds, which is enough to find percentiles to within a factor of two.</p>
+     */
+    private static class Timer {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLongArray buckets = new AtomicLongArray(64);
+
+        /**
+         * Records one time.
+         * @param nanos the time taken in nanoseconds.
+         */
+        private void record(long nanos) {
+            long time = Math.max(0, nanos);
+            count.increment();
+            totalNanos.add(time);
+            maxNanos.accumulateAndGet(time, Math::max);
+            buckets.incrementAndGet(64 - Long.numberOfLeadingZeros(time));
+        }
+
+        /**
+         * Estimates a percentile from the buckets.
+         * @param percentile the percentile wanted, between 0 and 100.
+         * @return the upper bound of the bucket holding the percentile, in nanoseconds.
+         */
+        private long percentile(double percentile) {
+            long total = 0;
+            for (int b = 0; b < buckets.length(); b++) {
+                total += buckets.get(b);
+            }
+            long wanted = (long) Math.ceil(total * percentile / 100);
+            long seen = 0;
+            for (int b = 0; b < buckets.length(); b++) {
+                seen += buckets.get(b);
+                if (seen >= wanted && seen > 0) {
+                    return b == 0 ? 0 : Math.min(1L << b, maxNanos.get());
+                }
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * Adds one to a counter.
+     * @param name the name of the counter.
+     */
+    public static void count(String name) {
+        count(name, 1);
+    }
+
+    /**
+     * Adds to a counter.
+     * @param name the name of the counter.
+     * @param amount the amount to add.
+     */
+    public static void count(String name, long amount) {
+        counters.computeIfAbsent(name, k -> new LongAdder()).add(amount);
+    }
+
+    /**
+     * Records the time an operation took, from its start until now.
+     * @param name the name of the timer.
+     * @param startNanos the value of System.nanoTime() when the operation started.
+     */
+    public static void time(String name, long startNanos) {
+        timers.computeIfAbsent(name, k -> new Timer()).record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Adds a gauge, or replaces the gauge of the same name.
+     * @param name the name of the gauge.
+     * @param value reads the current value, called whenever the metrics are read.
+     */
+    public static void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    /**
+     * Removes a gauge, so the metrics no longer hold on to what it reads. Does nothing if the gauge of that
+     * name has since been replaced by another.
+     * @param name the name of the gauge.
+     * @param value the gauge added under the name.
+     */
+    public static void removeGauge(String name, LongSupplier value) {
+        gauges.remove(name, value);
+    }
+
+    /**
+     * Reads every metric. Timers give name.count, name.meanMs, name.p50Ms, name.p99Ms and name.maxMs.
+     * @return map of metric name to value, sorted by name.
+     */
+    public static Map<String, Number> snapshot() {
+        TreeMap<String, Number> values = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> counter : counters.entrySet()) {
+            values.put(counter.getKey(), counter.getValue().sum());
+        }
+        for (Map.Entry<String, Timer> entry : timers.entrySet()) {
+            for (String stat : TIMER_STATS) {
+                values.put(entry.getKey() + "." + stat, readTimer(entry.getValue(), stat));
+            }
+        }
+        for (Map.Entry<String, LongSupplier> gauge : gauges.entrySet()) {
+            Number value = readGauge(gauge.getKey(), gauge.getValue());
+            if (value != null) {
+                values.put(gauge.getKey(), value);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Reads one metric, without reading any other. Gauges can be slow to read, so this is cheaper than
+     * snapshot when only one value is wanted.
+     * @param name the name of the metric, as given by snapshot.
+     * @return the value, or null if there is no such metric or its gauge cannot be read.
+     */
+    public static Number read(String name) {
+        LongAdder counter = counters.get(name);
+        if (counter != null) {
+            return counter.sum();
+        }
+        LongSupplier gauge = gauges.get(name);
+        if (gauge != null) {
+            return readGauge(name, gauge);
+        }
+        int dot = name.lastIndexOf('.');
+        Timer timer = dot < 0 ? null : timers.get(name.substring(0, dot));
+        return timer == null ? null : readTimer(timer, name.substring(dot + 1));
+    }
+
+    /**
+     * Reads one value of a timer.
+     * @param timer the timer.
+     * @param stat one of TIMER_STATS.
+     * @return the value, or null if stat is not one of TIMER_STATS.
+     */
+    private static Number readTimer(Timer timer, String stat) {
+        switch (stat) {
+            case "count":
+                return timer.count.sum();
+            case "meanMs":
+                long count = timer.count.sum();
+                return count == 0 ? 0 : timer.totalNanos.sum() / 1e6 / count;
+            case "p50Ms":
+                return timer.percentile(50) / 1e6;
+            case "p99Ms":
+                return timer.percentile(99) / 1e6;
+            case "maxMs":
+                return timer.maxNanos.get() / 1e6;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Reads a gauge, logging rather than throwing if it fails.
+     * @param name the name of the gauge.
+     * @param gauge the gauge.
+     * @return the value, or null if the gauge cannot be read.
+     */
+    private static Number readGauge(String name, LongSupplier gauge) {
+        try {
+            return gauge.getAsLong();
+        } catch (RuntimeException e) {
+            Log.warn("Cannot read gauge " + name + ": " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Makes the metrics readable through JMX, as the attributes of library:type=Metrics.
+     */
+    public static synchronized void registerMBean() {
+        try {
+            ObjectName name = new ObjectName(MBEAN_NAME);
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsMBean(), name);
+            }
+        } catch (JMException e) {
+            Log.error("Cannot register metrics with JMX: " + e);
+        }
+    }
+
+    /**
+     * Starts writing every metric to a file every so often, replacing what was there.
+     * @param filePath the file to write to.
+     * @param periodSeconds the number of seconds between writes.
+     */
+    public static synchronized void startDump(String filePath, long periodSeconds) {
+        if (dumper != null) {
+            return;
+        }
+        dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Metrics dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumper.scheduleAtFixedRate(() -> dump(filePath), periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Writes every metric to a file, one "name = value" per line.
+     * @param filePath the file to write to.
+     */
+    public static void dump(String filePath) {
+        Path file = Paths.get(filePath);
+        Path temp = Paths.get(filePath + ".tmp");
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(temp))) {
+            out.println("# " + EpochDates.format(EpochDates.now()));
+            for (Map.Entry<String, Number> metric : snapshot().entrySet()) {
+                out.println(metric.getKey() + " = " + metric.getValue());
+            }
+        } catch (IOException e) {
+            Log.error("Cannot write metrics to " + filePath + ": " + e);
+            return;
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Log.error("Cannot write metrics to " + filePath + ": " + e);
+        }
+    }
+
+    /**
+     * <h1>MetricsMBean.</h1>
+     * <p>Shows every metric as a read only JMX attribute. The attributes are those there are when JMX asks,
+     * so metrics first recorded after registering still show up. Only the attributes asked for are read.</p>
+     */
+    private static class MetricsMBean implements DynamicMBean {
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            Number value = read(attribute);
+            if (value == null) {
+                throw new AttributeNotFoundException(attribute);
+            }
+            return value;
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException("Metrics are read only");
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            AttributeList list = new AttributeList();
+            for (String attribute : attributes) {
+                Number value = read(attribute);
+                if (value != null) {
+                    list.add(new Attribute(attribute, value));
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+            throw new ReflectionException(new NoSuchMethodException(actionName), "Metrics have no operations");
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            //Listed by name and type alone, so listing them reads no gauge.
+            TreeMap<String, String> types = new TreeMap<>();
+            for (String counter : counters.keySet()) {
+                types.put(counter, Long.class.getName());
+            }
+            for (String timer : timers.keySet()) {
+                for (String stat : TIMER_STATS) {
+                    types.put(timer + "." + stat, stat.equals("count") ? Long.class.getName() : Double.class.getName());
+                }
+            }
+            for (String gauge : gauges.keySet()) {
+                types.put(gauge, Long.class.getName());
+            }
+            MBeanAttributeInfo[] attributes = new MBeanAttributeInfo[types.size()];
+            int i = 0;
+            for (Map.Entry<String, String> type : types.entrySet()) {
+                attributes[i++] = new MBeanAttributeInfo(type.getKey(), type.getValue(), type.getKey(), true,
+                        false, false);
+            }
+            return new MBeanInfo(Metrics.class.getName(), "Library metrics", attributes, null,
+                    new MBeanOperationInfo[0], null);
+        }
+    }
+}
@@ -1,65 +0,0 @@
-package utils;
-
-/**
- * <h1>QueueElement.</h1>
- * <p>QueueElement is an object and link to the next QueueElement in a queue.
- * T - the type of object stored in the queue.</p>
- * @author James Carter, Deyan Naydenov, Peter Daish.
- * @version 0.1
- * @since 18/11/2018
- */
-public class QueueElement<T> {
-	
-    private T element; // The element contained in this linked list
-    private QueueElement<T> next; // The next element of the linked list
-
-    /**
-     * Constructor which initialises a QueueElement.
-     * @param e
-     * The element contained in this linked list.
-     * @param n
-     * The next element stored in this linked list.
-     */
-    public QueueElement(T e, QueueElement<T> n) {
-        this.element = e;
-        this.next = n;
-    }
-
-    /**
-     * Sets the value of this QueueElement
-     * @param element
-     * The value of this QueueElement
-     */
-    public void setElement(T element) {
-        this.element = element;
-    }
-
-    /**
-     * Sets the next QueueElement in the queue
-     * @param e
-     * The next QueueElement in the queue
-     */
-    public void setNext(QueueElement<T> e) {
-        this.next = e;
-    }
-
-    /**
-     * Returns the value of this QueueElement.
-     * @return element
-     * This current element.
-     */
-    public T getElement() {
-        return this.element;
-    }
-
-    /**
-     * Returns the next QueueElement in the queue
-     * @return next
-     * The next element in the Queue.
-     */
-    public QueueElement<T> getNext() {
-        return this.next;
-    }
-
-}
-
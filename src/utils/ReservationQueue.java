@@ -0,0 +1,274 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <h1>ReservationQueue.</h1>
+ * <p>ReservationQueue is a bounded first in first out queue which can be used by several threads at once
+ * without locking. As well as adding to the back and taking from the front, an element can be removed
+ * from anywhere in the queue and its position looked up, which is needed when a user cancels a request.
+ * T - the type of object stored in the queue.</p>
+ * <p>The queue is a linked list starting at a sentinel node. Removing an element only marks its node as
+ * removed, the node is unlinked later by whichever thread next walks past it. The number of elements
+ * is kept in a counter, which is also how the capacity is enforced.</p>
+ * @author James Carter, Deyan Naydenov, Peter Daish
+ * @version 0.1
+ * @since 18/11/2018
+ */
+public class ReservationQueue<T> implements Iterable<T> {
+
+    private final int capacity; // The most elements the queue can hold at once.
+    private final AtomicInteger size = new AtomicInteger(); // The number of elements in the queue.
+    private final AtomicReference<Node<T>> head; // The sentinel before the first element.
+    private final AtomicReference<Node<T>> tail; // The last node, or one close behind it.
+
+    /**
+     * <h1>Node.</h1>
+     * <p>An element of the queue and a link to the next node.</p>
+     */
+    private static final class Node<T> {
+        private final T element; // The element held by this node, null for the first sentinel.
+        private final AtomicReference<Node<T>> next = new AtomicReference<>(); // The next node in the queue.
+        private final AtomicBoolean removed = new AtomicBoolean(); // True once the element has left the queue.
+
+        /**
+         * Creates a node.
+         * @param element the element held by this node.
+         */
+        private Node(T element) {
+            this.element = element;
+        }
+    }
+
+    /**
+     * Constructs an empty ReservationQueue.
+     * @param capacity the most elements the queue can hold at once.
+     */
+    public ReservationQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        Node<T> sentinel = new Node<>(null);
+        sentinel.removed.set(true);
+        this.head = new AtomicReference<>(sentinel);
+        this.tail = new AtomicReference<>(sentinel);
+    }
+
+    /**
+     * Puts an element on the back of the queue, if there is room.
+     * @param element the element being put onto the back of the queue.
+     * @return True if the element was added, False if the queue is full.
+     */
+    public boolean offer(T element) {
+        if (element == null) {
+            throw new NullPointerException();
+        }
+
+        // Take a place in the queue before linking, so the queue can never go over capacity.
+        int current;
+        do {
+            current = size.get();
+            if (current >= capacity) {
+                return false;
+            }
+        } while (!size.compareAndSet(current, current + 1));
+
+        Node<T> node = new Node<>(element);
+        while (true) {
+            Node<T> last = tail.get();
+            Node<T> next = last.next.get();
+            if (next != null) {
+                // Another thread has linked a node but not yet moved the tail, help it along.
+                tail.compareAndSet(last, next);
+            } else if (last.next.compareAndSet(null, node)) {
+                tail.compareAndSet(last, node);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns the element at the front of the queue without removing it.
+     * @return the element at the front of the queue, null if the queue is empty.
+     */
+    public T peek() {
+        Node<T> first = firstNode();
+        return first == null ? null : first.element;
+    }
+
+    /**
+     * Removes the element at the front of the queue.
+     * @return the element removed, null if the queue is empty.
+     */
+    public T poll() {
+        while (true) {
+            Node<T> first = firstNode();
+            if (first == null) {
+                return null;
+            }
+            if (first.removed.compareAndSet(false, true)) {
+                size.decrementAndGet();
+                return first.element;
+            }
+            // Another thread took or removed it first, try the next one.
+        }
+    }
+
+    /**
+     * Removes the first occurrence of an element from anywhere in the queue.
+     * @param element the element to remove.
+     * @return True if the element was in the queue and has been removed.
+     */
+    public boolean remove(Object element) {
+        Node<T> node = head.get().next.get();
+        while (node != null) {
+            if (!node.removed.get() && node.element.equals(element)
+                    && node.removed.compareAndSet(false, true)) {
+                size.decrementAndGet();
+                return true;
+            }
+            node = node.next.get();
+        }
+        return false;
+    }
+
+    /**
+     * Finds how far from the front of the queue an element is.
+     * @param element the element to look for.
+     * @return the position of the element, 0 being the front, or -1 if it is not in the queue.
+     */
+    public int positionOf(Object element) {
+        int position = 0;
+        Node<T> node = head.get().next.get();
+        while (node != null) {
+            if (!node.removed.get()) {
+                if (node.element.equals(element)) {
+                    return position;
+                }
+                position++;
+            }
+            node = node.next.get();
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of elements in the queue.
+     * @return the number of elements in the queue.
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Returns the most elements the queue can hold at once.
+     * @return the capacity of the queue.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns true if the queue is empty.
+     * @return True or False depending on whether the queue is empty.
+     */
+    public boolean isEmpty() {
+        return firstNode() == null;
+    }
+
+    /**
+     * Returns true if the queue cannot take any more elements.
+     * @return True if the queue is at capacity.
+     */
+    public boolean isFull() {
+        return size.get() >= capacity;
+    }
+
+    /**
+     * Copies the elements of the queue, in order from front to back.
+     * @return a list of the elements in the queue.
+     */
+    public List<T> toList() {
+        List<T> elements = new ArrayList<>(size());
+        for (T element : this) {
+            elements.add(element);
+        }
+        return elements;
+    }
+
+    /**
+     * Returns an iterator over the elements in order from front to back. The iterator never throws
+     * ConcurrentModificationException, it may or may not see changes made while it is in use.
+     * @return an iterator over the queue.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private Node<T> next = nextLive(head.get());
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public T next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                T element = next.element;
+                next = nextLive(next);
+                return element;
+            }
+        };
+    }
+
+    /**
+     * Finds the first node still in the queue, moving the head past removed nodes on the way.
+     * @return the first node in the queue, null if the queue is empty.
+     */
+    private Node<T> firstNode() {
+        while (true) {
+            Node<T> sentinel = head.get();
+            Node<T> first = sentinel.next.get();
+            if (first == null) {
+                return null;
+            }
+            if (!first.removed.get()) {
+                return first;
+            }
+            // The first node has left the queue, it becomes the new sentinel.
+            if (sentinel == tail.get()) {
+                tail.compareAndSet(sentinel, first);
+            }
+            head.compareAndSet(sentinel, first);
+        }
+    }
+
+    /**
+     * Finds the next node still in the queue after a node, unlinking removed nodes on the way.
+     * A removed node at the back of the queue is left linked, so elements can still be added after it.
+     * @param from the node to start after.
+     * @return the next node in the queue, null if there are none.
+     */
+    private Node<T> nextLive(Node<T> from) {
+        Node<T> node = from.next.get();
+        while (node != null && node.removed.get()) {
+            Node<T> next = node.next.get();
+            if (next == null) {
+                return null;
+            }
+            // Only ever skips removed nodes, so losing this race to another thread is harmless.
+            from.next.compareAndSet(node, next);
+            node = next;
+        }
+        return node;
+    }
+}
@@ -0,0 +1,267 @@
+package utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * <h1>UndoHistory.</h1>
+ * <p>Keeps the changes made to an image so they can be undone and redone. Pixels are ARGB ints in one array,
+ * row by row. The image is split into TILE_SIZE by TILE_SIZE tiles, and each change keeps only the tiles it
+ * touched. A changed tile is kept as the XOR of its pixels before and after the change, compressed, so the same
+ * bytes undo and redo it, and the pixels a change did not touch compress to almost nothing.
+ * The history holds at most maxBytes of changes; the oldest changes are forgotten to stay under it.
+ * Call close once the history is no longer needed, to free the memory used to compress the tiles.</p>
+ * @author James Carter, Etienne Badoche, Sam Jankinson
+ */
+public class UndoHistory {
+    private static final int TILE_SIZE = 32; //Width and height of a tile in pixels.
+    private static final int TILE_OVERHEAD = 32; //Rough bytes used by a tile besides its compressed pixels.
+
+    private final long maxBytes;
+    private final Deque<Change> undoable = new ArrayDeque<>(); //Newest first.
+    private final Deque<Change> redoable = new ArrayDeque<>(); //Next to redo first.
+    private volatile long bytes; //Bytes used by all the changes kept, read by the metrics thread.
+    private int width;
+    private int height;
+    private int[] current = new int[0]; //The image as of the last change recorded, undone or redone.
+
+    private final int[] tile = new int[TILE_SIZE * TILE_SIZE];
+    private final byte[] tileBytes = new byte[TILE_SIZE * TILE_SIZE * 4];
+    private byte[] compressed = new byte[TILE_SIZE * TILE_SIZE * 4 + 64];
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private final Inflater inflater = new Inflater();
+
+    /**
+     * <h1>Change.</h1>
+     * <p>The tiles changed by one change to the image.</p>
+     */
+    private static class Change {
+        private final List<Tile> tiles = new ArrayList<>();
+        private long bytes;
+    }
+
+    /**
+     * <h1>Tile.</h1>
+     * <p>One changed tile: the XOR of its pixels before and after, compressed.</p>
+     */
+    private static class Tile {
+        private final int x;
+        private final int y;
+        private final byte[] xor;
+
+        private Tile(int x, int y, byte[] xor) {
+            this.x = x;
+            this.y = y;
+            this.xor = xor;
+        }
+    }
+
+    /**
+     * Creates an empty history.
+     * @param maxBytes the most bytes of changes kept.
+     */
+    public UndoHistory(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Forgets every change and starts again from an image.
+     * @param pixels the ARGB pixels of the image, row by row.
+     * @param width the width of the image.
+     * @param height the height of the image.
+     */
+    public void reset(int[] pixels, int width, int height) {
+        undoable.clear();
+        redoable.clear();
+        bytes = 0;
+        this.width = width;
+        this.height = height;
+        current = Arrays.copyOf(pixels, width * height);
+    }
+
+    /**
+     * Records the changes made to the image since the last change recorded, undone or redone, so they can be
+     * undone. Forgets anything that could be redone. If the size of the image has changed, starts again instead.
+     * @param pixels the ARGB pixels of the image, row by row.
+     * @param width the width of the image.
+     * @param height the height of the image.
+     * @return True if anything had changed.
+     */
+    public boolean record(int[] pixels, int width, int height) {
+        if (width != this.width || height != this.height) {
+            reset(pixels, width, height);
+            return false;
+        }
+
+        Change change = new Change();
+        for (int y = 0; y < height; y += TILE_SIZE) {
+            for (int x = 0; x < width; x += TILE_SIZE) {
+                if (readXor(pixels, x, y)) {
+                    byte[] xor = compress();
+                    change.tiles.add(new Tile(x, y, xor));
+                    change.bytes += xor.length + TILE_OVERHEAD;
+                }
+            }
+        }
+        if (change.tiles.isEmpty()) {
+            return false;
+        }
+
+        System.arraycopy(pixels, 0, current, 0, width * height);
+        for (Change forgotten : redoable) {
+            bytes -= forgotten.bytes;
+        }
+        redoable.clear();
+        undoable.push(change);
+        bytes += change.bytes;
+        while (bytes > maxBytes && undoable.size() > 1) {
+            bytes -= undoable.removeLast().bytes;
+        }
+        return true;
+    }
+
+    /**
+     * Undoes the last change recorded, patching only the tiles it changed.
+     * @param pixels the ARGB pixels of the image, row by row, changed in place.
+     * @return True if there was a change to undo.
+     */
+    public boolean undo(int[] pixels) {
+        if (undoable.isEmpty()) {
+            return false;
+        }
+        Change change = undoable.pop();
+        apply(change, pixels);
+        redoable.push(change);
+        return true;
+    }
+
+    /**
+     * Redoes the last change undone, patching only the tiles it changed.
+     * @param pixels the ARGB pixels of the image, row by row, changed in place.
+     * @return True if there was a change to redo.
+     */
+    public boolean redo(int[] pixels) {
+        if (redoable.isEmpty()) {
+            return false;
+        }
+        Change change = redoable.pop();
+        apply(change, pixels);
+        undoable.push(change);
+        return true;
+    }
+
+    /**
+     * Returns the bytes used by the changes kept. Safe to call from any thread.
+     * @return the bytes used, roughly.
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Forgets every change and frees the compressor, which holds memory outside the heap until it is ended.
+     * The history cannot be used once closed.
+     */
+    public void close() {
+        undoable.clear();
+        redoable.clear();
+        bytes = 0;
+        current = new int[0];
+        deflater.end();
+        inflater.end();
+    }
+
+    /**
+     * Flips the tiles of a change between before and after, in the kept image and in the given pixels.
+     * @param change the change to undo or redo.
+     * @param pixels the pixels of the image, changed in place.
+     */
+    private void apply(Change change, int[] pixels) {
+        for (Tile changed : change.tiles) {
+            decompress(changed.xor);
+            int tileWidth = Math.min(TILE_SIZE, width - changed.x);
+            int tileHeight = Math.min(TILE_SIZE, height - changed.y);
+            for (int row = 0; row < tileHeight; row++) {
+                int i = (changed.y + row) * width + changed.x;
+                for (int column = 0; column < tileWidth; column++) {
+                    current[i + column] ^= tile[row * TILE_SIZE + column];
+                }
+                System.arraycopy(current, i, pixels, i, tileWidth);
+            }
+        }
+    }
+
+    /**
+     * Reads the XOR of a tile of the image and the same tile of the kept image into tile.
+     * @param pixels the pixels of the image.
+     * @param x the x coordinate of the left of the tile.
+     * @param y the y coordinate of the top of the tile.
+     * @return True if any pixel of the tile has changed.
+     */
+    private boolean readXor(int[] pixels, int x, int y) {
+        int tileWidth = Math.min(TILE_SIZE, width - x);
+        int tileHeight = Math.min(TILE_SIZE, height - y);
+        boolean changed = false;
+        Arrays.fill(tile, 0);
+        for (int row = 0; row < tileHeight; row++) {
+            int i = (y + row) * width + x;
+            for (int column = 0; column < tileWidth; column++) {
+                int xor = pixels[i + column] ^ current[i + column];
+                tile[row * TILE_SIZE + column] = xor;
+                changed |= xor != 0;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Compresses tile.
+     * @return the compressed bytes of tile.
+     */
+    private byte[] compress() {
+        for (int i = 0; i < tile.length; i++) {
+            tileBytes[i * 4] = (byte) (tile[i] >>> 24);
+            tileBytes[i * 4 + 1] = (byte) (tile[i] >>> 16);
+            tileBytes[i * 4 + 2] = (byte) (tile[i] >>> 8);
+            tileBytes[i * 4 + 3] = (byte) tile[i];
+        }
+        deflater.reset();
+        deflater.setInput(tileBytes);
+        deflater.finish();
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == compressed.length) {
+                compressed = Arrays.copyOf(compressed, compressed.length * 2);
+            }
+            length += deflater.deflate(compressed, length, compressed.length - length);
+        }
+        return Arrays.copyOf(compressed, length);
+    }
+
+    /**
+     * Decompresses bytes made by compress into tile.
+     * @param xor the compressed bytes.
+     */
+    private void decompress(byte[] xor) {
+        inflater.reset();
+        inflater.setInput(xor);
+        try {
+            int length = 0;
+            while (length < tileBytes.length && !inflater.finished()) {
+                length += inflater.inflate(tileBytes, length, tileBytes.length - length);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Undo history is corrupt", e);
+        }
+        for (int i = 0; i < tile.length; i++) {
+            tile[i] = (tileBytes[i * 4] & 0xFF) << 24 | (tileBytes[i * 4 + 1] & 0xFF) << 16
+                    | (tileBytes[i * 4 + 2] & 0xFF) << 8 | tileBytes[i * 4 + 3] & 0xFF;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package io;
+
+import library.Library;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import resources.CopyData;
+import resources.Resource;
+import utils.EpochDates;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * <h1>JournalTest.</h1>
+ * <p>Tests that replaying the journal over the data files brings back the library as it was, that a torn last
+ * entry is ignored, and that compacting keeps the journal when the data files cannot be written.</p>
+ *
+ * @author Samuel Jankinson, James Carter, Etienne Badoche
+ */
+class JournalTest {
+    private static final long START = EpochDates.parse("01-06-2019 10:00:00"); //Time of the first change.
+    private static final long HOUR = 60 * 60 * 1000;
+    private static final Path DATA = Paths.get("data");
+    private static final Path BASE = Paths.get("base"); //The data files as they were before any change.
+    private static final Path JOURNAL = Paths.get(IO.getJournalFilePath());
+
+    @BeforeEach
+    void startLibrary() throws IOException {
+        SampleLibrary.reset();
+        Library.start();
+        SampleLibrary.copyDataFiles(DATA, BASE);
+    }
+
+    @AfterEach
+    void useClock() {
+        EpochDates.setNow(null);
+    }
+
+    @Test
+    void replayGivesTheSameLibrary() throws IOException {
+        makeChanges();
+        List<String> entries = Files.readAllLines(JOURNAL);
+        assertTrue(entries.stream().anyMatch(entry -> entry.contains("\"Type\":\"Loan\"")));
+        assertTrue(entries.stream().anyMatch(entry -> entry.contains("\"Type\":\"Return\"")));
+        assertTrue(SampleLibrary.writeAll());
+        Map<String, String> expected = SampleLibrary.readDataFiles();
+
+        restartFromBase();
+
+        assertTrue(SampleLibrary.writeAll());
+        SampleLibrary.assertDataFiles(expected);
+    }
+
+    @Test
+    void tornLastEntryIsIgnored() throws IOException {
+        makeChanges();
+        assertTrue(SampleLibrary.writeAll());
+        Map<String, String> expected = SampleLibrary.readDataFiles();
+
+        EpochDates.setNow(START + 40 * 24 * HOUR);
+        Library.addBalance(100, "pat42");
+        byte[] journal = Files.readAllBytes(JOURNAL);
+        int lastLine = lastIndexOf(journal, (byte) '\n', journal.length - 2) + 1;
+        //A crash part way through writing the last entry.
+        Files.write(JOURNAL, Arrays.copyOf(journal, lastLine + (journal.length - lastLine) / 2));
+
+        restartFromBase();
+        assertTrue(SampleLibrary.writeAll());
+        SampleLibrary.assertDataFiles(expected);
+
+        //Entries appended after the torn one are still replayed.
+        Library.addBalance(3, "pat42");
+        double balance = Library.getUser("pat42").getAccountBalanceDouble();
+        restartFromBase();
+        assertEquals(balance, Library.getUser("pat42").getAccountBalanceDouble());
+    }
+
+    @Test
+    void compactKeepsTheJournalWhenTheDataFilesCannotBeWritten() throws IOException {
+        makeChanges();
+        byte[] journal = Files.readAllBytes(JOURNAL);
+        Map<String, String> before = SampleLibrary.readDataFiles();
+        //The temporary users file cannot be written while a directory is in its place.
+        Path blocked = Paths.get(IO.getUsersFilePath() + ".tmp");
+        Files.createDirectories(blocked);
+
+        assertFalse(Journal.compact());
+        assertArrayEquals(journal, Files.readAllBytes(JOURNAL));
+        assertEquals(before, SampleLibrary.readDataFiles());
+
+        Files.delete(blocked);
+        assertTrue(Journal.compact());
+        assertFalse(Files.exists(JOURNAL));
+        assertNotEquals(before, SampleLibrary.readDataFiles());
+    }
+
+    /**
+     * Loans, returns, requests, pays and edits, each at a fixed time so replaying it gives the same dates.
+     */
+    private static void makeChanges() {
+        EpochDates.setNow(START);
+        String first = SampleLibrary.findFreeCopy(0);
+        Library.loanResource("pat42", first);
+
+        EpochDates.setNow(START + HOUR);
+        String wanted = SampleLibrary.findFreeCopy(0).split("-")[0];
+        Library.requestResource("pat42", wanted);
+        EpochDates.setNow(START + 2 * HOUR);
+        Library.loanResource("pat42", reservedCopy(wanted, "pat42"));
+
+        EpochDates.setNow(START + 3 * HOUR);
+        Library.requestResource("ben22", "LaptopID:1");
+        Library.cancelRequest("ben22", "LaptopID:1");
+
+        EpochDates.setNow(START + 30 * 24 * HOUR);
+        Library.returnResource("pat42", first);
+        Library.returnResource("ben22", "BookID:1-0");
+        Library.addBalance(5, "ben22");
+        Library.subtractBalance("pat420", 2, "ben22");
+        Library.changeTownName("ben22", "Swansea");
+    }
+
+    /**
+     * Finds the copy of a resource reserved for a user.
+     *
+     * @param resourceID the resource.
+     * @param username the user.
+     * @return the ID of the copy, e.g. "BookID:1-0".
+     */
+    private static String reservedCopy(String resourceID, String username) {
+        Resource r = Library.getResource(resourceID);
+        for (CopyData copy : r.getArrayListOfCopies()) {
+            if (username.equals(copy.getReservedUser())) {
+                return resourceID + "-" + copy.getId();
+            }
+        }
+        throw new AssertionError("No copy of " + resourceID + " is reserved for " + username);
+    }
+
+    /**
+     * Puts back the data files as they were before any change, keeping the journal, and starts the library
+     * again from them.
+     *
+     * @throws IOException if the files cannot be copied.
+     */
+    private static void restartFromBase() throws IOException {
+        EpochDates.setNow(null);
+        SampleLibrary.copyDataFiles(BASE, DATA);
+        Library.start();
+    }
+
+    /**
+     * Finds the last place a byte appears, searching back from an index.
+     *
+     * @param bytes the bytes to search.
+     * @param wanted the byte to find.
+     * @param from the index to search back from.
+     * @return the index of the byte, -1 if it is not there.
+     */
+    private static int lastIndexOf(byte[] bytes, byte wanted, int from) {
+        for (int i = from; i >= 0; i--) {
+            if (bytes[i] == wanted) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,124 @@
+package io;
+
+import library.Library;
+import library.LibraryResources;
+import resources.CopyData;
+import resources.Resource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * <h1>SampleLibrary.</h1>
+ * <p>Sets up ./data for a test from the sample data files in the repository, and reads back what the library
+ * wrote, so tests can start the library, change it, and compare the data files it writes.</p>
+ *
+ * @author Samuel Jankinson, James Carter, Etienne Badoche
+ */
+class SampleLibrary {
+    //The data files the library writes its state to.
+    static final String[] DATA_FILES = {IO.getUsersFilePath(), IO.getLibrarianFilePath(), IO.getResourceFilePath(),
+            IO.getEventFilepath()};
+
+    /**
+     * Empties ./data and copies the sample data files into it.
+     *
+     * @throws IOException if the files cannot be copied.
+     */
+    static void reset() throws IOException {
+        Path data = Paths.get("data");
+        if (Files.exists(data)) {
+            try (Stream<Path> files = Files.walk(data)) {
+                files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+            }
+        }
+        Files.createDirectories(data);
+        try (DirectoryStream<Path> sample = Files.newDirectoryStream(Paths.get(System.getProperty(
+                "library.sampleData")), "*.json")) {
+            for (Path file : sample) {
+                Files.copy(file, data.resolve(file.getFileName()));
+            }
+        }
+    }
+
+    /**
+     * Writes the whole library to the data files.
+     *
+     * @return True if every file was written.
+     */
+    static boolean writeAll() {
+        return WriteFile.fullWrite(Library.getAllUsers(), Library.getAllBooks(), Library.getAllDVD(),
+                Library.getAllLaptops(), Library.getAllVideoGames(), Library.getAllLibrarians(),
+                Library.getAllEvents());
+    }
+
+    /**
+     * Reads the data files the library writes its state to.
+     *
+     * @return path of each data file -> its contents.
+     * @throws IOException if a file cannot be read.
+     */
+    static Map<String, String> readDataFiles() throws IOException {
+        Map<String, String> contents = new HashMap<>();
+        for (String file : DATA_FILES) {
+            contents.put(file, new String(Files.readAllBytes(Paths.get(file)), StandardCharsets.UTF_8));
+        }
+        return contents;
+    }
+
+    /**
+     * Checks the data files hold what they held before.
+     *
+     * @param expected path of each data file -> what it should hold, as returned by readDataFiles.
+     * @throws IOException if a file cannot be read.
+     */
+    static void assertDataFiles(Map<String, String> expected) throws IOException {
+        Map<String, String> actual = readDataFiles();
+        for (String file : DATA_FILES) {
+            assertEquals(expected.get(file), actual.get(file), file);
+        }
+    }
+
+    /**
+     * Copies the data files, e.g. to put them back once the library has overwritten them.
+     *
+     * @param from the directory to copy from.
+     * @param to the directory to copy to.
+     * @throws IOException if a file cannot be copied.
+     */
+    static void copyDataFiles(Path from, Path to) throws IOException {
+        Files.createDirectories(to);
+        for (String file : DATA_FILES) {
+            Path name = Paths.get(file).getFileName();
+            Files.copy(from.resolve(name), to.resolve(name), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Finds a copy that can be loaned.
+     *
+     * @param skip how many free copies to pass over first.
+     * @return the ID of the copy, e.g. "BookID:1-0".
+     */
+    static String findFreeCopy(int skip) {
+        for (Resource r : LibraryResources.getAllResources()) {
+            for (CopyData copy : r.getArrayListOfCopies()) {
+                if (copy.isAvailable() && skip-- == 0) {
+                    return r.getUniqueID() + "-" + copy.getId();
+                }
+            }
+        }
+        throw new IllegalStateException("The sample library has too few free copies");
+    }
+}
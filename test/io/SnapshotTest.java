@@ -0,0 +1,139 @@
+package io;
+
+import library.Library;
+import library.LibraryResources;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import resources.CopyData;
+import resources.Resource;
+import utils.Metrics;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * <h1>SnapshotTest.</h1>
+ * <p>Tests that the binary snapshot holds exactly what the JSON data files hold, whether it is read in full
+ * or mapped, and that writing a mapped snapshot copies the borrow histories it never decoded.</p>
+ *
+ * @author Samuel Jankinson, James Carter, Etienne Badoche
+ */
+class SnapshotTest {
+    private static final String DECODED = "io.snapshot.historiesDecoded";
+
+    private Map<String, String> expected; //The data files as the library writes them after starting.
+
+    @BeforeEach
+    void startLibrary() throws IOException {
+        SampleLibrary.reset();
+        Library.start();
+        assertTrue(SampleLibrary.writeAll());
+        expected = SampleLibrary.readDataFiles();
+    }
+
+    @AfterEach
+    void useDataFiles() {
+        IO.setMappedSnapshot(false);
+        IO.setBinarySnapshot(false);
+    }
+
+    @Test
+    void convertingToAndFromJSONGivesTheSameDataFiles() throws IOException {
+        Snapshot.convertFromJSON();
+        assertTrue(Snapshot.exists());
+        for (String file : SampleLibrary.DATA_FILES) {
+            Files.delete(Paths.get(file));
+        }
+
+        Snapshot.convertToJSON();
+        SampleLibrary.assertDataFiles(expected);
+    }
+
+    @Test
+    void readSnapshotGivesTheSameLibrary() throws IOException {
+        writeSnapshot();
+
+        IO.setBinarySnapshot(true);
+        Library.start();
+        writeJSON();
+        SampleLibrary.assertDataFiles(expected);
+    }
+
+    @Test
+    void mappedSnapshotGivesTheSameLibrary() throws IOException {
+        writeSnapshot();
+
+        IO.setMappedSnapshot(true);
+        Library.start();
+        writeJSON();
+        SampleLibrary.assertDataFiles(expected);
+    }
+
+    @Test
+    void writingAMappedSnapshotCopiesUndecodedHistories() throws IOException {
+        writeSnapshot();
+        IO.setMappedSnapshot(true);
+        Library.start();
+        long decoded = decodedHistories();
+        assertTrue(decoded < copies(), "every borrow history was decoded on start");
+
+        //Written from the mapped snapshot, so the histories not yet used are copied across as they are.
+        IO.setBinarySnapshot(true);
+        assertTrue(SampleLibrary.writeAll());
+        assertEquals(decoded, decodedHistories());
+
+        IO.setMappedSnapshot(false);
+        IO.setBinarySnapshot(true);
+        Library.start();
+        writeJSON();
+        SampleLibrary.assertDataFiles(expected);
+    }
+
+    /**
+     * Writes the library to the snapshot, leaving the JSON data files as they are.
+     */
+    private static void writeSnapshot() {
+        IO.setBinarySnapshot(true);
+        assertTrue(SampleLibrary.writeAll());
+        IO.setBinarySnapshot(false);
+        assertTrue(Snapshot.exists());
+    }
+
+    /**
+     * Writes the library to the JSON data files, over what they held.
+     */
+    private static void writeJSON() {
+        IO.setMappedSnapshot(false);
+        IO.setBinarySnapshot(false);
+        assertTrue(SampleLibrary.writeAll());
+    }
+
+    /**
+     * Counts the borrow histories decoded from mapped snapshots so far.
+     * @return the number of histories decoded.
+     */
+    private static long decodedHistories() {
+        Number decoded = Metrics.snapshot().get(DECODED);
+        return decoded == null ? 0 : decoded.longValue();
+    }
+
+    /**
+     * Counts the copies in the library, each of which has a borrow history.
+     * @return the number of copies.
+     */
+    private static long copies() {
+        long copies = 0;
+        for (Resource r : LibraryResources.getAllResources()) {
+            for (CopyData copy : r.getArrayListOfCopies()) {
+                copies++;
+            }
+        }
+        return copies;
+    }
+}
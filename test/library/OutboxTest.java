@@ -0,0 +1,306 @@
+package library;
+
+import io.IO;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.mail.MessagingException;
+import javax.mail.internet.AddressException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * <h1>OutboxTest.</h1>
+ * <p>Tests that the Outbox sends its emails in batches, puts off emails that fail for longer each time, gives
+ * up on emails that cannot be delivered, and keeps emails not yet sent in the outbox file across a restart.
+ * Emails are sent to a fake mail transport that records them.</p>
+ *
+ * @author James Carter, Dominik Wojtasiewicz, Peter Daish
+ */
+@SuppressWarnings("unchecked")
+class OutboxTest {
+    private static final long FIRST_RETRY = 30 * 1000; //As in Outbox.
+    private static final Path OUTBOX = Paths.get(IO.getOutboxFilePath());
+
+    @BeforeEach
+    void emptyOutbox() throws Exception {
+        Outbox.stop();
+        Files.createDirectories(OUTBOX.getParent());
+        Files.deleteIfExists(OUTBOX);
+    }
+
+    @AfterEach
+    void stopOutbox() throws InterruptedException {
+        Outbox.stop();
+    }
+
+    @Test
+    void sendsWaitingEmailsInBatches() throws Exception {
+        List<String> addresses = new ArrayList<>();
+        for (int i = 0; i < 45; i++) {
+            addresses.add("user" + i + "@example.com");
+            Outbox.send(addresses.get(i), "Subject " + i, "Text " + i);
+        }
+
+        FakeTransport transport = new FakeTransport();
+        Outbox.start(transport);
+        awaitUntil("every email is sent", () -> transport.sent().size() == 45);
+
+        assertEquals(Arrays.asList(20, 20, 5), transport.batchSizes());
+        assertEquals(addresses, transport.sent());
+        awaitUntil("the outbox file is emptied", () -> readOutboxFile().isEmpty());
+        assertEquals(0, Outbox.getNoWaiting());
+    }
+
+    @Test
+    void emailsSurviveARestart() throws Exception {
+        //Sent while the library was closing, before the outbox sent them.
+        Outbox.send("a@example.com", "Subject", "Text");
+        Outbox.send("b@example.com", "Subject", "Text");
+        Outbox.send("c@example.com", "Subject", "Text");
+        assertEquals(3, readOutboxFile().size());
+
+        FakeTransport transport = new FakeTransport();
+        Outbox.start(transport);
+        awaitUntil("the emails left are sent", () -> transport.sent().size() == 3);
+        assertEquals(Arrays.asList("a@example.com", "b@example.com", "c@example.com"), transport.sent());
+    }
+
+    @Test
+    void unreadableLinesAreSkipped() throws Exception {
+        //A torn email, left by a crash while it was written, followed by one sent after the restart.
+        String lines = email("a@example.com", 0, 0).toJSONString() + "\n"
+                + "{\"address\":\"b@exa\n"
+                + email("c@example.com", 0, 0).toJSONString() + "\n";
+        Files.write(OUTBOX, lines.getBytes(StandardCharsets.UTF_8));
+
+        FakeTransport transport = new FakeTransport();
+        Outbox.start(transport);
+        awaitUntil("the readable emails are sent", () -> transport.sent().size() == 2);
+        assertEquals(Arrays.asList("a@example.com", "c@example.com"), transport.sent());
+        awaitUntil("the outbox file is emptied", () -> readOutboxFile().isEmpty());
+    }
+
+    @Test
+    void failedEmailsWaitTwiceAsLongEachTime() throws Exception {
+        int[] attemptsSoFar = {0, 1, 3, 6};
+        List<String> lines = new ArrayList<>();
+        for (int attempts : attemptsSoFar) {
+            lines.add(email(attempts + "@example.com", attempts, 0).toJSONString());
+        }
+        //The last attempt this email is given.
+        lines.add(email("7@example.com", 7, 0).toJSONString());
+        Files.write(OUTBOX, lines, StandardCharsets.UTF_8);
+
+        FakeTransport transport = new FakeTransport();
+        transport.failSends = true;
+        long before = System.currentTimeMillis();
+        Outbox.start(transport);
+        awaitUntil("the failures are written", () -> readOutboxFile().size() == attemptsSoFar.length
+                && ((Number) readOutboxFile().get(0).get("attempts")).intValue() == 1);
+        long after = System.currentTimeMillis();
+
+        Map<String, JSONObject> waiting = byAddress(readOutboxFile());
+        assertEquals(attemptsSoFar.length, waiting.size());
+        for (int attempts : attemptsSoFar) {
+            JSONObject email = waiting.get(attempts + "@example.com");
+            assertEquals(attempts + 1, ((Number) email.get("attempts")).intValue());
+            long wait = FIRST_RETRY << attempts;
+            long nextAttempt = ((Number) email.get("nextAttempt")).longValue();
+            assertTrue(nextAttempt >= before + wait && nextAttempt <= after + wait,
+                    "email tried " + (attempts + 1) + " times is put off for " + wait + "ms");
+        }
+        //Tried for the eighth time and given up on.
+        assertEquals(1, Collections.frequency(transport.tried(), "7@example.com"));
+        assertEquals(attemptsSoFar.length + 1, transport.tried().size());
+        assertEquals(attemptsSoFar.length, Outbox.getNoWaiting());
+    }
+
+    @Test
+    void failedConnectionPutsOffTheWholeBatch() throws Exception {
+        Files.write(OUTBOX, Arrays.asList(email("a@example.com", 0, 0).toJSONString(),
+                email("b@example.com", 0, 0).toJSONString()), StandardCharsets.UTF_8);
+
+        FakeTransport transport = new FakeTransport();
+        transport.failOpen = true;
+        Outbox.start(transport);
+        awaitUntil("the failures are written", () -> readOutboxFile().stream()
+                .allMatch(email -> ((Number) email.get("attempts")).intValue() == 1));
+        assertEquals(2, Outbox.getNoWaiting());
+        assertTrue(transport.tried().isEmpty());
+    }
+
+    @Test
+    void badAddressIsDroppedNotRetried() throws Exception {
+        Outbox.send("a@example.com", "Subject", "Text");
+        Outbox.send("not an address", "Subject", "Text");
+        Outbox.send("c@example.com", "Subject", "Text");
+
+        FakeTransport transport = new FakeTransport();
+        transport.badAddresses.add("not an address");
+        Outbox.start(transport);
+        awaitUntil("the good emails are sent", () -> transport.sent().size() == 2);
+        awaitUntil("the outbox file is emptied", () -> readOutboxFile().isEmpty());
+
+        assertEquals(Arrays.asList("a@example.com", "c@example.com"), transport.sent());
+        assertEquals(1, Collections.frequency(transport.tried(), "not an address"));
+        assertEquals(0, Outbox.getNoWaiting());
+    }
+
+    /**
+     * <h1>FakeTransport.</h1>
+     * <p>Records the emails it is given instead of sending them, and can be made to fail.</p>
+     */
+    private static class FakeTransport implements MailTransport {
+        private final List<List<String>> batches = new ArrayList<>(); //Addresses sent to over each connection.
+        private final List<String> tried = new ArrayList<>(); //Every address sent to, whether it worked or not.
+        private final Set<String> badAddresses = new HashSet<>(); //Addresses refused as invalid.
+        private volatile boolean failOpen; //True to fail every connection.
+        private volatile boolean failSends; //True to fail every email.
+        private List<String> current; //Addresses sent to over the open connection.
+
+        @Override
+        public synchronized void open() throws MessagingException {
+            if (failOpen) {
+                throw new MessagingException("The mail server is down");
+            }
+            current = new ArrayList<>();
+            batches.add(current);
+        }
+
+        @Override
+        public synchronized void send(String address, String subject, String text) throws MessagingException {
+            tried.add(address);
+            if (badAddresses.contains(address)) {
+                throw new AddressException("Illegal address", address);
+            }
+            if (failSends) {
+                throw new MessagingException("Could not send to " + address);
+            }
+            current.add(address);
+        }
+
+        @Override
+        public synchronized void close() {
+            current = null;
+        }
+
+        /**
+         * Lists the addresses sent to, in the order they were sent.
+         * @return the addresses.
+         */
+        private synchronized List<String> sent() {
+            List<String> sent = new ArrayList<>();
+            for (List<String> batch : batches) {
+                sent.addAll(batch);
+            }
+            return sent;
+        }
+
+        /**
+         * Lists the addresses the outbox tried to send to, including those that failed.
+         * @return the addresses.
+         */
+        private synchronized List<String> tried() {
+            return new ArrayList<>(tried);
+        }
+
+        /**
+         * Lists how many emails were sent over each connection.
+         * @return the number sent over each connection, in the order they were opened.
+         */
+        private synchronized List<Integer> batchSizes() {
+            List<Integer> sizes = new ArrayList<>();
+            for (List<String> batch : batches) {
+                sizes.add(batch.size());
+            }
+            return sizes;
+        }
+    }
+
+    /**
+     * Builds an email as it is written to the outbox file.
+     * @param address the address to send to.
+     * @param attempts the failed attempts to send it so far.
+     * @param nextAttempt the time to next try sending it.
+     * @return the email as JSON.
+     */
+    private static JSONObject email(String address, int attempts, long nextAttempt) {
+        JSONObject email = new JSONObject();
+        email.put("address", address);
+        email.put("subject", "Subject");
+        email.put("text", "Text");
+        email.put("attempts", attempts);
+        email.put("nextAttempt", nextAttempt);
+        return email;
+    }
+
+    /**
+     * Reads the emails in the outbox file.
+     * @return the emails, empty if there is no outbox file.
+     */
+    private static List<JSONObject> readOutboxFile() {
+        List<JSONObject> emails = new ArrayList<>();
+        try {
+            if (!Files.exists(OUTBOX)) {
+                return emails;
+            }
+            JSONParser parser = new JSONParser();
+            for (String line : Files.readAllLines(OUTBOX, StandardCharsets.UTF_8)) {
+                emails.add((JSONObject) parser.parse(line));
+            }
+        } catch (IOException | ParseException e) {
+            throw new AssertionError("Cannot read " + OUTBOX, e);
+        }
+        return emails;
+    }
+
+    /**
+     * Indexes emails by the address they are sent to.
+     * @param emails the emails.
+     * @return address -> email.
+     */
+    private static Map<String, JSONObject> byAddress(List<JSONObject> emails) {
+        Map<String, JSONObject> index = new HashMap<>();
+        for (JSONObject email : emails) {
+            index.put((String) email.get("address"), email);
+        }
+        return index;
+    }
+
+    /**
+     * Waits for the sender thread to do something.
+     * @param what what is waited for, for the failure message.
+     * @param done checks if it has been done.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    private static void awaitUntil(String what, BooleanSupplier done) throws InterruptedException {
+        long giveUp = System.currentTimeMillis() + 10 * 1000;
+        while (!done.getAsBoolean()) {
+            if (System.currentTimeMillis() > giveUp) {
+                fail("Timed out waiting until " + what);
+            }
+            Thread.sleep(10);
+        }
+    }
+}
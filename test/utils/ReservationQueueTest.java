@@ -0,0 +1,200 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * <h1>ReservationQueueTest.</h1>
+ * <p>Tests of ReservationQueue, both from one thread and from several threads at once.</p>
+ * @author James Carter, Deyan Naydenov, Peter Daish
+ */
+class ReservationQueueTest {
+    private static final int THREADS = 8;
+
+    @Test
+    void keepsElementsInOrder() {
+        ReservationQueue<String> queue = new ReservationQueue<>(5);
+        queue.offer("a");
+        queue.offer("b");
+        queue.offer("c");
+        assertEquals("a", queue.peek());
+        assertEquals("a", queue.poll());
+        assertEquals("b", queue.poll());
+        assertEquals("c", queue.poll());
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void refusesElementsOverCapacityUntilOneLeaves() {
+        ReservationQueue<String> queue = new ReservationQueue<>(2);
+        assertTrue(queue.offer("a"));
+        assertTrue(queue.offer("b"));
+        assertTrue(queue.isFull());
+        assertFalse(queue.offer("c"));
+        assertTrue(queue.remove("a"));
+        assertTrue(queue.offer("c"));
+        assertEquals(Arrays.asList("b", "c"), queue.toList());
+    }
+
+    @Test
+    void findsPositionsAfterRemovals() {
+        ReservationQueue<String> queue = new ReservationQueue<>(10);
+        for (String element : new String[] {"a", "b", "c", "d", "e"}) {
+            queue.offer(element);
+        }
+        assertTrue(queue.remove("b"));
+        assertTrue(queue.remove("d"));
+        assertFalse(queue.remove("d"));
+
+        assertEquals(0, queue.positionOf("a"));
+        assertEquals(1, queue.positionOf("c"));
+        assertEquals(2, queue.positionOf("e"));
+        assertEquals(-1, queue.positionOf("b"));
+        assertEquals(-1, queue.positionOf("d"));
+
+        assertEquals("a", queue.poll());
+        assertEquals(0, queue.positionOf("c"));
+        assertEquals(1, queue.positionOf("e"));
+        assertEquals(2, queue.size());
+    }
+
+    @Test
+    void iterationSkipsRemovedElements() {
+        ReservationQueue<Integer> queue = new ReservationQueue<>(10);
+        for (int i = 1; i <= 6; i++) {
+            queue.offer(i);
+        }
+        queue.remove(2);
+        queue.remove(4);
+        queue.remove(6); //The last node stays linked, so offers can follow it.
+        assertEquals(Arrays.asList(1, 3, 5), queue.toList());
+
+        queue.offer(7);
+        assertEquals(Arrays.asList(1, 3, 5, 7), queue.toList());
+        queue.remove(1);
+        assertEquals(Arrays.asList(3, 5, 7), queue.toList());
+        assertEquals(3, queue.peek());
+    }
+
+    @Test
+    void concurrentOffersNeverGoOverCapacity() throws Exception {
+        int capacity = 50;
+        ReservationQueue<String> queue = new ReservationQueue<>(capacity);
+        AtomicInteger accepted = new AtomicInteger();
+        runTogether(thread -> {
+            for (int i = 0; i < 100; i++) {
+                if (queue.offer(thread + "-" + i)) {
+                    accepted.incrementAndGet();
+                }
+            }
+        });
+
+        assertEquals(capacity, accepted.get());
+        assertEquals(capacity, queue.size());
+        List<String> elements = queue.toList();
+        assertEquals(capacity, elements.size());
+        assertEquals(capacity, new HashSet<>(elements).size());
+    }
+
+    @Test
+    void concurrentOffersRemovesAndPollsKeepCount() throws Exception {
+        int capacity = 16;
+        ReservationQueue<String> queue = new ReservationQueue<>(capacity);
+        AtomicInteger in = new AtomicInteger();
+        AtomicInteger out = new AtomicInteger();
+        AtomicInteger overCapacity = new AtomicInteger();
+        runTogether(thread -> {
+            Random random = new Random(thread);
+            List<String> mine = new ArrayList<>();
+            for (int i = 0; i < 20000; i++) {
+                int action = random.nextInt(3);
+                if (action == 0) {
+                    String element = thread + "-" + i;
+                    if (queue.offer(element)) {
+                        in.incrementAndGet();
+                        mine.add(element);
+                    }
+                } else if (action == 1) {
+                    if (queue.poll() != null) {
+                        out.incrementAndGet();
+                    }
+                } else if (!mine.isEmpty()) {
+                    if (queue.remove(mine.remove(random.nextInt(mine.size())))) {
+                        out.incrementAndGet();
+                    }
+                }
+                if (queue.size() > capacity) {
+                    overCapacity.incrementAndGet();
+                }
+            }
+        });
+
+        assertEquals(0, overCapacity.get());
+        assertEquals(in.get() - out.get(), queue.size());
+        List<String> left = queue.toList();
+        assertEquals(queue.size(), left.size());
+        assertEquals(left.size(), new HashSet<>(left).size());
+        for (int i = 0; i < left.size(); i++) {
+            assertEquals(i, queue.positionOf(left.get(i)));
+        }
+        while (queue.poll() != null) {
+            out.incrementAndGet();
+        }
+        assertEquals(in.get(), out.get());
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.size());
+    }
+
+    /**
+     * <h1>Worker.</h1>
+     * <p>The work of one of the threads.</p>
+     */
+    private interface Worker {
+        /**
+         * Does the work.
+         * @param thread the number of the thread, from 0.
+         */
+        void run(int thread);
+    }
+
+    /**
+     * Runs the same work on THREADS threads, all starting at once, and waits for them to finish.
+     * @param worker the work to run.
+     * @throws Exception if the work failed on any thread.
+     */
+    private static void runTogether(Worker worker) throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> done = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            done.add(threads.submit(() -> {
+                start.await();
+                worker.run(thread);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : done) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        threads.shutdown();
+    }
+}